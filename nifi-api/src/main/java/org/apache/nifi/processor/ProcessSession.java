@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 import org.apache.nifi.controller.queue.QueueSize;
@@ -98,6 +99,84 @@ public interface ProcessSession {
      */
     void commit();
 
+    /**
+     * Commits the current session in the same manner as {@link #commitAsync(Runnable, Consumer)},
+     * without being notified of the outcome.
+     *
+     * @throws IllegalStateException if detected that this method is being
+     * called from within a callback of another method in this session.
+     * @throws FlowFileHandlingException if not all FlowFiles acted upon within
+     * this session are accounted for by user code such that they have a
+     * transfer identified or where marked for removal. Automated rollback
+     * occurs.
+     * @throws ProcessException if the session is persisted by the calling
+     * thread and some general fault occurs while persisting the session.
+     * Initiates automatic rollback.
+     */
+    default void commitAsync() {
+        commitAsync(null, null);
+    }
+
+    /**
+     * <p>
+     * Commits the current session, allowing the changes to be persisted after
+     * this method returns. The FlowFiles within this session are validated
+     * before this method returns, exactly as they are by {@link #commit()}, and
+     * as soon as this method returns the session is again ready to be used.
+     * Persisting the session, however, may be handed off to another thread, in
+     * which case the FlowFiles that were transferred do not become available to
+     * the destination queues until some time after this method returns.
+     * </p>
+     *
+     * <p>
+     * If the session is persisted successfully, <code>onSuccess</code> is
+     * called. If persisting the session fails, the session is rolled back and
+     * <code>onFailure</code> is called with the cause of the failure. Either
+     * callback may be called by a thread other than the one that called this
+     * method, so neither may make use of this session. If no
+     * <code>onFailure</code> callback is provided, the failure is thrown if the
+     * session was persisted by the calling thread, and is logged otherwise.
+     * </p>
+     *
+     * <p>
+     * The default implementation persists the session by calling
+     * {@link #commit()} before returning.
+     * </p>
+     *
+     * @param onSuccess called once the session has been persisted, may be null
+     * @param onFailure called with the cause of the failure if the session
+     * could not be persisted and was rolled back, may be null
+     *
+     * @throws IllegalStateException if detected that this method is being
+     * called from within a callback of another method in this session.
+     * @throws FlowFileHandlingException if not all FlowFiles acted upon within
+     * this session are accounted for by user code such that they have a
+     * transfer identified or where marked for removal. Automated rollback
+     * occurs.
+     * @throws ProcessException if the session is persisted by the calling
+     * thread, no <code>onFailure</code> callback is provided and some general
+     * fault occurs while persisting the session. Initiates automatic rollback.
+     */
+    default void commitAsync(final Runnable onSuccess, final Consumer<Throwable> onFailure) {
+        try {
+            commit();
+        } catch (final FlowFileHandlingException | IllegalStateException e) {
+            // the session is not valid, which is always reported to the caller
+            throw e;
+        } catch (final Throwable t) {
+            if (onFailure == null) {
+                throw t;
+            }
+
+            onFailure.accept(t);
+            return;
+        }
+
+        if (onSuccess != null) {
+            onSuccess.run();
+        }
+    }
+
     /**
      * Reverts any changes made during this session. All FlowFiles are restored
      * back to their initial session state and back to their original queues. If
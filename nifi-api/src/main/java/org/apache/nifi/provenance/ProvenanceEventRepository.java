@@ -17,7 +17,15 @@
 package org.apache.nifi.provenance;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This Repository houses Provenance Events. The repository is responsible for
@@ -69,6 +77,70 @@ public interface ProvenanceEventRepository {
      */
     List<ProvenanceEventRecord> getEvents(long firstRecordId, final int maxRecords) throws IOException;
 
+    /**
+     * Returns a Stream of the <code>ProvenanceEventRecord</code>s in the
+     * repository starting with the given ID, in order of ID. Unlike
+     * {@link #getEvents(long, int)}, the events are read as the Stream is
+     * consumed, so the amount of memory that is required does not depend on
+     * the number of events. The Stream should be closed once it is no longer
+     * needed. If the repository cannot be read while the Stream is being
+     * consumed, an {@link UncheckedIOException} is thrown. This method
+     * performs no authorization of the events.
+     *
+     * <p>
+     * The default implementation retrieves the events in pages by calling
+     * {@link #getEvents(long, int)}.
+     * </p>
+     *
+     * @param firstRecordId id of the first record to retrieve
+     * @param maxRecords maximum number of records to retrieve
+     * @return a Stream of the records
+     * @throws java.io.IOException if error reading from repository
+     */
+    default Stream<ProvenanceEventRecord> streamEvents(final long firstRecordId, final int maxRecords) throws IOException {
+        final int pageSize = 1000;
+        final List<ProvenanceEventRecord> firstPage = maxRecords < 1 ? Collections.emptyList() : getEvents(firstRecordId, Math.min(pageSize, maxRecords));
+
+        final Iterator<ProvenanceEventRecord> pageIterator = new Iterator<ProvenanceEventRecord>() {
+            private List<ProvenanceEventRecord> page = firstPage;
+            private int pageIndex = 0;
+            private int recordCount = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (recordCount >= maxRecords || page.isEmpty()) {
+                    return false;
+                }
+
+                if (pageIndex < page.size()) {
+                    return true;
+                }
+
+                final long nextRecordId = page.get(page.size() - 1).getEventId() + 1;
+                try {
+                    page = getEvents(nextRecordId, Math.min(pageSize, maxRecords - recordCount));
+                } catch (final IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+
+                pageIndex = 0;
+                return !page.isEmpty();
+            }
+
+            @Override
+            public ProvenanceEventRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                recordCount++;
+                return page.get(pageIndex++);
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pageIterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
 
     /**
      * @return the largest ID of any event that is queryable in the repository.
@@ -71,7 +71,18 @@ public enum SchedulingStrategy {
      * Indicates that the component will be scheduled to run according to a
      * Cron-style expression
      */
-    CRON_DRIVEN(1, "* * * * * ?");
+    CRON_DRIVEN(1, "* * * * * ?"),
+    /**
+     * Components should be scheduled to run on a periodic interval that is
+     * user-defined with a user-defined number of concurrent tasks, in the same
+     * manner as {@link #TIMER_DRIVEN}, except that each concurrent task is run
+     * on a lightweight virtual thread, where the JVM supports them, rather than
+     * on a thread from the Timer-Driven thread pool. The virtual threads are run
+     * on a separate, bounded set of carrier threads. This allows Components that
+     * spend most of their time blocked on I/O to be given thousands of
+     * concurrent tasks without taking threads away from other Components.
+     */
+    VIRTUAL_THREAD_DRIVEN(1, "0 sec");
 
     private final int defaultConcurrentTasks;
     private final String defaultSchedulingPeriod;
@@ -18,6 +18,7 @@ package org.apache.nifi.attribute.expression.language;
 
 import org.antlr.runtime.tree.Tree;
 import org.apache.nifi.attribute.expression.language.compile.ExpressionCompiler;
+import org.apache.nifi.attribute.expression.language.compile.FusedExpressionCompiler;
 import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.EvaluatorState;
 import org.apache.nifi.attribute.expression.language.evaluation.QueryResult;
@@ -46,6 +47,13 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class Query {
 
+    /**
+     * Name of the System Property that, if set to <code>true</code>, causes prepared Expressions to be fused by the {@link FusedExpressionCompiler}
+     * so that the most commonly used functions are evaluated without going through the interpreter
+     */
+    public static final String FUSE_EXPRESSIONS_PROPERTY = "nifi.expression.language.fuse";
+    private static final boolean FUSE_EXPRESSIONS = Boolean.getBoolean(FUSE_EXPRESSIONS_PROPERTY);
+
     private final String query;
     private final Tree tree;
     private final Evaluator<?> evaluator;
@@ -356,6 +364,7 @@ public class Query {
         }
 
         final ExpressionCompiler compiler = new ExpressionCompiler();
+        final FusedExpressionCompiler fusedCompiler = FUSE_EXPRESSIONS ? new FusedExpressionCompiler() : null;
 
         try {
             final List<Expression> expressions = new ArrayList<>();
@@ -363,7 +372,8 @@ public class Query {
             int lastIndex = 0;
             for (final Range range : ranges) {
                 final String treeText = unescapeLeadingDollarSigns(query.substring(range.getStart(), range.getEnd() + 1));
-                final CompiledExpression compiledExpression = compiler.compile(treeText);
+                final CompiledExpression interpretedExpression = compiler.compile(treeText);
+                final CompiledExpression compiledExpression = fusedCompiler == null ? interpretedExpression : fusedCompiler.fuse(interpretedExpression);
 
                 if (range.getStart() > lastIndex) {
                     String substring = unescapeLeadingDollarSigns(query.substring(lastIndex, range.getStart()));
@@ -0,0 +1,474 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.attribute.expression.language.compile;
+
+import org.antlr.runtime.tree.Tree;
+import org.apache.nifi.attribute.expression.language.CompiledExpression;
+import org.apache.nifi.attribute.expression.language.EvaluationContext;
+import org.apache.nifi.attribute.expression.language.StandardEvaluationContext;
+import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.literals.BooleanLiteralEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.literals.DecimalLiteralEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.literals.StringLiteralEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.literals.WholeNumberLiteralEvaluator;
+import org.apache.nifi.expression.AttributeExpression.ResultType;
+import org.apache.nifi.expression.AttributeValueDecorator;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.AND;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.APPEND;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.ATTRIBUTE_REFERENCE;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.CONTAINS;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.ENDS_WITH;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.EQUALS;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.EQUALS_IGNORE_CASE;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.EXPRESSION;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.IS_EMPTY;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.IS_NULL;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.LENGTH;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.MULTI_ATTRIBUTE_REFERENCE;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.NOT;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.NOT_NULL;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.OR;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.PREPEND;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.REPLACE;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.REPLACE_EMPTY;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.REPLACE_NULL;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.STARTS_WITH;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.SUBSTRING_AFTER;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.SUBSTRING_BEFORE;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.TO_LOWER;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.TO_UPPER;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.TRIM;
+
+/**
+ * <p>
+ * Compiles the tree of an Expression that has already been compiled by the {@link ExpressionCompiler} into a chain of fused evaluators.
+ * A fused evaluator returns the raw value of the function that it evaluates and calls directly into the fused evaluator of its subject and
+ * arguments, so evaluating a fused Expression does not create a {@link org.apache.nifi.attribute.expression.language.evaluation.QueryResult}
+ * for each function in the chain, or a {@link org.apache.nifi.attribute.expression.language.Query} for each evaluation.
+ * </p>
+ *
+ * <p>
+ * Only attribute references, literals and the most commonly used String and Boolean functions are fused. Any other part of the tree,
+ * including any Expression that references multiple attributes, is evaluated by the interpreter, so the result of evaluating a fused
+ * Expression is always the same as the result of evaluating the Expression that it was compiled from.
+ * </p>
+ */
+public class FusedExpressionCompiler {
+
+    /**
+     * Fuses the given Expression
+     *
+     * @param compiledExpression the Expression to fuse
+     * @return an Expression that evaluates to the same values as the given Expression, or the given Expression itself if no part of it can be fused
+     */
+    public CompiledExpression fuse(final CompiledExpression compiledExpression) {
+        final FusedNode root = compileOperand(compiledExpression.getTree());
+        if (root == null || root.interpreted) {
+            return compiledExpression;
+        }
+
+        return new FusedExpression(compiledExpression, root.evaluator);
+    }
+
+    private FusedNode compileExpression(final Tree tree) {
+        FusedNode subject = compileOperand(tree.getChild(0));
+        for (int i = 1; i < tree.getChildCount() && subject != null; i++) {
+            subject = compileFunction(tree.getChild(i), subject);
+        }
+
+        return subject == null ? interpret(tree) : subject;
+    }
+
+    private FusedNode compileOperand(final Tree tree) {
+        switch (tree.getType()) {
+            case EXPRESSION:
+                return compileExpression(tree);
+            case ATTRIBUTE_REFERENCE:
+                return compileAttributeReference(tree);
+            case MULTI_ATTRIBUTE_REFERENCE:
+                return null;
+            default:
+                return compileLeaf(tree);
+        }
+    }
+
+    private FusedNode compileAttributeReference(final Tree tree) {
+        final Tree nameTree = tree.getChild(0);
+        if (nameTree.getType() == MULTI_ATTRIBUTE_REFERENCE) {
+            // the functions applied to the attributes must be evaluated once per attribute, which only the interpreter does
+            return null;
+        }
+
+        final FusedNode nameNode = compileOperand(nameTree);
+        if (nameNode == null) {
+            return null;
+        }
+
+        if (nameNode.constant) {
+            final String attributeName = toString(nameNode.constantValue);
+            return FusedNode.fused(ResultType.STRING, context -> context.getExpressionValue(attributeName));
+        }
+
+        final FusedEvaluator nameEvaluator = toStringEvaluator(nameNode);
+        return FusedNode.fused(ResultType.STRING, context -> context.getExpressionValue((String) nameEvaluator.evaluate(context)));
+    }
+
+    private FusedNode compileLeaf(final Tree tree) {
+        // Let the interpreter deal with escaping and embedded Expressions, and keep the value if it turns out to be a literal
+        final Evaluator<?> evaluator = new ExpressionCompiler().buildEvaluator(tree);
+        if (evaluator instanceof StringLiteralEvaluator || evaluator instanceof WholeNumberLiteralEvaluator
+            || evaluator instanceof DecimalLiteralEvaluator || evaluator instanceof BooleanLiteralEvaluator) {
+
+            final Object value = evaluator.evaluate(new StandardEvaluationContext(Collections.emptyMap())).getValue();
+            return FusedNode.constant(evaluator.getResultType(), value);
+        }
+
+        return FusedNode.interpreted(evaluator);
+    }
+
+    private FusedNode interpret(final Tree tree) {
+        return FusedNode.interpreted(new ExpressionCompiler().buildEvaluator(tree));
+    }
+
+    private FusedNode compileFunction(final Tree functionTree, final FusedNode subject) {
+        final Tree functionNameTree = functionTree.getChild(0);
+        final int argCount = functionTree.getChildCount() - 1;
+
+        switch (functionNameTree.getType()) {
+            case TO_UPPER:
+                return argCount == 0 ? stringFunction(subject, value -> value == null ? null : value.toUpperCase()) : null;
+            case TO_LOWER:
+                return argCount == 0 ? stringFunction(subject, value -> value == null ? null : value.toLowerCase()) : null;
+            case TRIM:
+                return argCount == 0 ? stringFunction(subject, value -> value == null ? null : value.trim()) : null;
+            case LENGTH: {
+                if (argCount != 0) {
+                    return null;
+                }
+
+                final FusedEvaluator subjectEvaluator = toStringEvaluator(subject);
+                return FusedNode.fused(ResultType.WHOLE_NUMBER, context -> {
+                    final String value = (String) subjectEvaluator.evaluate(context);
+                    return (long) (value == null ? 0 : value.length());
+                });
+            }
+            case IS_NULL: {
+                if (argCount != 0) {
+                    return null;
+                }
+
+                final FusedEvaluator subjectEvaluator = subject.evaluator;
+                return FusedNode.fused(ResultType.BOOLEAN, context -> subjectEvaluator.evaluate(context) == null);
+            }
+            case NOT_NULL: {
+                if (argCount != 0) {
+                    return null;
+                }
+
+                final FusedEvaluator subjectEvaluator = subject.evaluator;
+                return FusedNode.fused(ResultType.BOOLEAN, context -> subjectEvaluator.evaluate(context) != null);
+            }
+            case IS_EMPTY: {
+                if (argCount != 0) {
+                    return null;
+                }
+
+                final FusedEvaluator subjectEvaluator = toStringEvaluator(subject);
+                return FusedNode.fused(ResultType.BOOLEAN, context -> isEmpty((String) subjectEvaluator.evaluate(context)));
+            }
+            case NOT: {
+                final FusedEvaluator subjectEvaluator = toBooleanEvaluator(subject);
+                if (argCount != 0 || subjectEvaluator == null) {
+                    return null;
+                }
+
+                return FusedNode.fused(ResultType.BOOLEAN, context -> !((Boolean) subjectEvaluator.evaluate(context)));
+            }
+            case AND:
+            case OR: {
+                final FusedNode arg = compileArgument(functionTree, argCount, 1);
+                if (arg == null) {
+                    return null;
+                }
+
+                final FusedEvaluator subjectEvaluator = toBooleanEvaluator(subject);
+                final FusedEvaluator argEvaluator = toBooleanEvaluator(arg);
+                if (subjectEvaluator == null || argEvaluator == null) {
+                    return null;
+                }
+
+                // the subject determines the result on its own if it is false for 'and' or true for 'or'
+                final Boolean shortCircuitValue = functionNameTree.getType() == OR;
+                return FusedNode.fused(ResultType.BOOLEAN, context -> {
+                    if (shortCircuitValue.equals(subjectEvaluator.evaluate(context))) {
+                        return shortCircuitValue;
+                    }
+
+                    return argEvaluator.evaluate(context);
+                });
+            }
+            case EQUALS: {
+                final FusedNode arg = compileArgument(functionTree, argCount, 1);
+                if (arg == null) {
+                    return null;
+                }
+
+                return compileEquals(subject, arg);
+            }
+            case EQUALS_IGNORE_CASE:
+                return stringPredicate(subject, compileArgument(functionTree, argCount, 1), String::equalsIgnoreCase);
+            case STARTS_WITH:
+                return stringPredicate(subject, compileArgument(functionTree, argCount, 1), String::startsWith);
+            case ENDS_WITH:
+                return stringPredicate(subject, compileArgument(functionTree, argCount, 1), String::endsWith);
+            case CONTAINS:
+                return stringPredicate(subject, compileArgument(functionTree, argCount, 1), String::contains);
+            case APPEND:
+                return stringFunction(subject, compileArgument(functionTree, argCount, 1), (value, arg) -> (value == null ? "" : value) + (arg == null ? "" : arg));
+            case PREPEND:
+                return stringFunction(subject, compileArgument(functionTree, argCount, 1), (value, arg) -> (arg == null ? "" : arg) + (value == null ? "" : value));
+            case REPLACE_NULL:
+                return stringFunction(subject, compileArgument(functionTree, argCount, 1), (value, arg) -> value == null ? arg : value);
+            case REPLACE_EMPTY:
+                return stringFunction(subject, compileArgument(functionTree, argCount, 1), (value, arg) -> isEmpty(value) ? arg : value);
+            case SUBSTRING_BEFORE:
+                return stringFunction(subject, compileArgument(functionTree, argCount, 1), (value, arg) -> {
+                    if (value == null) {
+                        return "";
+                    }
+
+                    final int index = arg == null || arg.isEmpty() ? -1 : value.indexOf(arg);
+                    return index < 0 ? value : value.substring(0, index);
+                });
+            case SUBSTRING_AFTER:
+                return stringFunction(subject, compileArgument(functionTree, argCount, 1), (value, arg) -> {
+                    if (value == null) {
+                        return "";
+                    }
+
+                    final int index = arg == null || arg.isEmpty() ? -1 : value.indexOf(arg);
+                    return index < 0 ? value : value.substring(index + arg.length());
+                });
+            case REPLACE: {
+                final FusedNode search = compileArgument(functionTree, argCount, 2);
+                final FusedNode replacement = argCount == 2 ? compileOperand(functionTree.getChild(2)) : null;
+                if (search == null || replacement == null) {
+                    return null;
+                }
+
+                final FusedEvaluator subjectEvaluator = toStringEvaluator(subject);
+                final FusedEvaluator searchEvaluator = toStringEvaluator(search);
+                final FusedEvaluator replacementEvaluator = toStringEvaluator(replacement);
+                return FusedNode.fused(ResultType.STRING, context -> {
+                    final String value = (String) subjectEvaluator.evaluate(context);
+                    if (value == null) {
+                        return null;
+                    }
+
+                    return value.replace((String) searchEvaluator.evaluate(context), (String) replacementEvaluator.evaluate(context));
+                });
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Compiles the first argument of the given function, provided that the function has the expected number of arguments
+     */
+    private FusedNode compileArgument(final Tree functionTree, final int argCount, final int expectedArgCount) {
+        if (argCount != expectedArgCount) {
+            return null;
+        }
+
+        return compileOperand(functionTree.getChild(1));
+    }
+
+    private FusedNode compileEquals(final FusedNode subject, final FusedNode arg) {
+        final FusedEvaluator subjectEvaluator = subject.evaluator;
+        final FusedEvaluator argEvaluator = arg.evaluator;
+
+        if (subject.resultType == arg.resultType) {
+            return FusedNode.fused(ResultType.BOOLEAN, context -> {
+                final Object value = subjectEvaluator.evaluate(context);
+                if (value == null) {
+                    return false;
+                }
+
+                final Object argValue = argEvaluator.evaluate(context);
+                return argValue != null && value.equals(argValue);
+            });
+        }
+
+        final ResultType subjectType = subject.resultType;
+        final ResultType argType = arg.resultType;
+        return FusedNode.fused(ResultType.BOOLEAN, context -> {
+            final Object value = subjectEvaluator.evaluate(context);
+            if (value == null) {
+                return false;
+            }
+
+            final Object argValue = argEvaluator.evaluate(context);
+            return argValue != null && normalize(subjectType, value).equals(normalize(argType, argValue));
+        });
+    }
+
+    private FusedNode stringFunction(final FusedNode subject, final StringFunction function) {
+        final FusedEvaluator subjectEvaluator = toStringEvaluator(subject);
+        return FusedNode.fused(ResultType.STRING, context -> function.apply((String) subjectEvaluator.evaluate(context)));
+    }
+
+    private FusedNode stringFunction(final FusedNode subject, final FusedNode arg, final StringBiFunction function) {
+        if (arg == null) {
+            return null;
+        }
+
+        final FusedEvaluator subjectEvaluator = toStringEvaluator(subject);
+        final FusedEvaluator argEvaluator = toStringEvaluator(arg);
+        return FusedNode.fused(ResultType.STRING, context -> function.apply((String) subjectEvaluator.evaluate(context), (String) argEvaluator.evaluate(context)));
+    }
+
+    private FusedNode stringPredicate(final FusedNode subject, final FusedNode arg, final StringPredicate predicate) {
+        if (arg == null) {
+            return null;
+        }
+
+        final FusedEvaluator subjectEvaluator = toStringEvaluator(subject);
+        final FusedEvaluator argEvaluator = toStringEvaluator(arg);
+        return FusedNode.fused(ResultType.BOOLEAN, context -> {
+            final String value = (String) subjectEvaluator.evaluate(context);
+            if (value == null) {
+                return false;
+            }
+
+            final String argValue = (String) argEvaluator.evaluate(context);
+            return argValue != null && predicate.test(value, argValue);
+        });
+    }
+
+    private FusedEvaluator toStringEvaluator(final FusedNode node) {
+        if (node.resultType == ResultType.STRING) {
+            return node.evaluator;
+        }
+
+        final FusedEvaluator evaluator = node.evaluator;
+        return context -> toString(evaluator.evaluate(context));
+    }
+
+    private FusedEvaluator toBooleanEvaluator(final FusedNode node) {
+        switch (node.resultType) {
+            case BOOLEAN:
+                return node.evaluator;
+            case STRING: {
+                final FusedEvaluator evaluator = node.evaluator;
+                return context -> {
+                    final String value = (String) evaluator.evaluate(context);
+                    return value == null ? null : Boolean.valueOf(value.trim());
+                };
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static String toString(final Object value) {
+        return value == null ? null : String.valueOf(value);
+    }
+
+    private static boolean isEmpty(final String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static String normalize(final ResultType resultType, final Object value) {
+        if (resultType == ResultType.DATE) {
+            return String.valueOf(((Date) value).getTime());
+        }
+
+        return String.valueOf(value);
+    }
+
+    /**
+     * Evaluates a single function of an Expression, returning the raw value rather than a QueryResult
+     */
+    private interface FusedEvaluator {
+        Object evaluate(EvaluationContext evaluationContext);
+    }
+
+    private interface StringFunction {
+        String apply(String value);
+    }
+
+    private interface StringBiFunction {
+        String apply(String value, String arg);
+    }
+
+    private interface StringPredicate {
+        boolean test(String value, String arg);
+    }
+
+    private static class FusedNode {
+        private final ResultType resultType;
+        private final FusedEvaluator evaluator;
+        private final boolean constant;
+        private final Object constantValue;
+        private final boolean interpreted;
+
+        private FusedNode(final ResultType resultType, final FusedEvaluator evaluator, final boolean constant, final Object constantValue, final boolean interpreted) {
+            this.resultType = resultType;
+            this.evaluator = evaluator;
+            this.constant = constant;
+            this.constantValue = constantValue;
+            this.interpreted = interpreted;
+        }
+
+        static FusedNode fused(final ResultType resultType, final FusedEvaluator evaluator) {
+            return new FusedNode(resultType, evaluator, false, null, false);
+        }
+
+        static FusedNode constant(final ResultType resultType, final Object value) {
+            return new FusedNode(resultType, context -> value, true, value, false);
+        }
+
+        static FusedNode interpreted(final Evaluator<?> evaluator) {
+            return new FusedNode(evaluator.getResultType(), context -> evaluator.evaluate(context).getValue(), false, null, true);
+        }
+    }
+
+    private static class FusedExpression extends CompiledExpression {
+        private final FusedEvaluator rootEvaluator;
+
+        FusedExpression(final CompiledExpression compiledExpression, final FusedEvaluator rootEvaluator) {
+            super(compiledExpression.getExpression(), compiledExpression.getRootEvaluator(), compiledExpression.getTree(), compiledExpression.getAllEvaluators());
+            this.rootEvaluator = rootEvaluator;
+        }
+
+        @Override
+        public String evaluate(final EvaluationContext evaluationContext, final AttributeValueDecorator decorator) {
+            final Object evaluated = rootEvaluator.evaluate(evaluationContext);
+            if (evaluated == null) {
+                return null;
+            }
+
+            final String value = evaluated.toString();
+            return decorator == null ? value : decorator.decorate(value);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.attribute.expression.language.compile;
+
+import org.apache.nifi.attribute.expression.language.CompiledExpression;
+import org.apache.nifi.attribute.expression.language.StandardEvaluationContext;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TestFusedExpressionCompiler {
+
+    private static final List<String> EXPRESSIONS = Arrays.asList(
+        "${a}",
+        "${'a'}",
+        "${a:toUpper()}",
+        "${a:toLower():trim()}",
+        "${a:append('-'):append(${b}):prepend('<'):append('>')}",
+        "${a:length()}",
+        "${a:length():equals(3)}",
+        "${a:equals('abc')}",
+        "${a:equals(${b})}",
+        "${a:equalsIgnoreCase('ABC')}",
+        "${a:startsWith('a')}",
+        "${a:endsWith(${b})}",
+        "${a:contains('b')}",
+        "${a:isNull()}",
+        "${a:notNull()}",
+        "${a:isEmpty()}",
+        "${a:isEmpty():not()}",
+        "${a:equals('abc'):and(${b:equals('xyz')})}",
+        "${a:equals('abc'):or(${b:equals('xyz')})}",
+        "${flag:and(true)}",
+        "${flag:or(false)}",
+        "${a:replaceNull('none')}",
+        "${a:replaceEmpty('empty')}",
+        "${a:substringBefore('b')}",
+        "${a:substringAfter('b')}",
+        "${a:replace('b', 'B')}",
+        "${a:replace('b', ${b})}",
+        "${${name}}",
+        "${a:append('\\t\\n')}",
+        "${a:append(${b:substring(1)})}",
+        "${a:append(${number:plus(1)})}",
+        "${a:substring(1):toUpper()}",
+        "${number:equals(42)}",
+        "${number:toNumber():equals('42')}",
+        "${'a':toUpper()}"
+    );
+
+    @Test
+    public void testFusedEvaluatesToSameValueAsInterpreted() {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("a", "abc");
+        attributes.put("b", "xyz");
+        attributes.put("name", "a");
+        attributes.put("number", "42");
+        attributes.put("flag", "true");
+        verifySameValues(attributes);
+
+        attributes.put("a", "  ");
+        attributes.put("b", "b");
+        attributes.put("flag", "false");
+        verifySameValues(attributes);
+
+        attributes.put("a", " ABC ");
+        attributes.put("name", "missing");
+        verifySameValues(attributes);
+
+        final Map<String, String> onlyNumber = Collections.singletonMap("number", "7");
+        for (final String expression : EXPRESSIONS) {
+            if (expression.contains("substring(") || expression.contains("${${")) {
+                // these are only valid when the referenced attributes are present
+                continue;
+            }
+
+            verifySameValue(expression, onlyNumber);
+        }
+    }
+
+    @Test
+    public void testFusedOnlyWhenWorthwhile() {
+        final ExpressionCompiler compiler = new ExpressionCompiler();
+        final FusedExpressionCompiler fusedCompiler = new FusedExpressionCompiler();
+
+        final CompiledExpression attribute = compiler.compile("${a:toUpper()}");
+        assertNotSame(attribute, fusedCompiler.fuse(attribute));
+
+        final CompiledExpression interpretedChain = compiler.compile("${a:toUpper():substring(1)}");
+        assertSame(interpretedChain, fusedCompiler.fuse(interpretedChain));
+
+        final CompiledExpression multipleAttributes = compiler.compile("${anyAttribute('a', 'b'):equals('abc')}");
+        assertSame(multipleAttributes, fusedCompiler.fuse(multipleAttributes));
+
+        final CompiledExpression standaloneFunction = compiler.compile("${literal('abc')}");
+        assertSame(standaloneFunction, fusedCompiler.fuse(standaloneFunction));
+    }
+
+    @Test
+    public void testFusedKeepsEvaluatorsOfInterpretedExpression() {
+        final CompiledExpression interpreted = new ExpressionCompiler().compile("${a:append(${b})}");
+        final CompiledExpression fused = new FusedExpressionCompiler().fuse(interpreted);
+
+        assertSame(interpreted.getRootEvaluator(), fused.getRootEvaluator());
+        assertSame(interpreted.getAllEvaluators(), fused.getAllEvaluators());
+        assertEquals(interpreted.getExpression(), fused.getExpression());
+    }
+
+    private void verifySameValues(final Map<String, String> attributes) {
+        for (final String expression : EXPRESSIONS) {
+            verifySameValue(expression, attributes);
+        }
+    }
+
+    private void verifySameValue(final String expression, final Map<String, String> attributes) {
+        final CompiledExpression interpreted = new ExpressionCompiler().compile(expression);
+        final CompiledExpression fused = new FusedExpressionCompiler().fuse(interpreted);
+
+        final String expected = interpreted.evaluate(new StandardEvaluationContext(attributes), null);
+        final String actual = fused.evaluate(new StandardEvaluationContext(attributes), null);
+        assertEquals("Unexpected value for " + expression + " with attributes " + attributes, expected, actual);
+    }
+}
@@ -81,9 +81,14 @@ public abstract class NiFiProperties {
     public static final String TEMPLATE_DIRECTORY = "nifi.templates.directory";
     public static final String ADMINISTRATIVE_YIELD_DURATION = "nifi.administrative.yield.duration";
     public static final String BORED_YIELD_DURATION = "nifi.bored.yield.duration";
+    public static final String TIMER_DRIVEN_WORK_AWARE = "nifi.timer.driven.work.aware";
+    public static final String TIMER_DRIVEN_MAX_PARK_DURATION = "nifi.timer.driven.max.park.duration";
     public static final String PROCESSOR_SCHEDULING_TIMEOUT = "nifi.processor.scheduling.timeout";
     public static final String BACKPRESSURE_COUNT = "nifi.queue.backpressure.count";
     public static final String BACKPRESSURE_SIZE = "nifi.queue.backpressure.size";
+    public static final String SESSION_COMMIT_THREADS = "nifi.session.commit.threads";
+    public static final String SESSION_COMMIT_MAX_QUEUED = "nifi.session.commit.max.queued";
+    public static final String VIRTUAL_THREAD_CARRIER_THREADS = "nifi.virtual.thread.carrier.threads";
 
     // content repository properties
     public static final String REPOSITORY_CONTENT_PREFIX = "nifi.content.repository.directory.";
@@ -95,6 +100,7 @@ public abstract class NiFiProperties {
     public static final String CONTENT_ARCHIVE_BACK_PRESSURE_PERCENTAGE = "nifi.content.repository.archive.backpressure.percentage";
     public static final String CONTENT_ARCHIVE_ENABLED = "nifi.content.repository.archive.enabled";
     public static final String CONTENT_ARCHIVE_CLEANUP_FREQUENCY = "nifi.content.repository.archive.cleanup.frequency";
+    public static final String CONTENT_REPOSITORY_MMAP_CACHE_MAX_SIZE = "nifi.content.repository.mmap.cache.max.size";
     public static final String CONTENT_VIEWER_URL = "nifi.content.viewer.url";
     public static final String CONTENT_REPOSITORY_ENCRYPTION_KEY = "nifi.content.repository.encryption.key";
     public static final String CONTENT_REPOSITORY_ENCRYPTION_KEY_ID = "nifi.content.repository.encryption.key.id";
@@ -105,9 +111,12 @@ public abstract class NiFiProperties {
     public static final String FLOWFILE_REPOSITORY_IMPLEMENTATION = "nifi.flowfile.repository.implementation";
     public static final String FLOWFILE_REPOSITORY_WAL_IMPLEMENTATION = "nifi.flowfile.repository.wal.implementation";
     public static final String FLOWFILE_REPOSITORY_ALWAYS_SYNC = "nifi.flowfile.repository.always.sync";
+    public static final String FLOWFILE_REPOSITORY_GROUP_COMMIT_WINDOW = "nifi.flowfile.repository.group.commit.window";
     public static final String FLOWFILE_REPOSITORY_DIRECTORY = "nifi.flowfile.repository.directory";
     public static final String FLOWFILE_REPOSITORY_PARTITIONS = "nifi.flowfile.repository.partitions";
     public static final String FLOWFILE_REPOSITORY_CHECKPOINT_INTERVAL = "nifi.flowfile.repository.checkpoint.interval";
+    public static final String FLOWFILE_REPOSITORY_CHECKPOINT_MAX_INCREMENTAL = "nifi.flowfile.repository.checkpoint.max.incremental";
+    public static final String FLOWFILE_REPOSITORY_RECOVERY_THREADS = "nifi.flowfile.repository.recovery.threads";
     public static final String FLOWFILE_REPOSITORY_ENCRYPTION_KEY = "nifi.flowfile.repository.encryption.key";
     public static final String FLOWFILE_REPOSITORY_ENCRYPTION_KEY_ID = "nifi.flowfile.repository.encryption.key.id";
     public static final String FLOWFILE_REPOSITORY_ENCRYPTION_KEY_PROVIDER_IMPLEMENTATION_CLASS = "nifi.flowfile.repository.encryption.key.provider.implementation";
@@ -118,6 +127,8 @@ public abstract class NiFiProperties {
     public static final String SWAP_IN_PERIOD = "nifi.swap.in.period";
     public static final String SWAP_OUT_THREADS = "nifi.swap.out.threads";
     public static final String SWAP_OUT_PERIOD = "nifi.swap.out.period";
+    public static final String SWAP_CACHE_MAX_SIZE = "nifi.swap.cache.max.size";
+    public static final String SWAP_RECOVERY_THREADS = "nifi.swap.recovery.threads";
 
     // provenance properties
     public static final String PROVENANCE_REPO_IMPLEMENTATION_CLASS = "nifi.provenance.repository.implementation";
@@ -143,6 +154,12 @@ public abstract class NiFiProperties {
     // component status repository properties
     public static final String COMPONENT_STATUS_REPOSITORY_IMPLEMENTATION = "nifi.components.status.repository.implementation";
     public static final String COMPONENT_STATUS_SNAPSHOT_FREQUENCY = "nifi.components.status.snapshot.frequency";
+    public static final String COMPONENT_STATUS_CACHE_DURATION = "nifi.components.status.cache.duration";
+    public static final String COMPONENT_STATUS_REPOSITORY_DIRECTORY = "nifi.components.status.repository.directory";
+    public static final String COMPONENT_STATUS_REPOSITORY_SEGMENT_DURATION = "nifi.components.status.repository.segment.duration";
+    public static final String COMPONENT_STATUS_REPOSITORY_RAW_RETENTION = "nifi.components.status.repository.raw.retention";
+    public static final String COMPONENT_STATUS_REPOSITORY_DOWNSAMPLE_INTERVAL = "nifi.components.status.repository.downsample.interval";
+    public static final String COMPONENT_STATUS_REPOSITORY_RETENTION = "nifi.components.status.repository.retention";
 
     // security properties
     public static final String SECURITY_KEYSTORE = "nifi.security.keystore";
@@ -280,6 +297,8 @@ public abstract class NiFiProperties {
     public static final String DEFAULT_NAR_LIBRARY_AUTOLOAD_DIR = "./extensions";
     public static final String DEFAULT_FLOWFILE_REPO_PARTITIONS = "256";
     public static final String DEFAULT_FLOWFILE_CHECKPOINT_INTERVAL = "2 min";
+    public static final int DEFAULT_FLOWFILE_CHECKPOINT_MAX_INCREMENTAL = 0;
+    public static final int DEFAULT_FLOWFILE_REPOSITORY_RECOVERY_THREADS = 4;
     public static final int DEFAULT_MAX_FLOWFILES_PER_CLAIM = 100;
     public static final String DEFAULT_MAX_APPENDABLE_CLAIM_SIZE = "1 MB";
     public static final int DEFAULT_QUEUE_SWAP_THRESHOLD = 20000;
@@ -288,11 +307,24 @@ public abstract class NiFiProperties {
     public static final String DEFAULT_SWAP_OUT_PERIOD = "5 sec";
     public static final int DEFAULT_SWAP_IN_THREADS = 4;
     public static final int DEFAULT_SWAP_OUT_THREADS = 4;
+    public static final String DEFAULT_SWAP_CACHE_MAX_SIZE = "0 MB";
+    public static final String DEFAULT_CONTENT_REPOSITORY_MMAP_CACHE_MAX_SIZE = "0 MB";
+    public static final int DEFAULT_SWAP_RECOVERY_THREADS = 4;
     public static final long DEFAULT_BACKPRESSURE_COUNT = 10_000L;
     public static final String DEFAULT_BACKPRESSURE_SIZE = "1 GB";
     public static final String DEFAULT_ADMINISTRATIVE_YIELD_DURATION = "30 sec";
     public static final String DEFAULT_COMPONENT_STATUS_SNAPSHOT_FREQUENCY = "5 mins";
+    public static final String DEFAULT_COMPONENT_STATUS_CACHE_DURATION = "0 sec";
+    public static final String DEFAULT_COMPONENT_STATUS_REPOSITORY_DIRECTORY = "./status_repository";
+    public static final String DEFAULT_COMPONENT_STATUS_REPOSITORY_SEGMENT_DURATION = "1 hour";
+    public static final String DEFAULT_COMPONENT_STATUS_REPOSITORY_RAW_RETENTION = "1 day";
+    public static final String DEFAULT_COMPONENT_STATUS_REPOSITORY_DOWNSAMPLE_INTERVAL = "15 mins";
+    public static final String DEFAULT_COMPONENT_STATUS_REPOSITORY_RETENTION = "30 days";
     public static final String DEFAULT_BORED_YIELD_DURATION = "10 millis";
+    public static final String DEFAULT_TIMER_DRIVEN_WORK_AWARE = "false";
+    public static final String DEFAULT_TIMER_DRIVEN_MAX_PARK_DURATION = "1 sec";
+    public static final int DEFAULT_SESSION_COMMIT_THREADS = 0;
+    public static final int DEFAULT_SESSION_COMMIT_MAX_QUEUED = 1000;
     public static final String DEFAULT_ZOOKEEPER_CONNECT_TIMEOUT = "3 secs";
     public static final String DEFAULT_ZOOKEEPER_SESSION_TIMEOUT = "3 secs";
     public static final String DEFAULT_ZOOKEEPER_ROOT_NODE = "/nifi";
@@ -435,6 +467,13 @@ public abstract class NiFiProperties {
         }
     }
 
+    /**
+     * @return the number of threads to use for reading swap files upon startup in order to determine which FlowFiles are swapped out
+     */
+    public int getSwapRecoveryThreads() {
+        return getIntegerProperty(SWAP_RECOVERY_THREADS, DEFAULT_SWAP_RECOVERY_THREADS);
+    }
+
     public String getSwapInPeriod() {
         return getProperty(SWAP_IN_PERIOD, DEFAULT_SWAP_IN_PERIOD);
     }
@@ -443,6 +482,14 @@ public abstract class NiFiProperties {
         return getProperty(SWAP_OUT_PERIOD, DEFAULT_SWAP_OUT_PERIOD);
     }
 
+    /**
+     * @return the maximum amount of direct (off-heap) memory that may be used to cache swap files so that they can be swapped back in
+     *         without being read from disk. A value of <code>0 MB</code> disables the cache.
+     */
+    public String getSwapCacheMaxSize() {
+        return getProperty(SWAP_CACHE_MAX_SIZE, DEFAULT_SWAP_CACHE_MAX_SIZE);
+    }
+
     public String getAdministrativeYieldDuration() {
         return getProperty(ADMINISTRATIVE_YIELD_DURATION, DEFAULT_ADMINISTRATIVE_YIELD_DURATION);
     }
@@ -575,6 +622,20 @@ public abstract class NiFiProperties {
                 DEFAULT_FLOWFILE_CHECKPOINT_INTERVAL);
     }
 
+    /**
+     * @return the maximum number of FlowFile Repository checkpoints in a row that write only the FlowFiles that have changed since the previous checkpoint
+     */
+    public int getFlowFileRepositoryCheckpointMaxIncremental() {
+        return getIntegerProperty(FLOWFILE_REPOSITORY_CHECKPOINT_MAX_INCREMENTAL, DEFAULT_FLOWFILE_CHECKPOINT_MAX_INCREMENTAL);
+    }
+
+    /**
+     * @return the number of threads to use for deserializing the FlowFile Repository's journals when NiFi is started
+     */
+    public int getFlowFileRepositoryRecoveryThreads() {
+        return getIntegerProperty(FLOWFILE_REPOSITORY_RECOVERY_THREADS, DEFAULT_FLOWFILE_REPOSITORY_RECOVERY_THREADS);
+    }
+
     /**
      * @return the restore directory or null if not configured
      */
@@ -1234,6 +1295,14 @@ public abstract class NiFiProperties {
         return getProperty(MAX_APPENDABLE_CLAIM_SIZE, DEFAULT_MAX_APPENDABLE_CLAIM_SIZE);
     }
 
+    /**
+     * @return the maximum total size of the Resource Claims that the content repository may keep memory-mapped in order to read the content
+     *         of small FlowFiles. A value of <code>0 MB</code> disables memory-mapped reads.
+     */
+    public String getContentRepositoryMmapCacheMaxSize() {
+        return getProperty(CONTENT_REPOSITORY_MMAP_CACHE_MAX_SIZE, DEFAULT_CONTENT_REPOSITORY_MMAP_CACHE_MAX_SIZE);
+    }
+
     public String getProperty(final String key, final String defaultValue) {
         final String value = getProperty(key);
         return (value == null || value.trim().isEmpty()) ? defaultValue : value;
@@ -1243,6 +1312,56 @@ public abstract class NiFiProperties {
         return getProperty(BORED_YIELD_DURATION, DEFAULT_BORED_YIELD_DURATION);
     }
 
+    /**
+     * Returns whether or not Timer-Driven components that have no work to do are parked until a FlowFile is enqueued into one of
+     * their incoming connections, rather than being triggered again after the bored yield duration.
+     *
+     * @return <code>true</code> if idle Timer-Driven components are parked
+     */
+    public boolean isTimerDrivenWorkAware() {
+        return Boolean.parseBoolean(getProperty(TIMER_DRIVEN_WORK_AWARE, DEFAULT_TIMER_DRIVEN_WORK_AWARE));
+    }
+
+    /**
+     * Returns the longest amount of time that a parked Timer-Driven component waits before checking for work again, even if
+     * no FlowFile has been enqueued into any of its incoming connections.
+     *
+     * @return the maximum park duration
+     */
+    public String getTimerDrivenMaxParkDuration() {
+        return getProperty(TIMER_DRIVEN_MAX_PARK_DURATION, DEFAULT_TIMER_DRIVEN_MAX_PARK_DURATION);
+    }
+
+    /**
+     * Returns the number of threads that persist the sessions that are committed asynchronously. A value of zero means that
+     * such sessions are persisted by the thread that commits them.
+     *
+     * @return the number of session commit threads
+     */
+    public int getSessionCommitThreads() {
+        return getIntegerProperty(SESSION_COMMIT_THREADS, DEFAULT_SESSION_COMMIT_THREADS);
+    }
+
+    /**
+     * Returns the maximum number of asynchronously committed sessions that may be waiting to be persisted before the threads
+     * that commit sessions must persist them themselves.
+     *
+     * @return the maximum number of queued session commits
+     */
+    public int getSessionCommitMaxQueued() {
+        return getIntegerProperty(SESSION_COMMIT_MAX_QUEUED, DEFAULT_SESSION_COMMIT_MAX_QUEUED);
+    }
+
+    /**
+     * Returns the maximum number of threads that may be running the components that use the Virtual-Thread-Driven Scheduling Strategy
+     * at the same time. If not specified, this is the number of available processors.
+     *
+     * @return the number of carrier threads for virtual-thread-driven components
+     */
+    public int getVirtualThreadCarrierThreads() {
+        return getIntegerProperty(VIRTUAL_THREAD_CARRIER_THREADS, Runtime.getRuntime().availableProcessors());
+    }
+
     public File getStateManagementConfigFile() {
         return new File(getProperty(STATE_MANAGEMENT_CONFIG_FILE, DEFAULT_STATE_MANAGEMENT_CONFIG_FILE));
     }
@@ -36,6 +36,10 @@ public class ChildFieldPath extends RecordPathSegment {
         this.childName = childName;
     }
 
+    String getChildName() {
+        return childName;
+    }
+
     private FieldValue missingChild(final FieldValue parent) {
         final RecordField field = new RecordField(childName, RecordFieldType.CHOICE.getChoiceDataType(RecordFieldType.STRING.getDataType(), RecordFieldType.RECORD.getDataType()));
         return new StandardFieldValue(null, field, parent);
@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.record.path.paths;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.apache.nifi.record.path.ArrayIndexFieldValue;
+import org.apache.nifi.record.path.FieldValue;
+import org.apache.nifi.record.path.MapEntryFieldValue;
+import org.apache.nifi.record.path.RecordPath;
+import org.apache.nifi.record.path.RecordPathResult;
+import org.apache.nifi.record.path.StandardFieldValue;
+import org.apache.nifi.record.path.StandardRecordPathResult;
+import org.apache.nifi.record.path.util.Filters;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+import org.apache.nifi.serialization.record.type.MapDataType;
+import org.apache.nifi.serialization.record.type.RecordDataType;
+
+/**
+ * <p>
+ * A RecordPath that is made up only of child field references, single array indices and single map keys, such as
+ * <code>/person/addresses[0]/zip</code>, compiled against the schema of the Records that it is to be evaluated against.
+ * Each of these segments selects at most one field, so rather than building a Stream for each segment, the path is evaluated by
+ * walking the Record one segment at a time. The fields that each segment selects are looked up in the schema when the path is
+ * compiled and are only looked up again for a Record whose schema is not the schema that the path was compiled against.
+ * </p>
+ *
+ * <p>
+ * The result of evaluating a SchemaBoundRecordPath is always the same as the result of evaluating the RecordPath that it was
+ * compiled from.
+ * </p>
+ */
+public class SchemaBoundRecordPath implements RecordPath {
+    private final RecordPath recordPath;
+    private final RecordSchema schema;
+    private final RecordField rootField;
+    private final Segment[] segments;
+
+    private SchemaBoundRecordPath(final RecordPath recordPath, final RecordSchema schema, final RecordField rootField, final List<Segment> segments) {
+        this.recordPath = recordPath;
+        this.schema = schema;
+        this.rootField = rootField;
+        this.segments = segments.toArray(new Segment[0]);
+    }
+
+    /**
+     * Compiles the given RecordPath against the given schema
+     *
+     * @param recordPath the RecordPath to compile
+     * @param schema the schema of the Records that the RecordPath will be evaluated against
+     * @return a SchemaBoundRecordPath if the given RecordPath is an absolute path that consists only of child field references, single
+     *         array indices and single map keys, otherwise the given RecordPath
+     */
+    public static RecordPath compile(final RecordPath recordPath, final RecordSchema schema) {
+        if (!recordPath.isAbsolute() || !(recordPath instanceof RecordPathSegment)) {
+            return recordPath;
+        }
+
+        final List<RecordPathSegment> pathSegments = new ArrayList<>();
+        RecordPathSegment pathSegment = (RecordPathSegment) recordPath;
+        while (pathSegment != null && pathSegment.getClass() != RootPath.class) {
+            pathSegments.add(pathSegment);
+            pathSegment = pathSegment.getParentPath();
+        }
+
+        if (pathSegment == null) {
+            return recordPath;
+        }
+        Collections.reverse(pathSegments);
+
+        final RecordField rootField = createRootField(schema);
+        RecordField field = rootField;
+        RecordSchema childSchema = schema;
+
+        final List<Segment> segments = new ArrayList<>(pathSegments.size());
+        for (final RecordPathSegment segment : pathSegments) {
+            final Class<?> segmentClass = segment.getClass();
+            if (segmentClass == ChildFieldPath.class) {
+                final String childName = ((ChildFieldPath) segment).getChildName();
+                final RecordField childField = childSchema == null ? null : childSchema.getField(childName).orElse(null);
+                segments.add(new ChildFieldSegment(childName, childSchema, childField));
+                field = childField;
+            } else if (segmentClass == ArrayIndexPath.class) {
+                final RecordField elementField = field != null && field.getDataType() instanceof ArrayDataType
+                    ? new RecordField(field.getFieldName(), ((ArrayDataType) field.getDataType()).getElementType()) : null;
+                segments.add(new ArrayIndexSegment(((ArrayIndexPath) segment).getIndex(), field, elementField));
+                field = elementField;
+            } else if (segmentClass == SingularMapKeyPath.class) {
+                final RecordField valueField = field != null && field.getDataType() instanceof MapDataType
+                    ? new RecordField(field.getFieldName(), ((MapDataType) field.getDataType()).getValueType()) : null;
+                segments.add(new MapKeySegment(((SingularMapKeyPath) segment).getMapKey(), field, valueField));
+                field = valueField;
+            } else {
+                return recordPath;
+            }
+
+            childSchema = field == null ? null : getChildSchema(field.getDataType());
+        }
+
+        return new SchemaBoundRecordPath(recordPath, schema, rootField, segments);
+    }
+
+    private static RecordField createRootField(final RecordSchema schema) {
+        return new RecordField("root", RecordFieldType.RECORD.getRecordDataType(schema));
+    }
+
+    private static RecordSchema getChildSchema(final DataType dataType) {
+        return dataType instanceof RecordDataType ? ((RecordDataType) dataType).getChildSchema() : null;
+    }
+
+    @Override
+    public String getPath() {
+        return recordPath.getPath();
+    }
+
+    @Override
+    public RecordPathResult evaluate(final Record record) {
+        final RecordSchema recordSchema = record.getSchema();
+        final RecordField recordField = recordSchema == schema ? rootField : createRootField(recordSchema);
+
+        FieldValue fieldValue = new StandardFieldValue(record, recordField, null);
+        for (final Segment segment : segments) {
+            fieldValue = segment.select(fieldValue);
+            if (fieldValue == null) {
+                return new StandardRecordPathResult(getPath(), Stream.empty());
+            }
+        }
+
+        return new StandardRecordPathResult(getPath(), Stream.of(fieldValue));
+    }
+
+    @Override
+    public RecordPathResult evaluate(final Record record, final FieldValue contextNode) {
+        return recordPath.evaluate(record, contextNode);
+    }
+
+    @Override
+    public boolean isAbsolute() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return getPath();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getPath());
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof RecordPath)) {
+            return false;
+        }
+
+        final RecordPath other = (RecordPath) obj;
+        return getPath().equals(other.getPath());
+    }
+
+    private interface Segment {
+        /**
+         * @param parent the field selected by the previous segment
+         * @return the field that this segment selects, or <code>null</code> if it selects no field
+         */
+        FieldValue select(FieldValue parent);
+    }
+
+    /**
+     * Equivalent to {@link ChildFieldPath}
+     */
+    private static class ChildFieldSegment implements Segment {
+        private final String childName;
+        private final RecordSchema parentSchema;
+        private final RecordField field;
+        private final RecordField missingField;
+
+        ChildFieldSegment(final String childName, final RecordSchema parentSchema, final RecordField field) {
+            this.childName = childName;
+            this.parentSchema = parentSchema;
+            this.field = field;
+            this.missingField = new RecordField(childName, RecordFieldType.CHOICE.getChoiceDataType(RecordFieldType.STRING.getDataType(), RecordFieldType.RECORD.getDataType()));
+        }
+
+        @Override
+        public FieldValue select(final FieldValue parent) {
+            if (!Filters.isRecord(parent)) {
+                return new StandardFieldValue(null, missingField, parent);
+            }
+
+            final Record record = (Record) parent.getValue();
+            if (record == null) {
+                return new StandardFieldValue(null, missingField, parent);
+            }
+
+            final Object value = record.getValue(childName);
+            if (value == null) {
+                return new StandardFieldValue(null, missingField, parent);
+            }
+
+            final RecordSchema recordSchema = record.getSchema();
+            final RecordField childField = recordSchema == parentSchema ? field : recordSchema.getField(childName).orElse(null);
+            if (childField == null) {
+                return new StandardFieldValue(null, missingField, parent);
+            }
+
+            return new StandardFieldValue(value, childField, parent);
+        }
+    }
+
+    /**
+     * Equivalent to {@link ArrayIndexPath}
+     */
+    private static class ArrayIndexSegment implements Segment {
+        private final int index;
+        private final RecordField arrayField;
+        private final RecordField elementField;
+
+        ArrayIndexSegment(final int index, final RecordField arrayField, final RecordField elementField) {
+            this.index = index;
+            this.arrayField = arrayField;
+            this.elementField = elementField;
+        }
+
+        @Override
+        public FieldValue select(final FieldValue parent) {
+            final RecordField parentField = parent.getField();
+            if (parentField.getDataType().getFieldType() != RecordFieldType.ARRAY) {
+                return null;
+            }
+
+            final Object[] values = (Object[]) parent.getValue();
+            if (values == null) {
+                return null;
+            }
+
+            final int arrayIndex = index < 0 ? values.length + index : index;
+            if (values.length <= arrayIndex) {
+                return null;
+            }
+
+            final RecordField field = parentField == arrayField ? elementField : new RecordField(parentField.getFieldName(), ((ArrayDataType) parentField.getDataType()).getElementType());
+            return new ArrayIndexFieldValue(values[arrayIndex], field, parent, arrayIndex);
+        }
+    }
+
+    /**
+     * Equivalent to {@link SingularMapKeyPath}
+     */
+    private static class MapKeySegment implements Segment {
+        private final String mapKey;
+        private final RecordField mapField;
+        private final RecordField valueField;
+
+        MapKeySegment(final String mapKey, final RecordField mapField, final RecordField valueField) {
+            this.mapKey = mapKey;
+            this.mapField = mapField;
+            this.valueField = valueField;
+        }
+
+        @Override
+        public FieldValue select(final FieldValue parent) {
+            final RecordField parentField = parent.getField();
+            if (parentField.getDataType().getFieldType() != RecordFieldType.MAP) {
+                return null;
+            }
+
+            final Map<?, ?> map = (Map<?, ?>) parent.getValue();
+            final RecordField field = parentField == mapField ? valueField : new RecordField(parentField.getFieldName(), ((MapDataType) parentField.getDataType()).getValueType());
+            return new MapEntryFieldValue(map.get(mapKey), field, parent, mapKey);
+        }
+    }
+}
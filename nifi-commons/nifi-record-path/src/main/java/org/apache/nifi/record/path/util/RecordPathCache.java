@@ -20,17 +20,72 @@ package org.apache.nifi.record.path.util;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import org.apache.nifi.record.path.RecordPath;
+import org.apache.nifi.record.path.paths.SchemaBoundRecordPath;
+import org.apache.nifi.serialization.record.RecordSchema;
 
 public class RecordPathCache {
     private final LoadingCache<String, RecordPath> compiledRecordPaths;
+    private final LoadingCache<SchemaBoundKey, RecordPath> schemaBoundRecordPaths;
 
     public RecordPathCache(final int cacheSize) {
         compiledRecordPaths = Caffeine.newBuilder()
                 .maximumSize(cacheSize)
                 .build(RecordPath::compile);
+        schemaBoundRecordPaths = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build(key -> SchemaBoundRecordPath.compile(getCompiled(key.path), key.schema));
     }
 
     public RecordPath getCompiled(final String path) {
         return compiledRecordPaths.get(path);
     }
+
+    /**
+     * Returns the given RecordPath compiled against the given schema, which is evaluated without creating a Stream for each segment of the
+     * path if the path is simple enough. See {@link SchemaBoundRecordPath}. The RecordPath that is returned may be evaluated against Records
+     * of any schema, but is most efficient for Records of the given schema.
+     *
+     * @param path the textual representation of the RecordPath
+     * @param schema the schema of the Records that the RecordPath will be evaluated against
+     * @return the compiled RecordPath
+     */
+    public RecordPath getCompiled(final String path, final RecordSchema schema) {
+        if (schema == null) {
+            return getCompiled(path);
+        }
+
+        return schemaBoundRecordPaths.get(new SchemaBoundKey(path, schema));
+    }
+
+    /**
+     * Identifies a schema by identity rather than equality, because a RecordPath compiled against a schema is only efficient
+     * for Records that have that very schema
+     */
+    private static class SchemaBoundKey {
+        private final String path;
+        private final RecordSchema schema;
+
+        SchemaBoundKey(final String path, final RecordSchema schema) {
+            this.path = path;
+            this.schema = schema;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * path.hashCode() + System.identityHashCode(schema);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof SchemaBoundKey)) {
+                return false;
+            }
+
+            final SchemaBoundKey other = (SchemaBoundKey) obj;
+            return schema == other.schema && path.equals(other.path);
+        }
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.record.path.paths;
+
+import org.apache.nifi.record.path.FieldValue;
+import org.apache.nifi.record.path.RecordPath;
+import org.apache.nifi.record.path.util.RecordPathCache;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestSchemaBoundRecordPath {
+
+    private static final List<String> PATHS = Arrays.asList(
+        "/id",
+        "/name",
+        "/missing",
+        "/mainAccount",
+        "/mainAccount/balance",
+        "/mainAccount/missing",
+        "/name/missing",
+        "/numbers[0]",
+        "/numbers[2]",
+        "/numbers[-1]",
+        "/numbers[5]",
+        "/name[0]",
+        "/accounts[1]/balance",
+        "/accounts[-2]/id",
+        "/attributes['city']",
+        "/attributes['missing']",
+        "/name['city']"
+    );
+
+    @Test
+    public void testSameResultAsRecordPath() {
+        final RecordSchema schema = getSchema();
+        final Record record = createRecord(schema);
+
+        for (final String path : PATHS) {
+            verifySameResult(path, schema, record);
+        }
+    }
+
+    @Test
+    public void testSameResultForRecordOfDifferentSchema() {
+        final RecordSchema compiledSchema = getSchema();
+
+        final List<RecordField> fields = new ArrayList<>(getSchema().getFields());
+        fields.add(0, new RecordField("extra", RecordFieldType.STRING.getDataType()));
+        final RecordSchema otherSchema = new SimpleRecordSchema(fields);
+        final Record record = createRecord(otherSchema);
+
+        for (final String path : PATHS) {
+            verifySameResult(path, compiledSchema, record);
+        }
+    }
+
+    @Test
+    public void testSameResultForNullValues() {
+        final RecordSchema schema = getSchema();
+        final Record record = new MapRecord(schema, new HashMap<>());
+
+        for (final String path : PATHS) {
+            verifySameResult(path, schema, record);
+        }
+    }
+
+    @Test
+    public void testOnlySimplePathsCompiled() {
+        final RecordSchema schema = getSchema();
+
+        for (final String path : Arrays.asList("/mainAccount/balance", "/numbers[-1]", "/attributes['city']")) {
+            final RecordPath recordPath = RecordPath.compile(path);
+            final RecordPath compiled = SchemaBoundRecordPath.compile(recordPath, schema);
+            assertTrue(compiled instanceof SchemaBoundRecordPath);
+            assertEquals(recordPath.getPath(), compiled.getPath());
+        }
+
+        for (final String path : Arrays.asList("/", "/*", "//balance", "/numbers[0..1]", "/numbers[*]", "/attributes['city', 'state']",
+                "/accounts[./balance > 100]/id", "./name", "substring(/name, 0, 1)", "/mainAccount/..")) {
+            final RecordPath recordPath = RecordPath.compile(path);
+            assertSame(path, recordPath, SchemaBoundRecordPath.compile(recordPath, schema));
+        }
+    }
+
+    @Test
+    public void testUpdateValue() {
+        final RecordSchema schema = getSchema();
+        final Record record = createRecord(schema);
+
+        evaluate(SchemaBoundRecordPath.compile(RecordPath.compile("/mainAccount/balance"), schema), record).get(0).updateValue(42.5D);
+        evaluate(SchemaBoundRecordPath.compile(RecordPath.compile("/numbers[-1]"), schema), record).get(0).updateValue(-1);
+        evaluate(SchemaBoundRecordPath.compile(RecordPath.compile("/attributes['city']"), schema), record).get(0).updateValue("Boston");
+
+        assertEquals(42.5D, ((Record) record.getValue("mainAccount")).getValue("balance"));
+        assertEquals(-1, ((Object[]) record.getValue("numbers"))[2]);
+        assertEquals("Boston", ((Map<?, ?>) record.getValue("attributes")).get("city"));
+    }
+
+    @Test
+    public void testRecordPathCache() {
+        final RecordPathCache cache = new RecordPathCache(10);
+        final RecordSchema schema = getSchema();
+
+        final RecordPath compiled = cache.getCompiled("/mainAccount/balance", schema);
+        assertTrue(compiled instanceof SchemaBoundRecordPath);
+        assertSame(compiled, cache.getCompiled("/mainAccount/balance", schema));
+        assertNotSame(compiled, cache.getCompiled("/mainAccount/balance", getSchema()));
+        assertSame(cache.getCompiled("/mainAccount/balance"), cache.getCompiled("/mainAccount/balance", null));
+        assertSame(cache.getCompiled("./balance"), cache.getCompiled("./balance", schema));
+    }
+
+    private void verifySameResult(final String path, final RecordSchema schema, final Record record) {
+        final RecordPath recordPath = RecordPath.compile(path);
+        final RecordPath compiled = SchemaBoundRecordPath.compile(recordPath, schema);
+        assertTrue(path, compiled instanceof SchemaBoundRecordPath);
+
+        assertEquals("Unexpected result for " + path, evaluate(recordPath, record), evaluate(compiled, record));
+    }
+
+    private List<FieldValue> evaluate(final RecordPath recordPath, final Record record) {
+        return recordPath.evaluate(record).getSelectedFields().collect(Collectors.toList());
+    }
+
+    private RecordSchema getAccountSchema() {
+        final List<RecordField> accountFields = new ArrayList<>();
+        accountFields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        accountFields.add(new RecordField("balance", RecordFieldType.DOUBLE.getDataType()));
+        return new SimpleRecordSchema(accountFields);
+    }
+
+    private RecordSchema getSchema() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("attributes", RecordFieldType.MAP.getMapDataType(RecordFieldType.STRING.getDataType())));
+        fields.add(new RecordField("mainAccount", RecordFieldType.RECORD.getRecordDataType(getAccountSchema())));
+        fields.add(new RecordField("numbers", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.INT.getDataType())));
+        fields.add(new RecordField("accounts", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.RECORD.getRecordDataType(getAccountSchema()))));
+        return new SimpleRecordSchema(fields);
+    }
+
+    private Record createRecord(final RecordSchema schema) {
+        final Map<String, Object> mainAccountValues = new HashMap<>();
+        mainAccountValues.put("id", 1);
+        mainAccountValues.put("balance", 123.45D);
+
+        final Map<String, Object> otherAccountValues = new HashMap<>();
+        otherAccountValues.put("id", 2);
+        otherAccountValues.put("balance", 67.8D);
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("city", "New York");
+
+        final Map<String, Object> values = new HashMap<>();
+        values.put("id", 48);
+        values.put("name", "John Doe");
+        values.put("attributes", attributes);
+        values.put("mainAccount", new MapRecord(getAccountSchema(), mainAccountValues));
+        values.put("numbers", new Object[] {1, 2, 3});
+        values.put("accounts", new Object[] {new MapRecord(getAccountSchema(), mainAccountValues), new MapRecord(getAccountSchema(), otherAccountValues)});
+        return new MapRecord(schema, values);
+    }
+}
@@ -60,6 +60,28 @@ public class TimedBuffer<T> {
         return total;
     }
 
+    /**
+     * Aggregates only the bins that have been updated at or after the given time. Unlike {@link #getAggregateValue(long)}, which aggregates every
+     * bin that has not yet expired, this allows a buffer to be queried over a period that is shorter than the period that it covers. Because values
+     * are aggregated per bin, the result may include values that were added up to one bin before the given time.
+     *
+     * @param sinceEpochMillis the earliest time, in milliseconds since the epoch, at which a bin must have been updated in order to be included
+     * @return the aggregate of the bins that have been updated since the given time, or <code>null</code> if no bin has been updated since then
+     */
+    public T getAggregateValueSince(final long sinceEpochMillis) {
+        T total = null;
+        for (int i = 0; i < numBins; i++) {
+            final EntitySum<T> bin = bins[i];
+            final T value = bin.getValue();
+
+            if (!bin.isExpired() && entityAccess.getTimestamp(value) >= sinceEpochMillis) {
+                total = entityAccess.aggregate(total, value);
+            }
+        }
+
+        return total;
+    }
+
     private static class EntitySum<S> {
 
         private final EntityAccess<S> entityAccess;
@@ -60,6 +60,24 @@ public class TestTimedBuffer {
         assertNull(aggregate);
     }
 
+    @Test
+    public void testAggregateValueSince() throws InterruptedException {
+        final LongEntityAccess access = new LongEntityAccess();
+        final TimedBuffer<TimestampedLong> buffer = new TimedBuffer<>(TimeUnit.SECONDS, 2, access);
+
+        buffer.add(new TimestampedLong(1000000L));
+        Thread.sleep(1100L);
+
+        final long secondAddTime = System.currentTimeMillis();
+        buffer.add(new TimestampedLong(25000L));
+
+        TimestampedLong aggregate = buffer.getAggregateValueSince(secondAddTime);
+        assertEquals(25000L, aggregate.getValue().longValue());
+        aggregate = buffer.getAggregateValueSince(secondAddTime - 30000L);
+        assertEquals(1025000L, aggregate.getValue().longValue());
+        assertNull(buffer.getAggregateValueSince(System.currentTimeMillis() + 1000L));
+    }
+
     private static class TimestampedLong {
 
         private final Long value;
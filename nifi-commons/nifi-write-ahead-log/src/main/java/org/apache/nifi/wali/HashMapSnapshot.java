@@ -234,7 +234,7 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
         return new File(storageDirectory, "checkpoint.partial");
     }
 
-    private File getSnapshotFile() {
+    File getSnapshotFile() {
         return new File(storageDirectory, "checkpoint");
     }
 
@@ -0,0 +1,484 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.wali;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wali.SerDe;
+import org.wali.SerDeFactory;
+import org.wali.UpdateType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * A snapshot that, rather than rewriting every record on each checkpoint, writes only the records that have changed since the previous
+ * checkpoint. The full snapshot is written by a {@link HashMapSnapshot}, in the same format, and each checkpoint in between is written
+ * to an incremental snapshot file alongside it that holds the latest state of each record that was updated (including records that were
+ * deleted or swapped out) and the locations of all swap files. On recovery, the full snapshot is restored and the incremental snapshots
+ * are applied to it, in order.
+ * </p>
+ *
+ * <p>
+ * A full snapshot is written again, and the incremental snapshots deleted, once the configured number of incremental snapshots has been
+ * written, once the incremental snapshots together are larger than the full snapshot, or if more records have changed than are in the
+ * repository. This keeps the time that it takes to recover bounded. A full snapshot is also written on the first checkpoint after recovery,
+ * because the records that are recovered from the journals are not known to have changed.
+ * </p>
+ */
+public class IncrementalHashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T> {
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalHashMapSnapshot.class);
+    private static final int ENCODING_VERSION = 1;
+    private static final String INCREMENTAL_FILENAME_PREFIX = "checkpoint.incremental.";
+    private static final String PARTIAL_FILENAME_SUFFIX = ".partial";
+    private static final Pattern INCREMENTAL_FILENAME_PATTERN = Pattern.compile("checkpoint\\.incremental\\.(\\d+)");
+
+    private final File storageDirectory;
+    private final SerDeFactory<T> serdeFactory;
+    private final HashMapSnapshot<T> fullSnapshot;
+    private final int maxIncrementalSnapshots;
+    private final Set<String> swapLocations = Collections.synchronizedSet(new HashSet<>());
+
+    // Replaced only by prepareCheckpoint, which is called only while no updates are taking place
+    private volatile ConcurrentMap<Object, T> changedRecords = new ConcurrentHashMap<>();
+
+    // guarded by synchronizing on 'this'
+    private boolean fullSnapshotRequired = true;
+    private long fullSnapshotTransactionId = -1L;
+    private long fullSnapshotBytes = 0L;
+    private int incrementalSnapshotCount = 0;
+    private long incrementalSnapshotBytes = 0L;
+
+    /**
+     * @param storageDirectory the directory in which to store the snapshot files
+     * @param serdeFactory the factory for the SerDe that is used to serialize records
+     * @param maxIncrementalSnapshots the maximum number of incremental snapshots to write between full snapshots
+     */
+    public IncrementalHashMapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory, final int maxIncrementalSnapshots) {
+        this.storageDirectory = storageDirectory;
+        this.serdeFactory = serdeFactory;
+        this.fullSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
+        this.maxIncrementalSnapshots = maxIncrementalSnapshots;
+    }
+
+    /**
+     * Indicates whether or not the given directory contains any incremental snapshots. If so, the snapshot in that directory must be recovered
+     * using an IncrementalHashMapSnapshot, even if no further incremental snapshots are to be written.
+     *
+     * @param storageDirectory the directory in which the snapshot files are stored
+     * @return <code>true</code> if the directory contains incremental snapshots, <code>false</code> otherwise
+     */
+    public static boolean isIncrementalSnapshotPresent(final File storageDirectory) {
+        final File[] incrementalFiles = storageDirectory.listFiles(IncrementalHashMapSnapshot::isIncrementalSnapshotFile);
+        return incrementalFiles != null && incrementalFiles.length > 0;
+    }
+
+    private static boolean isIncrementalSnapshotFile(final File file) {
+        return file.isFile() && file.getName().startsWith(INCREMENTAL_FILENAME_PREFIX);
+    }
+
+    @Override
+    public synchronized SnapshotRecovery<T> recover() throws IOException {
+        final SnapshotRecovery<T> fullRecovery = fullSnapshot.recover();
+
+        // The records that are recovered from the journals do not pass through update(), so the next checkpoint must write all records.
+        fullSnapshotRequired = true;
+
+        final List<File> incrementalFiles = getIncrementalSnapshotFiles();
+        if (fullRecovery.getRecoveryFile() == null) {
+            if (!incrementalFiles.isEmpty()) {
+                logger.warn("{} Found {} Incremental Snapshot files but no Snapshot file to apply them to; the Incremental Snapshot files will be ignored", this, incrementalFiles.size());
+            }
+
+            return fullRecovery;
+        }
+
+        final long snapshotTransactionId = fullRecovery.getMaxTransactionId();
+        final Map<Object, T> recordMap = fullRecovery.getRecords();
+        Set<String> recoveredSwapLocations = fullRecovery.getRecoveredSwapLocations();
+        long maxTransactionId = snapshotTransactionId;
+        int nextSequence = 1;
+        int recoveredRecordCount = 0;
+
+        for (final File incrementalFile : incrementalFiles) {
+            try (final DataInputStream dataIn = new DataInputStream(new BufferedInputStream(new FileInputStream(incrementalFile)))) {
+                final IncrementalSnapshotHeader header = validateHeader(dataIn, incrementalFile);
+
+                // An Incremental Snapshot that was written for a previous Snapshot file is left over from before that Snapshot was replaced,
+                // and anything that follows a gap in the sequence cannot be applied either.
+                if (header.getSnapshotTransactionId() != snapshotTransactionId || header.getSequence() != nextSequence) {
+                    logger.info("{} Skipping Incremental Snapshot {} because it does not directly follow the Snapshot with Max Transaction ID {} and Incremental Snapshot {}",
+                        this, incrementalFile, snapshotTransactionId, nextSequence - 1);
+                    continue;
+                }
+
+                final SerDe<T> serde = header.getSerDe();
+                for (int i = 0; i < header.getNumRecords(); i++) {
+                    final T record = serde.deserializeRecord(dataIn, header.getSerDeVersion());
+                    if (record == null) {
+                        throw new EOFException();
+                    }
+
+                    applyRecoveredRecord(serde, record, recordMap);
+                }
+
+                final int numSwapLocations = dataIn.readInt();
+                final Set<String> incrementalSwapLocations = new HashSet<>();
+                for (int i = 0; i < numSwapLocations; i++) {
+                    incrementalSwapLocations.add(dataIn.readUTF());
+                }
+
+                recoveredSwapLocations = incrementalSwapLocations;
+                maxTransactionId = header.getMaxTransactionId();
+                recoveredRecordCount += header.getNumRecords();
+                nextSequence++;
+            }
+        }
+
+        swapLocations.clear();
+        swapLocations.addAll(recoveredSwapLocations);
+
+        logger.info("{} applied {} Records from {} Incremental Snapshots, ending with Transaction ID {}", this, recoveredRecordCount, nextSequence - 1, maxTransactionId);
+        return new StandardSnapshotRecovery<>(recordMap, new HashSet<>(recoveredSwapLocations), fullRecovery.getRecoveryFile(), maxTransactionId);
+    }
+
+    private void applyRecoveredRecord(final SerDe<T> serde, final T record, final Map<Object, T> recordMap) {
+        final Object recordId = serde.getRecordIdentifier(record);
+        final UpdateType updateType = serde.getUpdateType(record);
+
+        if (updateType == UpdateType.DELETE || updateType == UpdateType.SWAP_OUT) {
+            recordMap.remove(recordId);
+        } else {
+            recordMap.put(recordId, record);
+        }
+    }
+
+    private IncrementalSnapshotHeader validateHeader(final DataInputStream dataIn, final File incrementalFile) throws IOException {
+        final String snapshotClass = dataIn.readUTF();
+        if (!snapshotClass.equals(IncrementalHashMapSnapshot.class.getName())) {
+            throw new IOException("Write-Ahead Log Incremental Snapshot located at " + incrementalFile + " was written using the "
+                + snapshotClass + " class; cannot restore using " + getClass().getName());
+        }
+
+        final int snapshotVersion = dataIn.readInt();
+        if (snapshotVersion > ENCODING_VERSION) {
+            throw new IOException("Write-Ahead Log Incremental Snapshot located at " + incrementalFile + " was written using version "
+                + snapshotVersion + " of the " + snapshotClass + " class; cannot restore using Version " + ENCODING_VERSION);
+        }
+
+        final String serdeEncoding = dataIn.readUTF();
+        final int serdeVersion = dataIn.readInt();
+        final long snapshotTransactionId = dataIn.readLong();
+        final int sequence = dataIn.readInt();
+        final long maxTransactionId = dataIn.readLong();
+        final int numRecords = dataIn.readInt();
+        logger.debug("Incremental Snapshot {} is number {} following the Snapshot with Max Transaction ID {} and holds {} Records up to Transaction ID {}",
+            incrementalFile, sequence, snapshotTransactionId, numRecords, maxTransactionId);
+
+        final SerDe<T> serde = serdeFactory.createSerDe(serdeEncoding);
+        serde.readHeader(dataIn);
+
+        return new IncrementalSnapshotHeader(serde, serdeVersion, snapshotTransactionId, sequence, maxTransactionId, numRecords);
+    }
+
+    @Override
+    public void update(final Collection<T> records) {
+        final Map<Object, T> changed = changedRecords;
+        for (final T record : records) {
+            changed.put(serdeFactory.getRecordIdentifier(record), record);
+
+            final UpdateType updateType = serdeFactory.getUpdateType(record);
+            if (updateType == UpdateType.SWAP_OUT || updateType == UpdateType.SWAP_IN) {
+                final String swapLocation = serdeFactory.getLocation(record);
+                if (swapLocation != null) {
+                    if (updateType == UpdateType.SWAP_OUT) {
+                        swapLocations.add(swapLocation);
+                    } else {
+                        swapLocations.remove(swapLocation);
+                    }
+                }
+            }
+        }
+
+        fullSnapshot.update(records);
+    }
+
+    @Override
+    public int getRecordCount() {
+        return fullSnapshot.getRecordCount();
+    }
+
+    @Override
+    public T lookup(final Object recordId) {
+        return fullSnapshot.lookup(recordId);
+    }
+
+    @Override
+    public SnapshotCapture<T> prepareSnapshot(final long maxTransactionId) {
+        return fullSnapshot.prepareSnapshot(maxTransactionId, swapLocations);
+    }
+
+    @Override
+    public SnapshotCapture<T> prepareSnapshot(final long maxTransactionId, final Set<String> swapFileLocations) {
+        return fullSnapshot.prepareSnapshot(maxTransactionId, swapFileLocations);
+    }
+
+    @Override
+    public synchronized SnapshotCapture<T> prepareCheckpoint(final long maxTransactionId, final Set<String> swapFileLocations) {
+        if (swapFileLocations != null) {
+            synchronized (swapLocations) {
+                swapLocations.clear();
+                swapLocations.addAll(swapFileLocations);
+            }
+        }
+
+        final Map<Object, T> changes = changedRecords;
+        changedRecords = new ConcurrentHashMap<>();
+
+        final int recordCount = getRecordCount();
+        if (isFullSnapshotRequired(changes.size(), recordCount)) {
+            return prepareSnapshot(maxTransactionId);
+        }
+
+        return new IncrementalSnapshot<>(changes, new HashSet<>(swapLocations), maxTransactionId, recordCount);
+    }
+
+    private boolean isFullSnapshotRequired(final int changeCount, final int recordCount) {
+        return fullSnapshotRequired
+            || incrementalSnapshotCount >= maxIncrementalSnapshots
+            || incrementalSnapshotBytes >= fullSnapshotBytes
+            || changeCount >= recordCount;
+    }
+
+    @Override
+    public synchronized void writeSnapshot(final SnapshotCapture<T> snapshot) throws IOException {
+        if (snapshot instanceof IncrementalSnapshot) {
+            writeIncrementalSnapshot(snapshot);
+        } else {
+            writeFullSnapshot(snapshot);
+        }
+    }
+
+    private void writeFullSnapshot(final SnapshotCapture<T> snapshot) throws IOException {
+        try {
+            fullSnapshot.writeSnapshot(snapshot);
+        } catch (final IOException | RuntimeException | Error e) {
+            fullSnapshotRequired = true;
+            throw e;
+        }
+
+        fullSnapshotRequired = false;
+        fullSnapshotTransactionId = snapshot.getMaxTransactionId();
+        fullSnapshotBytes = fullSnapshot.getSnapshotFile().length();
+        incrementalSnapshotCount = 0;
+        incrementalSnapshotBytes = 0L;
+
+        // The Snapshot file now holds everything that the Incremental Snapshots held. If we fail to delete any of them, they will be
+        // skipped on recovery because they were written for a previous Snapshot.
+        for (final File incrementalFile : getIncrementalSnapshotFiles()) {
+            if (!incrementalFile.delete()) {
+                logger.warn("Unable to delete obsolete Incremental Snapshot file {}", incrementalFile);
+            }
+        }
+    }
+
+    private void writeIncrementalSnapshot(final SnapshotCapture<T> snapshot) throws IOException {
+        final SerDe<T> serde = serdeFactory.createSerDe(null);
+        final int sequence = incrementalSnapshotCount + 1;
+        final File incrementalFile = new File(storageDirectory, INCREMENTAL_FILENAME_PREFIX + sequence);
+        final File partialFile = new File(storageDirectory, incrementalFile.getName() + PARTIAL_FILENAME_SUFFIX);
+
+        // As with the full Snapshot, write to a 'partial' file and rename it only once it has been fully written, so that a partially
+        // written Incremental Snapshot is never applied.
+        try {
+            try (final FileOutputStream fileOut = new FileOutputStream(partialFile);
+                final DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+
+                dataOut.writeUTF(IncrementalHashMapSnapshot.class.getName());
+                dataOut.writeInt(ENCODING_VERSION);
+                dataOut.writeUTF(serde.getClass().getName());
+                dataOut.writeInt(serde.getVersion());
+                dataOut.writeLong(fullSnapshotTransactionId);
+                dataOut.writeInt(sequence);
+                dataOut.writeLong(snapshot.getMaxTransactionId());
+                dataOut.writeInt(snapshot.getRecords().size());
+                serde.writeHeader(dataOut);
+
+                for (final T record : snapshot.getRecords().values()) {
+                    logger.trace("Checkpointing {} incrementally", record);
+                    serde.serializeRecord(record, dataOut);
+                }
+
+                dataOut.writeInt(snapshot.getSwapLocations().size());
+                for (final String swapLocation : snapshot.getSwapLocations()) {
+                    dataOut.writeUTF(swapLocation);
+                }
+
+                dataOut.flush();
+                fileOut.getChannel().force(false);
+            }
+
+            Files.move(partialFile.toPath(), incrementalFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException | RuntimeException | Error e) {
+            // The changes in this snapshot are no longer being tracked, so the next checkpoint must write all records.
+            fullSnapshotRequired = true;
+            if (partialFile.exists() && !partialFile.delete()) {
+                logger.warn("Unable to delete partial Incremental Snapshot file {}", partialFile);
+            }
+
+            throw e;
+        }
+
+        incrementalSnapshotCount = sequence;
+        incrementalSnapshotBytes += incrementalFile.length();
+        logger.debug("{} wrote Incremental Snapshot {} with {} changed Records; {} Incremental Snapshots now total {} bytes, compared to {} bytes for the Snapshot",
+            this, incrementalFile, snapshot.getRecords().size(), incrementalSnapshotCount, incrementalSnapshotBytes, fullSnapshotBytes);
+    }
+
+    private List<File> getIncrementalSnapshotFiles() throws IOException {
+        final File[] files = storageDirectory.listFiles(IncrementalHashMapSnapshot::isIncrementalSnapshotFile);
+        if (files == null) {
+            throw new IOException("Cannot access the list of files in directory " + storageDirectory + "; please ensure that appropriate file permissions are set.");
+        }
+
+        final List<File> incrementalFiles = new ArrayList<>();
+        for (final File file : files) {
+            if (INCREMENTAL_FILENAME_PATTERN.matcher(file.getName()).matches()) {
+                incrementalFiles.add(file);
+            } else if (file.getName().endsWith(PARTIAL_FILENAME_SUFFIX)) {
+                // left over from a checkpoint that did not complete
+                Files.delete(file.toPath());
+            }
+        }
+
+        incrementalFiles.sort(Comparator.comparingInt(IncrementalHashMapSnapshot::getSequence));
+        return incrementalFiles;
+    }
+
+    private static int getSequence(final File incrementalFile) {
+        final Matcher matcher = INCREMENTAL_FILENAME_PATTERN.matcher(incrementalFile.getName());
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    @Override
+    public String toString() {
+        return "IncrementalHashMapSnapshot[" + storageDirectory + "]";
+    }
+
+
+    private static class IncrementalSnapshot<T> implements SnapshotCapture<T> {
+        private final Map<Object, T> changedRecords;
+        private final Set<String> swapLocations;
+        private final long maxTransactionId;
+        private final int recordCount;
+
+        IncrementalSnapshot(final Map<Object, T> changedRecords, final Set<String> swapLocations, final long maxTransactionId, final int recordCount) {
+            this.changedRecords = changedRecords;
+            this.swapLocations = swapLocations;
+            this.maxTransactionId = maxTransactionId;
+            this.recordCount = recordCount;
+        }
+
+        /**
+         * @return the latest state of each record that has changed since the previous checkpoint
+         */
+        @Override
+        public Map<Object, T> getRecords() {
+            return changedRecords;
+        }
+
+        @Override
+        public long getMaxTransactionId() {
+            return maxTransactionId;
+        }
+
+        @Override
+        public Set<String> getSwapLocations() {
+            return swapLocations;
+        }
+
+        @Override
+        public int getRecordCount() {
+            return recordCount;
+        }
+    }
+
+    private class IncrementalSnapshotHeader {
+        private final SerDe<T> serde;
+        private final int serdeVersion;
+        private final long snapshotTransactionId;
+        private final int sequence;
+        private final long maxTransactionId;
+        private final int numRecords;
+
+        IncrementalSnapshotHeader(final SerDe<T> serde, final int serdeVersion, final long snapshotTransactionId, final int sequence, final long maxTransactionId,
+                                  final int numRecords) {
+            this.serde = serde;
+            this.serdeVersion = serdeVersion;
+            this.snapshotTransactionId = snapshotTransactionId;
+            this.sequence = sequence;
+            this.maxTransactionId = maxTransactionId;
+            this.numRecords = numRecords;
+        }
+
+        public SerDe<T> getSerDe() {
+            return serde;
+        }
+
+        public int getSerDeVersion() {
+            return serdeVersion;
+        }
+
+        public long getSnapshotTransactionId() {
+            return snapshotTransactionId;
+        }
+
+        public int getSequence() {
+            return sequence;
+        }
+
+        public long getMaxTransactionId() {
+            return maxTransactionId;
+        }
+
+        public int getNumRecords() {
+            return numRecords;
+        }
+    }
+}
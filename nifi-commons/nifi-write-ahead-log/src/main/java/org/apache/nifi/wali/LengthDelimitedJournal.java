@@ -27,6 +27,7 @@ import org.wali.UpdateType;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -42,16 +43,33 @@ import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private static final Logger logger = LoggerFactory.getLogger(LengthDelimitedJournal.class);
     private static final int DEFAULT_MAX_IN_HEAP_SERIALIZATION_BYTES = 5 * 1024 * 1024; // 5 MB
+    private static final int GROUP_COMMIT_BUFFER_SIZE = 256 * 1024;
+    private static final int RECOVERY_BATCH_BYTES = 256 * 1024;
 
     private static final JournalSummary INACTIVE_JOURNAL_SUMMARY = new StandardJournalSummary(-1L, -1L, 0);
     private static final int JOURNAL_ENCODING_VERSION = 1;
@@ -65,6 +83,7 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private final SerDeFactory<T> serdeFactory;
     private final ObjectPool<ByteArrayDataOutputStream> streamPool;
     private final int maxInHeapSerializationBytes;
+    private final boolean groupCommit;
 
     private SerDe<T> serde;
     private FileOutputStream fileOut;
@@ -78,12 +97,31 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private volatile boolean closed = false;
     private final ByteBuffer transactionPreamble = ByteBuffer.allocate(12); // guarded by synchronized block
 
+    private final Object syncMonitor = new Object();
+    private long syncedTransactionId; // guarded by syncMonitor
+    private boolean syncInProgress = false; // guarded by syncMonitor
+
     public LengthDelimitedJournal(final File journalFile, final SerDeFactory<T> serdeFactory, final ObjectPool<ByteArrayDataOutputStream> streamPool, final long initialTransactionId) {
         this(journalFile, serdeFactory, streamPool, initialTransactionId, DEFAULT_MAX_IN_HEAP_SERIALIZATION_BYTES);
     }
 
     public LengthDelimitedJournal(final File journalFile, final SerDeFactory<T> serdeFactory, final ObjectPool<ByteArrayDataOutputStream> streamPool, final long initialTransactionId,
                                   final int maxInHeapSerializationBytes) {
+        this(journalFile, serdeFactory, streamPool, initialTransactionId, maxInHeapSerializationBytes, false);
+    }
+
+    public LengthDelimitedJournal(final File journalFile, final SerDeFactory<T> serdeFactory, final ObjectPool<ByteArrayDataOutputStream> streamPool, final long initialTransactionId,
+                                  final boolean groupCommit) {
+        this(journalFile, serdeFactory, streamPool, initialTransactionId, DEFAULT_MAX_IN_HEAP_SERIALIZATION_BYTES, groupCommit);
+    }
+
+    /**
+     * @param groupCommit if <code>true</code>, transactions are not flushed to the journal file as they are written but are left in the journal's buffer
+     *            until the next call to {@link #groupSync(long)} or {@link #fsync()}, so that the transactions of all threads that sync together also
+     *            are written to the file together. This should be used only if every update is followed by a sync.
+     */
+    public LengthDelimitedJournal(final File journalFile, final SerDeFactory<T> serdeFactory, final ObjectPool<ByteArrayDataOutputStream> streamPool, final long initialTransactionId,
+                                  final int maxInHeapSerializationBytes, final boolean groupCommit) {
         this.journalFile = journalFile;
         this.overflowDirectory = new File(journalFile.getParentFile(), "overflow-" + getBaseFilename(journalFile));
         this.serdeFactory = serdeFactory;
@@ -93,6 +131,8 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
         this.initialTransactionId = initialTransactionId;
         this.currentTransactionId = initialTransactionId;
         this.maxInHeapSerializationBytes = maxInHeapSerializationBytes;
+        this.groupCommit = groupCommit;
+        this.syncedTransactionId = initialTransactionId - 1;
     }
 
     public void dispose() {
@@ -134,7 +174,7 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private synchronized OutputStream getOutputStream() throws FileNotFoundException {
         if (fileOut == null) {
             fileOut = new FileOutputStream(journalFile);
-            bufferedOut = new BufferedOutputStream(fileOut);
+            bufferedOut = groupCommit ? new BufferedOutputStream(fileOut, GROUP_COMMIT_BUFFER_SIZE) : new BufferedOutputStream(fileOut);
         }
 
         return bufferedOut;
@@ -318,7 +358,11 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
                     out.write(TRANSACTION_FOLLOWS);
                     out.write(transactionPreamble.array());
                     baos.writeTo(out);
-                    out.flush();
+
+                    // With group commit, the transaction is written to the file along with those of other threads when it is synced
+                    if (!groupCommit) {
+                        out.flush();
+                    }
                 } catch (final Throwable t) {
                     // While the outter Throwable that wraps this "catch" will call Poison, it is imperative that we call poison()
                     // before the synchronized block is excited. Otherwise, another thread could potentially corrupt the journal before
@@ -381,6 +425,7 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
 
         try {
             if (fileOut != null) {
+                bufferedOut.flush();
                 fileOut.getChannel().force(false);
             }
         } catch (final IOException ioe) {
@@ -388,6 +433,75 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
         }
     }
 
+    @Override
+    public void groupSync(final long maxDelayNanos) throws IOException {
+        final long transactionId;
+        synchronized (this) {
+            checkState();
+            transactionId = currentTransactionId - 1;
+        }
+
+        // If another thread is already syncing, wait for it to finish. If its sync did not include our transaction,
+        // become the thread that performs the next sync, on behalf of all of the threads that are waiting by then.
+        synchronized (syncMonitor) {
+            while (syncInProgress && syncedTransactionId < transactionId) {
+                try {
+                    syncMonitor.wait();
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for journal file " + journalFile + " to be synced to disk", ie);
+                }
+            }
+
+            if (syncedTransactionId >= transactionId) {
+                return;
+            }
+
+            syncInProgress = true;
+        }
+
+        long syncedThrough = -1L;
+        try {
+            if (maxDelayNanos > 0) {
+                LockSupport.parkNanos(maxDelayNanos);
+            }
+
+            final FileOutputStream out;
+            final long lastTransactionId;
+            synchronized (this) {
+                checkState();
+
+                try {
+                    bufferedOut.flush();
+                } catch (final Throwable t) {
+                    poison(t);
+                    throw t;
+                }
+
+                out = fileOut;
+                lastTransactionId = currentTransactionId - 1;
+            }
+
+            // Force the data to disk without holding the lock, so that other threads can continue writing to the journal in the meantime.
+            try {
+                out.getChannel().force(false);
+            } catch (final IOException ioe) {
+                synchronized (this) {
+                    poison(ioe);
+                }
+                throw ioe;
+            }
+
+            syncedThrough = lastTransactionId;
+        } finally {
+            synchronized (syncMonitor) {
+                syncInProgress = false;
+                syncedTransactionId = Math.max(syncedTransactionId, syncedThrough);
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
     @Override
     public synchronized void close() throws IOException {
         if (closed) {
@@ -399,6 +513,7 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
         try {
             if (fileOut != null) {
                 if (!isPoisoned()) {
+                    bufferedOut.flush();
                     fileOut.write(JOURNAL_COMPLETE);
                 }
 
@@ -411,11 +526,69 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
 
     @Override
     public JournalRecovery recoverRecords(final Map<Object, T> recordMap, final Set<String> swapLocations) throws IOException {
+        return recoverRecords(recordMap, swapLocations, 1);
+    }
+
+    @Override
+    public JournalRecovery recoverRecords(final Map<Object, T> recordMap, final Set<String> swapLocations, final int deserializationThreads) throws IOException {
+        logger.info("Recovering records from journal {}", journalFile);
+        final long startNanos = System.nanoTime();
+
+        final List<SerDe<T>> serdes = deserializationThreads > 1 ? createIndependentSerDes(deserializationThreads) : null;
+        final JournalRecovery recovery;
+        final int threads;
+        if (serdes == null) {
+            recovery = recoverRecordsSequentially(recordMap, swapLocations);
+            threads = 1;
+        } else {
+            recovery = recoverRecordsInParallel(recordMap, swapLocations, serdes);
+            threads = serdes.size();
+        }
+
+        final long millis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        final long updatesPerSecond = recovery.getUpdateCount() * 1000L / millis;
+        logger.info("Successfully recovered {} updates from journal {} in {} millis ({} updates/sec) using {} deserialization threads",
+            recovery.getUpdateCount(), journalFile, millis, updatesPerSecond, threads);
+
+        return recovery;
+    }
+
+    /**
+     * Creates the given number of SerDe's with which to deserialize the journal concurrently, or returns <code>null</code> if the journal cannot be
+     * deserialized concurrently, because the SerDe needs the current record states in order to deserialize an edit, or because the SerDe Factory
+     * does not create a separate SerDe each time.
+     */
+    private List<SerDe<T>> createIndependentSerDes(final int count) {
+        final List<SerDe<T>> serdes = new ArrayList<>(count);
+        final Set<SerDe<T>> distinctSerdes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (int i = 0; i < count; i++) {
+            final SerDe<T> serde;
+            try (final InputStream fis = new FileInputStream(journalFile);
+                final DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+                serde = validateHeader(in).getSerDe();
+            } catch (final IOException e) {
+                // Let the sequential recovery deal with a journal whose header cannot be read
+                logger.debug("Failed to read header of journal {}; will recover records on a single thread", journalFile, e);
+                return null;
+            }
+
+            if (!serde.isEditIndependentOfRecordStates() || !distinctSerdes.add(serde)) {
+                logger.debug("{} cannot deserialize journal {} concurrently; will recover records on a single thread", serde, journalFile);
+                return null;
+            }
+
+            serdes.add(serde);
+        }
+
+        return serdes;
+    }
+
+    private JournalRecovery recoverRecordsSequentially(final Map<Object, T> recordMap, final Set<String> swapLocations) throws IOException {
         long maxTransactionId = -1L;
         int updateCount = 0;
 
         boolean eofException = false;
-        logger.info("Recovering records from journal {}", journalFile);
         final double journalLength = journalFile.length();
 
         try (final InputStream fis = new FileInputStream(journalFile);
@@ -442,19 +615,11 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
                 // we want to rollback the entire transaction. We handle this by not updating recordMap or swapLocations
                 // variables directly but instead keeping track of the things that occurred and then once we've read the
                 // entire transaction, we can apply those updates to the recordMap and swapLocations.
-                final Map<Object, T> transactionRecordMap = new HashMap<>();
-                final Set<Object> idsRemoved = new HashSet<>();
-                final Set<String> swapLocationsRemoved = new HashSet<>();
-                final Set<String> swapLocationsAdded = new HashSet<>();
-                int transactionUpdates = 0;
+                final TransactionUpdates transactionUpdates = new TransactionUpdates();
 
                 // While we have a transaction to recover, recover it
                 while (transactionIndicator == TRANSACTION_FOLLOWS) {
-                    transactionRecordMap.clear();
-                    idsRemoved.clear();
-                    swapLocationsRemoved.clear();
-                    swapLocationsAdded.clear();
-                    transactionUpdates = 0;
+                    transactionUpdates.clear();
 
                     // Format is <Transaction ID: 8 bytes> <Transaction Length: 4 bytes> <Transaction data: # of bytes indicated by Transaction Length Field>
                     final long transactionId = in.readLong();
@@ -470,59 +635,12 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
 
                     while (transactionByteCountingIn.getBytesConsumed() < transactionLength || serde.isMoreInExternalFile()) {
                         final T record = serde.deserializeEdit(transactionDis, recordMap, serdeAndVersion.getVersion());
-
-                        // Update our RecordMap so that we have the most up-to-date version of the Record.
-                        final Object recordId = serde.getRecordIdentifier(record);
-                        final UpdateType updateType = serde.getUpdateType(record);
-
-                        switch (updateType) {
-                            case DELETE: {
-                                idsRemoved.add(recordId);
-                                transactionRecordMap.remove(recordId);
-                                break;
-                            }
-                            case SWAP_IN: {
-                                final String location = serde.getLocation(record);
-                                if (location == null) {
-                                    logger.error("Recovered SWAP_IN record from edit log, but it did not contain a Location; skipping record");
-                                } else {
-                                    swapLocationsRemoved.add(location);
-                                    swapLocationsAdded.remove(location);
-                                    transactionRecordMap.put(recordId, record);
-                                }
-                                break;
-                            }
-                            case SWAP_OUT: {
-                                final String location = serde.getLocation(record);
-                                if (location == null) {
-                                    logger.error("Recovered SWAP_OUT record from edit log, but it did not contain a Location; skipping record");
-                                } else {
-                                    swapLocationsRemoved.remove(location);
-                                    swapLocationsAdded.add(location);
-                                    idsRemoved.add(recordId);
-                                    transactionRecordMap.remove(recordId);
-                                }
-
-                                break;
-                            }
-                            default: {
-                                transactionRecordMap.put(recordId, record);
-                                idsRemoved.remove(recordId);
-                                break;
-                            }
-                        }
-
-                        transactionUpdates++;
+                        transactionUpdates.add(serde, record);
                     }
 
                     // Apply the transaction
-                    for (final Object id : idsRemoved) {
-                        recordMap.remove(id);
-                    }
-                    recordMap.putAll(transactionRecordMap);
-                    swapLocations.removeAll(swapLocationsRemoved);
-                    swapLocations.addAll(swapLocationsAdded);
-                    updateCount += transactionUpdates;
+                    transactionUpdates.applyTo(recordMap, swapLocations);
+                    updateCount += transactionUpdates.getUpdateCount();
 
                     // Check if there is another transaction to read
                     transactionIndicator = in.read();
@@ -560,10 +678,181 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
             }
         }
 
-        logger.info("Successfully recovered {} updates from journal {}", updateCount, journalFile);
         return new StandardJournalRecovery(updateCount, maxTransactionId, eofException);
     }
 
+    /**
+     * Recovers records in the same way as {@link #recoverRecordsSequentially(Map, Set)}, but deserializes the transactions on a separate thread for
+     * each of the given SerDe's. This thread reads the transactions from the journal and hands them off in batches; the updates of each batch are
+     * then applied by this thread, in the order in which they were written, so the result is the same as if they had been deserialized in order.
+     */
+    private JournalRecovery recoverRecordsInParallel(final Map<Object, T> recordMap, final Set<String> swapLocations, final List<SerDe<T>> serdes) throws IOException {
+        long maxTransactionId = -1L;
+        int updateCount = 0;
+
+        boolean eofException = false;
+        final double journalLength = journalFile.length();
+
+        final BlockingQueue<SerDe<T>> availableSerdes = new LinkedBlockingQueue<>(serdes);
+        final int maxPendingBatches = serdes.size() * 2;
+        final Deque<Future<DeserializedBatch>> pendingBatches = new ArrayDeque<>(maxPendingBatches);
+        final AtomicInteger threadCounter = new AtomicInteger(0);
+        final ExecutorService executor = Executors.newFixedThreadPool(serdes.size(), runnable -> {
+            final Thread thread = new Thread(runnable, "Recover Journal " + journalFile.getName() + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (final InputStream fis = new FileInputStream(journalFile);
+            final InputStream bufferedIn = new BufferedInputStream(fis);
+            final ByteCountingInputStream byteCountingIn = new ByteCountingInputStream(bufferedIn);
+            final DataInputStream in = new DataInputStream(byteCountingIn)) {
+
+            try {
+                final SerDeAndVersion serdeAndVersion = validateHeader(in);
+                final int serdeVersion = serdeAndVersion.getVersion();
+
+                int transactionIndicator = in.read();
+                if (transactionIndicator != TRANSACTION_FOLLOWS && transactionIndicator != JOURNAL_COMPLETE && transactionIndicator != -1) {
+                    throw new IOException("After reading " + byteCountingIn.getBytesConsumed() + " bytes from " + journalFile + ", encountered unexpected value of "
+                        + transactionIndicator + " for the Transaction Indicator. This journal may have been corrupted.");
+                }
+
+                long consumedAtLog = 0L;
+                List<byte[]> batch = new ArrayList<>();
+                long batchBytes = 0L;
+
+                // If a transaction cannot be read, the transactions before it must still be applied, so hold on to the failure until they have been.
+                Exception failure = null;
+
+                while (true) {
+                    if (transactionIndicator == TRANSACTION_FOLLOWS && failure == null && pendingBatches.size() < maxPendingBatches) {
+                        try {
+                            // Format is <Transaction ID: 8 bytes> <Transaction Length: 4 bytes> <Transaction data: # of bytes indicated by Transaction Length Field>
+                            final long transactionId = in.readLong();
+                            maxTransactionId = Math.max(maxTransactionId, transactionId);
+                            final int transactionLength = in.readInt();
+
+                            final byte[] transaction = new byte[transactionLength];
+                            in.readFully(transaction);
+                            batch.add(transaction);
+                            batchBytes += transactionLength;
+
+                            transactionIndicator = in.read();
+                            if (transactionIndicator != TRANSACTION_FOLLOWS && transactionIndicator != JOURNAL_COMPLETE && transactionIndicator != -1) {
+                                throw new IOException("After reading " + byteCountingIn.getBytesConsumed() + " bytes from " + journalFile + ", encountered unexpected value of "
+                                    + transactionIndicator + " for the Transaction Indicator. This journal may have been corrupted.");
+                            }
+                        } catch (final Exception e) {
+                            failure = e;
+                        }
+
+                        final boolean lastTransaction = transactionIndicator != TRANSACTION_FOLLOWS || failure != null;
+                        if (!batch.isEmpty() && (batchBytes >= RECOVERY_BATCH_BYTES || lastTransaction)) {
+                            final List<byte[]> transactions = batch;
+                            pendingBatches.addLast(executor.submit(() -> deserializeBatch(transactions, availableSerdes, serdeVersion)));
+                            batch = new ArrayList<>();
+                            batchBytes = 0L;
+                        }
+
+                        final long consumed = byteCountingIn.getBytesConsumed();
+                        if (consumed - consumedAtLog > 50_000_000) {
+                            final double percentage = consumed / journalLength * 100D;
+                            final String pct = new DecimalFormat("#.00").format(percentage);
+                            logger.info("{}% of the way finished recovering journal {}, having recovered {} updates", pct, journalFile, updateCount);
+                            consumedAtLog = consumed;
+                        }
+
+                        continue;
+                    }
+
+                    final Future<DeserializedBatch> oldestBatch = pendingBatches.pollFirst();
+                    if (oldestBatch == null) {
+                        break;
+                    }
+
+                    final DeserializedBatch deserializedBatch = getDeserializedBatch(oldestBatch);
+                    for (final TransactionUpdates transactionUpdates : deserializedBatch.getTransactionUpdates()) {
+                        transactionUpdates.applyTo(recordMap, swapLocations);
+                        updateCount += transactionUpdates.getUpdateCount();
+                    }
+
+                    // A transaction that could not be deserialized comes before anything that was read after it, none of which may be applied.
+                    if (deserializedBatch.getFailure() != null) {
+                        failure = deserializedBatch.getFailure();
+                        break;
+                    }
+                }
+
+                if (failure instanceof IOException) {
+                    throw (IOException) failure;
+                } else if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                } else if (failure != null) {
+                    throw new IOException("Failed to recover journal " + journalFile, failure);
+                }
+            } catch (final EOFException eof) {
+                eofException = true;
+                logger.warn("Encountered unexpected End-of-File when reading journal file {}; assuming that NiFi was shutdown unexpectedly and continuing recovery", journalFile);
+            } catch (final Exception e) {
+                // As with sequential recovery, treat trailing NUL bytes the same as an EOF.
+                if (remainingBytesAllNul(in)) {
+                    logger.warn("Failed to recover some of the data from Write-Ahead Log Journal because encountered trailing NUL bytes. "
+                        + "This will sometimes happen after a sudden power loss. The rest of this journal file will be skipped for recovery purposes."
+                        + "The following Exception was encountered while recovering the updates to the journal:", e);
+                } else {
+                    throw e;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new StandardJournalRecovery(updateCount, maxTransactionId, eofException);
+    }
+
+    private DeserializedBatch deserializeBatch(final List<byte[]> transactions, final BlockingQueue<SerDe<T>> availableSerdes, final int serdeVersion) throws InterruptedException {
+        final List<TransactionUpdates> transactionUpdates = new ArrayList<>(transactions.size());
+        final SerDe<T> serde = availableSerdes.take();
+
+        try {
+            for (final byte[] transaction : transactions) {
+                final ByteArrayInputStream transactionIn = new ByteArrayInputStream(transaction);
+                final DataInputStream transactionDis = new DataInputStream(transactionIn);
+                final TransactionUpdates updates = new TransactionUpdates();
+
+                while (transactionIn.available() > 0 || serde.isMoreInExternalFile()) {
+                    final T record = serde.deserializeEdit(transactionDis, Collections.emptyMap(), serdeVersion);
+                    updates.add(serde, record);
+                }
+
+                transactionUpdates.add(updates);
+            }
+        } catch (final Exception e) {
+            return new DeserializedBatch(transactionUpdates, e);
+        } finally {
+            availableSerdes.offer(serde);
+        }
+
+        return new DeserializedBatch(transactionUpdates, null);
+    }
+
+    private DeserializedBatch getDeserializedBatch(final Future<DeserializedBatch> future) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while recovering journal " + journalFile, ie);
+        } catch (final ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException("Failed to recover journal " + journalFile, cause);
+        }
+    }
+
     /**
      * In the case of a sudden power loss, it is common - at least in a Linux journaling File System -
      * that the partition file that is being written to will have many trailing "NUL bytes" (0's).
@@ -595,6 +884,107 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
         return new StandardJournalSummary(initialTransactionId, currentTransactionId - 1, transactionCount);
     }
 
+    /**
+     * The updates of a single transaction, which are applied all at once so that a transaction that is only partially recovered is not applied at all.
+     */
+    private class TransactionUpdates {
+        private final Map<Object, T> transactionRecordMap = new HashMap<>();
+        private final Set<Object> idsRemoved = new HashSet<>();
+        private final Set<String> swapLocationsRemoved = new HashSet<>();
+        private final Set<String> swapLocationsAdded = new HashSet<>();
+        private int updateCount = 0;
+
+        public void add(final SerDe<T> serde, final T record) {
+            // Update our RecordMap so that we have the most up-to-date version of the Record.
+            final Object recordId = serde.getRecordIdentifier(record);
+            final UpdateType updateType = serde.getUpdateType(record);
+
+            switch (updateType) {
+                case DELETE: {
+                    idsRemoved.add(recordId);
+                    transactionRecordMap.remove(recordId);
+                    break;
+                }
+                case SWAP_IN: {
+                    final String location = serde.getLocation(record);
+                    if (location == null) {
+                        logger.error("Recovered SWAP_IN record from edit log, but it did not contain a Location; skipping record");
+                    } else {
+                        swapLocationsRemoved.add(location);
+                        swapLocationsAdded.remove(location);
+                        transactionRecordMap.put(recordId, record);
+                    }
+                    break;
+                }
+                case SWAP_OUT: {
+                    final String location = serde.getLocation(record);
+                    if (location == null) {
+                        logger.error("Recovered SWAP_OUT record from edit log, but it did not contain a Location; skipping record");
+                    } else {
+                        swapLocationsRemoved.remove(location);
+                        swapLocationsAdded.add(location);
+                        idsRemoved.add(recordId);
+                        transactionRecordMap.remove(recordId);
+                    }
+
+                    break;
+                }
+                default: {
+                    transactionRecordMap.put(recordId, record);
+                    idsRemoved.remove(recordId);
+                    break;
+                }
+            }
+
+            updateCount++;
+        }
+
+        public void applyTo(final Map<Object, T> recordMap, final Set<String> swapLocations) {
+            for (final Object id : idsRemoved) {
+                recordMap.remove(id);
+            }
+            recordMap.putAll(transactionRecordMap);
+            swapLocations.removeAll(swapLocationsRemoved);
+            swapLocations.addAll(swapLocationsAdded);
+        }
+
+        public int getUpdateCount() {
+            return updateCount;
+        }
+
+        public void clear() {
+            transactionRecordMap.clear();
+            idsRemoved.clear();
+            swapLocationsRemoved.clear();
+            swapLocationsAdded.clear();
+            updateCount = 0;
+        }
+    }
+
+    private class DeserializedBatch {
+        private final List<TransactionUpdates> transactionUpdates;
+        private final Exception failure;
+
+        DeserializedBatch(final List<TransactionUpdates> transactionUpdates, final Exception failure) {
+            this.transactionUpdates = transactionUpdates;
+            this.failure = failure;
+        }
+
+        /**
+         * @return the updates of each transaction in the batch that was deserialized successfully, in order
+         */
+        public List<TransactionUpdates> getTransactionUpdates() {
+            return transactionUpdates;
+        }
+
+        /**
+         * @return the Exception that prevented the rest of the batch from being deserialized, or <code>null</code> if the entire batch was deserialized
+         */
+        public Exception getFailure() {
+            return failure;
+        }
+    }
+
     private class SerDeAndVersion {
         private final SerDe<T> serde;
         private final int version;
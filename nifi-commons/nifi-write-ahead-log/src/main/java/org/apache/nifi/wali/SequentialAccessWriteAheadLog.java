@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -53,6 +54,18 @@ import org.wali.WriteAheadRepository;
  * that records are recovered correctly if two threads simultaneously update the write-ahead log
  * with updates for the same record.
  * </p>
+ *
+ * <p>
+ * If group commit is enabled, every update is synced to disk before it is acknowledged, but threads that update the repository concurrently
+ * share the sync: the transactions of all threads that are waiting for a sync are written to the journal together and synced once. The thread
+ * that performs the sync first waits for up to the configured group commit window, but only if other threads are updating the repository at
+ * the same time, so that their transactions can be included.
+ * </p>
+ *
+ * <p>
+ * If incremental snapshots are enabled, a checkpoint writes only the records that have changed since the previous checkpoint, with all records
+ * being written periodically. See {@link IncrementalHashMapSnapshot} for details.
+ * </p>
  */
 public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T> {
     private static final int PARTITION_INDEX = 0;
@@ -66,6 +79,10 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
     protected final SerDeFactory<T> serdeFactory;
     private final SyncListener syncListener;
     private final Set<String> recoveredSwapLocations = new HashSet<>();
+    private final boolean groupCommit;
+    private final long groupCommitWindowNanos;
+    private final AtomicInteger activeUpdates = new AtomicInteger(0);
+    private final int recoveryThreads;
 
     private final ReadWriteLock journalRWLock = new ReentrantReadWriteLock();
     private final Lock journalReadLock = journalRWLock.readLock();
@@ -88,6 +105,51 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
     }
 
     public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory, final SyncListener syncListener) throws IOException {
+        this(storageDirectory, serdeFactory, syncListener, -1L);
+    }
+
+    /**
+     * @param storageDirectory the directory in which to store the snapshot and journals
+     * @param serdeFactory the factory for the SerDe that is used to serialize records
+     * @param syncListener the listener to notify when the journal has been synced to disk
+     * @param groupCommitWindowNanos the maximum number of nanoseconds that an update waits for concurrent updates before syncing them all to disk at once,
+     *            or a negative value to disable group commit, in which case updates are synced only if requested
+     * @throws IOException if unable to create the storage directory
+     */
+    public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory, final SyncListener syncListener,
+                                         final long groupCommitWindowNanos) throws IOException {
+        this(storageDirectory, serdeFactory, syncListener, groupCommitWindowNanos, 0);
+    }
+
+    /**
+     * @param storageDirectory the directory in which to store the snapshot and journals
+     * @param serdeFactory the factory for the SerDe that is used to serialize records
+     * @param syncListener the listener to notify when the journal has been synced to disk
+     * @param groupCommitWindowNanos the maximum number of nanoseconds that an update waits for concurrent updates before syncing them all to disk at once,
+     *            or a negative value to disable group commit, in which case updates are synced only if requested
+     * @param maxIncrementalSnapshots the maximum number of checkpoints in a row that write only the records that have changed since the previous checkpoint,
+     *            or 0 to write all records on every checkpoint
+     * @throws IOException if unable to create the storage directory
+     */
+    public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory, final SyncListener syncListener,
+                                         final long groupCommitWindowNanos, final int maxIncrementalSnapshots) throws IOException {
+        this(storageDirectory, serdeFactory, syncListener, groupCommitWindowNanos, maxIncrementalSnapshots, 1);
+    }
+
+    /**
+     * @param storageDirectory the directory in which to store the snapshot and journals
+     * @param serdeFactory the factory for the SerDe that is used to serialize records
+     * @param syncListener the listener to notify when the journal has been synced to disk
+     * @param groupCommitWindowNanos the maximum number of nanoseconds that an update waits for concurrent updates before syncing them all to disk at once,
+     *            or a negative value to disable group commit, in which case updates are synced only if requested
+     * @param maxIncrementalSnapshots the maximum number of checkpoints in a row that write only the records that have changed since the previous checkpoint,
+     *            or 0 to write all records on every checkpoint
+     * @param recoveryThreads the number of threads to use for deserializing the journals on recovery. The updates are applied in the order in which they
+     *            were written regardless, but more than one thread is used only if the SerDe can deserialize an edit without the current record states
+     * @throws IOException if unable to create the storage directory
+     */
+    public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory, final SyncListener syncListener,
+                                         final long groupCommitWindowNanos, final int maxIncrementalSnapshots, final int recoveryThreads) throws IOException {
         if (!storageDirectory.exists() && !storageDirectory.mkdirs()) {
             throw new IOException("Directory " + storageDirectory + " does not exist and cannot be created");
         }
@@ -95,9 +157,16 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             throw new IOException("File " + storageDirectory + " is a regular file and not a directory");
         }
 
-        final HashMapSnapshot<T> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
-        this.snapshot = hashMapSnapshot;
-        this.recordLookup = hashMapSnapshot;
+        // Even if incremental snapshots are no longer to be written, any that exist must be applied when recovering.
+        if (maxIncrementalSnapshots > 0 || IncrementalHashMapSnapshot.isIncrementalSnapshotPresent(storageDirectory)) {
+            final IncrementalHashMapSnapshot<T> incrementalSnapshot = new IncrementalHashMapSnapshot<>(storageDirectory, serdeFactory, maxIncrementalSnapshots);
+            this.snapshot = incrementalSnapshot;
+            this.recordLookup = incrementalSnapshot;
+        } else {
+            final HashMapSnapshot<T> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
+            this.snapshot = hashMapSnapshot;
+            this.recordLookup = hashMapSnapshot;
+        }
 
         this.storageDirectory = storageDirectory;
         this.journalsDirectory = new File(storageDirectory, "journals");
@@ -109,6 +178,9 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
 
         this.serdeFactory = serdeFactory;
         this.syncListener = (syncListener == null) ? SyncListener.NOP_SYNC_LISTENER : syncListener;
+        this.groupCommit = groupCommitWindowNanos >= 0L;
+        this.groupCommitWindowNanos = groupCommitWindowNanos;
+        this.recoveryThreads = Math.max(1, recoveryThreads);
     }
 
     @Override
@@ -117,11 +189,16 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             throw new IllegalStateException("Cannot update repository until record recovery has been performed");
         }
 
+        activeUpdates.incrementAndGet();
         journalReadLock.lock();
         try {
             journal.update(records, recordLookup);
 
-            if (forceSync) {
+            if (groupCommit) {
+                // Waiting only helps if another thread is about to write a transaction that could share our sync.
+                journal.groupSync(activeUpdates.get() > 1 ? groupCommitWindowNanos : 0L);
+                syncListener.onSync(PARTITION_INDEX);
+            } else if (forceSync) {
                 journal.fsync();
                 syncListener.onSync(PARTITION_INDEX);
             }
@@ -129,6 +206,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             snapshot.update(records);
         } finally {
             journalReadLock.unlock();
+            activeUpdates.decrementAndGet();
         }
 
         return PARTITION_INDEX;
@@ -178,6 +256,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
 
         final long snapshotTransactionId = snapshotRecovery.getMaxTransactionId();
 
+        final long journalRecoveryStart = System.nanoTime();
         int totalUpdates = 0;
         int journalFilesRecovered = 0;
         int journalFilesSkipped = 0;
@@ -197,7 +276,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             journalFilesRecovered++;
 
             try (final WriteAheadJournal<T> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L)) {
-                final JournalRecovery journalRecovery = journal.recoverRecords(recoveredRecords, swapLocations);
+                final JournalRecovery journalRecovery = journal.recoverRecords(recoveredRecords, swapLocations, recoveryThreads);
                 final int updates = journalRecovery.getUpdateCount();
 
                 logger.debug("Recovered {} updates from journal {}", updates, journalFile);
@@ -206,8 +285,9 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             }
         }
 
-        logger.debug("Recovered {} updates from {} journal files and skipped {} journal files because their data was already encapsulated in the snapshot",
-            totalUpdates, journalFilesRecovered, journalFilesSkipped);
+        final long journalRecoveryMillis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - journalRecoveryStart));
+        logger.info("Recovered {} updates from {} journal files in {} milliseconds ({} updates/sec) and skipped {} journal files because their data was already "
+            + "encapsulated in the snapshot", totalUpdates, journalFilesRecovered, journalRecoveryMillis, totalUpdates * 1000L / journalRecoveryMillis, journalFilesSkipped);
         this.nextTransactionId = maxTransactionId + 1;
 
         final long recoverNanos = System.nanoTime() - recoverStart;
@@ -288,11 +368,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             final File[] existingFiles = journalsDirectory.listFiles(this::isJournalFile);
             existingJournals = (existingFiles == null) ? new File[0] : existingFiles;
 
-            if (swapLocations == null) {
-                snapshotCapture = snapshot.prepareSnapshot(nextTransactionId - 1);
-            } else {
-                snapshotCapture = snapshot.prepareSnapshot(nextTransactionId - 1, swapLocations);
-            }
+            snapshotCapture = snapshot.prepareCheckpoint(nextTransactionId - 1, swapLocations);
 
 
             // Create a new journal. We name the journal file <next transaction id>.journal but it is possible
@@ -305,7 +381,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
                 journalFile = new File(journalsDirectory, nextTransactionId + ".journal");
             }
 
-            journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, nextTransactionId);
+            journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, nextTransactionId, groupCommit);
             journal.writeHeader();
 
             logger.debug("Created new Journal starting with Transaction ID {}", nextTransactionId);
@@ -324,9 +400,9 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
         final long totalNanos = System.nanoTime() - startNanos;
         final long millis = TimeUnit.NANOSECONDS.toMillis(totalNanos);
         logger.info("Checkpointed Write-Ahead Log with {} Records and {} Swap Files in {} milliseconds (Stop-the-world time = {} milliseconds), max Transaction ID {}",
-                snapshotCapture.getRecords().size(), snapshotCapture.getSwapLocations().size(), millis, stopTheWorldMillis, snapshotCapture.getMaxTransactionId());
+                snapshotCapture.getRecordCount(), snapshotCapture.getSwapLocations().size(), millis, stopTheWorldMillis, snapshotCapture.getMaxTransactionId());
 
-        return snapshotCapture.getRecords().size();
+        return snapshotCapture.getRecordCount();
     }
 
 
@@ -26,4 +26,11 @@ public interface SnapshotCapture<T> {
     long getMaxTransactionId();
 
     Set<String> getSwapLocations();
+
+    /**
+     * @return the number of records in the repository at the time that the snapshot was captured
+     */
+    default int getRecordCount() {
+        return getRecords().size();
+    }
 }
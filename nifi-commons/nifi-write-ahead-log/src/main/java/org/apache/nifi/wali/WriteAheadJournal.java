@@ -27,6 +27,20 @@ public interface WriteAheadJournal<T> extends Closeable {
 
     JournalRecovery recoverRecords(Map<Object, T> recordMap, Set<String> swapLocations) throws IOException;
 
+    /**
+     * Recovers the records in the journal, using up to the given number of threads to deserialize the updates. The updates are always applied to
+     * the given record map in the order in which they were written to the journal.
+     *
+     * @param recordMap the map of record ID to record, to which the recovered updates are applied
+     * @param swapLocations the set of swap locations, to which the recovered swap locations are applied
+     * @param deserializationThreads the maximum number of threads to use for deserializing the updates
+     * @return the results of the recovery
+     * @throws IOException if unable to read from the journal
+     */
+    default JournalRecovery recoverRecords(Map<Object, T> recordMap, Set<String> swapLocations, int deserializationThreads) throws IOException {
+        return recoverRecords(recordMap, swapLocations);
+    }
+
     /**
      * Updates the journal with the given set of records
      *
@@ -41,6 +55,17 @@ public interface WriteAheadJournal<T> extends Closeable {
 
     void fsync() throws IOException;
 
+    /**
+     * Syncs to disk all updates that have been written to the journal, sharing the sync with any other threads that call this method concurrently.
+     * If another thread is already syncing, this method waits for that sync to complete and returns without syncing again, unless that sync did not
+     * include all of the updates that had been written when this method was called. A thread that does need to sync first waits for up to the given
+     * delay, so that the updates that other threads write in the meantime are synced along with its own.
+     *
+     * @param maxDelayNanos the number of nanoseconds to wait before syncing, in order to allow the updates of other threads to be synced at the same time
+     * @throws IOException if unable to sync the journal to disk
+     */
+    void groupSync(long maxDelayNanos) throws IOException;
+
     /**
      * Returns information about what was written to the journal
      *
@@ -26,6 +26,19 @@ public interface WriteAheadSnapshot<T> {
 
     SnapshotCapture<T> prepareSnapshot(long maxTransactionId, Set<String> swapLocations);
 
+    /**
+     * Prepares the snapshot that is to be written as part of a checkpoint. Unlike {@link #prepareSnapshot(long)}, the returned capture need not
+     * contain all records, only what {@link #writeSnapshot(SnapshotCapture)} needs in order to bring the snapshot up to date. This method must be
+     * called only while no updates are taking place.
+     *
+     * @param maxTransactionId the ID of the last transaction that is included in the snapshot
+     * @param swapLocations the locations of all swap files, or <code>null</code> to use the swap locations that are known to the snapshot
+     * @return the snapshot that is to be written
+     */
+    default SnapshotCapture<T> prepareCheckpoint(final long maxTransactionId, final Set<String> swapLocations) {
+        return swapLocations == null ? prepareSnapshot(maxTransactionId) : prepareSnapshot(maxTransactionId, swapLocations);
+    }
+
     void writeSnapshot(SnapshotCapture<T> snapshot) throws IOException;
 
     SnapshotRecovery<T> recover() throws IOException;
@@ -185,4 +185,14 @@ public interface SerDe<T> {
     default boolean isMoreInExternalFile() throws IOException {
         return false;
     }
+
+    /**
+     * Indicates whether or not {@link #deserializeEdit(DataInputStream, Map, int)} makes use of the current record states. If it does not, then each
+     * edit is self-contained, and edits may be deserialized concurrently, by separate SerDe instances, without regard to the order in which they were written.
+     *
+     * @return <code>true</code> if the current record states are not needed in order to deserialize an edit, <code>false</code> otherwise
+     */
+    default boolean isEditIndependentOfRecordStates() {
+        return false;
+    }
 }
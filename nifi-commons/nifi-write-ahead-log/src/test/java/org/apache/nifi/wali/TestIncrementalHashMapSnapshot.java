@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.wali;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wali.DummyRecord;
+import org.wali.DummyRecordSerde;
+import org.wali.SerDeFactory;
+import org.wali.SingletonSerDeFactory;
+import org.wali.UpdateType;
+
+public class TestIncrementalHashMapSnapshot {
+
+    private final File storageDirectory = new File("target/test-incremental-hashmap-snapshot");
+    private DummyRecordSerde serde;
+    private SerDeFactory<DummyRecord> serdeFactory;
+
+    @Before
+    public void setup() throws IOException {
+        if (!storageDirectory.exists()) {
+            Files.createDirectories(storageDirectory.toPath());
+        }
+
+        final File[] childFiles = storageDirectory.listFiles();
+        for (final File childFile : childFiles) {
+            if (childFile.isFile()) {
+                Files.delete(childFile.toPath());
+            }
+        }
+
+        serde = new DummyRecordSerde();
+        serdeFactory = new SingletonSerDeFactory<>(serde);
+    }
+
+    @Test
+    public void testIncrementalSnapshotsRecovered() throws IOException {
+        final IncrementalHashMapSnapshot<DummyRecord> snapshot = new IncrementalHashMapSnapshot<>(storageDirectory, serdeFactory, 10);
+        final Map<Object, DummyRecord> expected = new HashMap<>();
+
+        for (int i = 0; i < 10; i++) {
+            expected.put(String.valueOf(i), create(snapshot, i));
+        }
+
+        // the first checkpoint must write all records
+        final SnapshotCapture<DummyRecord> fullCapture = snapshot.prepareCheckpoint(10L, null);
+        assertEquals(10, fullCapture.getRecords().size());
+        snapshot.writeSnapshot(fullCapture);
+
+        // delete 2, swap out 3 and 4, update 5
+        update(snapshot, new DummyRecord("2", UpdateType.DELETE));
+        expected.remove("2");
+        update(snapshot, swapOut("3", "swap-1"));
+        update(snapshot, swapOut("4", "swap-1"));
+        expected.remove("3");
+        expected.remove("4");
+        final DummyRecord updated = new DummyRecord("5", UpdateType.UPDATE).setProperty("key", "updated");
+        update(snapshot, updated);
+        expected.put("5", updated);
+
+        final SnapshotCapture<DummyRecord> firstIncrement = snapshot.prepareCheckpoint(20L, null);
+        assertEquals(4, firstIncrement.getRecords().size());
+        assertEquals(7, firstIncrement.getRecordCount());
+        assertEquals(Collections.singleton("swap-1"), firstIncrement.getSwapLocations());
+        snapshot.writeSnapshot(firstIncrement);
+
+        // swap 3 and 4 back in, then create a new record
+        final DummyRecord swapIn3 = swapIn("3", "swap-1");
+        final DummyRecord swapIn4 = swapIn("4", "swap-1");
+        update(snapshot, swapIn3);
+        update(snapshot, swapIn4);
+        expected.put("3", swapIn3);
+        expected.put("4", swapIn4);
+        expected.put("10", create(snapshot, 10));
+
+        final SnapshotCapture<DummyRecord> secondIncrement = snapshot.prepareCheckpoint(30L, null);
+        assertEquals(3, secondIncrement.getRecords().size());
+        assertEquals(Collections.emptySet(), secondIncrement.getSwapLocations());
+        snapshot.writeSnapshot(secondIncrement);
+
+        final IncrementalHashMapSnapshot<DummyRecord> recoverySnapshot = new IncrementalHashMapSnapshot<>(storageDirectory, serdeFactory, 10);
+        final SnapshotRecovery<DummyRecord> recovery = recoverySnapshot.recover();
+        assertEquals(30L, recovery.getMaxTransactionId());
+        assertEquals(expected, recovery.getRecords());
+        assertTrue(recovery.getRecoveredSwapLocations().isEmpty());
+        assertEquals(updated, recoverySnapshot.lookup("5"));
+    }
+
+    @Test
+    public void testFullSnapshotWrittenAfterMaxIncrementalSnapshots() throws IOException {
+        final IncrementalHashMapSnapshot<DummyRecord> snapshot = new IncrementalHashMapSnapshot<>(storageDirectory, serdeFactory, 2);
+        for (int i = 0; i < 10; i++) {
+            create(snapshot, i);
+        }
+
+        snapshot.writeSnapshot(snapshot.prepareCheckpoint(10L, null));
+
+        for (int i = 0; i < 2; i++) {
+            update(snapshot, new DummyRecord(String.valueOf(i), UpdateType.UPDATE));
+            final SnapshotCapture<DummyRecord> capture = snapshot.prepareCheckpoint(20L + i, null);
+            assertEquals(1, capture.getRecords().size());
+            snapshot.writeSnapshot(capture);
+        }
+
+        assertTrue(IncrementalHashMapSnapshot.isIncrementalSnapshotPresent(storageDirectory));
+
+        update(snapshot, new DummyRecord("5", UpdateType.UPDATE));
+        final SnapshotCapture<DummyRecord> capture = snapshot.prepareCheckpoint(30L, null);
+        assertEquals(10, capture.getRecords().size());
+        snapshot.writeSnapshot(capture);
+
+        assertFalse(IncrementalHashMapSnapshot.isIncrementalSnapshotPresent(storageDirectory));
+
+        final SnapshotRecovery<DummyRecord> recovery = new IncrementalHashMapSnapshot<>(storageDirectory, serdeFactory, 2).recover();
+        assertEquals(30L, recovery.getMaxTransactionId());
+        assertEquals(10, recovery.getRecords().size());
+    }
+
+    @Test
+    public void testIncrementalSnapshotForPreviousSnapshotIgnored() throws IOException {
+        final IncrementalHashMapSnapshot<DummyRecord> snapshot = new IncrementalHashMapSnapshot<>(storageDirectory, serdeFactory, 1);
+        for (int i = 0; i < 10; i++) {
+            create(snapshot, i);
+        }
+
+        snapshot.writeSnapshot(snapshot.prepareCheckpoint(10L, null));
+
+        update(snapshot, new DummyRecord("0", UpdateType.DELETE));
+        snapshot.writeSnapshot(snapshot.prepareCheckpoint(20L, null));
+
+        final File incrementalFile = new File(storageDirectory, "checkpoint.incremental.1");
+        final File savedFile = new File(storageDirectory.getParentFile(), "saved.incremental");
+        Files.copy(incrementalFile.toPath(), savedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        // a full snapshot replaces the incremental snapshot, and "0" is re-created
+        final DummyRecord recreated = create(snapshot, 0);
+        snapshot.writeSnapshot(snapshot.prepareCheckpoint(30L, null));
+        assertFalse(incrementalFile.exists());
+
+        // simulate failing to delete the incremental snapshot after writing the full snapshot
+        Files.move(savedFile.toPath(), incrementalFile.toPath());
+
+        final SnapshotRecovery<DummyRecord> recovery = new IncrementalHashMapSnapshot<>(storageDirectory, serdeFactory, 1).recover();
+        assertEquals(30L, recovery.getMaxTransactionId());
+        assertEquals(10, recovery.getRecords().size());
+        assertEquals(recreated, recovery.getRecords().get("0"));
+    }
+
+    @Test
+    public void testFailedIncrementalSnapshotResultsInFullSnapshot() throws IOException {
+        final IncrementalHashMapSnapshot<DummyRecord> snapshot = new IncrementalHashMapSnapshot<>(storageDirectory, serdeFactory, 10);
+        for (int i = 0; i < 10; i++) {
+            create(snapshot, i);
+        }
+
+        snapshot.writeSnapshot(snapshot.prepareCheckpoint(10L, null));
+
+        update(snapshot, new DummyRecord("1", UpdateType.UPDATE));
+        update(snapshot, new DummyRecord("2", UpdateType.UPDATE));
+
+        serde.setThrowIOEAfterNSerializeEdits(1);
+        try {
+            snapshot.writeSnapshot(snapshot.prepareCheckpoint(20L, null));
+            Assert.fail("Expected IOE");
+        } catch (final IOException ioe) {
+            // expected
+        }
+
+        assertFalse(IncrementalHashMapSnapshot.isIncrementalSnapshotPresent(storageDirectory));
+
+        // the changes that failed to be written are no longer tracked, so all records must be written
+        serde.setThrowIOEAfterNSerializeEdits(-1);
+        final SnapshotCapture<DummyRecord> capture = snapshot.prepareCheckpoint(30L, null);
+        assertEquals(10, capture.getRecords().size());
+        snapshot.writeSnapshot(capture);
+
+        final SnapshotRecovery<DummyRecord> recovery = new IncrementalHashMapSnapshot<>(storageDirectory, serdeFactory, 10).recover();
+        assertEquals(30L, recovery.getMaxTransactionId());
+        assertEquals(UpdateType.UPDATE, recovery.getRecords().get("1").getUpdateType());
+        assertEquals(UpdateType.UPDATE, recovery.getRecords().get("2").getUpdateType());
+    }
+
+    @Test
+    public void testRecoversSnapshotWrittenByHashMapSnapshot() throws IOException {
+        final HashMapSnapshot<DummyRecord> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
+        for (int i = 0; i < 10; i++) {
+            hashMapSnapshot.update(Collections.singleton(new DummyRecord(String.valueOf(i), UpdateType.CREATE)));
+        }
+
+        final DummyRecord swapOut = swapOut("9", "swap-1");
+        hashMapSnapshot.update(Collections.singleton(swapOut));
+        hashMapSnapshot.writeSnapshot(hashMapSnapshot.prepareSnapshot(10L));
+
+        final IncrementalHashMapSnapshot<DummyRecord> snapshot = new IncrementalHashMapSnapshot<>(storageDirectory, serdeFactory, 10);
+        final SnapshotRecovery<DummyRecord> recovery = snapshot.recover();
+        assertEquals(10L, recovery.getMaxTransactionId());
+        assertEquals(9, recovery.getRecords().size());
+
+        final Set<String> expectedSwapLocations = new HashSet<>();
+        expectedSwapLocations.add("swap-1");
+        assertEquals(expectedSwapLocations, recovery.getRecoveredSwapLocations());
+
+        // the first checkpoint after recovery must write all records
+        final SnapshotCapture<DummyRecord> capture = snapshot.prepareCheckpoint(20L, recovery.getRecoveredSwapLocations());
+        assertEquals(9, capture.getRecords().size());
+        assertEquals(expectedSwapLocations, capture.getSwapLocations());
+    }
+
+    private DummyRecord create(final IncrementalHashMapSnapshot<DummyRecord> snapshot, final int id) {
+        final DummyRecord record = new DummyRecord(String.valueOf(id), UpdateType.CREATE).setProperty("key", String.valueOf(id));
+        update(snapshot, record);
+        return record;
+    }
+
+    private void update(final IncrementalHashMapSnapshot<DummyRecord> snapshot, final DummyRecord record) {
+        snapshot.update(Collections.singleton(record));
+    }
+
+    private DummyRecord swapOut(final String id, final String swapLocation) {
+        final DummyRecord record = new DummyRecord(id, UpdateType.SWAP_OUT);
+        record.setSwapLocation(swapLocation);
+        return record;
+    }
+
+    private DummyRecord swapIn(final String id, final String swapLocation) {
+        final DummyRecord record = new DummyRecord(id, UpdateType.SWAP_IN).setProperty("key", id);
+        record.setSwapLocation(swapLocation);
+        return record;
+    }
+}
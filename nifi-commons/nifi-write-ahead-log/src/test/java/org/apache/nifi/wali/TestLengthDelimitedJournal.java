@@ -19,9 +19,11 @@ package org.apache.nifi.wali;
 
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.wali.DummyRecord;
 import org.wali.DummyRecordSerde;
+import org.wali.SerDe;
 import org.wali.SerDeFactory;
 import org.wali.SingletonSerDeFactory;
 import org.wali.UpdateType;
@@ -42,7 +44,9 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
@@ -586,4 +590,130 @@ public class TestLengthDelimitedJournal {
             assertEquals(0, recordMap.size());
         }
     }
+
+    @Test
+    public void testParallelRecoveryMatchesSequentialRecovery() throws IOException {
+        writeRandomTransactions(20_000, 500, 8);
+
+        final Map<Object, DummyRecord> sequentialRecords = new HashMap<>();
+        final Set<String> sequentialSwapLocations = new HashSet<>();
+        final JournalRecovery sequentialRecovery;
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L)) {
+            sequentialRecovery = journal.recoverRecords(sequentialRecords, sequentialSwapLocations);
+        }
+
+        final Map<Object, DummyRecord> parallelRecords = new HashMap<>();
+        final Set<String> parallelSwapLocations = new HashSet<>();
+        final JournalRecovery parallelRecovery;
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, new DummyRecordSerdeFactory(), streamPool, 0L)) {
+            parallelRecovery = journal.recoverRecords(parallelRecords, parallelSwapLocations, 4);
+        }
+
+        assertFalse(sequentialRecords.isEmpty());
+        assertEquals(sequentialRecovery.getUpdateCount(), parallelRecovery.getUpdateCount());
+        assertEquals(sequentialRecovery.getMaxTransactionId(), parallelRecovery.getMaxTransactionId());
+        assertEquals(sequentialRecords, parallelRecords);
+        assertEquals(sequentialSwapLocations, parallelSwapLocations);
+    }
+
+    @Test
+    public void testParallelRecoveryOfTruncatedJournal() throws IOException {
+        writeRandomTransactions(5_000, 100, 4);
+
+        final Map<Object, DummyRecord> fullRecords = new HashMap<>();
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L)) {
+            journal.recoverRecords(fullRecords, new HashSet<>());
+        }
+
+        // Cut the journal off in the middle of a transaction, as would happen if NiFi were killed while writing to it.
+        final byte[] contents = Files.readAllBytes(journalFile.toPath());
+        try (final OutputStream fos = new FileOutputStream(journalFile)) {
+            fos.write(contents, 0, contents.length - 10);
+        }
+
+        final Map<Object, DummyRecord> sequentialRecords = new HashMap<>();
+        final JournalRecovery sequentialRecovery;
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L)) {
+            sequentialRecovery = journal.recoverRecords(sequentialRecords, new HashSet<>());
+        }
+
+        final Map<Object, DummyRecord> parallelRecords = new HashMap<>();
+        final JournalRecovery parallelRecovery;
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, new DummyRecordSerdeFactory(), streamPool, 0L)) {
+            parallelRecovery = journal.recoverRecords(parallelRecords, new HashSet<>(), 4);
+        }
+
+        assertTrue(sequentialRecovery.isEOFExceptionEncountered());
+        assertTrue(parallelRecovery.isEOFExceptionEncountered());
+        assertEquals(sequentialRecovery.getUpdateCount(), parallelRecovery.getUpdateCount());
+        assertEquals(sequentialRecords, parallelRecords);
+        assertFalse(fullRecords.equals(parallelRecords));
+    }
+
+    @Test
+    @Ignore("For manual performance testing")
+    public void testParallelRecoveryPerformance() throws IOException {
+        // Roughly 4 GB of journal
+        writeRandomTransactions(40_000_000, 1_000_000, 10);
+
+        for (final int threads : new int[] {1, 2, 4, 8}) {
+            final Map<Object, DummyRecord> recordMap = new HashMap<>();
+            final long start = System.nanoTime();
+            final JournalRecovery recovery;
+            try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, new DummyRecordSerdeFactory(), streamPool, 0L)) {
+                recovery = journal.recoverRecords(recordMap, new HashSet<>(), threads);
+            }
+
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            System.out.println("Recovered " + recovery.getUpdateCount() + " updates using " + threads + " threads in " + millis + " millis");
+        }
+    }
+
+    private void writeRandomTransactions(final int transactionCount, final int distinctIds, final int recordsPerTransaction) throws IOException {
+        final Random random = new Random(13L);
+
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L)) {
+            journal.writeHeader();
+
+            final List<DummyRecord> transaction = new ArrayList<>(recordsPerTransaction);
+            for (int i = 0; i < transactionCount; i++) {
+                transaction.clear();
+
+                for (int j = 0; j < recordsPerTransaction; j++) {
+                    final String id = String.valueOf(random.nextInt(distinctIds));
+                    final UpdateType updateType = random.nextInt(10) == 0 ? UpdateType.DELETE : UpdateType.UPDATE;
+                    transaction.add(new DummyRecord(id, updateType).setProperty("transaction", String.valueOf(i)).setProperty("value", String.valueOf(random.nextLong())));
+                }
+
+                journal.update(transaction, id -> null);
+            }
+        }
+    }
+
+    /**
+     * Creates a new SerDe each time, so that the journal can be deserialized concurrently
+     */
+    private static class DummyRecordSerdeFactory implements SerDeFactory<DummyRecord> {
+        private final DummyRecordSerde serde = new DummyRecordSerde();
+
+        @Override
+        public SerDe<DummyRecord> createSerDe(final String encodingName) {
+            return new DummyRecordSerde();
+        }
+
+        @Override
+        public Object getRecordIdentifier(final DummyRecord record) {
+            return serde.getRecordIdentifier(record);
+        }
+
+        @Override
+        public UpdateType getUpdateType(final DummyRecord record) {
+            return serde.getUpdateType(record);
+        }
+
+        @Override
+        public String getLocation(final DummyRecord record) {
+            return serde.getLocation(record);
+        }
+    }
 }
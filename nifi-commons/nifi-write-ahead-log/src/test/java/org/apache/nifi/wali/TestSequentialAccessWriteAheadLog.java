@@ -26,6 +26,7 @@ import org.wali.DummyRecord;
 import org.wali.DummyRecordSerde;
 import org.wali.SerDeFactory;
 import org.wali.SingletonSerDeFactory;
+import org.wali.SyncListener;
 import org.wali.UpdateType;
 import org.wali.WriteAheadRepository;
 
@@ -41,7 +42,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -203,13 +208,18 @@ public class TestSequentialAccessWriteAheadLog {
     }
 
     private SequentialAccessWriteAheadLog<DummyRecord> createWriteRepo(final DummyRecordSerde serde) throws IOException {
+        return createWriteRepo(serde, SyncListener.NOP_SYNC_LISTENER, -1L);
+    }
+
+    private SequentialAccessWriteAheadLog<DummyRecord> createWriteRepo(final DummyRecordSerde serde, final SyncListener syncListener, final long groupCommitWindowNanos)
+            throws IOException {
         final File targetDir = new File("target");
         final File storageDir = new File(targetDir, testName.getMethodName());
         deleteRecursively(storageDir);
         assertTrue(storageDir.mkdirs());
 
         final SerDeFactory<DummyRecord> serdeFactory = new SingletonSerDeFactory<>(serde);
-        final SequentialAccessWriteAheadLog<DummyRecord> repo = new SequentialAccessWriteAheadLog<>(storageDir, serdeFactory);
+        final SequentialAccessWriteAheadLog<DummyRecord> repo = new SequentialAccessWriteAheadLog<>(storageDir, serdeFactory, syncListener, groupCommitWindowNanos);
 
         final Collection<DummyRecord> recovered = repo.recoverRecords();
         assertNotNull(recovered);
@@ -308,6 +318,104 @@ public class TestSequentialAccessWriteAheadLog {
     }
 
 
+    @Test(timeout = 60000)
+    public void testGroupCommitConcurrentUpdatesThenRecover() throws Exception {
+        final AtomicInteger syncCount = new AtomicInteger(0);
+        final SyncListener syncListener = new SyncListener() {
+            @Override
+            public void onSync(final int partitionIndex) {
+                syncCount.incrementAndGet();
+            }
+
+            @Override
+            public void onGlobalSync() {
+            }
+        };
+
+        final SequentialAccessWriteAheadLog<DummyRecord> repo = createWriteRepo(new DummyRecordSerde(), syncListener, TimeUnit.MILLISECONDS.toNanos(1L));
+
+        final int numThreads = 8;
+        final int updatesPerThread = 100;
+        final Set<DummyRecord> expected = Collections.synchronizedSet(new HashSet<>());
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < numThreads; t++) {
+                final int threadIndex = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < updatesPerThread; i++) {
+                        final DummyRecord record = new DummyRecord(threadIndex + "-" + i, UpdateType.CREATE);
+                        repo.update(Collections.singleton(record), false);
+                        expected.add(record);
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // every update must have been synced before returning, even though the caller did not ask for it
+        assertEquals(numThreads * updatesPerThread, syncCount.get());
+
+        // recover without shutting down the repository, so that only what was written to the journal file is recovered
+        final SequentialAccessWriteAheadLog<DummyRecord> recoveryRepo = createRecoveryRepo();
+        final Collection<DummyRecord> recovered = recoveryRepo.recoverRecords();
+        assertEquals(expected, new HashSet<>(recovered));
+
+        recoveryRepo.shutdown();
+        repo.shutdown();
+    }
+
+    @Test
+    public void testIncrementalCheckpointsRecovered() throws IOException {
+        final File storageDir = new File("target", testName.getMethodName());
+        deleteRecursively(storageDir);
+        assertTrue(storageDir.mkdirs());
+
+        final SerDeFactory<DummyRecord> serdeFactory = new SingletonSerDeFactory<>(new DummyRecordSerde());
+        final SequentialAccessWriteAheadLog<DummyRecord> repo = new SequentialAccessWriteAheadLog<>(storageDir, serdeFactory, SyncListener.NOP_SYNC_LISTENER, -1L, 5);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        final List<DummyRecord> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            records.add(new DummyRecord(String.valueOf(i), UpdateType.CREATE).setProperty("index", String.valueOf(i)));
+        }
+        repo.update(records, false);
+        assertEquals(100, repo.checkpoint());
+
+        repo.update(Collections.singleton(new DummyRecord("0", UpdateType.DELETE)), false);
+        assertEquals(99, repo.checkpoint());
+
+        final DummyRecord updated = new DummyRecord("1", UpdateType.UPDATE).setProperty("index", "updated");
+        repo.update(Collections.singleton(updated), false);
+        assertEquals(99, repo.checkpoint());
+        assertTrue(IncrementalHashMapSnapshot.isIncrementalSnapshotPresent(storageDir));
+
+        final DummyRecord created = new DummyRecord("100", UpdateType.CREATE).setProperty("index", "100");
+        repo.update(Collections.singleton(created), false);
+        repo.shutdown();
+
+        // incremental snapshots must be recovered even if no more are to be written
+        final SequentialAccessWriteAheadLog<DummyRecord> recoveryRepo = createRecoveryRepo();
+        final Map<Object, DummyRecord> recovered = recoveryRepo.recoverRecords().stream()
+            .collect(Collectors.toMap(DummyRecord::getId, Function.identity()));
+
+        assertEquals(100, recovered.size());
+        assertFalse(recovered.containsKey("0"));
+        assertEquals(updated, recovered.get("1"));
+        assertEquals(created, recovered.get("100"));
+
+        // recovery writes a full snapshot, which replaces the incremental snapshots
+        assertFalse(IncrementalHashMapSnapshot.isIncrementalSnapshotPresent(storageDir));
+        recoveryRepo.shutdown();
+    }
+
     @Test
     @Ignore("For manual performance testing")
     public void testUpdatePerformance() throws IOException, InterruptedException {
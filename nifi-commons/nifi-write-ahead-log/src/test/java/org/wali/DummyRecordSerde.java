@@ -189,6 +189,11 @@ public class DummyRecordSerde implements SerDe<DummyRecord> {
         return 1;
     }
 
+    @Override
+    public boolean isEditIndependentOfRecordStates() {
+        return true;
+    }
+
     public synchronized void setThrowIOEAfterNSerializeEdits(final int n) {
         this.throwIOEAfterNserializeEdits = n;
     }
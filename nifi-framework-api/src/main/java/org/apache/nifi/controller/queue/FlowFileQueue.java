@@ -289,6 +289,19 @@ public interface FlowFileQueue {
 
     LoadBalanceCompression getLoadBalanceCompression();
 
+    /**
+     * Sets the {@link QueueMode} that determines how FlowFiles are ordered and how concurrent tasks access the queue. Any FlowFiles
+     * that are currently queued are retained.
+     *
+     * @param queueMode the queue mode to use
+     */
+    void setQueueMode(QueueMode queueMode);
+
+    /**
+     * @return the configured {@link QueueMode}
+     */
+    QueueMode getQueueMode();
+
     String getPartitioningAttribute();
 
     void startLoadBalancing();
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue;
+
+public enum QueueMode {
+    /**
+     * FlowFiles are held in a heap that is ordered by the queue's configured prioritizers (or, if none are configured, by Content Claim
+     * so that content is read sequentially). All access to the queue is serialized by a single lock.
+     */
+    PRIORITIZED,
+
+    /**
+     * FlowFiles are delivered in the order in which they were enqueued. FlowFiles are held in a ring buffer, with penalized FlowFiles held
+     * aside until their penalty expires, so that adding and polling a FlowFile are constant-time operations rather than heap operations.
+     * As with {@link #PRIORITIZED}, all access to the queue is serialized by a single lock. This mode is honored only while no prioritizers
+     * are configured for the queue; if prioritizers are configured, the queue behaves as {@link #PRIORITIZED}.
+     */
+    FIFO,
+
+    /**
+     * FlowFiles are delivered in the order in which they were enqueued. Puts and polls of concurrent tasks proceed in parallel on a
+     * lock-free structure and only swapping requires exclusive access to the queue. This mode is honored only while no prioritizers
+     * are configured for the queue; if prioritizers are configured, the queue behaves as {@link #PRIORITIZED}.
+     */
+    CONCURRENT_FIFO;
+}
@@ -26,8 +26,17 @@ import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.search.SearchableField;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface ProvenanceRepository extends ProvenanceEventRepository {
 
@@ -76,6 +85,75 @@ public interface ProvenanceRepository extends ProvenanceEventRepository {
      */
     List<ProvenanceEventRecord> getEvents(long firstRecordId, final int maxRecords, NiFiUser user) throws IOException;
 
+    /**
+     * Returns a Stream of the <code>ProvenanceEventRecord</code>s in the
+     * repository starting with the given ID, in order of ID. Each event is
+     * authorized against the given NiFiUser and events that the user is not
+     * authorized to access are not returned, just as for
+     * {@link #getEvents(long, int, NiFiUser)}. Unlike that method, the events
+     * are read as the Stream is consumed, so the amount of memory that is
+     * required does not depend on the number of events. The Stream should be
+     * closed once it is no longer needed.
+     *
+     * <p>
+     * The default implementation retrieves the events in pages by calling
+     * {@link #getEvents(long, int, NiFiUser)}.
+     * </p>
+     *
+     * @param firstRecordId id of the first record to retrieve
+     * @param maxRecords    maximum number of records to retrieve
+     * @param user          The NiFi user that the events should be authorized against.
+     *                      It can be {@code null} if called by NiFi components internally
+     *                      where authorization is not required.
+     * @return a Stream of the records
+     * @throws java.io.IOException if error reading from repository
+     */
+    default Stream<ProvenanceEventRecord> streamEvents(final long firstRecordId, final int maxRecords, final NiFiUser user) throws IOException {
+        final int pageSize = 1000;
+
+        final Iterator<ProvenanceEventRecord> pageIterator = new Iterator<ProvenanceEventRecord>() {
+            private List<ProvenanceEventRecord> page = Collections.emptyList();
+            private int pageIndex = 0;
+            private int recordCount = 0;
+            private long nextRecordId = firstRecordId;
+
+            @Override
+            public boolean hasNext() {
+                while (recordCount < maxRecords && pageIndex >= page.size()) {
+                    final Long maxEventId = getMaxEventId();
+                    if (maxEventId == null || nextRecordId > maxEventId) {
+                        return false;
+                    }
+
+                    // Unauthorized events are filtered out of a page, so a page may be empty even though more events exist.
+                    final int requested = Math.min(pageSize, maxRecords - recordCount);
+                    try {
+                        page = getEvents(nextRecordId, requested, user);
+                    } catch (final IOException ioe) {
+                        throw new UncheckedIOException(ioe);
+                    }
+
+                    pageIndex = 0;
+                    nextRecordId = page.isEmpty() ? nextRecordId + requested : page.get(page.size() - 1).getEventId() + 1;
+                }
+
+                return recordCount < maxRecords;
+            }
+
+            @Override
+            public ProvenanceEventRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                recordCount++;
+                return page.get(pageIndex++);
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pageIterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
     /**
      * @return the {@link ProvenanceEventRepository} backing this ProvenanceRepository
      */
@@ -241,4 +319,14 @@ public interface ProvenanceRepository extends ProvenanceEventRepository {
      * name
      */
     long getContainerUsableSpace(String containerName) throws IOException;
+
+    /**
+     * Provides implementation-specific details about the current state of the repository, such as how far behind indexing is, so that they
+     * can be included in diagnostics. The default implementation provides no details.
+     *
+     * @return a map of human-readable descriptions to their current values, in the order in which they should be reported
+     */
+    default Map<String, String> getDiagnostics() {
+        return Collections.emptyMap();
+    }
 }
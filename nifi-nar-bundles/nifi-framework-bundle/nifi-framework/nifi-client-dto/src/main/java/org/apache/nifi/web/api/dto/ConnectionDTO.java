@@ -50,6 +50,8 @@ public class ConnectionDTO extends ComponentDTO {
     private String loadBalanceCompression;
     private String loadBalanceStatus;
 
+    private String queueMode;
+
     /**
      * The source of this connection.
      *
@@ -268,6 +270,16 @@ public class ConnectionDTO extends ComponentDTO {
         this.loadBalanceCompression = compression;
     }
 
+    @ApiModelProperty(value = "How FlowFiles are ordered within this Connection and how concurrent tasks access them. FIFO and CONCURRENT_FIFO are only honored when no prioritizers are configured.",
+        allowableValues = "PRIORITIZED, FIFO, CONCURRENT_FIFO")
+    public String getQueueMode() {
+        return queueMode;
+    }
+
+    public void setQueueMode(String queueMode) {
+        this.queueMode = queueMode;
+    }
+
     @ApiModelProperty(value = "The current status of the Connection's Load Balancing Activities. Status can indicate that Load Balancing is not configured for the connection, that Load Balancing " +
         "is configured but inactive (not currently transferring data to another node), or that Load Balancing is configured and actively transferring data to another node.",
         allowableValues = LOAD_BALANCE_NOT_CONFIGURED + ", " + LOAD_BALANCE_INACTIVE + ", " + LOAD_BALANCE_ACTIVE,
@@ -341,4 +341,15 @@ public class EncryptedSchemaRepositoryRecordSerde implements SerDe<SerializedRep
     public int getVersion() {
         return wrappedSerDe.getVersion();
     }
+
+    /**
+     * Returns {@code true} because each edit is encrypted and serialized as the complete record,
+     * so the current record states are not needed in order to deserialize it.
+     *
+     * @return true
+     */
+    @Override
+    public boolean isEditIndependentOfRecordStates() {
+        return true;
+    }
 }
@@ -289,4 +289,10 @@ public class SchemaRepositoryRecordSerde extends RepositoryRecordSerde implement
     public boolean isMoreInExternalFile() throws IOException {
         return recordIterator != null && recordIterator.isNext();
     }
+
+    @Override
+    public boolean isEditIndependentOfRecordStates() {
+        // every edit is serialized as the complete record
+        return true;
+    }
 }
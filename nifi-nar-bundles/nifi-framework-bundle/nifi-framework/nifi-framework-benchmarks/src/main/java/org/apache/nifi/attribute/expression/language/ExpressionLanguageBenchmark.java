@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.attribute.expression.language;
+
+import org.apache.nifi.attribute.expression.language.compile.ExpressionCompiler;
+import org.apache.nifi.attribute.expression.language.compile.FusedExpressionCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares evaluating an Expression through the interpreter with evaluating the same Expression once it has been fused by the
+ * {@link FusedExpressionCompiler}, which is what {@link Query#prepare(String)} does when the {@link Query#FUSE_EXPRESSIONS_PROPERTY}
+ * System Property is set. The 'partial' Expression uses a function that is not fused, so it measures the cost of falling back to the
+ * interpreter for part of the Expression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExpressionLanguageBenchmark {
+
+    @Param({"attribute", "routing", "string", "partial"})
+    private String expressionName;
+
+    private CompiledExpression interpreted;
+    private CompiledExpression fused;
+    private Map<String, String> attributes;
+
+    @Setup
+    public void setup() {
+        final String expression;
+        switch (expressionName) {
+            case "attribute":
+                expression = "${filename}";
+                break;
+            case "routing":
+                expression = "${filename:toLower():endsWith('.csv'):and(${mime.type:isEmpty():not()}):or(${route:equals('all')})}";
+                break;
+            case "string":
+                expression = "${filename:substringBefore('.'):trim():toUpper():append('-'):append(${uuid}):replace('-', '_')}";
+                break;
+            case "partial":
+                expression = "${filename:substringBefore('.'):append(${fragment.index:plus(1)})}";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown Expression " + expressionName);
+        }
+
+        interpreted = new ExpressionCompiler().compile(expression);
+        fused = new FusedExpressionCompiler().fuse(interpreted);
+
+        attributes = new HashMap<>();
+        attributes.put("filename", " Data-File.CSV ");
+        attributes.put("mime.type", "text/csv");
+        attributes.put("route", "some");
+        attributes.put("uuid", "6f2e7a3c-81d4-4c7e-9a55-0b1f3c2d4e5f");
+        attributes.put("fragment.index", "4");
+    }
+
+    @Benchmark
+    public String evaluateInterpreted() {
+        return interpreted.evaluate(new StandardEvaluationContext(attributes), null);
+    }
+
+    @Benchmark
+    public String evaluateFused() {
+        return fused.evaluate(new StandardEvaluationContext(attributes), null);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark;
+
+import org.apache.nifi.util.NiFiProperties;
+import org.apache.nifi.util.file.FileUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A throw-away set of repository directories, rooted in a temporary directory, along with the {@link NiFiProperties}
+ * that point the FlowFile, Content and Swap repositories at them. The directories are removed when the environment is closed.
+ */
+public class BenchmarkEnvironment implements Closeable {
+    private final Path baseDirectory;
+    private final NiFiProperties nifiProperties;
+
+    private BenchmarkEnvironment(final Path baseDirectory, final Map<String, String> additionalProperties) {
+        this.baseDirectory = baseDirectory;
+
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(NiFiProperties.FLOWFILE_REPOSITORY_DIRECTORY, getFlowFileRepositoryPath().toString());
+        properties.put(NiFiProperties.FLOWFILE_REPOSITORY_ALWAYS_SYNC, "false");
+        properties.put(NiFiProperties.FLOWFILE_REPOSITORY_CHECKPOINT_INTERVAL, "2 mins");
+        properties.put(NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", getContentRepositoryPath().toString());
+        properties.put(NiFiProperties.CONTENT_ARCHIVE_ENABLED, "false");
+        properties.putAll(additionalProperties);
+
+        this.nifiProperties = NiFiProperties.createBasicNiFiProperties("", properties);
+    }
+
+    public static BenchmarkEnvironment create(final String name) throws IOException {
+        return create(name, new HashMap<>());
+    }
+
+    public static BenchmarkEnvironment create(final String name, final Map<String, String> additionalProperties) throws IOException {
+        final Path baseDirectory = Files.createTempDirectory("nifi-benchmark-" + name);
+        return new BenchmarkEnvironment(baseDirectory, additionalProperties);
+    }
+
+    public NiFiProperties getNiFiProperties() {
+        return nifiProperties;
+    }
+
+    public Path getBaseDirectory() {
+        return baseDirectory;
+    }
+
+    public Path getFlowFileRepositoryPath() {
+        return baseDirectory.resolve("flowfile_repository");
+    }
+
+    public Path getContentRepositoryPath() {
+        return baseDirectory.resolve("content_repository");
+    }
+
+    @Override
+    public void close() throws IOException {
+        FileUtils.deleteFile(baseDirectory.toFile(), true);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. When invoked without arguments, all framework benchmarks are run with the GC profiler
+ * enabled so that allocation rate is reported alongside throughput and sampled latency percentiles (p99 and friends).
+ * Any arguments are handed to the JMH command line, e.g. {@code java -jar benchmarks.jar SwappablePriorityQueue -prof gc -rf json}
+ * to run a subset of the benchmarks and store the results for comparison against another release.
+ */
+public class FrameworkBenchmarks {
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length > 0) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        runAll();
+    }
+
+    private static void runAll() throws RunnerException {
+        final Options options = new OptionsBuilder()
+            .include("org\\.apache\\.nifi\\..*Benchmark")
+            .addProfiler(GCProfiler.class)
+            .build();
+
+        new Runner(options).run();
+    }
+}
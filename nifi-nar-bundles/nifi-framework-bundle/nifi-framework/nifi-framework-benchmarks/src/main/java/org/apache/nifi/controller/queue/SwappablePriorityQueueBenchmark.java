@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.benchmark.BenchmarkEnvironment;
+import org.apache.nifi.controller.FileSystemSwapManager;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileRepository;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
+import org.apache.nifi.controller.repository.WriteAheadFlowFileRepository;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmarks {@link SwappablePriorityQueue} put/poll, both uncontended and with several concurrent tasks pulling from the same connection.
+ * The queue is backed by a real {@link FileSystemSwapManager} and {@link WriteAheadFlowFileRepository} in a temporary directory, so that
+ * a swap threshold below the standing backlog exercises swap out and swap in as well. Each FlowFile of the backlog is a distinct object
+ * with its own ID, and a FlowFile is put back on the queue only after it has been polled from it, so no FlowFile is ever queued twice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SwappablePriorityQueueBenchmark {
+    @Param({"20000", "5000"})
+    private int swapThreshold;
+
+    @Param({"10000"})
+    private int backlog;
+
+    @Param({"100"})
+    private int batchSize;
+
+    @Param({"PRIORITIZED", "FIFO", "CONCURRENT_FIFO"})
+    private QueueMode queueMode;
+
+    private BenchmarkEnvironment environment;
+    private WriteAheadFlowFileRepository flowFileRepository;
+    private SwappablePriorityQueue queue;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        environment = BenchmarkEnvironment.create("swappable-priority-queue");
+
+        final ResourceClaimManager claimManager = new StandardResourceClaimManager();
+        flowFileRepository = new WriteAheadFlowFileRepository(environment.getNiFiProperties());
+        flowFileRepository.initialize(claimManager);
+
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        when(flowFileQueue.getIdentifier()).thenReturn(UUID.randomUUID().toString());
+        flowFileRepository.loadFlowFiles(() -> Collections.singleton(flowFileQueue));
+
+        final FileSystemSwapManager swapManager = new FileSystemSwapManager(environment.getFlowFileRepositoryPath());
+        swapManager.initialize(new SwapManagerInitializationContext() {
+            @Override
+            public FlowFileRepository getFlowFileRepository() {
+                return flowFileRepository;
+            }
+
+            @Override
+            public ResourceClaimManager getResourceClaimManager() {
+                return claimManager;
+            }
+
+            @Override
+            public EventReporter getEventReporter() {
+                return EventReporter.NO_OP;
+            }
+        });
+
+        final DropFlowFileAction dropAction = (toDrop, requestor) -> new QueueSize(toDrop.size(), toDrop.stream().mapToLong(FlowFileRecord::getSize).sum());
+        queue = new SwappablePriorityQueue(swapManager, swapThreshold, EventReporter.NO_OP, flowFileQueue, dropAction, null);
+        queue.setQueueMode(queueMode);
+
+        for (int i = 0; i < backlog; i++) {
+            queue.put(createFlowFile(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        flowFileRepository.close();
+        environment.close();
+    }
+
+    private static FlowFileRecord createFlowFile(final long id) {
+        return new StandardFlowFileRecord.Builder()
+            .id(id)
+            .entryDate(System.currentTimeMillis())
+            .size(1024L)
+            .addAttribute(CoreAttributes.UUID.key(), UUID.randomUUID().toString())
+            .addAttribute(CoreAttributes.FILENAME.key(), "benchmark-" + id)
+            .addAttribute(CoreAttributes.PATH.key(), "./")
+            .build();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final Set<FlowFileRecord> expired = new HashSet<>();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void pollThenPut(final ThreadState state, final Blackhole blackhole) {
+        pollThenPutSingle(state, blackhole);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void pollThenPutContended(final ThreadState state, final Blackhole blackhole) {
+        pollThenPutSingle(state, blackhole);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void pollBatchThenPutAll(final ThreadState state, final Blackhole blackhole) {
+        pollThenPutMultiple(state, blackhole);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void pollBatchThenPutAllContended(final ThreadState state, final Blackhole blackhole) {
+        pollThenPutMultiple(state, blackhole);
+    }
+
+    private void pollThenPutSingle(final ThreadState state, final Blackhole blackhole) {
+        final FlowFileRecord polled = queue.poll(state.expired, 0L);
+        if (polled != null) {
+            queue.acknowledge(polled);
+            queue.put(polled);
+        }
+
+        blackhole.consume(polled);
+    }
+
+    private void pollThenPutMultiple(final ThreadState state, final Blackhole blackhole) {
+        final List<FlowFileRecord> polled = queue.poll(batchSize, state.expired, 0L);
+        queue.acknowledge(polled);
+        queue.putAll(polled);
+        blackhole.consume(polled);
+    }
+}
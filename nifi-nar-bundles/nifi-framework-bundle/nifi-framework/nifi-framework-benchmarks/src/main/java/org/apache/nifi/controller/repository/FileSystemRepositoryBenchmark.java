@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.benchmark.BenchmarkEnvironment;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks writing content claims to, and reading them back from, a {@link FileSystemRepository} in a temporary directory.
+ * Small content sizes show the cost of packing many claims into a single resource claim; large sizes show raw streaming throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FileSystemRepositoryBenchmark {
+    private static final int READ_CLAIM_COUNT = 10_000;
+
+    @Param({"100", "10240", "1048576"})
+    private int contentSize;
+
+    private BenchmarkEnvironment environment;
+    private FileSystemRepository repository;
+    private byte[] content;
+    private ContentClaim[] readClaims;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        environment = BenchmarkEnvironment.create("content-repository");
+        repository = new FileSystemRepository(environment.getNiFiProperties());
+        repository.initialize(new StandardResourceClaimManager());
+
+        content = new byte[contentSize];
+        new Random(1L).nextBytes(content);
+
+        // Cap the amount of data that is pre-written for the read benchmarks at roughly 1 GB.
+        final int claimCount = (int) Math.min(READ_CLAIM_COUNT, Math.max(1L, 1_000_000_000L / contentSize));
+        readClaims = new ContentClaim[claimCount];
+        for (int i = 0; i < claimCount; i++) {
+            readClaims[i] = writeClaim();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.shutdown();
+        environment.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int index;
+        private byte[] buffer = new byte[8192];
+    }
+
+    private ContentClaim writeClaim() throws IOException {
+        final ContentClaim claim = repository.create(false);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write(content);
+        }
+
+        return claim;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void writeClaim(final Blackhole blackhole) throws IOException {
+        writeAndRelease(blackhole);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void writeClaimConcurrent(final Blackhole blackhole) throws IOException {
+        writeAndRelease(blackhole);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void readClaim(final ThreadState state, final Blackhole blackhole) throws IOException {
+        readNext(state, blackhole);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void readClaimConcurrent(final ThreadState state, final Blackhole blackhole) throws IOException {
+        readNext(state, blackhole);
+    }
+
+    private void writeAndRelease(final Blackhole blackhole) throws IOException {
+        final ContentClaim claim = writeClaim();
+        blackhole.consume(claim);
+        repository.decrementClaimantCount(claim);
+    }
+
+    private void readNext(final ThreadState state, final Blackhole blackhole) throws IOException {
+        state.index = (state.index + 1) % readClaims.length;
+
+        long total = 0L;
+        try (final InputStream in = repository.read(readClaims[state.index])) {
+            int len;
+            while ((len = StreamUtils.fillBuffer(in, state.buffer, false)) > 0) {
+                total += len;
+            }
+        }
+
+        blackhole.consume(total);
+    }
+}
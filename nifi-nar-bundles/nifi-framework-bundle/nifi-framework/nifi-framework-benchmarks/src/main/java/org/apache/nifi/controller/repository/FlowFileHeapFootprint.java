@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Measures how much heap is retained per queued FlowFile by the attributes of {@link StandardFlowFileRecord}, as compared to holding
+ * the attributes in a {@link HashMap} per FlowFile. Every FlowFile is given its own copies of the attribute keys, as is the case for
+ * FlowFiles that are restored from the FlowFile Repository or from a swap file.
+ * <p>
+ * This is not a JMH benchmark because JMH measures time and allocation rate but not retained heap. Run it with a fixed heap, e.g.
+ * {@code java -Xms4g -Xmx4g -cp benchmarks.jar org.apache.nifi.controller.repository.FlowFileHeapFootprint 1000000}
+ * </p>
+ */
+public class FlowFileHeapFootprint {
+    private static final String[] ATTRIBUTE_NAMES = {
+        CoreAttributes.FILENAME.key(), CoreAttributes.PATH.key(), CoreAttributes.MIME_TYPE.key(), "schema.name",
+        "kafka.topic", "kafka.partition", "kafka.offset", "kafka.key", "record.count", "source.system"
+    };
+
+    public static void main(final String[] args) {
+        final int flowFileCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        // Warm up the attribute dictionary and the JIT so that neither is counted.
+        measure(10_000, FlowFileHeapFootprint::createHashMap);
+        measure(10_000, FlowFileHeapFootprint::createFlowFile);
+
+        final double hashMapBytes = measure(flowFileCount, FlowFileHeapFootprint::createHashMap);
+        final double flowFileBytes = measure(flowFileCount, FlowFileHeapFootprint::createFlowFile);
+        final double clonedBytes = measure(flowFileCount, new IntFunction<Object>() {
+            private FlowFileRecord parent;
+
+            @Override
+            public Object apply(final int index) {
+                // Every other FlowFile is a clone of the one before it, which differs only in its UUID.
+                if (index % 2 == 0) {
+                    parent = createFlowFile(index);
+                    return parent;
+                }
+
+                return new StandardFlowFileRecord.Builder()
+                    .fromFlowFile(parent)
+                    .id(index)
+                    .addAttribute(CoreAttributes.UUID.key(), UUID.randomUUID().toString())
+                    .build();
+            }
+        });
+
+        System.out.printf("Attributes per FlowFile: %d%n", ATTRIBUTE_NAMES.length + 1);
+        System.out.printf("HashMap of attributes (without FlowFile)  : %,8.1f bytes per FlowFile%n", hashMapBytes);
+        System.out.printf("StandardFlowFileRecord                    : %,8.1f bytes per FlowFile%n", flowFileBytes);
+        System.out.printf("StandardFlowFileRecord, half of them clones: %,8.1f bytes per FlowFile%n", clonedBytes);
+    }
+
+    private static Map<String, String> createHashMap(final int index) {
+        final Map<String, String> attributes = new HashMap<>();
+        for (final String name : ATTRIBUTE_NAMES) {
+            // Copy the key and value, as deserialization would
+            attributes.put(new String(name), new String(createValue(name, index)));
+        }
+        attributes.put(new String(CoreAttributes.UUID.key()), UUID.randomUUID().toString());
+        return attributes;
+    }
+
+    private static FlowFileRecord createFlowFile(final int index) {
+        return new StandardFlowFileRecord.Builder()
+            .id(index)
+            .addAttributes(createHashMap(index))
+            .build();
+    }
+
+    private static String createValue(final String name, final int index) {
+        switch (name) {
+            case "filename":
+                return "file-" + index + ".json";
+            case "path":
+                return "./";
+            case "mime.type":
+                return "application/json";
+            case "schema.name":
+                return "orders";
+            case "kafka.topic":
+                return "orders";
+            case "kafka.partition":
+                return String.valueOf(index % 8);
+            case "kafka.offset":
+                return String.valueOf(index);
+            case "kafka.key":
+                return "customer-" + (index % 1000);
+            case "record.count":
+                return "100";
+            default:
+                return "erp";
+        }
+    }
+
+    private static double measure(final int count, final IntFunction<?> factory) {
+        final List<Object> retained = new ArrayList<>(count);
+        final long before = usedHeap();
+
+        for (int i = 0; i < count; i++) {
+            retained.add(factory.apply(i));
+        }
+
+        final long after = usedHeap();
+        final double bytesPerObject = (double) (after - before) / count;
+
+        // Make sure that the objects are retained until the measurement has been taken.
+        if (retained.size() != count) {
+            throw new IllegalStateException();
+        }
+
+        return bytesPerObject;
+    }
+
+    private static long usedHeap() {
+        final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 5; i++) {
+            memoryBean.gc();
+        }
+
+        return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.controller.repository.metrics.RingBufferEventRepository;
+import org.apache.nifi.controller.repository.metrics.StandardFlowFileEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link RingBufferEventRepository} update that every session commit performs for the component and for each connection
+ * that FlowFiles were pulled from or transferred to. Run with {@code -prof gc}: updating the repository should allocate close to zero
+ * bytes per operation, the only allocations being the per-second bins that a component uses for the first time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RingBufferEventRepositoryBenchmark {
+
+    @Param({"1", "1000"})
+    private int componentCount;
+
+    private RingBufferEventRepository repository;
+    private String[] componentIds;
+    private StandardFlowFileEvent event;
+
+    @Setup
+    public void setup() {
+        repository = new RingBufferEventRepository(5);
+
+        componentIds = new String[componentCount];
+        for (int i = 0; i < componentCount; i++) {
+            componentIds[i] = "component-" + i;
+        }
+
+        event = new StandardFlowFileEvent();
+        event.setFlowFilesIn(1);
+        event.setContentSizeIn(1024L);
+        event.setFlowFilesOut(1);
+        event.setContentSizeOut(1024L);
+        event.setBytesRead(1024L);
+        event.setBytesWritten(1024L);
+        event.setProcessingNanos(25_000L);
+        event.setAggregateLineageMillis(500L);
+        event.setInvocations(1);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    /**
+     * The index of the next component that the thread updates, so that threads spread their updates across the components
+     */
+    @State(Scope.Thread)
+    public static class ComponentCursor {
+        private int index;
+
+        int next(final int componentCount) {
+            final int current = index;
+            index = current + 1 == componentCount ? 0 : current + 1;
+            return current;
+        }
+    }
+
+    @Benchmark
+    public void updateRepository(final ComponentCursor cursor) {
+        repository.updateRepository(event, componentIds[cursor.next(componentCount)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void updateRepositoryContended(final ComponentCursor cursor) {
+        repository.updateRepository(event, componentIds[cursor.next(componentCount)]);
+    }
+
+    @Benchmark
+    @Group("updateWhileReporting")
+    @GroupThreads(4)
+    public void update(final ComponentCursor cursor) {
+        repository.updateRepository(event, componentIds[cursor.next(componentCount)]);
+    }
+
+    @Benchmark
+    @Group("updateWhileReporting")
+    @GroupThreads(1)
+    public RepositoryStatusReport report() {
+        return repository.reportTransferEvents(System.currentTimeMillis());
+    }
+}
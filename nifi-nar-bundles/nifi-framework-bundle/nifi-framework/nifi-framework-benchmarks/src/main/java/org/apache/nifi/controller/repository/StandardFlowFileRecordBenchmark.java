@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link StandardFlowFileRecord.Builder} operations that a session performs for every FlowFile: creating a FlowFile
+ * from a Map of attributes (as the repositories do on restore and swap in), updating a single attribute, and cloning a FlowFile.
+ * Run with {@code -prof gc} to see the bytes allocated per operation. See {@link FlowFileHeapFootprint} for the heap that is retained
+ * per queued FlowFile.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StandardFlowFileRecordBenchmark {
+
+    @Param({"5", "25"})
+    private int attributeCount;
+
+    private Map<String, String> attributes;
+    private FlowFileRecord flowFile;
+    private long counter = 0L;
+
+    @Setup
+    public void setup() {
+        attributes = new HashMap<>();
+        attributes.put(CoreAttributes.UUID.key(), UUID.randomUUID().toString());
+        attributes.put(CoreAttributes.FILENAME.key(), "benchmark.txt");
+        attributes.put(CoreAttributes.PATH.key(), "./");
+        attributes.put(CoreAttributes.MIME_TYPE.key(), "application/json");
+        for (int i = attributes.size(); i < attributeCount; i++) {
+            attributes.put("attribute." + i, "value-" + i);
+        }
+
+        flowFile = new StandardFlowFileRecord.Builder()
+            .id(counter++)
+            .addAttributes(attributes)
+            .build();
+    }
+
+    @Benchmark
+    public FlowFileRecord create() {
+        return new StandardFlowFileRecord.Builder()
+            .id(counter++)
+            .addAttributes(attributes)
+            .build();
+    }
+
+    @Benchmark
+    public FlowFileRecord putAttribute() {
+        return new StandardFlowFileRecord.Builder()
+            .fromFlowFile(flowFile)
+            .addAttribute("counter", String.valueOf(counter++))
+            .build();
+    }
+
+    @Benchmark
+    public FlowFileRecord cloneFlowFile() {
+        return new StandardFlowFileRecord.Builder()
+            .fromFlowFile(flowFile)
+            .id(counter++)
+            .addAttribute(CoreAttributes.UUID.key(), UUID.randomUUID().toString())
+            .build();
+    }
+
+    @Benchmark
+    public String getAttribute() {
+        return flowFile.getAttribute(CoreAttributes.MIME_TYPE.key());
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.benchmark.BenchmarkEnvironment;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.connectable.StandardConnection;
+import org.apache.nifi.controller.ProcessScheduler;
+import org.apache.nifi.controller.queue.StandardFlowFileQueue;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.controller.repository.metrics.RingBufferEventRepository;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.provenance.ProvenanceEventRepository;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmarks a full {@link StandardProcessSession} cycle (get, update attribute, optionally write content, transfer, commit) for a component
+ * whose single relationship is connected back to itself. The FlowFile and Content Repositories are the real implementations in a temporary
+ * directory, so every commit pays for the journal update, the content write and the event repository update just as it does in a live flow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StandardProcessSessionBenchmark {
+    private static final Relationship SUCCESS = new Relationship.Builder().name("success").build();
+    private static final int BACKLOG = 10_000;
+
+    @Param({"1", "100"})
+    private int batchSize;
+
+    @Param({"0", "1024"})
+    private int contentSize;
+
+    private BenchmarkEnvironment environment;
+    private WriteAheadFlowFileRepository flowFileRepository;
+    private FileSystemRepository contentRepository;
+    private RepositoryContext context;
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        environment = BenchmarkEnvironment.create("process-session");
+
+        final ResourceClaimManager claimManager = new StandardResourceClaimManager();
+        contentRepository = new FileSystemRepository(environment.getNiFiProperties());
+        contentRepository.initialize(claimManager);
+
+        flowFileRepository = new WriteAheadFlowFileRepository(environment.getNiFiProperties());
+        flowFileRepository.initialize(claimManager);
+
+        // Mocks are created 'stub only' so that Mockito does not record every invocation for the lifetime of the benchmark.
+        final ProvenanceEventRepository provenanceRepository = stubOnlyMock(ProvenanceEventRepository.class);
+        when(provenanceRepository.eventBuilder()).thenAnswer(invocation -> new StandardProvenanceEventRecord.Builder());
+
+        final ProcessGroup processGroup = stubOnlyMock(ProcessGroup.class);
+        when(processGroup.getIdentifier()).thenReturn("benchmark-group");
+
+        final Connectable connectable = stubOnlyMock(Connectable.class);
+        when(connectable.getIdentifier()).thenReturn("benchmark-component");
+        when(connectable.getName()).thenReturn("Benchmark Component");
+        when(connectable.getComponentType()).thenReturn("Benchmark");
+        when(connectable.getConnectableType()).thenReturn(ConnectableType.FUNNEL);
+        when(connectable.getProcessGroup()).thenReturn(processGroup);
+        when(connectable.getRelationships()).thenReturn(Collections.singleton(SUCCESS));
+
+        final ProcessScheduler scheduler = stubOnlyMock(ProcessScheduler.class);
+        final Connection connection = new StandardConnection.Builder(scheduler)
+            .source(connectable)
+            .destination(connectable)
+            .processGroup(processGroup)
+            .relationships(Collections.singleton(SUCCESS))
+            .flowFileQueueFactory((loadBalanceStrategy, partitioningAttribute, eventListener) -> new StandardFlowFileQueue("benchmark-queue", eventListener,
+                flowFileRepository, provenanceRepository, claimManager, scheduler, null, EventReporter.NO_OP, 20_000, 0L, "0 B"))
+            .build();
+
+        final Set<Connection> connections = Collections.singleton(connection);
+        when(connectable.hasIncomingConnection()).thenReturn(true);
+        when(connectable.getIncomingConnections()).thenReturn(Collections.singletonList(connection));
+        when(connectable.getConnections()).thenReturn(connections);
+        when(connectable.getConnections(SUCCESS)).thenReturn(connections);
+
+        flowFileRepository.loadFlowFiles(() -> Collections.singleton(connection.getFlowFileQueue()));
+
+        context = new RepositoryContext(connectable, new AtomicLong(0L), contentRepository, flowFileRepository,
+            new RingBufferEventRepository(5), new StandardCounterRepository(), provenanceRepository);
+
+        content = new byte[contentSize];
+        new Random(1L).nextBytes(content);
+
+        final StandardProcessSession session = createSession();
+        for (int i = 0; i < BACKLOG; i++) {
+            session.transfer(session.create(), SUCCESS);
+        }
+        session.commit();
+    }
+
+    private static <T> T stubOnlyMock(final Class<T> type) {
+        return Mockito.mock(type, Mockito.withSettings().stubOnly());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        flowFileRepository.close();
+        contentRepository.shutdown();
+        environment.close();
+    }
+
+    private StandardProcessSession createSession() {
+        return new StandardProcessSession(context, () -> false);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void sessionCycle(final Blackhole blackhole) {
+        runSession(blackhole);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void sessionCycleConcurrent(final Blackhole blackhole) {
+        runSession(blackhole);
+    }
+
+    private void runSession(final Blackhole blackhole) {
+        final StandardProcessSession session = createSession();
+        final List<FlowFile> flowFiles = session.get(batchSize);
+
+        for (FlowFile flowFile : flowFiles) {
+            flowFile = session.putAttribute(flowFile, "benchmark", "true");
+            if (contentSize > 0) {
+                flowFile = session.write(flowFile, out -> out.write(content));
+            }
+
+            session.transfer(flowFile, SUCCESS);
+        }
+
+        session.commit();
+        blackhole.consume(flowFiles);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.benchmark.BenchmarkEnvironment;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.util.NiFiProperties;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmarks {@link WriteAheadFlowFileRepository#updateRepository(java.util.Collection)} the way that a session commit drives it:
+ * each invocation creates a batch of FlowFiles and deletes the batch that the same thread created on its previous invocation,
+ * so that the size of the repository stays constant while the journal sees a steady stream of updates.
+ *
+ * The sync mode is one of NONE (updates are written to the journal but not synced), ALWAYS (every update is synced on its own),
+ * or GROUP (every update is synced, but concurrent updates share a sync by way of the group commit window).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WriteAheadFlowFileRepositoryBenchmark {
+
+    @Param({"NONE", "ALWAYS", "GROUP"})
+    private String syncMode;
+
+    @Param({"1", "100"})
+    private int batchSize;
+
+    private BenchmarkEnvironment environment;
+    private WriteAheadFlowFileRepository repository;
+    private FlowFileQueue queue;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(NiFiProperties.FLOWFILE_REPOSITORY_ALWAYS_SYNC, String.valueOf("ALWAYS".equals(syncMode)));
+        if ("GROUP".equals(syncMode)) {
+            properties.put(NiFiProperties.FLOWFILE_REPOSITORY_GROUP_COMMIT_WINDOW, "2 millis");
+        }
+        environment = BenchmarkEnvironment.create("flowfile-repository", properties);
+
+        queue = Mockito.mock(FlowFileQueue.class);
+        when(queue.getIdentifier()).thenReturn(UUID.randomUUID().toString());
+
+        repository = new WriteAheadFlowFileRepository(environment.getNiFiProperties());
+        repository.initialize(new StandardResourceClaimManager());
+        repository.loadFlowFiles(() -> Collections.singleton(queue));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+        environment.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private List<FlowFileRecord> previousBatch = Collections.emptyList();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void updateRepository(final ThreadState state) throws IOException {
+        commit(state);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void updateRepositoryConcurrent(final ThreadState state) throws IOException {
+        commit(state);
+    }
+
+    private void commit(final ThreadState state) throws IOException {
+        final List<RepositoryRecord> records = new ArrayList<>(batchSize * 2);
+        for (final FlowFileRecord previous : state.previousBatch) {
+            final StandardRepositoryRecord record = new StandardRepositoryRecord(queue, previous);
+            record.markForDelete();
+            records.add(record);
+        }
+
+        final List<FlowFileRecord> created = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            final FlowFileRecord flowFile = new StandardFlowFileRecord.Builder()
+                .id(repository.getNextFlowFileSequence())
+                .entryDate(System.currentTimeMillis())
+                .size(0L)
+                .addAttribute(CoreAttributes.UUID.key(), UUID.randomUUID().toString())
+                .addAttribute(CoreAttributes.FILENAME.key(), "benchmark.txt")
+                .build();
+
+            final StandardRepositoryRecord record = new StandardRepositoryRecord(queue);
+            record.setWorking(flowFile);
+            record.setDestination(queue);
+            records.add(record);
+            created.add(flowFile);
+        }
+
+        repository.updateRepository(records);
+        state.previousBatch = created;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance.serialization;
+
+import org.apache.nifi.benchmark.BenchmarkEnvironment;
+import org.apache.nifi.provenance.EventIdFirstSchemaRecordWriter;
+import org.apache.nifi.provenance.IdentifierLookup;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.apache.nifi.provenance.toc.StandardTocWriter;
+import org.apache.nifi.provenance.toc.TocUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the {@link CompressionCodec}s that Provenance Event Files may be compressed with. Writing measures the cost of serializing and
+ * compressing each event into blocks, as the {@link EventFileCompressor} does on rollover. Retrieving measures the latency of looking up a
+ * single event by id, which decompresses the block that holds the event, as is done for every event that matches a Provenance query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProvenanceCompressionBenchmark {
+    private static final int BLOCK_SIZE = 1024 * 32;
+    private static final int EVENT_COUNT = 100_000;
+
+    @Param({"NONE", "GZIP", "LZ4", "SNAPPY", "ZSTD"})
+    private String codecName;
+
+    private BenchmarkEnvironment environment;
+    private CompressionCodec codec;
+    private ProvenanceEventRecord[] events;
+    private File readFile;
+
+    private RecordWriter writer;
+    private int writeIndex;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        environment = BenchmarkEnvironment.create("provenance-compression");
+        codec = CompressionCodec.valueOf(codecName);
+
+        events = new ProvenanceEventRecord[1024];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = createEvent(i);
+        }
+
+        final File uncompressedFile = environment.getBaseDirectory().resolve("0.prov").toFile();
+        readFile = codec.getCompressedFile(uncompressedFile);
+        try (final RecordWriter readFileWriter = createWriter(readFile)) {
+            readFileWriter.writeHeader(0L);
+            for (int i = 0; i < EVENT_COUNT; i++) {
+                readFileWriter.writeRecord(events[i % events.length]);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        environment.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void createWriter() throws IOException {
+        final File writeFile = environment.getBaseDirectory().resolve("write-" + UUID.randomUUID() + ".prov").toFile();
+        writer = createWriter(writeFile);
+        writer.writeHeader(0L);
+        writeIndex = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeWriter() throws IOException {
+        writer.close();
+        writer.getFile().delete();
+        TocUtil.getTocFile(writer.getFile()).delete();
+    }
+
+    private RecordWriter createWriter(final File file) throws IOException {
+        final StandardTocWriter tocWriter = new StandardTocWriter(TocUtil.getTocFile(file), codec, false);
+        return new EventIdFirstSchemaRecordWriter(file, new AtomicLong(0L), tocWriter, codec, BLOCK_SIZE, IdentifierLookup.EMPTY);
+    }
+
+    private ProvenanceEventRecord createEvent(final int index) {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("uuid", UUID.randomUUID().toString());
+        attributes.put("filename", "data-" + index + ".csv");
+        attributes.put("path", "./incoming/" + (index % 16) + "/");
+        attributes.put("mime.type", "text/csv");
+        attributes.put("record.count", String.valueOf(index * 7 % 1000));
+
+        return new StandardProvenanceEventRecord.Builder()
+            .setEventType(ProvenanceEventType.CONTENT_MODIFIED)
+            .setEventTime(System.currentTimeMillis())
+            .setFlowFileEntryDate(System.currentTimeMillis())
+            .setLineageStartDate(System.currentTimeMillis())
+            .setFlowFileUUID(attributes.get("uuid"))
+            .setAttributes(attributes, attributes)
+            .setComponentId("c0ffee00-0000-1000-8000-00000000000" + (index % 10))
+            .setComponentType("UpdateRecord")
+            .setCurrentContentClaim("default", String.valueOf(index % 1024), "1589034875-" + index / 100, (long) index * 1024, 1024L)
+            .build();
+    }
+
+    @Benchmark
+    public void writeEvent(final Blackhole blackhole) throws IOException {
+        blackhole.consume(writer.writeRecord(events[writeIndex++ % events.length]));
+    }
+
+    @Benchmark
+    public void retrieveEvent(final Blackhole blackhole) throws IOException {
+        final long eventId = ThreadLocalRandom.current().nextLong(EVENT_COUNT);
+
+        try (final RecordReader reader = RecordReaders.newRecordReader(readFile, null, 65536)) {
+            final Optional<ProvenanceEventRecord> event = reader.skipToEvent(eventId);
+            blackhole.consume(event.orElse(null));
+        }
+    }
+}
@@ -80,6 +80,15 @@ public interface Connection extends Authorizable, VersionedComponent {
 
     FlowFileRecord poll(Set<FlowFileRecord> expiredRecords);
 
+    /**
+     * Polls up to the given number of FlowFiles from the Connection's queue, acquiring the queue's lock only once for the entire batch
+     *
+     * @param maxResults the maximum number of FlowFiles to return
+     * @param expiredRecords the Set to add any expired FlowFiles to
+     * @return the FlowFiles that were polled; never <code>null</code>
+     */
+    List<FlowFileRecord> poll(int maxResults, Set<FlowFileRecord> expiredRecords);
+
     void verifyCanUpdate() throws IllegalStateException;
 
     void verifyCanDelete() throws IllegalStateException;
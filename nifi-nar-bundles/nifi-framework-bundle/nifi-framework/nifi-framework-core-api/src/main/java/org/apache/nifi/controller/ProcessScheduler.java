@@ -183,6 +183,12 @@ public interface ProcessScheduler {
      */
     void registerEvent(Connectable worker);
 
+    /**
+     * @return <code>true</code> if Timer-Driven components that have no work to do are parked until an event is registered for them,
+     *         <code>false</code> if they are simply triggered again after the bored yield duration
+     */
+    boolean isTimerDrivenWorkAware();
+
     /**
      * Notifies the ProcessScheduler of how many threads are available to use
      * for the given {@link SchedulingStrategy}
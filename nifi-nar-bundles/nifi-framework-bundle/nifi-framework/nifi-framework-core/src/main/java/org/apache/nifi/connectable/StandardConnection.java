@@ -150,8 +150,14 @@ public final class StandardConnection implements Connection, ConnectionEventList
     }
 
     @Override
+    @SuppressWarnings("deprecation")
     public void triggerDestinationEvent() {
-        if (getDestination().getSchedulingStrategy() == SchedulingStrategy.EVENT_DRIVEN) {
+        // When Timer-Driven components are parked for lack of work, they are notified too, so that they can be woken
+        final SchedulingStrategy schedulingStrategy = getDestination().getSchedulingStrategy();
+        if (schedulingStrategy == SchedulingStrategy.EVENT_DRIVEN) {
+            scheduler.registerEvent(getDestination());
+        } else if ((schedulingStrategy == SchedulingStrategy.TIMER_DRIVEN || schedulingStrategy == SchedulingStrategy.PRIMARY_NODE_ONLY)
+            && scheduler.isTimerDrivenWorkAware()) {
             scheduler.registerEvent(getDestination());
         }
     }
@@ -354,6 +360,11 @@ public final class StandardConnection implements Connection, ConnectionEventList
         return flowFileQueue.poll(expiredRecords);
     }
 
+    @Override
+    public List<FlowFileRecord> poll(final int maxResults, final Set<FlowFileRecord> expiredRecords) {
+        return flowFileQueue.poll(maxResults, expiredRecords);
+    }
+
     @Override
     public boolean equals(final Object other) {
         if (!(other instanceof Connection)) {
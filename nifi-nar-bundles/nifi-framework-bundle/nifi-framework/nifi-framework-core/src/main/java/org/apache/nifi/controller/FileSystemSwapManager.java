@@ -16,6 +16,7 @@
  */
 package org.apache.nifi.controller;
 
+import org.apache.commons.io.output.TeeOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.queue.QueueSize;
@@ -26,16 +27,21 @@ import org.apache.nifi.controller.repository.SwapContents;
 import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
 import org.apache.nifi.controller.repository.SwapSummary;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.swap.DirectMemorySwapCache;
 import org.apache.nifi.controller.swap.SchemaSwapDeserializer;
 import org.apache.nifi.controller.swap.SchemaSwapSerializer;
 import org.apache.nifi.controller.swap.SimpleSwapDeserializer;
 import org.apache.nifi.controller.swap.StandardSwapContents;
 import org.apache.nifi.controller.swap.StandardSwapSummary;
 import org.apache.nifi.controller.swap.SwapDeserializer;
+import org.apache.nifi.controller.swap.SwapInStatistics;
 import org.apache.nifi.controller.swap.SwapSerializer;
 import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.reporting.Severity;
+import org.apache.nifi.stream.io.ByteCountingInputStream;
 import org.apache.nifi.stream.io.StreamUtils;
+import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,6 +69,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -84,6 +91,11 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
 
     private final File storageDirectory;
 
+    // A Swap Manager is created for each queue, but all of them share the swap directory and therefore the cache and statistics that are
+    // owned by the FlowController. These are provided before the Swap Manager is initialized and so are effectively final.
+    private volatile DirectMemorySwapCache swapCache;
+    private volatile SwapInStatistics swapInStatistics = new SwapInStatistics();
+
     // effectively final
     private FlowFileRepository flowFileRepository;
     private EventReporter eventReporter;
@@ -99,16 +111,54 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
     }
 
     public FileSystemSwapManager(final NiFiProperties nifiProperties) {
-        this(nifiProperties.getFlowFileRepositoryPath());
+        this(nifiProperties.getFlowFileRepositoryPath(), null);
     }
 
     public FileSystemSwapManager(final Path flowFileRepoPath) {
+        this(flowFileRepoPath, null);
+    }
+
+    /**
+     * @param flowFileRepoPath the path of the FlowFile Repository, in which the swap directory is created
+     * @param swapCache the cache in which to keep swap files so that they can be swapped in without reading them from disk,
+     *            or <code>null</code> to always read swap files from disk
+     */
+    public FileSystemSwapManager(final Path flowFileRepoPath, final DirectMemorySwapCache swapCache) {
+        this.swapCache = swapCache;
         this.storageDirectory = flowFileRepoPath.resolve("swap").toFile();
         if (!storageDirectory.exists() && !storageDirectory.mkdirs()) {
             throw new RuntimeException("Cannot create Swap Storage directory " + storageDirectory.getAbsolutePath());
         }
     }
 
+    /**
+     * Creates the cache in which the swap files of all queues are kept in memory, as configured by the given properties
+     *
+     * @param nifiProperties the NiFi properties
+     * @return the swap cache, or <code>null</code> if swap files are not to be cached
+     */
+    public static DirectMemorySwapCache createSwapCache(final NiFiProperties nifiProperties) {
+        final long maxBytes = DataUnit.parseDataSize(nifiProperties.getSwapCacheMaxSize(), DataUnit.B).longValue();
+        if (maxBytes <= 0L) {
+            return null;
+        }
+
+        logger.info("Swapped out FlowFiles will be cached in up to {} of direct memory", FormatUtils.formatDataSize(maxBytes));
+        return new DirectMemorySwapCache(maxBytes);
+    }
+
+    /**
+     * Provides the swap cache and swap-in statistics that are shared by the Swap Managers of all queues. Must be called before the Swap
+     * Manager is initialized.
+     *
+     * @param swapCache the cache in which to keep swap files, or <code>null</code> to always read swap files from disk
+     * @param swapInStatistics the statistics to update when FlowFiles are swapped in
+     */
+    void setSharedResources(final DirectMemorySwapCache swapCache, final SwapInStatistics swapInStatistics) {
+        this.swapCache = swapCache;
+        this.swapInStatistics = swapInStatistics;
+    }
+
 
     @Override
     public synchronized void initialize(final SwapManagerInitializationContext initializationContext) {
@@ -132,9 +182,12 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         final File swapTempFile = new File(swapFile.getParentFile(), swapFile.getName() + ".part");
         final String swapLocation = swapFile.getAbsolutePath();
 
+        // The swap file is always written to disk, so that it survives a restart; the cache only saves us from reading it back.
+        final DirectMemorySwapCache.Writer cacheWriter = swapCache == null ? null : swapCache.createWriter();
+
         final SwapSerializer serializer = new SchemaSwapSerializer();
         try (final FileOutputStream fos = new FileOutputStream(swapTempFile);
-            final OutputStream out = new BufferedOutputStream(fos)) {
+            final OutputStream out = new BufferedOutputStream(cacheWriter == null ? fos : new TeeOutputStream(fos, cacheWriter))) {
             out.write(MAGIC_HEADER);
             final DataOutputStream dos = new DataOutputStream(out);
             dos.writeUTF(serializer.getSerializationName());
@@ -144,13 +197,26 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         } catch (final IOException ioe) {
             // we failed to write out the entire swap file. Delete the temporary file, if we can.
             swapTempFile.delete();
+            if (cacheWriter != null) {
+                cacheWriter.discard();
+            }
             throw ioe;
         }
 
-        if (swapTempFile.renameTo(swapFile)) {
-            flowFileRepository.swapFlowFilesOut(toSwap, flowFileQueue, swapLocation);
-        } else {
-            error("Failed to swap out FlowFiles from " + flowFileQueue + " due to: Unable to rename swap file from " + swapTempFile + " to " + swapFile);
+        try {
+            if (swapTempFile.renameTo(swapFile)) {
+                flowFileRepository.swapFlowFilesOut(toSwap, flowFileQueue, swapLocation);
+
+                if (cacheWriter != null && !cacheWriter.commit(swapLocation)) {
+                    logger.debug("Not enough room in {} to cache Swap File {}", swapCache, swapLocation);
+                }
+            } else {
+                error("Failed to swap out FlowFiles from " + flowFileQueue + " due to: Unable to rename swap file from " + swapTempFile + " to " + swapFile);
+            }
+        } finally {
+            if (cacheWriter != null) {
+                cacheWriter.discard();
+            }
         }
 
         return swapLocation;
@@ -169,34 +235,71 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
             return new StandardSwapContents(swapSummary, Collections.emptyList());
         }
 
-        final SwapContents swapContents = peek(swapLocation, flowFileQueue);
+        final long startNanos = System.nanoTime();
+        final SwapFileRead swapFileRead = readSwapFile(swapLocation, flowFileQueue);
+        final SwapContents swapContents = swapFileRead.getContents();
         flowFileRepository.swapFlowFilesIn(swapFile.getAbsolutePath(), swapContents.getFlowFiles(), flowFileQueue);
 
+        if (swapCache != null) {
+            swapCache.remove(swapLocation);
+        }
+
         if (!swapFile.delete()) {
             warn("Swapped in FlowFiles from file " + swapFile.getAbsolutePath() + " but failed to delete the file; this file should be cleaned up manually");
         }
 
+        final long nanos = System.nanoTime() - startNanos;
+        swapInStatistics.record(swapFileRead.getBytesRead(), swapFileRead.isFromCache(), nanos);
+        logger.debug("Swapped in {} FlowFiles from {} in {} millis", swapContents.getFlowFiles().size(), swapLocation, TimeUnit.NANOSECONDS.toMillis(nanos));
+
         return swapContents;
     }
 
     @Override
     public SwapContents peek(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
+        return readSwapFile(swapLocation, flowFileQueue).getContents();
+    }
+
+    private SwapFileRead readSwapFile(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
         final File swapFile = new File(swapLocation);
         if (!swapFile.exists()) {
             throw new FileNotFoundException("Failed to swap in FlowFiles from external storage location " + swapLocation + " into FlowFile Queue because the file could not be found");
         }
 
-        try (final InputStream fis = new FileInputStream(swapFile);
-                final InputStream bis = new BufferedInputStream(fis);
+        final InputStream cached = swapCache == null ? null : swapCache.read(swapLocation);
+        try (final InputStream source = cached == null ? new FileInputStream(swapFile) : cached;
+                final ByteCountingInputStream countingIn = new ByteCountingInputStream(source);
+                final InputStream bis = new BufferedInputStream(countingIn);
                 final DataInputStream in = new DataInputStream(bis)) {
 
             final SwapDeserializer deserializer = createSwapDeserializer(in);
-            return deserializer.deserializeFlowFiles(in, swapLocation, flowFileQueue, claimManager);
+            final SwapContents swapContents = deserializer.deserializeFlowFiles(in, swapLocation, flowFileQueue, claimManager);
+
+            return new SwapFileRead(swapContents, countingIn.getBytesRead(), cached != null);
         }
     }
 
+    /**
+     * @return the statistics about the FlowFiles that have been swapped in, which are shared with the Swap Managers of other queues
+     *         if the FlowController provided them
+     */
+    public SwapInStatistics getSwapInStatistics() {
+        return swapInStatistics;
+    }
+
+    /**
+     * @return the cache in which swap files are kept in memory, or <code>null</code> if swap files are always read from disk
+     */
+    public DirectMemorySwapCache getSwapCache() {
+        return swapCache;
+    }
+
     @Override
     public void purge() {
+        if (swapCache != null) {
+            swapCache.clear();
+        }
+
         final File[] swapFiles = storageDirectory.listFiles(new FilenameFilter() {
             @Override
             public boolean accept(final File dir, final String name) {
@@ -398,6 +501,30 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         }
     }
 
+    private static class SwapFileRead {
+        private final SwapContents contents;
+        private final long bytesRead;
+        private final boolean fromCache;
+
+        SwapFileRead(final SwapContents contents, final long bytesRead, final boolean fromCache) {
+            this.contents = contents;
+            this.bytesRead = bytesRead;
+            this.fromCache = fromCache;
+        }
+
+        SwapContents getContents() {
+            return contents;
+        }
+
+        long getBytesRead() {
+            return bytesRead;
+        }
+
+        boolean isFromCache() {
+            return fromCache;
+        }
+    }
+
     private static class SwapFileComparator implements Comparator<String> {
 
         @Override
@@ -469,6 +596,9 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         final File newFile = new File(existingFile.getParentFile(), newFilename);
         // Use Files.move and convert to Path's instead of File.rename so that we get an IOException on failure that describes why we failed.
         Files.move(existingFile.toPath(), newFile.toPath());
+        if (swapCache != null) {
+            swapCache.rename(swapLocation, newFile.getAbsolutePath());
+        }
 
         logger.debug("Changed Partition for Swap File by renaming from {} to {}", swapLocation, newPartitionName);
         return newFile.getAbsolutePath();
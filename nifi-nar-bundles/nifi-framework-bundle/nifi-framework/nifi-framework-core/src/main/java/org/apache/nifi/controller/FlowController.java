@@ -19,6 +19,7 @@ package org.apache.nifi.controller;
 import static java.util.Objects.requireNonNull;
 
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -38,6 +39,9 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -121,6 +125,7 @@ import org.apache.nifi.controller.repository.FlowFileRepository;
 import org.apache.nifi.controller.repository.FlowFileSwapManager;
 import org.apache.nifi.controller.repository.QueueProvider;
 import org.apache.nifi.controller.repository.RepositoryStatusReport;
+import org.apache.nifi.controller.repository.SessionCommitPipeline;
 import org.apache.nifi.controller.repository.StandardCounterRepository;
 import org.apache.nifi.controller.repository.StandardFlowFileRecord;
 import org.apache.nifi.controller.repository.StandardQueueProvider;
@@ -140,6 +145,7 @@ import org.apache.nifi.controller.scheduling.QuartzSchedulingAgent;
 import org.apache.nifi.controller.scheduling.RepositoryContextFactory;
 import org.apache.nifi.controller.scheduling.StandardProcessScheduler;
 import org.apache.nifi.controller.scheduling.TimerDrivenSchedulingAgent;
+import org.apache.nifi.controller.scheduling.VirtualThreadSchedulingAgent;
 import org.apache.nifi.controller.serialization.FlowSerializationException;
 import org.apache.nifi.controller.serialization.FlowSerializer;
 import org.apache.nifi.controller.serialization.FlowSynchronizationException;
@@ -151,6 +157,7 @@ import org.apache.nifi.controller.service.StandardConfigurationContext;
 import org.apache.nifi.controller.service.StandardControllerServiceProvider;
 import org.apache.nifi.controller.state.manager.StandardStateManagerProvider;
 import org.apache.nifi.controller.state.server.ZooKeeperStateServer;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
 import org.apache.nifi.controller.status.analytics.CachingConnectionStatusAnalyticsEngine;
 import org.apache.nifi.controller.status.analytics.ConnectionStatusAnalytics;
 import org.apache.nifi.controller.status.analytics.StatusAnalyticsEngine;
@@ -160,6 +167,8 @@ import org.apache.nifi.controller.status.history.GarbageCollectionHistory;
 import org.apache.nifi.controller.status.history.GarbageCollectionStatus;
 import org.apache.nifi.controller.status.history.StandardGarbageCollectionStatus;
 import org.apache.nifi.controller.status.history.StatusHistoryUtil;
+import org.apache.nifi.controller.swap.DirectMemorySwapCache;
+import org.apache.nifi.controller.swap.SwapInStatistics;
 import org.apache.nifi.controller.tasks.ExpireFlowFiles;
 import org.apache.nifi.diagnostics.SystemDiagnostics;
 import org.apache.nifi.diagnostics.SystemDiagnosticsFactory;
@@ -249,6 +258,7 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
     private final AtomicReference<FlowEngine> timerDrivenEngineRef;
     private final AtomicReference<FlowEngine> eventDrivenEngineRef;
     private final EventDrivenSchedulingAgent eventDrivenSchedulingAgent;
+    private final VirtualThreadSchedulingAgent virtualThreadSchedulingAgent;
 
     private final ContentRepository contentRepository;
     private final FlowFileRepository flowFileRepository;
@@ -311,6 +321,9 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
     private final ParameterContextManager parameterContextManager;
     private final StandardFlowManager flowManager;
     private final RepositoryContextFactory repositoryContextFactory;
+    private final SessionCommitPipeline sessionCommitPipeline;
+    private final DirectMemorySwapCache swapCache;
+    private final SwapInStatistics swapInStatistics = new SwapInStatistics();
     private final RingBufferGarbageCollectionLog gcLog;
 
     /**
@@ -520,7 +533,18 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         eventDrivenWorkerQueue = new EventDrivenWorkerQueue(false, false, processScheduler);
 
         parameterContextManager = new StandardParameterContextManager();
-        repositoryContextFactory = new RepositoryContextFactory(contentRepository, flowFileRepository, flowFileEventRepository, counterRepositoryRef.get(), provenanceRepository);
+        final int sessionCommitThreads = nifiProperties.getSessionCommitThreads();
+        if (sessionCommitThreads > 0) {
+            sessionCommitPipeline = new SessionCommitPipeline(sessionCommitThreads, nifiProperties.getSessionCommitMaxQueued());
+            LOG.info("Sessions that are committed asynchronously will be persisted by {} Session Commit Threads", sessionCommitThreads);
+        } else {
+            sessionCommitPipeline = null;
+        }
+
+        swapCache = FileSystemSwapManager.createSwapCache(nifiProperties);
+
+        repositoryContextFactory = new RepositoryContextFactory(contentRepository, flowFileRepository, flowFileEventRepository, counterRepositoryRef.get(), provenanceRepository,
+            sessionCommitPipeline);
         flowManager = new StandardFlowManager(nifiProperties, sslContext, this, flowFileEventRepository, parameterContextManager);
 
         controllerServiceProvider = new StandardControllerServiceProvider(this, processScheduler, bulletinRepository);
@@ -537,6 +561,10 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         processScheduler.setSchedulingAgent(SchedulingStrategy.PRIMARY_NODE_ONLY, timerDrivenAgent);
         processScheduler.setSchedulingAgent(SchedulingStrategy.CRON_DRIVEN, quartzSchedulingAgent);
 
+        virtualThreadSchedulingAgent = new VirtualThreadSchedulingAgent(this, new FlowEngine(2, "Virtual-Thread-Driven Scheduler", true), repositoryContextFactory,
+            encryptor, this.nifiProperties);
+        processScheduler.setSchedulingAgent(SchedulingStrategy.VIRTUAL_THREAD_DRIVEN, virtualThreadSchedulingAgent);
+
         startConnectablesAfterInitialization = new ArrayList<>();
         startRemoteGroupPortsAfterInitialization = new ArrayList<>();
 
@@ -686,13 +714,27 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
 
         }
 
-        eventAccess = new StandardEventAccess(this, flowFileEventRepository);
+        final String statusCacheDuration = nifiProperties.getProperty(NiFiProperties.COMPONENT_STATUS_CACHE_DURATION, NiFiProperties.DEFAULT_COMPONENT_STATUS_CACHE_DURATION);
+        long statusCacheMillis;
+        try {
+            statusCacheMillis = Math.round(FormatUtils.getPreciseTimeDuration(statusCacheDuration, TimeUnit.MILLISECONDS));
+        } catch (final Exception e) {
+            LOG.warn("Invalid value of {} configured for {}; component status will not be cached", statusCacheDuration, NiFiProperties.COMPONENT_STATUS_CACHE_DURATION);
+            statusCacheMillis = 0L;
+        }
+        eventAccess = new StandardEventAccess(this, flowFileEventRepository, statusCacheMillis);
 
         timerDrivenEngineRef.get().scheduleWithFixedDelay(new Runnable() {
             @Override
             public void run() {
                 try {
-                    componentStatusRepository.capture(eventAccess.getControllerStatus(), getGarbageCollectionStatus());
+                    final ProcessGroupStatus controllerStatus = eventAccess.getControllerStatus();
+                    final Date timestamp = new Date();
+                    componentStatusRepository.capture(controllerStatus, getGarbageCollectionStatus(), timestamp);
+
+                    if (analyticsEngine instanceof CachingConnectionStatusAnalyticsEngine) {
+                        ((CachingConnectionStatusAnalyticsEngine) analyticsEngine).update(controllerStatus, timestamp.getTime());
+                    }
                 } catch (final Exception e) {
                     LOG.error("Failed to capture component stats for Stats History", e);
                 }
@@ -813,6 +855,9 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
 
         try {
             final FlowFileSwapManager swapManager = NarThreadContextClassLoader.createInstance(extensionManager, implementationClassName, FlowFileSwapManager.class, nifiProperties);
+            if (swapManager instanceof FileSystemSwapManager) {
+                ((FileSystemSwapManager) swapManager).setSharedResources(swapCache, swapInStatistics);
+            }
 
             final EventReporter eventReporter = createEventReporter();
             try (final NarCloseable narCloseable = NarCloseable.withNarLoader()) {
@@ -885,9 +930,7 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
                     queue.purgeSwapFiles();
                 }
             } else {
-                for (final Connection connection : connections) {
-                    final FlowFileQueue queue = connection.getFlowFileQueue();
-                    final SwapSummary swapSummary = queue.recoverSwappedFlowFiles();
+                for (final SwapSummary swapSummary : recoverSwappedFlowFiles(connections)) {
                     if (swapSummary != null) {
                         final Long maxFlowFileId = swapSummary.getMaxFlowFileId();
                         if (maxFlowFileId != null && maxFlowFileId > maxIdFromSwapFiles) {
@@ -959,6 +1002,49 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         }
     }
 
+    /**
+     * Recovers the swapped FlowFiles of all of the given connections, using a bounded pool of threads. Because the pool is a ForkJoinPool,
+     * a queue that has many swap files reads their summaries in parallel as well, using the same threads.
+     */
+    private List<SwapSummary> recoverSwappedFlowFiles(final Set<Connection> connections) {
+        if (connections.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final int threadCount = Math.max(1, nifiProperties.getSwapRecoveryThreads());
+        final ForkJoinPool recoveryPool = new ForkJoinPool(threadCount, pool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Recover Swap Files-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+
+        final long startNanos = System.nanoTime();
+        try {
+            final List<ForkJoinTask<SwapSummary>> recoveryTasks = new ArrayList<>(connections.size());
+            for (final Connection connection : connections) {
+                final FlowFileQueue queue = connection.getFlowFileQueue();
+                recoveryTasks.add(recoveryPool.submit(queue::recoverSwappedFlowFiles));
+            }
+
+            final List<SwapSummary> swapSummaries = new ArrayList<>(recoveryTasks.size());
+            long swapFlowFileCount = 0L;
+            for (final ForkJoinTask<SwapSummary> recoveryTask : recoveryTasks) {
+                final SwapSummary swapSummary = recoveryTask.join();
+                swapSummaries.add(swapSummary);
+
+                if (swapSummary != null) {
+                    swapFlowFileCount += swapSummary.getQueueSize().getObjectCount();
+                }
+            }
+
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            LOG.info("Recovered {} swapped FlowFiles for {} Connections in {} millis using {} threads", swapFlowFileCount, connections.size(), millis, threadCount);
+            return swapSummaries;
+        } finally {
+            recoveryPool.shutdown();
+        }
+    }
+
     private void notifyComponentsConfigurationRestored() {
         for (final ProcessorNode procNode : flowManager.getRootGroup().findAllProcessors()) {
             final Processor processor = procNode.getProcessor();
@@ -1300,6 +1386,11 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
                 LOG.info("Interrupted while waiting for controller termination.");
             }
 
+            // sessions that were committed asynchronously must be persisted before the repositories are closed
+            if (sessionCommitPipeline != null) {
+                sessionCommitPipeline.shutdown(gracefulShutdownSeconds, TimeUnit.SECONDS);
+            }
+
             try {
                 flowFileRepository.close();
             } catch (final Throwable t) {
@@ -1344,6 +1435,17 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
                     }
                 }
             }
+
+            if (componentStatusRepository instanceof Closeable) {
+                try {
+                    ((Closeable) componentStatusRepository).close();
+                } catch (final IOException ioe) {
+                    LOG.warn("There was a problem shutting down the Component Status Repository: " + ioe.toString());
+                    if (LOG.isDebugEnabled()) {
+                        LOG.warn("", ioe);
+                    }
+                }
+            }
         } finally {
             readLock.unlock("shutdown");
         }
@@ -1871,6 +1973,20 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         return repositoryContextFactory;
     }
 
+    /**
+     * @return the cache in which the swap files of all queues are kept in memory, or <code>null</code> if swap files are not cached
+     */
+    public DirectMemorySwapCache getSwapCache() {
+        return swapCache;
+    }
+
+    /**
+     * @return the statistics about the FlowFiles that have been swapped in by the queues of this controller
+     */
+    public SwapInStatistics getSwapInStatistics() {
+        return swapInStatistics;
+    }
+
     public ClusterCoordinator getClusterCoordinator() {
         return clusterCoordinator;
     }
@@ -2116,7 +2232,8 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
     public int getActiveThreadCount() {
         final int timerDrivenCount = timerDrivenEngineRef.get().getActiveCount();
         final int eventDrivenCount = eventDrivenSchedulingAgent.getActiveThreadCount();
-        return timerDrivenCount + eventDrivenCount;
+        final int virtualThreadDrivenCount = virtualThreadSchedulingAgent.getActiveThreadCount();
+        return timerDrivenCount + eventDrivenCount + virtualThreadDrivenCount;
     }
 
 
@@ -29,6 +29,7 @@ import org.apache.nifi.controller.flow.FlowManager;
 import org.apache.nifi.controller.label.Label;
 import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.queue.LoadBalanceStrategy;
+import org.apache.nifi.controller.queue.QueueMode;
 import org.apache.nifi.controller.service.ControllerServiceNode;
 import org.apache.nifi.flowfile.FlowFilePrioritizer;
 import org.apache.nifi.groups.FlowFileConcurrency;
@@ -591,6 +592,11 @@ public class StandardFlowSnippet implements FlowSnippet {
                 queue.setLoadBalanceStrategy(loadBalanceStrategy, partitioningAttribute);
             }
 
+            final String queueModeName = connectionDTO.getQueueMode();
+            if (queueModeName != null) {
+                queue.setQueueMode(QueueMode.valueOf(queueModeName));
+            }
+
             connection.setProcessGroup(group);
             group.addConnection(connection);
         }
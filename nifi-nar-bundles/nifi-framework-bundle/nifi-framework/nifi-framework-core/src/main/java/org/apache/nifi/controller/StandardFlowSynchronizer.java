@@ -42,6 +42,7 @@ import org.apache.nifi.controller.inheritance.FlowInheritabilityCheck;
 import org.apache.nifi.controller.inheritance.MissingComponentsCheck;
 import org.apache.nifi.controller.label.Label;
 import org.apache.nifi.controller.queue.LoadBalanceCompression;
+import org.apache.nifi.controller.queue.QueueMode;
 import org.apache.nifi.controller.queue.LoadBalanceStrategy;
 import org.apache.nifi.controller.reporting.ReportingTaskInstantiationException;
 import org.apache.nifi.controller.serialization.FlowEncodingVersion;
@@ -1692,6 +1693,10 @@ public class StandardFlowSynchronizer implements FlowSynchronizer {
                 connection.getFlowFileQueue().setLoadBalanceCompression(LoadBalanceCompression.valueOf(dto.getLoadBalanceCompression()));
             }
 
+            if (dto.getQueueMode() != null) {
+                connection.getFlowFileQueue().setQueueMode(QueueMode.valueOf(dto.getQueueMode()));
+            }
+
             processGroup.addConnection(connection);
         }
     }
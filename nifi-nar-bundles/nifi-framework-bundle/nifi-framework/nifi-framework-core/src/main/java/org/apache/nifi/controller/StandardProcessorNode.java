@@ -516,7 +516,8 @@ public class StandardProcessorNode extends ProcessorNode implements Connectable
         }
             break;
         case PRIMARY_NODE_ONLY:
-        case TIMER_DRIVEN: {
+        case TIMER_DRIVEN:
+        case VIRTUAL_THREAD_DRIVEN: {
             final long schedulingNanos = FormatUtils.getTimeDuration(requireNonNull(schedulingPeriod),
                     TimeUnit.NANOSECONDS);
             if (schedulingNanos < 0) {
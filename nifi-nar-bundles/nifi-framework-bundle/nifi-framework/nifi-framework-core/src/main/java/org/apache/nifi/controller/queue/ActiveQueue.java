@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The 'active' portion of a {@link SwappablePriorityQueue}: the FlowFiles that are held in heap and are eligible to be polled without
+ * first being swapped in. Implementations decide the order in which FlowFiles are handed out. Penalized FlowFiles are handed out only
+ * after all FlowFiles that are not penalized, so that a caller that receives a penalized FlowFile knows that nothing else is available.
+ */
+interface ActiveQueue {
+    /**
+     * Orders FlowFiles in the order in which they were enqueued
+     */
+    Comparator<FlowFileRecord> FIFO_COMPARATOR = Comparator.comparingLong(FlowFileRecord::getQueueDateIndex).thenComparingLong(FlowFileRecord::getId);
+
+    /**
+     * Orders penalized FlowFiles by the time at which their penalty expires and then in the order in which they were enqueued
+     */
+    Comparator<FlowFileRecord> PENALTY_COMPARATOR = Comparator.comparingLong(FlowFileRecord::getPenaltyExpirationMillis).thenComparing(FIFO_COMPARATOR);
+
+    /**
+     * @return <code>true</code> if this queue may be accessed by multiple threads concurrently while holding only the read lock of the
+     *         owning {@link SwappablePriorityQueue}, <code>false</code> if every access must be made while holding the write lock
+     */
+    boolean isConcurrent();
+
+    boolean isEmpty();
+
+    int size();
+
+    FlowFileRecord peek();
+
+    FlowFileRecord poll();
+
+    void add(FlowFileRecord flowFile);
+
+    void addAll(Collection<FlowFileRecord> flowFiles);
+
+    /**
+     * Returns FlowFiles that were polled from this queue but not consumed, so that they are handed out again before any FlowFile
+     * that was behind them when they were polled.
+     *
+     * @param flowFiles the FlowFiles to requeue, in the order in which they were polled
+     */
+    void requeue(List<FlowFileRecord> flowFiles);
+
+    /**
+     * @return a copy of the FlowFiles that are currently queued, in no particular order
+     */
+    List<FlowFileRecord> getFlowFiles();
+
+    void clear();
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link ActiveQueue} that hands out FlowFiles in the order in which they were enqueued (by Queue Date Index), allowing any number of
+ * threads to add and poll concurrently. FlowFiles that are not penalized are held in a lock-free deque; penalized FlowFiles are held aside,
+ * ordered by the time at which their penalty expires, and are handed out ahead of the deque once their penalty has expired.
+ */
+class ConcurrentFifoActiveQueue implements ActiveQueue {
+    private final ConcurrentLinkedDeque<FlowFileRecord> available = new ConcurrentLinkedDeque<>();
+    private final PriorityQueue<FlowFileRecord> penalized = new PriorityQueue<>(PENALTY_COMPARATOR); // guarded by synchronizing on 'penalized'
+    private final AtomicInteger penalizedCount = new AtomicInteger(0);
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return available.isEmpty() && penalizedCount.get() == 0;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public FlowFileRecord peek() {
+        final FlowFileRecord flowFile = available.peekFirst();
+        if (flowFile != null || penalizedCount.get() == 0) {
+            return flowFile;
+        }
+
+        synchronized (penalized) {
+            return penalized.peek();
+        }
+    }
+
+    @Override
+    public FlowFileRecord poll() {
+        // FlowFiles whose penalty has expired have been waiting longer than anything in the deque, so they go first.
+        if (penalizedCount.get() > 0) {
+            synchronized (penalized) {
+                final FlowFileRecord head = penalized.peek();
+                if (head != null && !head.isPenalized()) {
+                    return removePenalizedHead();
+                }
+            }
+        }
+
+        final FlowFileRecord flowFile = available.pollFirst();
+        if (flowFile != null) {
+            size.decrementAndGet();
+            return flowFile;
+        }
+
+        // Nothing is available that is not penalized. Hand out a penalized FlowFile, if there is one, so that the caller can tell.
+        if (penalizedCount.get() > 0) {
+            synchronized (penalized) {
+                if (!penalized.isEmpty()) {
+                    return removePenalizedHead();
+                }
+            }
+        }
+
+        return null;
+    }
+
+    // must be called while synchronized on 'penalized'
+    private FlowFileRecord removePenalizedHead() {
+        final FlowFileRecord head = penalized.poll();
+        penalizedCount.decrementAndGet();
+        size.decrementAndGet();
+        return head;
+    }
+
+    @Override
+    public void add(final FlowFileRecord flowFile) {
+        size.incrementAndGet();
+
+        if (flowFile.isPenalized()) {
+            addPenalized(flowFile);
+        } else {
+            available.offerLast(flowFile);
+        }
+    }
+
+    private void addPenalized(final FlowFileRecord flowFile) {
+        synchronized (penalized) {
+            penalized.add(flowFile);
+            penalizedCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void addAll(final Collection<FlowFileRecord> flowFiles) {
+        if (flowFiles.size() == 1) {
+            add(flowFiles.iterator().next());
+            return;
+        }
+
+        // FlowFiles that are swapped in, or that are moved over from another queue, are not necessarily in FIFO order.
+        // Sorting a list that already is in order (as is the case for FlowFiles transferred by a session) is linear.
+        final List<FlowFileRecord> sorted = new ArrayList<>(flowFiles);
+        sorted.sort(FIFO_COMPARATOR);
+        for (final FlowFileRecord flowFile : sorted) {
+            add(flowFile);
+        }
+    }
+
+    @Override
+    public void requeue(final List<FlowFileRecord> flowFiles) {
+        for (int i = flowFiles.size() - 1; i >= 0; i--) {
+            final FlowFileRecord flowFile = flowFiles.get(i);
+            size.incrementAndGet();
+
+            if (flowFile.isPenalized()) {
+                addPenalized(flowFile);
+            } else {
+                available.offerFirst(flowFile);
+            }
+        }
+    }
+
+    @Override
+    public List<FlowFileRecord> getFlowFiles() {
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(available);
+        synchronized (penalized) {
+            flowFiles.addAll(penalized);
+        }
+
+        return flowFiles;
+    }
+
+    @Override
+    public void clear() {
+        synchronized (penalized) {
+            penalized.clear();
+            penalizedCount.set(0);
+        }
+
+        available.clear();
+        size.set(0);
+    }
+}
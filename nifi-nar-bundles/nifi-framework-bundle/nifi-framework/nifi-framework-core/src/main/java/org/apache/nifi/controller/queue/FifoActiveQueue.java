@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * An {@link ActiveQueue} that hands out FlowFiles in the order in which they were enqueued (by Queue Date Index). FlowFiles that are not
+ * penalized are held in a ring buffer, so that adding and polling them does not require any comparisons. Penalized FlowFiles are held aside
+ * in a heap that is ordered by the time at which their penalty expires, and are handed out ahead of the ring buffer once their penalty
+ * has expired. Not thread-safe.
+ */
+class FifoActiveQueue implements ActiveQueue {
+    private final ArrayDeque<FlowFileRecord> available;
+    private final PriorityQueue<FlowFileRecord> penalized = new PriorityQueue<>(PENALTY_COMPARATOR);
+
+    FifoActiveQueue(final int initialCapacity) {
+        this.available = new ArrayDeque<>(Math.max(20, initialCapacity));
+    }
+
+    @Override
+    public boolean isConcurrent() {
+        return false;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return available.isEmpty() && penalized.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return available.size() + penalized.size();
+    }
+
+    @Override
+    public FlowFileRecord peek() {
+        final FlowFileRecord flowFile = available.peekFirst();
+        return flowFile == null ? penalized.peek() : flowFile;
+    }
+
+    @Override
+    public FlowFileRecord poll() {
+        // FlowFiles whose penalty has expired have been waiting longer than anything in the ring buffer, so they go first.
+        final FlowFileRecord penalizedHead = penalized.peek();
+        if (penalizedHead != null && !penalizedHead.isPenalized()) {
+            return penalized.poll();
+        }
+
+        final FlowFileRecord flowFile = available.pollFirst();
+        if (flowFile != null) {
+            return flowFile;
+        }
+
+        // Nothing is available that is not penalized. Hand out a penalized FlowFile, if there is one, so that the caller can tell.
+        return penalized.poll();
+    }
+
+    @Override
+    public void add(final FlowFileRecord flowFile) {
+        if (flowFile.isPenalized()) {
+            penalized.add(flowFile);
+        } else {
+            available.offerLast(flowFile);
+        }
+    }
+
+    @Override
+    public void addAll(final Collection<FlowFileRecord> flowFiles) {
+        if (flowFiles.size() == 1) {
+            add(flowFiles.iterator().next());
+            return;
+        }
+
+        // FlowFiles that are swapped in, or that are moved over from another queue, are not necessarily in FIFO order.
+        // Sorting a list that already is in order (as is the case for FlowFiles transferred by a session) is linear.
+        final List<FlowFileRecord> sorted = new ArrayList<>(flowFiles);
+        sorted.sort(FIFO_COMPARATOR);
+        for (final FlowFileRecord flowFile : sorted) {
+            add(flowFile);
+        }
+    }
+
+    @Override
+    public void requeue(final List<FlowFileRecord> flowFiles) {
+        for (int i = flowFiles.size() - 1; i >= 0; i--) {
+            final FlowFileRecord flowFile = flowFiles.get(i);
+            if (flowFile.isPenalized()) {
+                penalized.add(flowFile);
+            } else {
+                available.offerFirst(flowFile);
+            }
+        }
+    }
+
+    @Override
+    public List<FlowFileRecord> getFlowFiles() {
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(size());
+        flowFiles.addAll(available);
+        flowFiles.addAll(penalized);
+        return flowFiles;
+    }
+
+    @Override
+    public void clear() {
+        available.clear();
+        penalized.clear();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.flowfile.FlowFilePrioritizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * An {@link ActiveQueue} that orders FlowFiles using a {@link QueuePrioritizer}. Not thread-safe.
+ */
+class PrioritizedActiveQueue implements ActiveQueue {
+    private final PriorityQueue<FlowFileRecord> queue;
+
+    PrioritizedActiveQueue(final List<FlowFilePrioritizer> priorities, final int initialCapacity) {
+        this.queue = new PriorityQueue<>(Math.max(20, initialCapacity), new QueuePrioritizer(priorities));
+    }
+
+    @Override
+    public boolean isConcurrent() {
+        return false;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public FlowFileRecord peek() {
+        return queue.peek();
+    }
+
+    @Override
+    public FlowFileRecord poll() {
+        return queue.poll();
+    }
+
+    @Override
+    public void add(final FlowFileRecord flowFile) {
+        queue.add(flowFile);
+    }
+
+    @Override
+    public void addAll(final Collection<FlowFileRecord> flowFiles) {
+        queue.addAll(flowFiles);
+    }
+
+    @Override
+    public void requeue(final List<FlowFileRecord> flowFiles) {
+        // The heap restores the ordering on its own.
+        queue.addAll(flowFiles);
+    }
+
+    @Override
+    public List<FlowFileRecord> getFlowFiles() {
+        return new ArrayList<>(queue);
+    }
+
+    @Override
+    public void clear() {
+        queue.clear();
+    }
+}
@@ -97,6 +97,16 @@ public class StandardFlowFileQueue extends AbstractFlowFileQueue implements Flow
         return queue.getPriorities();
     }
 
+    @Override
+    public void setQueueMode(final QueueMode queueMode) {
+        queue.setQueueMode(queueMode);
+    }
+
+    @Override
+    public QueueMode getQueueMode() {
+        return queue.getQueueMode();
+    }
+
     @Override
     protected List<FlowFileRecord> getListableFlowFiles() {
         return queue.getActiveFlowFiles();
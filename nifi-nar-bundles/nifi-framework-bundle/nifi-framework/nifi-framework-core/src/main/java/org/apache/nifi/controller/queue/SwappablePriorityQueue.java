@@ -44,8 +44,8 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -78,17 +78,22 @@ public class SwappablePriorityQueue {
     // active queue, then we would end up processing the newer FlowFile before the swapped FlowFile. By
     // keeping these separate, we are able to guarantee that FlowFiles are swapped in in the same order
     // that they are swapped out.
-    // Guarded by lock.
-    private PriorityQueue<FlowFileRecord> activeQueue;
+    // Guarded by lock. When the active queue is concurrent (see QueueMode.CONCURRENT_FIFO), FlowFiles may be added to and polled from it
+    // while holding only the read lock, as long as doing so does not require the swap queue or the swap files to be touched. Anything that
+    // replaces the active queue, or moves FlowFiles between it and the swap queue or swap files, requires the write lock.
+    private ActiveQueue activeQueue;
     private ArrayList<FlowFileRecord> swapQueue;
     private boolean swapMode = false;
+    private QueueMode queueMode = QueueMode.PRIORITIZED;
+    private boolean firstInFirstOut = false;
+    private volatile boolean concurrentMode = false;
 
     public SwappablePriorityQueue(final FlowFileSwapManager swapManager, final int swapThreshold, final EventReporter eventReporter, final FlowFileQueue flowFileQueue,
         final DropFlowFileAction dropAction, final String swapPartitionName) {
         this.swapManager = swapManager;
         this.swapThreshold = swapThreshold;
 
-        this.activeQueue = new PriorityQueue<>(20, new QueuePrioritizer(Collections.emptyList()));
+        this.activeQueue = new PrioritizedActiveQueue(Collections.emptyList(), 20);
         this.swapQueue = new ArrayList<>();
         this.eventReporter = eventReporter;
         this.flowFileQueue = flowFileQueue;
@@ -119,20 +124,82 @@ public class SwappablePriorityQueue {
             priorities.clear();
             priorities.addAll(newPriorities);
 
-            final PriorityQueue<FlowFileRecord> newQueue = new PriorityQueue<>(Math.max(20, activeQueue.size()), new QueuePrioritizer(newPriorities));
-            newQueue.addAll(activeQueue);
-            activeQueue = newQueue;
+            replaceActiveQueue();
         } finally {
             writeLock.unlock("setPriorities");
         }
     }
 
+    public QueueMode getQueueMode() {
+        readLock.lock();
+        try {
+            return queueMode;
+        } finally {
+            readLock.unlock("getQueueMode");
+        }
+    }
+
+    public void setQueueMode(final QueueMode queueMode) {
+        writeLock.lock();
+        try {
+            this.queueMode = queueMode;
+            replaceActiveQueue();
+        } finally {
+            writeLock.unlock("setQueueMode");
+        }
+    }
+
+    /**
+     * Creates the Active Queue that is appropriate for the current Queue Mode and Prioritizers, and moves all FlowFiles from the current
+     * Active Queue into it.
+     *
+     * This method MUST be called with the write lock held.
+     */
+    private void replaceActiveQueue() {
+        final List<FlowFileRecord> activeFlowFiles = activeQueue.getFlowFiles();
+
+        // Prioritizers always take precedence over the Queue Mode.
+        final QueueMode effectiveMode = priorities.isEmpty() ? queueMode : QueueMode.PRIORITIZED;
+
+        final ActiveQueue newQueue;
+        switch (effectiveMode) {
+            case FIFO:
+                newQueue = new FifoActiveQueue(activeFlowFiles.size());
+                break;
+            case CONCURRENT_FIFO:
+                newQueue = new ConcurrentFifoActiveQueue();
+                break;
+            case PRIORITIZED:
+            default:
+                newQueue = new PrioritizedActiveQueue(priorities, activeFlowFiles.size());
+                break;
+        }
+
+        newQueue.addAll(activeFlowFiles);
+        activeQueue = newQueue;
+        firstInFirstOut = effectiveMode != QueueMode.PRIORITIZED;
+        concurrentMode = newQueue.isConcurrent();
+    }
+
+    /**
+     * @return a QueuePrioritizer that orders FlowFiles the same way that the Active Queue does. This is used for ordering the FlowFiles
+     *         that move between the Swap Queue, the swap files, and the Active Queue
+     */
+    private QueuePrioritizer createQueuePrioritizer() {
+        if (firstInFirstOut) {
+            final FlowFilePrioritizer enqueueOrder = (flowFile1, flowFile2) -> Long.compare(flowFile1.getQueueDateIndex(), flowFile2.getQueueDateIndex());
+            return new QueuePrioritizer(Collections.singletonList(enqueueOrder));
+        }
+
+        return new QueuePrioritizer(getPriorities());
+    }
+
 
     public LocalQueuePartitionDiagnostics getQueueDiagnostics() {
         readLock.lock();
         try {
             final boolean anyPenalized = !activeQueue.isEmpty() && activeQueue.peek().isPenalized();
-            final boolean allPenalized = anyPenalized && activeQueue.stream().anyMatch(FlowFileRecord::isPenalized);
+            final boolean allPenalized = anyPenalized && activeQueue.getFlowFiles().stream().anyMatch(FlowFileRecord::isPenalized);
 
             return new StandardLocalQueuePartitionDiagnostics(getFlowFileQueueSize(), anyPenalized, allPenalized);
         } finally {
@@ -143,7 +210,7 @@ public class SwappablePriorityQueue {
     public List<FlowFileRecord> getActiveFlowFiles() {
         readLock.lock();
         try {
-            return new ArrayList<>(activeQueue);
+            return activeQueue.getFlowFiles();
         } finally {
             readLock.unlock("getActiveFlowFiles");
         }
@@ -178,7 +245,7 @@ public class SwappablePriorityQueue {
         // whatever data we don't write out to a swap file (because there isn't enough to fill a swap file) will be added back to the swap queue.
         // Since the swap queue cannot be processed until all swap files, we want to ensure that only the lowest priority data goes back onto it. Which means
         // that we must swap out the highest priority data that is currently on the swap queue.
-        final PriorityQueue<FlowFileRecord> tempQueue = new PriorityQueue<>(swapQueue.size(), new QueuePrioritizer(getPriorities()));
+        final PriorityQueue<FlowFileRecord> tempQueue = new PriorityQueue<>(swapQueue.size(), createQueuePrioritizer());
         tempQueue.addAll(swapQueue);
 
         long bytesSwappedOut = 0L;
@@ -309,22 +376,25 @@ public class SwappablePriorityQueue {
         }
 
         // Swap Queue is not currently ordered. We want to migrate the highest priority FlowFiles to the Active Queue, then re-queue the lowest priority items.
-        final PriorityQueue<FlowFileRecord> tempQueue = new PriorityQueue<>(swapQueue.size(), new QueuePrioritizer(getPriorities()));
+        final PriorityQueue<FlowFileRecord> tempQueue = new PriorityQueue<>(swapQueue.size(), createQueuePrioritizer());
         tempQueue.addAll(swapQueue);
 
         int recordsMigrated = 0;
         long bytesMigrated = 0L;
-        while (activeQueue.size() < swapThreshold) {
-            final FlowFileRecord toMigrate = tempQueue.poll();
-            if (toMigrate == null) {
+        final List<FlowFileRecord> toMigrate = new ArrayList<>();
+        while (activeQueue.size() + recordsMigrated < swapThreshold) {
+            final FlowFileRecord flowFile = tempQueue.poll();
+            if (flowFile == null) {
                 break;
             }
 
-            activeQueue.add(toMigrate);
-            bytesMigrated += toMigrate.getSize();
+            toMigrate.add(flowFile);
+            bytesMigrated += flowFile.getSize();
             recordsMigrated++;
         }
 
+        activeQueue.addAll(toMigrate);
+
         swapQueue.clear();
         FlowFileRecord toRequeue;
         while ((toRequeue = tempQueue.poll()) != null) {
@@ -461,6 +531,11 @@ public class SwappablePriorityQueue {
 
 
     public void put(final FlowFileRecord flowFile) {
+        if (concurrentMode && putConcurrently(Collections.singletonList(flowFile), flowFile.getSize())) {
+            logger.trace("{} put to {}", flowFile, this);
+            return;
+        }
+
         writeLock.lock();
         try {
             if (swapMode || activeQueue.size() >= swapThreshold) {
@@ -486,6 +561,11 @@ public class SwappablePriorityQueue {
             bytes += flowFile.getSize();
         }
 
+        if (concurrentMode && putConcurrently(flowFiles, bytes)) {
+            logger.trace("{} put to {}", flowFiles, this);
+            return;
+        }
+
         writeLock.lock();
         try {
             if (swapMode || activeQueue.size() >= swapThreshold - numFiles) {
@@ -504,9 +584,60 @@ public class SwappablePriorityQueue {
         }
     }
 
+    /**
+     * Adds the given FlowFiles to the Active Queue while holding only the read lock, if the Active Queue is concurrent and the FlowFiles
+     * can be added without entering swap mode.
+     *
+     * @return <code>true</code> if the FlowFiles were added, <code>false</code> if they must be added while holding the write lock
+     */
+    private boolean putConcurrently(final Collection<FlowFileRecord> flowFiles, final long bytes) {
+        readLock.lock();
+        try {
+            if (!activeQueue.isConcurrent() || swapMode) {
+                return false;
+            }
+
+            // Check the swap threshold and increment the size atomically, so that concurrent puts cannot together exceed the threshold.
+            // Incrementing the size before adding the FlowFiles also ensures that a concurrent poll cannot drive the size negative.
+            if (!incrementActiveQueueSizeWithin(flowFiles.size(), bytes, swapThreshold)) {
+                return false;
+            }
+
+            activeQueue.addAll(flowFiles);
+            return true;
+        } finally {
+            readLock.unlock("putConcurrently");
+        }
+    }
+
+    /**
+     * @return <code>true</code> if a poll can be served while holding only the read lock: the Active Queue is concurrent, and it either
+     *         has FlowFiles or there is nothing swapped out that would have to be migrated into it first
+     */
+    private boolean isConcurrentPollPossible() {
+        return activeQueue.isConcurrent() && (!activeQueue.isEmpty() || getFlowFileQueueSize().getSwappedCount() == 0);
+    }
+
     public FlowFileRecord poll(final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
         FlowFileRecord flowFile;
 
+        if (concurrentMode) {
+            readLock.lock();
+            try {
+                if (isConcurrentPollPossible()) {
+                    flowFile = pollActiveQueue(expiredRecords, expirationMillis);
+                    if (flowFile != null) {
+                        logger.trace("{} poll() returning {}", this, flowFile);
+                        incrementUnacknowledgedQueueSize(1, flowFile.getSize());
+                    }
+
+                    return flowFile;
+                }
+            } finally {
+                readLock.unlock("poll(Set) concurrently");
+            }
+        }
+
         // First check if we have any records Pre-Fetched.
         writeLock.lock();
         try {
@@ -525,11 +656,14 @@ public class SwappablePriorityQueue {
 
 
     private FlowFileRecord doPoll(final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
+        migrateSwapToActive();
+        return pollActiveQueue(expiredRecords, expirationMillis);
+    }
+
+    private FlowFileRecord pollActiveQueue(final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
         FlowFileRecord flowFile;
         boolean isExpired;
 
-        migrateSwapToActive();
-
         long expiredBytes = 0L;
         do {
             flowFile = this.activeQueue.poll();
@@ -564,6 +698,27 @@ public class SwappablePriorityQueue {
     public List<FlowFileRecord> poll(int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
         final List<FlowFileRecord> records = new ArrayList<>(Math.min(1, maxResults));
 
+        boolean polled = false;
+        if (concurrentMode) {
+            readLock.lock();
+            try {
+                if (isConcurrentPollPossible()) {
+                    drainActiveQueue(records, maxResults, expiredRecords, expirationMillis);
+                    polled = true;
+                }
+            } finally {
+                readLock.unlock("poll(int, Set) concurrently");
+            }
+        }
+
+        if (polled) {
+            if (!records.isEmpty()) {
+                logger.trace("{} poll() returning {}", this, records);
+            }
+
+            return records;
+        }
+
         // First check if we have any records Pre-Fetched.
         writeLock.lock();
         try {
@@ -628,7 +783,7 @@ public class SwappablePriorityQueue {
                 }
             }
 
-            this.activeQueue.addAll(unselected);
+            this.activeQueue.requeue(unselected);
             incrementActiveQueueSize(-flowFilesPulled, -bytesPulled);
 
             if (!selectedFlowFiles.isEmpty()) {
@@ -643,7 +798,10 @@ public class SwappablePriorityQueue {
 
     private void doPoll(final List<FlowFileRecord> records, int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
         migrateSwapToActive();
+        drainActiveQueue(records, maxResults, expiredRecords, expirationMillis);
+    }
 
+    private void drainActiveQueue(final List<FlowFileRecord> records, int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
         final long bytesDrained = drainQueue(activeQueue, records, maxResults, expiredRecords, expirationMillis);
 
         long expiredBytes = 0L;
@@ -682,7 +840,7 @@ public class SwappablePriorityQueue {
     }
 
 
-    private long drainQueue(final Queue<FlowFileRecord> sourceQueue, final List<FlowFileRecord> destination, int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
+    private long drainQueue(final ActiveQueue sourceQueue, final List<FlowFileRecord> destination, int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
         long drainedSize = 0L;
         FlowFileRecord pulled;
 
@@ -713,7 +871,7 @@ public class SwappablePriorityQueue {
         readLock.lock();
         try {
             // read through all of the FlowFiles in the queue, looking for the FlowFile with the given ID
-            for (final FlowFileRecord flowFile : activeQueue) {
+            for (final FlowFileRecord flowFile : activeQueue.getFlowFiles()) {
                 if (flowFileUuid.equals(flowFile.getAttribute(CoreAttributes.UUID.key()))) {
                     return flowFile;
                 }
@@ -735,7 +893,7 @@ public class SwappablePriorityQueue {
             logger.debug("For DropFlowFileRequest {}, original size is {}", requestIdentifier, size());
 
             try {
-                final List<FlowFileRecord> activeQueueRecords = new ArrayList<>(activeQueue);
+                final List<FlowFileRecord> activeQueueRecords = activeQueue.getFlowFiles();
 
                 QueueSize droppedSize;
                 try {
@@ -879,9 +1037,12 @@ public class SwappablePriorityQueue {
             swapLocations.removeAll(this.swapLocations);
 
             logger.debug("Swap Manager reports {} Swap Files for {}: {}", swapLocations.size(), flowFileQueue, swapLocations);
+            final List<ForkJoinTask<SwapSummary>> summaryTasks = readSwapSummaries(swapLocations);
+
+            final Iterator<ForkJoinTask<SwapSummary>> summaryTaskItr = summaryTasks.iterator();
             for (final String swapLocation : swapLocations) {
                 try {
-                    final SwapSummary summary = swapManager.getSwapSummary(swapLocation);
+                    final SwapSummary summary = getSwapSummary(summaryTaskItr.next());
                     final QueueSize queueSize = summary.getQueueSize();
                     final Long maxSwapRecordId = summary.getMaxFlowFileId();
                     if (maxSwapRecordId != null) {
@@ -920,6 +1081,49 @@ public class SwappablePriorityQueue {
         return new StandardSwapSummary(new QueueSize(swapFlowFileCount, swapByteCount), maxId, resourceClaims);
     }
 
+    /**
+     * Reads the Swap Summary of each of the given Swap Files. When called from within a ForkJoinPool, as is the case when the FlowController
+     * recovers all queues upon startup, the Swap Files are read in parallel, so that a queue with many Swap Files does not hold up recovery.
+     * Otherwise, they are read sequentially by the calling thread.
+     */
+    private List<ForkJoinTask<SwapSummary>> readSwapSummaries(final Collection<String> swapLocations) {
+        final List<ForkJoinTask<SwapSummary>> summaryTasks = new ArrayList<>(swapLocations.size());
+        for (final String swapLocation : swapLocations) {
+            summaryTasks.add(ForkJoinTask.adapt(() -> swapManager.getSwapSummary(swapLocation)));
+        }
+
+        if (ForkJoinTask.inForkJoinPool() && summaryTasks.size() > 1) {
+            summaryTasks.forEach(ForkJoinTask::fork);
+            summaryTasks.forEach(ForkJoinTask::quietlyJoin);
+        } else {
+            summaryTasks.forEach(ForkJoinTask::quietlyInvoke);
+        }
+
+        return summaryTasks;
+    }
+
+    private SwapSummary getSwapSummary(final ForkJoinTask<SwapSummary> summaryTask) throws IOException {
+        if (!summaryTask.isCompletedAbnormally()) {
+            return summaryTask.getRawResult();
+        }
+
+        // ForkJoinTask.adapt wraps checked exceptions in a RuntimeException, and a task that failed in another thread may wrap it once more
+        final Throwable failure = summaryTask.getException();
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+
+        throw new RuntimeException(failure);
+    }
+
 
 
     protected void incrementActiveQueueSize(final int count, final long bytes) {
@@ -939,6 +1143,30 @@ public class SwappablePriorityQueue {
         }
     }
 
+    /**
+     * Increments the size of the Active Queue, unless doing so would cause its count to exceed the given maximum
+     *
+     * @return <code>true</code> if the size was incremented, <code>false</code> if the count would have exceeded the maximum
+     */
+    private boolean incrementActiveQueueSizeWithin(final int count, final long bytes, final int maxActiveCount) {
+        boolean updated = false;
+        while (!updated) {
+            final FlowFileQueueSize original = size.get();
+            if (original.getActiveCount() + count > maxActiveCount) {
+                return false;
+            }
+
+            final FlowFileQueueSize newSize = new FlowFileQueueSize(
+                original.getActiveCount() + count, original.getActiveBytes() + bytes,
+                original.getSwappedCount(), original.getSwappedBytes(), original.getSwapFileCount(),
+                original.getUnacknowledgedCount(), original.getUnacknowledgedBytes());
+
+            updated = updateSize(original, newSize);
+        }
+
+        return true;
+    }
+
     private void incrementSwapQueueSize(final int count, final long bytes, final int fileCount) {
         boolean updated = false;
         while (!updated) {
@@ -1008,7 +1236,7 @@ public class SwappablePriorityQueue {
     public FlowFileQueueContents packageForRebalance(final String newPartitionName) {
         writeLock.lock();
         try {
-            final List<FlowFileRecord> activeRecords = new ArrayList<>(this.activeQueue);
+            final List<FlowFileRecord> activeRecords = this.activeQueue.getFlowFiles();
 
             final List<String> updatedSwapLocations = new ArrayList<>(swapLocations.size());
             for (final String swapLocation : swapLocations) {
@@ -32,6 +32,7 @@ import org.apache.nifi.controller.queue.LoadBalanceStrategy;
 import org.apache.nifi.controller.queue.LoadBalancedFlowFileQueue;
 import org.apache.nifi.controller.queue.LocalQueuePartitionDiagnostics;
 import org.apache.nifi.controller.queue.QueueDiagnostics;
+import org.apache.nifi.controller.queue.QueueMode;
 import org.apache.nifi.controller.queue.QueueSize;
 import org.apache.nifi.controller.queue.RemoteQueuePartitionDiagnostics;
 import org.apache.nifi.controller.queue.StandardQueueDiagnostics;
@@ -96,6 +97,7 @@ public class SocketLoadBalancedFlowFileQueue extends AbstractFlowFileQueue imple
     private static final int NODE_SWAP_THRESHOLD = 1000;
 
     private final List<FlowFilePrioritizer> prioritizers = new ArrayList<>();
+    private QueueMode queueMode = QueueMode.PRIORITIZED;
     private final ConnectionEventListener eventListener;
     private final AtomicReference<QueueSize> totalSize = new AtomicReference<>(new QueueSize(0, 0L));
     private final LocalQueuePartition localPartition;
@@ -407,6 +409,20 @@ public class SocketLoadBalancedFlowFileQueue extends AbstractFlowFileQueue imple
         }
     }
 
+    @Override
+    public synchronized QueueMode getQueueMode() {
+        return queueMode;
+    }
+
+    @Override
+    public synchronized void setQueueMode(final QueueMode queueMode) {
+        this.queueMode = queueMode;
+
+        // Only the local partition is polled by processors. Remote partitions and the rebalancing partition
+        // are drained by the load balancing clients and retain their prioritized ordering.
+        localPartition.setQueueMode(queueMode);
+    }
+
 
     @Override
     public SwapSummary recoverSwappedFlowFiles() {
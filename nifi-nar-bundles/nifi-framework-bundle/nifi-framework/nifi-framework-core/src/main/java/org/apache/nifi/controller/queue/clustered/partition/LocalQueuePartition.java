@@ -19,6 +19,7 @@ package org.apache.nifi.controller.queue.clustered.partition;
 
 import org.apache.nifi.controller.queue.FlowFileQueueContents;
 import org.apache.nifi.controller.queue.LocalQueuePartitionDiagnostics;
+import org.apache.nifi.controller.queue.QueueMode;
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.processor.FlowFileFilter;
 
@@ -42,6 +43,12 @@ public interface LocalQueuePartition extends QueuePartition {
      */
     boolean isUnacknowledgedFlowFile();
 
+    /**
+     * Updates the Queue Mode that determines how FlowFiles are ordered and how concurrent tasks access the partition
+     * @param queueMode the new queue mode
+     */
+    void setQueueMode(QueueMode queueMode);
+
     /**
      * Returns a single FlowFile with the highest priority that is available in the partition, or <code>null</code> if no FlowFile is available
      *
@@ -23,6 +23,7 @@ import org.apache.nifi.controller.queue.DropFlowFileRequest;
 import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.queue.FlowFileQueueContents;
 import org.apache.nifi.controller.queue.LocalQueuePartitionDiagnostics;
+import org.apache.nifi.controller.queue.QueueMode;
 import org.apache.nifi.controller.queue.QueueSize;
 import org.apache.nifi.controller.queue.SwappablePriorityQueue;
 import org.apache.nifi.controller.repository.FlowFileRecord;
@@ -135,6 +136,11 @@ public class SwappablePriorityQueueLocalPartition implements LocalQueuePartition
         priorityQueue.setPriorities(newPriorities);
     }
 
+    @Override
+    public void setQueueMode(final QueueMode queueMode) {
+        priorityQueue.setQueueMode(queueMode);
+    }
+
     @Override
     public void acknowledge(final FlowFileRecord flowFile) {
         priorityQueue.acknowledge(flowFile);
@@ -123,6 +123,7 @@ public class FileSystemRepository implements ContentRepository {
     private final Map<String, Long> minUsableContainerBytesForArchive = new HashMap<>();
     private final boolean alwaysSync;
     private final ScheduledExecutorService containerCleanupExecutor;
+    private final MappedResourceClaimCache mappedClaimCache;
 
     private ResourceClaimManager resourceClaimManager; // effectively final
 
@@ -149,6 +150,7 @@ public class FileSystemRepository implements ContentRepository {
         maxAppendableClaimLength = 0;
         maxFlowFilesPerClaim = 0;
         writableClaimQueue = null;
+        mappedClaimCache = null;
     }
 
     public FileSystemRepository(final NiFiProperties nifiProperties) throws IOException {
@@ -173,6 +175,15 @@ public class FileSystemRepository implements ContentRepository {
             this.maxAppendableClaimLength = configuredAppendableClaimLength;
         }
 
+        final long mmapCacheMaxBytes = DataUnit.parseDataSize(nifiProperties.getContentRepositoryMmapCacheMaxSize(), DataUnit.B).longValue();
+        if (mmapCacheMaxBytes > 0L) {
+            this.mappedClaimCache = new MappedResourceClaimCache(mmapCacheMaxBytes);
+            LOG.info("Content of up to {} will be read from memory-mapped Resource Claims, mapping up to {} of Resource Claims",
+                FormatUtils.formatDataSize(maxAppendableClaimLength), FormatUtils.formatDataSize(mmapCacheMaxBytes));
+        } else {
+            this.mappedClaimCache = null;
+        }
+
         this.containers = new HashMap<>(fileRespositoryPaths);
         this.containerNames = new ArrayList<>(containers.keySet());
         index = new AtomicLong(0L);
@@ -280,6 +291,10 @@ public class FileSystemRepository implements ContentRepository {
         executor.shutdown();
         containerCleanupExecutor.shutdown();
 
+        if (mappedClaimCache != null) {
+            mappedClaimCache.clear();
+        }
+
         // Close any of the writable claim streams that are currently open.
         // Other threads may be writing to these streams, and that's okay.
         // If that happens, we will simply close the stream, resulting in an
@@ -701,6 +716,10 @@ public class FileSystemRepository implements ContentRepository {
             }
         }
 
+        if (mappedClaimCache != null) {
+            mappedClaimCache.invalidate(claim);
+        }
+
         final File file = path.toFile();
         if (!file.delete() && file.exists()) {
             LOG.warn("Unable to delete {} at path {}", new Object[]{claim, path});
@@ -880,6 +899,12 @@ public class FileSystemRepository implements ContentRepository {
             return new ByteArrayInputStream(new byte[0]);
         }
         final Path path = getPath(claim, true);
+
+        final InputStream mappedIn = readMapped(claim, path);
+        if (mappedIn != null) {
+            return mappedIn;
+        }
+
         final FileInputStream fis = new FileInputStream(path.toFile());
         if (claim.getOffset() > 0L) {
             try {
@@ -915,6 +940,30 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
+    /**
+     * Reads the given Content Claim from a memory-mapped Resource Claim, if the memory-mapped read path is enabled, the content is small enough
+     * to be packed into a Resource Claim with other content, and the Resource Claim is no longer being written to.
+     *
+     * @return an InputStream over the content, or <code>null</code> if the content is to be read from the file
+     */
+    private InputStream readMapped(final ContentClaim claim, final Path path) {
+        if (mappedClaimCache == null || claim.getLength() <= 0L || claim.getLength() > maxAppendableClaimLength) {
+            return null;
+        }
+
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        if (resourceClaim.isWritable() || writableClaimStreams.containsKey(resourceClaim)) {
+            return null;
+        }
+
+        try {
+            return mappedClaimCache.read(resourceClaim, path, claim.getOffset(), claim.getLength());
+        } catch (final IOException ioe) {
+            LOG.debug("Failed to map {}; will read {} from the file instead", path, claim, ioe);
+            return null;
+        }
+    }
+
     @Override
     public OutputStream write(final ContentClaim claim) throws IOException {
         return write(claim, false);
@@ -959,6 +1008,10 @@ public class FileSystemRepository implements ContentRepository {
 
     @Override
     public void purge() {
+        if (mappedClaimCache != null) {
+            mappedClaimCache.clear();
+        }
+
         // delete all content from repositories
         for (final Path path : containers.values()) {
             FileUtils.deleteFilesInDir(path.toFile(), null, LOG, true);
@@ -1091,11 +1144,20 @@ public class FileSystemRepository implements ContentRepository {
             return false;
         }
 
+        if (mappedClaimCache != null) {
+            mappedClaimCache.invalidate(claim);
+        }
+
         final boolean archived = archive(curPath);
         LOG.debug("Successfully moved {} to archive", claim);
         return archived;
     }
 
+    // visible for testing
+    MappedResourceClaimCache getMappedClaimCache() {
+        return mappedClaimCache;
+    }
+
     protected int getOpenStreamCount() {
         return writableClaimStreams.size();
     }
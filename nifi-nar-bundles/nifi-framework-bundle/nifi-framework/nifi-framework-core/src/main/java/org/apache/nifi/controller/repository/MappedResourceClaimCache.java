@@ -0,0 +1,367 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * A bounded set of memory-mapped Resource Claim files, keyed by Resource Claim. Reading the content of a small FlowFile from a mapped
+ * Resource Claim avoids opening the file, skipping to the offset of the Content Claim and copying the content through a read buffer,
+ * which is most of the cost of reading a FlowFile that shares its Resource Claim with many others.
+ * </p>
+ *
+ * <p>
+ * Only Resource Claims that are no longer written to may be mapped, as a mapping does not grow along with the file. The least recently
+ * used mappings are released once the total size of the mapped files exceeds the configured maximum. A mapping is released explicitly,
+ * rather than when the garbage collector gets around to it, but never while a stream that was obtained from it is still open, because
+ * reading from a released mapping crashes the JVM rather than throwing an Exception.
+ * </p>
+ */
+public class MappedResourceClaimCache {
+    private static final Logger logger = LoggerFactory.getLogger(MappedResourceClaimCache.class);
+    private static final BufferUnmapper UNMAPPER = createUnmapper();
+
+    private final long maxBytes;
+
+    // all guarded by synchronizing on 'this'
+    private final Map<ResourceClaim, Entry> entries = new LinkedHashMap<>(16, 0.75F, true);
+    private long mappedBytes = 0L;
+    private long hitCount = 0L;
+    private long missCount = 0L;
+    private long evictionCount = 0L;
+
+    public MappedResourceClaimCache(final long maxBytes) {
+        if (maxBytes < 1L) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns an InputStream over the given range of the given Resource Claim's file, mapping the file if it is not already mapped, or
+     * <code>null</code> if the range cannot be read from a mapped file, in which case the caller should read the file itself. The caller
+     * must ensure that the Resource Claim is no longer being written to.
+     *
+     * @param resourceClaim the Resource Claim to read from
+     * @param path the path of the Resource Claim's file
+     * @param offset the offset into the file at which the content starts
+     * @param length the number of bytes of content
+     * @return an InputStream over the content, or <code>null</code> if the content cannot be read from a mapped file
+     * @throws IOException if unable to map the file
+     */
+    public InputStream read(final ResourceClaim resourceClaim, final Path path, final long offset, final long length) throws IOException {
+        final long end = offset + length;
+
+        synchronized (this) {
+            final Entry entry = entries.get(resourceClaim);
+            if (entry != null && entry.length >= end) {
+                hitCount++;
+                entry.references++;
+                return new MappedInputStream(entry, offset, length);
+            }
+
+            missCount++;
+        }
+
+        final Entry mapped = map(path, end);
+        if (mapped == null) {
+            return null;
+        }
+
+        synchronized (this) {
+            // Another thread may have mapped the same file in the meantime
+            final Entry existing = entries.get(resourceClaim);
+            if (existing != null && existing.length >= end) {
+                unmap(mapped);
+                existing.references++;
+                return new MappedInputStream(existing, offset, length);
+            }
+
+            final Entry previous = entries.put(resourceClaim, mapped);
+            if (previous != null) {
+                discard(previous);
+            }
+            mappedBytes += mapped.length;
+
+            // Release the least recently used mappings. The new mapping is the most recently used and is no larger than the maximum,
+            // so it is never released here.
+            final Iterator<Entry> itr = entries.values().iterator();
+            while (mappedBytes > maxBytes && itr.hasNext()) {
+                final Entry eldest = itr.next();
+                itr.remove();
+                evictionCount++;
+                discard(eldest);
+            }
+
+            mapped.references++;
+            return new MappedInputStream(mapped, offset, length);
+        }
+    }
+
+    private Entry map(final Path path, final long minLength) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long fileLength = channel.size();
+            if (fileLength < minLength || fileLength > maxBytes || fileLength > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, fileLength);
+            return new Entry(buffer, fileLength);
+        }
+    }
+
+    /**
+     * Releases the mapping of the given Resource Claim, if it is mapped. This must be called before the Resource Claim's file is
+     * deleted or moved. Streams that are still open continue to read from the mapping, which is released once they are closed.
+     *
+     * @param resourceClaim the Resource Claim whose file is about to be deleted or moved
+     */
+    public synchronized void invalidate(final ResourceClaim resourceClaim) {
+        final Entry entry = entries.remove(resourceClaim);
+        if (entry != null) {
+            discard(entry);
+        }
+    }
+
+    /**
+     * Releases all mappings, other than those that are still being read from, which are released once they are no longer read from.
+     */
+    public synchronized void clear() {
+        final Iterator<Entry> itr = entries.values().iterator();
+        while (itr.hasNext()) {
+            final Entry entry = itr.next();
+            itr.remove();
+            discard(entry);
+        }
+    }
+
+    public synchronized long getMappedBytes() {
+        return mappedBytes;
+    }
+
+    public synchronized int getMappedClaimCount() {
+        return entries.size();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of mappings that were released in order to make room for more recently mapped Resource Claims
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "MappedResourceClaimCache[mappedClaims=" + entries.size() + ", mappedBytes=" + mappedBytes + ", maxBytes=" + maxBytes
+            + ", hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + "]";
+    }
+
+    // must be called while synchronized on 'this', after the entry has been removed from the map
+    private void discard(final Entry entry) {
+        if (!entry.discarded) {
+            entry.discarded = true;
+            mappedBytes -= entry.length;
+        }
+
+        if (entry.references == 0) {
+            unmap(entry);
+        }
+    }
+
+    private synchronized void release(final Entry entry) {
+        entry.references--;
+        if (entry.discarded && entry.references == 0) {
+            unmap(entry);
+        }
+    }
+
+    private static void unmap(final Entry entry) {
+        try {
+            UNMAPPER.unmap(entry.buffer);
+        } catch (final Exception e) {
+            logger.debug("Failed to unmap Resource Claim; the mapping will be released when the buffer is garbage collected", e);
+        }
+    }
+
+    private static BufferUnmapper createUnmapper() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+
+            try {
+                // Java 9 and later
+                final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                final Object unsafe = theUnsafe.get(null);
+                return buffer -> invokeCleaner.invoke(unsafe, buffer);
+            } catch (final NoSuchMethodException nsme) {
+                // Java 8
+                final Method cleanerMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                final Method cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+                return buffer -> {
+                    final Object cleaner = cleanerMethod.invoke(buffer);
+                    if (cleaner != null) {
+                        cleanMethod.invoke(cleaner);
+                    }
+                };
+            }
+        } catch (final Exception e) {
+            logger.warn("Unable to unmap memory-mapped files on this JVM; mapped Resource Claims will be released only when garbage collected", e);
+            return buffer -> {
+            };
+        }
+    }
+
+    private interface BufferUnmapper {
+        void unmap(ByteBuffer buffer) throws Exception;
+    }
+
+    private static class Entry {
+        private final MappedByteBuffer buffer;
+        private final long length;
+        private int references = 0;
+        private boolean discarded = false;
+
+        Entry(final MappedByteBuffer buffer, final long length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Reads from a mapped Resource Claim. Reading and closing are synchronized so that the mapping cannot be released while it is being
+     * read from, even if the stream is closed by a different thread.
+     */
+    private class MappedInputStream extends InputStream {
+        private final Entry entry;
+        private final ByteBuffer buffer;
+        private boolean closed = false;
+        private int mark;
+
+        MappedInputStream(final Entry entry, final long offset, final long length) {
+            this.entry = entry;
+
+            // duplicate the buffer so that concurrent readers of the same mapping each have their own position
+            this.buffer = entry.buffer.duplicate();
+            this.buffer.limit((int) (offset + length));
+            this.buffer.position((int) offset);
+            this.mark = (int) offset;
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Stream is closed");
+            }
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            ensureOpen();
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public synchronized int read(final byte[] b, final int off, final int len) throws IOException {
+            ensureOpen();
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            final int toCopy = Math.min(len, buffer.remaining());
+            buffer.get(b, off, toCopy);
+            return toCopy;
+        }
+
+        @Override
+        public synchronized long skip(final long n) throws IOException {
+            ensureOpen();
+            if (n <= 0L) {
+                return 0L;
+            }
+
+            final int toSkip = (int) Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + toSkip);
+            return toSkip;
+        }
+
+        @Override
+        public synchronized int available() throws IOException {
+            ensureOpen();
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(final int readLimit) {
+            mark = buffer.position();
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            ensureOpen();
+            buffer.position(mark);
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+}
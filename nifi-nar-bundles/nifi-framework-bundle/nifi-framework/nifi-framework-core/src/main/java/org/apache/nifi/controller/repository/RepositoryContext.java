@@ -41,10 +41,17 @@ public class RepositoryContext {
     private final CounterRepository counterRepo;
     private final ProvenanceEventRepository provenanceRepo;
     private final AtomicLong connectionIndex;
+    private final SessionCommitPipeline commitPipeline;
 
     public RepositoryContext(final Connectable connectable, final AtomicLong connectionIndex, final ContentRepository contentRepository,
             final FlowFileRepository flowFileRepository, final FlowFileEventRepository flowFileEventRepository,
             final CounterRepository counterRepository, final ProvenanceEventRepository provenanceRepository) {
+        this(connectable, connectionIndex, contentRepository, flowFileRepository, flowFileEventRepository, counterRepository, provenanceRepository, null);
+    }
+
+    public RepositoryContext(final Connectable connectable, final AtomicLong connectionIndex, final ContentRepository contentRepository,
+            final FlowFileRepository flowFileRepository, final FlowFileEventRepository flowFileEventRepository,
+            final CounterRepository counterRepository, final ProvenanceEventRepository provenanceRepository, final SessionCommitPipeline commitPipeline) {
         this.connectable = connectable;
         contentRepo = contentRepository;
         flowFileRepo = flowFileRepository;
@@ -53,6 +60,7 @@ public class RepositoryContext {
         provenanceRepo = provenanceRepository;
 
         this.connectionIndex = connectionIndex;
+        this.commitPipeline = commitPipeline;
     }
 
     Connectable getConnectable() {
@@ -144,6 +152,14 @@ public class RepositoryContext {
         return provenanceRepo;
     }
 
+    /**
+     * @return the pipeline that persists sessions committed via {@link StandardProcessSession#commitAsync(Runnable, java.util.function.Consumer)},
+     *         or <code>null</code> if such sessions are persisted by the thread that commits them
+     */
+    SessionCommitPipeline getCommitPipeline() {
+        return commitPipeline;
+    }
+
     long getNextFlowFileSequence() {
         return flowFileRepo.getNextFlowFileSequence();
     }
@@ -0,0 +1,363 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * A pool of threads that persist the sessions that are committed via {@link StandardProcessSession#commitAsync(Runnable, java.util.function.Consumer)},
+ * so that the thread that triggered the component can go on to its next task while the Provenance Repository, FlowFile Repository and
+ * FlowFile Event Repository are updated and the FlowFiles are transferred to their destination queues.
+ * </p>
+ *
+ * <p>
+ * The sessions of a given component are persisted one at a time, in the order in which they were committed, just as they would be if
+ * they were committed synchronously. This keeps FlowFiles in the order in which they were transferred once they are enqueued downstream
+ * and keeps the Provenance Events of a component in the order in which they were emitted. The sessions of different components are
+ * persisted concurrently.
+ * </p>
+ *
+ * <p>
+ * The number of sessions that may be waiting to be persisted is bounded. Once that many are waiting, a component thread that commits a
+ * session does not return until the session has been persisted, which slows components down to the rate at which the repositories can
+ * keep up rather than allowing an unbounded number of FlowFiles to be held in memory on their way to the repositories. If no thread is
+ * already persisting the sessions of that component, the committing thread persists them itself, after any sessions that the component
+ * committed before.
+ * </p>
+ */
+public class SessionCommitPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(SessionCommitPipeline.class);
+
+    /**
+     * The stages of persisting a session whose duration is tracked
+     */
+    public enum Stage {
+        /**
+         * Waiting for a thread to become available to persist the session
+         */
+        QUEUED,
+
+        /**
+         * Updating the Provenance Repository
+         */
+        PROVENANCE_REPOSITORY,
+
+        /**
+         * Updating the FlowFile Repository
+         */
+        FLOWFILE_REPOSITORY,
+
+        /**
+         * Updating the FlowFile Event Repository
+         */
+        EVENT_REPOSITORY,
+
+        /**
+         * Transferring FlowFiles to their destination queues
+         */
+        ENQUEUE
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final int maxQueuedCommits;
+    private final Map<String, ComponentCommits> componentCommits = new HashMap<>();
+    private final AtomicInteger queuedCommitCount = new AtomicInteger(0);
+    private final Map<Stage, LongAdder> stageNanos = new EnumMap<>(Stage.class);
+    private final LongAdder commitCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder callerRunsCount = new LongAdder();
+
+    public SessionCommitPipeline(final int threadCount, final int maxQueuedCommits) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        if (maxQueuedCommits < 1) {
+            throw new IllegalArgumentException("Maximum number of queued commits must be positive");
+        }
+
+        for (final Stage stage : Stage.values()) {
+            stageNanos.put(stage, new LongAdder());
+        }
+
+        this.maxQueuedCommits = maxQueuedCommits;
+
+        // The executor is given at most one task per component, which persists the sessions of that component in order, so its queue
+        // is bounded by the number of components. The number of sessions that are waiting is bounded by maxQueuedCommits instead.
+        final AtomicInteger threadIndex = new AtomicInteger(0);
+        executor = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "Session Commit Thread-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submits the given task, which persists a session of the given component, to be run by one of the pipeline's threads once all of the
+     * sessions that the component submitted before have been persisted. If the maximum number of sessions are already waiting to be persisted,
+     * or the pipeline has been shut down, this method does not return until the task has been run, and the task is run by the calling thread
+     * unless another thread is already persisting the component's sessions.
+     *
+     * @param componentId the identifier of the component whose session is persisted
+     * @param commitTask the task that persists the session
+     */
+    public void submit(final String componentId, final Runnable commitTask) {
+        final CommitTask task = new CommitTask(commitTask);
+        final boolean mustWait = queuedCommitCount.incrementAndGet() > maxQueuedCommits || executor.isShutdown();
+
+        final ComponentCommits commits;
+        final boolean schedule;
+        synchronized (componentCommits) {
+            commits = componentCommits.computeIfAbsent(componentId, ComponentCommits::new);
+            commits.tasks.add(task);
+            schedule = !commits.scheduled;
+            commits.scheduled = true;
+        }
+
+        if (!mustWait) {
+            if (schedule) {
+                try {
+                    executor.execute(() -> persistInOrder(commits, null));
+                    return;
+                } catch (final RejectedExecutionException ree) {
+                    // the pipeline was shut down after we checked. Persist the component's sessions on this thread instead.
+                }
+            } else {
+                return;
+            }
+        }
+
+        // Too many sessions are waiting, or the pipeline has been shut down. Either way, the session must not be lost, and it may only be
+        // persisted after the sessions that the component committed before it.
+        callerRunsCount.increment();
+        if (schedule) {
+            persistInOrder(commits, task);
+        }
+
+        task.awaitCompletion();
+    }
+
+    /**
+     * Persists the sessions of the given component in the order in which they were submitted, until none remain. If a task is given, the
+     * calling thread is only responsible for persisting sessions up to and including that task; any sessions that remain after it are
+     * handed over to the pipeline's threads.
+     */
+    private void persistInOrder(final ComponentCommits commits, final CommitTask lastTask) {
+        while (true) {
+            final CommitTask task;
+            synchronized (componentCommits) {
+                task = commits.tasks.poll();
+                if (task == null) {
+                    commits.scheduled = false;
+                    componentCommits.remove(commits.componentId);
+                    return;
+                }
+            }
+
+            try {
+                task.run();
+            } finally {
+                queuedCommitCount.decrementAndGet();
+            }
+
+            if (task == lastTask) {
+                synchronized (componentCommits) {
+                    if (commits.tasks.isEmpty()) {
+                        commits.scheduled = false;
+                        componentCommits.remove(commits.componentId);
+                        return;
+                    }
+                }
+
+                try {
+                    executor.execute(() -> persistInOrder(commits, null));
+                    return;
+                } catch (final RejectedExecutionException ree) {
+                    // the pipeline has been shut down, so keep persisting the component's sessions on this thread
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the time that was taken by the given stage of persisting a session
+     *
+     * @param stage the stage
+     * @param nanos the number of nanoseconds the stage took
+     */
+    public void recordStage(final Stage stage, final long nanos) {
+        stageNanos.get(stage).add(nanos);
+    }
+
+    /**
+     * Records the outcome of persisting a session
+     *
+     * @param successful whether or not the session was persisted
+     */
+    public void recordCommit(final boolean successful) {
+        commitCount.increment();
+        if (!successful) {
+            failureCount.increment();
+        }
+    }
+
+    /**
+     * @param stage the stage
+     * @return the total number of nanoseconds that have been spent in the given stage, across all sessions that have been persisted
+     */
+    public long getStageNanos(final Stage stage) {
+        return stageNanos.get(stage).sum();
+    }
+
+    /**
+     * @return the number of sessions that have been persisted or failed to be persisted
+     */
+    public long getCommitCount() {
+        return commitCount.sum();
+    }
+
+    /**
+     * @return the number of sessions that failed to be persisted and were rolled back
+     */
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * @return the number of sessions that were persisted by the thread that committed them, because too many sessions were already
+     *         waiting to be persisted or the pipeline had been shut down
+     */
+    public long getCallerRunsCount() {
+        return callerRunsCount.sum();
+    }
+
+    /**
+     * @return the number of sessions that have been submitted but have not yet been persisted
+     */
+    public int getQueuedCommitCount() {
+        return queuedCommitCount.get();
+    }
+
+    /**
+     * Waits for the sessions that have already been submitted to be persisted, so that the repositories may be safely shut down once this
+     * method returns. Any session that is submitted after this method is called is persisted by the thread that submits it.
+     *
+     * @param maxWait the maximum amount of time to wait
+     * @param timeUnit the unit of the maximum amount of time to wait
+     * @return <code>true</code> if all sessions that were submitted have been persisted, <code>false</code> if the time elapsed first
+     */
+    public boolean shutdown(final long maxWait, final TimeUnit timeUnit) {
+        executor.shutdown();
+
+        boolean terminated;
+        try {
+            terminated = executor.awaitTermination(maxWait, timeUnit);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            terminated = false;
+        }
+
+        if (terminated) {
+            logger.info("Session Commit Pipeline shut down: {}", this);
+        } else {
+            logger.warn("Session Commit Pipeline did not finish persisting {} queued sessions before shutting down: {}", getQueuedCommitCount(), this);
+        }
+
+        return terminated;
+    }
+
+    @Override
+    public String toString() {
+        final long commits = getCommitCount();
+        final StringBuilder sb = new StringBuilder("SessionCommitPipeline[threads=").append(executor.getCorePoolSize())
+            .append(", commits=").append(commits)
+            .append(", failures=").append(getFailureCount())
+            .append(", persistedByCaller=").append(getCallerRunsCount())
+            .append(", queued=").append(getQueuedCommitCount());
+
+        for (final Stage stage : Stage.values()) {
+            final long nanos = getStageNanos(stage);
+            final long averageMicros = commits == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(nanos / commits);
+            sb.append(", ").append(stage).append(" avg micros=").append(averageMicros);
+        }
+
+        return sb.append("]").toString();
+    }
+
+    /**
+     * The sessions of a single component that are waiting to be persisted, in the order in which they were submitted
+     */
+    private static class ComponentCommits {
+        private final String componentId;
+        private final Queue<CommitTask> tasks = new ArrayDeque<>();
+        private boolean scheduled = false;
+
+        ComponentCommits(final String componentId) {
+            this.componentId = componentId;
+        }
+    }
+
+    private static class CommitTask {
+        private final Runnable delegate;
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        CommitTask(final Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        void run() {
+            try {
+                delegate.run();
+            } catch (final Throwable t) {
+                logger.error("Failed to persist session", t);
+            } finally {
+                completed.countDown();
+            }
+        }
+
+        void awaitCompletion() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    completed.await();
+                    break;
+                } catch (final InterruptedException ie) {
+                    // the session must be persisted before the committing thread may go on, so keep waiting
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
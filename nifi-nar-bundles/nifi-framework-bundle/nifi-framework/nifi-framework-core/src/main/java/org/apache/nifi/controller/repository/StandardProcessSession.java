@@ -36,9 +36,11 @@ import org.apache.nifi.controller.repository.io.TaskTerminationOutputStream;
 import org.apache.nifi.controller.repository.metrics.StandardFlowFileEvent;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.processor.FlowFileFilter;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.SimpleProcessLogger;
 import org.apache.nifi.processor.exception.FlowFileAccessException;
 import org.apache.nifi.processor.exception.FlowFileHandlingException;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
@@ -87,6 +89,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -348,101 +351,66 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         this.checkpoint = null;
     }
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    private void commit(final Checkpoint checkpoint) {
-        try {
-            final long commitStartNanos = System.nanoTime();
-
-            resetReadClaim();
-            try {
-                claimCache.flush();
-            } finally {
-                claimCache.reset();
-            }
+    @Override
+    public synchronized void commitAsync(final Runnable onSuccess, final Consumer<Throwable> onFailure) {
+        final SessionCommitPipeline commitPipeline = context.getCommitPipeline();
+        if (commitPipeline == null) {
+            ProcessSession.super.commitAsync(onSuccess, onFailure);
+            return;
+        }
 
-            final long updateProvenanceStart = System.nanoTime();
-            updateProvenanceRepo(checkpoint);
+        verifyTaskActive();
+        checkpoint();
 
-            final long flowFileRepoUpdateStart = System.nanoTime();
-            final long updateProvenanceNanos = flowFileRepoUpdateStart - updateProvenanceStart;
+        try {
+            flushContent();
+        } catch (final Exception e) {
+            LOG.error("Failed to commit session {}. Will roll back.", this, e);
 
-            // Update the FlowFile Repository
             try {
-                final Collection<StandardRepositoryRecord> repoRecords = checkpoint.records.values();
-                context.getFlowFileRepository().updateRepository((Collection) repoRecords);
-            } catch (final IOException ioe) {
-                // if we fail to commit the session, we need to roll back
-                // the checkpoints as well because none of the checkpoints
-                // were ever committed.
                 rollback(false, true);
-                throw new ProcessException("FlowFile Repository failed to update", ioe);
+            } catch (final Exception e1) {
+                e.addSuppressed(e1);
             }
 
-            final long flowFileRepoUpdateFinishNanos = System.nanoTime();
-            final long flowFileRepoUpdateNanos = flowFileRepoUpdateFinishNanos - flowFileRepoUpdateStart;
-
-            if (LOG.isInfoEnabled()) {
-                for (final RepositoryRecord record : checkpoint.records.values()) {
-                    if (record.isMarkedForAbort()) {
-                        final FlowFileRecord flowFile = record.getCurrent();
-                        final long flowFileLife = System.currentTimeMillis() - flowFile.getEntryDate();
-                        final Connectable connectable = context.getConnectable();
-                        final Object terminator = connectable instanceof ProcessorNode ? ((ProcessorNode) connectable).getProcessor() : connectable;
-                        LOG.info("{} terminated by {}; life of FlowFile = {} ms", new Object[]{flowFile, terminator, flowFileLife});
-                    }
-                }
+            final ProcessException pe = new ProcessException(e);
+            if (onFailure == null) {
+                throw pe;
             }
 
-            updateEventRepository(checkpoint);
-
-            final long updateEventRepositoryFinishNanos = System.nanoTime();
-            final long updateEventRepositoryNanos = updateEventRepositoryFinishNanos - flowFileRepoUpdateFinishNanos;
-
-            // transfer the flowfiles to the connections' queues.
-            final Map<FlowFileQueue, Collection<FlowFileRecord>> recordMap = new HashMap<>();
-            for (final StandardRepositoryRecord record : checkpoint.records.values()) {
-                if (record.isMarkedForAbort() || record.isMarkedForDelete()) {
-                    continue; // these don't need to be transferred
-                }
-                // record.getCurrent() will return null if this record was created in this session --
-                // in this case, we just ignore it, and it will be cleaned up by clearing the records map.
-                if (record.getCurrent() != null) {
-                    Collection<FlowFileRecord> collection = recordMap.get(record.getDestination());
-                    if (collection == null) {
-                        collection = new ArrayList<>();
-                        recordMap.put(record.getDestination(), collection);
-                    }
-                    collection.add(record.getCurrent());
-                }
-            }
+            notifyFailure(onFailure, pe);
+            return;
+        }
 
-            for (final Map.Entry<FlowFileQueue, Collection<FlowFileRecord>> entry : recordMap.entrySet()) {
-                entry.getKey().putAll(entry.getValue());
-            }
+        // Hand the checkpoint, along with the FlowFiles that must be acknowledged once it has been persisted, over to a Session
+        // Commit Thread. From here on, the session is ready to be used again and the checkpoint is no longer referenced by it.
+        final Checkpoint toPersist = this.checkpoint;
+        this.checkpoint = null;
+        toPersist.unacknowledgedFlowFiles.putAll(unacknowledgedFlowFiles);
+        unacknowledgedFlowFiles.clear();
+        resetState();
 
-            final long enqueueFlowFileFinishNanos = System.nanoTime();
-            final long enqueueFlowFileNanos = enqueueFlowFileFinishNanos - updateEventRepositoryFinishNanos;
+        final long submitNanos = System.nanoTime();
+        // The pipeline persists the checkpoints of a component in the order in which they were submitted, so that FlowFiles are
+        // enqueued, and Provenance Events are registered, in the same order as they would be if each session were committed synchronously.
+        commitPipeline.submit(context.getConnectable().getIdentifier(), () -> persistAsync(toPersist, commitPipeline, submitNanos, onSuccess, onFailure));
+    }
 
-            // Delete any files from disk that need to be removed.
-            for (final Path path : checkpoint.deleteOnCommit.values()) {
-                try {
-                    Files.deleteIfExists(path);
-                } catch (final IOException e) {
-                    throw new FlowFileAccessException("Unable to delete " + path.toFile().getAbsolutePath(), e);
-                }
-            }
-            checkpoint.deleteOnCommit.clear();
+    private void flushContent() throws IOException {
+        resetReadClaim();
+        try {
+            claimCache.flush();
+        } finally {
+            claimCache.reset();
+        }
+    }
 
-            if (LOG.isInfoEnabled()) {
-                final String sessionSummary = summarizeEvents(checkpoint);
-                if (!sessionSummary.isEmpty()) {
-                    LOG.info("{} for {}, committed the following events: {}", new Object[] {this, connectableDescription, sessionSummary});
-                }
-            }
+    private void commit(final Checkpoint checkpoint) {
+        try {
+            final long commitStartNanos = System.nanoTime();
 
-            for (final Map.Entry<String, Long> entry : checkpoint.countersOnCommit.entrySet()) {
-                context.adjustCounter(entry.getKey(), entry.getValue());
-            }
+            flushContent();
+            final CommitTiming timing = persist(checkpoint);
 
             acknowledgeRecords();
             resetState();
@@ -454,13 +422,13 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
                 final long commitNanos = System.nanoTime() - commitStartNanos;
                 formatNanos(commitNanos, timingInfo);
                 timingInfo.append("; FlowFile Repository Update took ");
-                formatNanos(flowFileRepoUpdateNanos, timingInfo);
+                formatNanos(timing.flowFileRepositoryNanos, timingInfo);
                 timingInfo.append("; FlowFile Event Update took ");
-                formatNanos(updateEventRepositoryNanos, timingInfo);
+                formatNanos(timing.eventRepositoryNanos, timingInfo);
                 timingInfo.append("; Enqueuing FlowFiles took ");
-                formatNanos(enqueueFlowFileNanos, timingInfo);
+                formatNanos(timing.enqueueNanos, timingInfo);
                 timingInfo.append("; Updating Provenance Event Repository took ");
-                formatNanos(updateProvenanceNanos, timingInfo);
+                formatNanos(timing.provenanceRepositoryNanos, timingInfo);
 
                 LOG.debug(timingInfo.toString());
             }
@@ -484,6 +452,157 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         }
     }
 
+    /**
+     * Persists a checkpoint that was handed off by {@link #commitAsync(Runnable, Consumer)}. This is run by a Session Commit Thread,
+     * or by the committing thread if too many sessions are already waiting to be persisted, and so must not touch the state of the
+     * session, which may already be in use again.
+     */
+    private void persistAsync(final Checkpoint checkpoint, final SessionCommitPipeline commitPipeline, final long submitNanos,
+                              final Runnable onSuccess, final Consumer<Throwable> onFailure) {
+        commitPipeline.recordStage(SessionCommitPipeline.Stage.QUEUED, System.nanoTime() - submitNanos);
+
+        final CommitTiming timing;
+        try {
+            timing = persist(checkpoint);
+        } catch (final Throwable t) {
+            commitPipeline.recordCommit(false);
+            LOG.error("Failed to commit session {}. Will roll back.", this, t);
+
+            try {
+                rollbackCheckpoint(checkpoint);
+            } catch (final Throwable t1) {
+                t.addSuppressed(t1);
+            }
+
+            if (onFailure == null) {
+                // there is no caller to throw to, so log the failure such that a bulletin is created for the component
+                final Connectable connectable = context.getConnectable();
+                final ComponentLog componentLog = new SimpleProcessLogger(connectable.getIdentifier(), connectable.getRunnableComponent());
+                componentLog.error("Failed to commit session {} due to {}; rolled back", new Object[] {this, t.toString()}, t);
+            } else {
+                notifyFailure(onFailure, t);
+            }
+
+            return;
+        }
+
+        acknowledgeRecords(checkpoint.unacknowledgedFlowFiles);
+
+        commitPipeline.recordStage(SessionCommitPipeline.Stage.PROVENANCE_REPOSITORY, timing.provenanceRepositoryNanos);
+        commitPipeline.recordStage(SessionCommitPipeline.Stage.FLOWFILE_REPOSITORY, timing.flowFileRepositoryNanos);
+        commitPipeline.recordStage(SessionCommitPipeline.Stage.EVENT_REPOSITORY, timing.eventRepositoryNanos);
+        commitPipeline.recordStage(SessionCommitPipeline.Stage.ENQUEUE, timing.enqueueNanos);
+        commitPipeline.recordCommit(true);
+
+        if (onSuccess != null) {
+            try {
+                onSuccess.run();
+            } catch (final Throwable t) {
+                LOG.error("Session {} for {} was committed but failed to notify {} of the commit", this, connectableDescription, onSuccess, t);
+            }
+        }
+    }
+
+    private void notifyFailure(final Consumer<Throwable> onFailure, final Throwable failure) {
+        try {
+            onFailure.accept(failure);
+        } catch (final Throwable t) {
+            LOG.error("Session {} for {} was rolled back but failed to notify {} of the failure", this, connectableDescription, onFailure, t);
+        }
+    }
+
+    /**
+     * Updates the Provenance, FlowFile and FlowFile Event Repositories and transfers FlowFiles to their destination queues on behalf of
+     * the given checkpoint. Only the checkpoint is used, not the state of the session, so that this can be done after the session has
+     * been handed back to the component.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private CommitTiming persist(final Checkpoint checkpoint) {
+        final CommitTiming timing = new CommitTiming();
+
+        final long updateProvenanceStart = System.nanoTime();
+        updateProvenanceRepo(checkpoint);
+
+        final long flowFileRepoUpdateStart = System.nanoTime();
+        timing.provenanceRepositoryNanos = flowFileRepoUpdateStart - updateProvenanceStart;
+
+        // Update the FlowFile Repository. If this fails, the caller must roll back the checkpoint.
+        try {
+            final Collection<StandardRepositoryRecord> repoRecords = checkpoint.records.values();
+            context.getFlowFileRepository().updateRepository((Collection) repoRecords);
+        } catch (final IOException ioe) {
+            throw new ProcessException("FlowFile Repository failed to update", ioe);
+        }
+
+        final long flowFileRepoUpdateFinishNanos = System.nanoTime();
+        timing.flowFileRepositoryNanos = flowFileRepoUpdateFinishNanos - flowFileRepoUpdateStart;
+
+        if (LOG.isInfoEnabled()) {
+            for (final RepositoryRecord record : checkpoint.records.values()) {
+                if (record.isMarkedForAbort()) {
+                    final FlowFileRecord flowFile = record.getCurrent();
+                    final long flowFileLife = System.currentTimeMillis() - flowFile.getEntryDate();
+                    final Connectable connectable = context.getConnectable();
+                    final Object terminator = connectable instanceof ProcessorNode ? ((ProcessorNode) connectable).getProcessor() : connectable;
+                    LOG.info("{} terminated by {}; life of FlowFile = {} ms", new Object[]{flowFile, terminator, flowFileLife});
+                }
+            }
+        }
+
+        updateEventRepository(checkpoint);
+
+        final long updateEventRepositoryFinishNanos = System.nanoTime();
+        timing.eventRepositoryNanos = updateEventRepositoryFinishNanos - flowFileRepoUpdateFinishNanos;
+
+        // transfer the flowfiles to the connections' queues.
+        final Map<FlowFileQueue, Collection<FlowFileRecord>> recordMap = new HashMap<>();
+        for (final StandardRepositoryRecord record : checkpoint.records.values()) {
+            if (record.isMarkedForAbort() || record.isMarkedForDelete()) {
+                continue; // these don't need to be transferred
+            }
+            // record.getCurrent() will return null if this record was created in this session --
+            // in this case, we just ignore it, and it will be cleaned up by clearing the records map.
+            if (record.getCurrent() != null) {
+                Collection<FlowFileRecord> collection = recordMap.get(record.getDestination());
+                if (collection == null) {
+                    collection = new ArrayList<>();
+                    recordMap.put(record.getDestination(), collection);
+                }
+                collection.add(record.getCurrent());
+            }
+        }
+
+        for (final Map.Entry<FlowFileQueue, Collection<FlowFileRecord>> entry : recordMap.entrySet()) {
+            entry.getKey().putAll(entry.getValue());
+        }
+
+        final long enqueueFlowFileFinishNanos = System.nanoTime();
+        timing.enqueueNanos = enqueueFlowFileFinishNanos - updateEventRepositoryFinishNanos;
+
+        // Delete any files from disk that need to be removed.
+        for (final Path path : checkpoint.deleteOnCommit.values()) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (final IOException e) {
+                throw new FlowFileAccessException("Unable to delete " + path.toFile().getAbsolutePath(), e);
+            }
+        }
+        checkpoint.deleteOnCommit.clear();
+
+        if (LOG.isInfoEnabled()) {
+            final String sessionSummary = summarizeEvents(checkpoint);
+            if (!sessionSummary.isEmpty()) {
+                LOG.info("{} for {}, committed the following events: {}", new Object[] {this, connectableDescription, sessionSummary});
+            }
+        }
+
+        for (final Map.Entry<String, Long> entry : checkpoint.countersOnCommit.entrySet()) {
+            context.adjustCounter(entry.getKey(), entry.getValue());
+        }
+
+        return timing;
+    }
+
     private void updateEventRepository(final Checkpoint checkpoint) {
         int flowFilesReceived = 0;
         int flowFilesSent = 0;
@@ -987,6 +1106,23 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
             return;
         }
 
+        rollbackRecords(recordsToHandle, penalize, bytesRead, bytesWritten, immediateCounters);
+
+        acknowledgeRecords();
+        resetState();
+    }
+
+    /**
+     * Rolls back a checkpoint that was handed off by {@link #commitAsync(Runnable, Consumer)} but could not be persisted. As with persisting
+     * the checkpoint, this must not touch the state of the session.
+     */
+    private void rollbackCheckpoint(final Checkpoint checkpoint) {
+        rollbackRecords(checkpoint.records.values(), false, checkpoint.bytesRead, checkpoint.bytesWritten, checkpoint.immediateCounters);
+        acknowledgeRecords(checkpoint.unacknowledgedFlowFiles);
+    }
+
+    private void rollbackRecords(final Collection<StandardRepositoryRecord> recordsToHandle, final boolean penalize, final long bytesRead, final long bytesWritten,
+                                 final Map<String, Long> immediateCounters) {
         for (final StandardRepositoryRecord record : recordsToHandle) {
             // remove the working claims if they are different than the originals.
             removeTemporaryClaim(record);
@@ -1062,9 +1198,6 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
                 LOG.error("", e);
             }
         }
-
-        acknowledgeRecords();
-        resetState();
     }
 
     private String loggableFlowfileInfo() {
@@ -1167,6 +1300,10 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
     }
 
     private void acknowledgeRecords() {
+        acknowledgeRecords(unacknowledgedFlowFiles);
+    }
+
+    private void acknowledgeRecords(final Map<FlowFileQueue, Set<FlowFileRecord>> unacknowledgedFlowFiles) {
         final Iterator<Map.Entry<FlowFileQueue, Set<FlowFileRecord>>> itr = unacknowledgedFlowFiles.entrySet().iterator();
         while (itr.hasNext()) {
             final Map.Entry<FlowFileQueue, Set<FlowFileRecord>> entry = itr.next();
@@ -1591,21 +1728,12 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
             return Collections.emptyList();
         }
 
+        // Drain the batch directly rather than through a FlowFileFilter, so that the queue can hand out the FlowFiles in a single pass
+        // without having to poll (and re-queue) each FlowFile individually.
         return get(new ConnectionPoller() {
             @Override
             public List<FlowFileRecord> poll(final Connection connection, final Set<FlowFileRecord> expiredRecords) {
-                return connection.poll(new FlowFileFilter() {
-                    int polled = 0;
-
-                    @Override
-                    public FlowFileFilterResult filter(final FlowFile flowFile) {
-                        if (++polled < maxResults) {
-                            return FlowFileFilterResult.ACCEPT_AND_CONTINUE;
-                        } else {
-                            return FlowFileFilterResult.ACCEPT_AND_TERMINATE;
-                        }
-                    }
-                }, expiredRecords);
+                return connection.poll(maxResults, expiredRecords);
             }
         }, false);
     }
@@ -3355,6 +3483,16 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         List<FlowFileRecord> poll(Connection connection, Set<FlowFileRecord> expiredRecords);
     }
 
+    /**
+     * The time taken by each stage of persisting a checkpoint
+     */
+    private static class CommitTiming {
+        private long provenanceRepositoryNanos;
+        private long flowFileRepositoryNanos;
+        private long eventRepositoryNanos;
+        private long enqueueNanos;
+    }
+
     private static class Checkpoint {
 
         private long processingTime = 0L;
@@ -3371,6 +3509,7 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         private Map<String, Long> immediateCounters = new HashMap<>();
 
         private final Map<FlowFile, Path> deleteOnCommit = new HashMap<>();
+        private final Map<FlowFileQueue, Set<FlowFileRecord>> unacknowledgedFlowFiles = new HashMap<>();
         private final Set<String> removedFlowFiles = new HashSet<>();
         private final Set<String> createdFlowFiles = new HashSet<>();
 
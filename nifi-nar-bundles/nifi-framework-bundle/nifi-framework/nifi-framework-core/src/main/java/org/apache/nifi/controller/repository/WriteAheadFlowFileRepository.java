@@ -95,6 +95,9 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
 
     final AtomicLong flowFileSequenceGenerator = new AtomicLong(0L);
     private final boolean alwaysSync;
+    private final long groupCommitWindowNanos;
+    private final int maxIncrementalCheckpoints;
+    private final int recoveryThreads;
 
     private static final Logger logger = LoggerFactory.getLogger(WriteAheadFlowFileRepository.class);
     volatile ScheduledFuture<?> checkpointFuture;
@@ -142,6 +145,9 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
      */
     public WriteAheadFlowFileRepository() {
         alwaysSync = false;
+        groupCommitWindowNanos = -1L;
+        maxIncrementalCheckpoints = 0;
+        recoveryThreads = 1;
         checkpointDelayMillis = 0L;
         numPartitions = 0;
         checkpointExecutor = null;
@@ -153,6 +159,16 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         alwaysSync = Boolean.parseBoolean(nifiProperties.getProperty(NiFiProperties.FLOWFILE_REPOSITORY_ALWAYS_SYNC, "false"));
         this.nifiProperties = nifiProperties;
 
+        final String groupCommitWindow = nifiProperties.getProperty(NiFiProperties.FLOWFILE_REPOSITORY_GROUP_COMMIT_WINDOW);
+        if (StringUtils.isBlank(groupCommitWindow)) {
+            groupCommitWindowNanos = -1L;
+        } else {
+            groupCommitWindowNanos = FormatUtils.getTimeDuration(groupCommitWindow.trim(), TimeUnit.NANOSECONDS);
+        }
+
+        maxIncrementalCheckpoints = nifiProperties.getFlowFileRepositoryCheckpointMaxIncremental();
+        recoveryThreads = nifiProperties.getFlowFileRepositoryRecoveryThreads();
+
         // determine the database file path and ensure it exists
         String writeAheadLogImpl = nifiProperties.getProperty(WRITE_AHEAD_LOG_IMPL);
         if (writeAheadLogImpl == null) {
@@ -216,8 +232,21 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         // The specified implementation can be plaintext or encrypted; the only difference is the serde factory
         if (isSequentialAccessWAL(walImplementation)) {
             // TODO: May need to instantiate ESAWAL for clarity?
-            wal = new SequentialAccessWriteAheadLog<>(flowFileRepositoryPaths.get(0), serdeFactory, this);
+            wal = new SequentialAccessWriteAheadLog<>(flowFileRepositoryPaths.get(0), serdeFactory, this, groupCommitWindowNanos, maxIncrementalCheckpoints, recoveryThreads);
+            if (groupCommitWindowNanos >= 0L) {
+                logger.info("FlowFile Repository will sync every update to disk, grouping concurrent updates within a window of {} nanos", groupCommitWindowNanos);
+            }
+            if (maxIncrementalCheckpoints > 0) {
+                logger.info("FlowFile Repository will write up to {} incremental checkpoints between full checkpoints", maxIncrementalCheckpoints);
+            }
         } else if (walImplementation.equals(MINIMAL_LOCKING_WALI)) {
+            if (groupCommitWindowNanos >= 0L) {
+                logger.warn("Property {} is not supported by {} and will be ignored", NiFiProperties.FLOWFILE_REPOSITORY_GROUP_COMMIT_WINDOW, MINIMAL_LOCKING_WALI);
+            }
+            if (maxIncrementalCheckpoints > 0) {
+                logger.warn("Property {} is not supported by {} and will be ignored", NiFiProperties.FLOWFILE_REPOSITORY_CHECKPOINT_MAX_INCREMENTAL, MINIMAL_LOCKING_WALI);
+            }
+
             final SortedSet<Path> paths = flowFileRepositoryPaths.stream()
                     .map(File::toPath)
                     .collect(Collectors.toCollection(TreeSet::new));
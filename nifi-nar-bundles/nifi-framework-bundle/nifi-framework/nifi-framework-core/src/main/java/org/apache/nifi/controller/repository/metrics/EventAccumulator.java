@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.metrics;
+
+import org.apache.nifi.controller.repository.FlowFileEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * Accumulates the values of the FlowFile Events that are reported for a component, without allocating any objects for each event.
+ * </p>
+ *
+ * <p>
+ * Like a {@link java.util.concurrent.atomic.LongAdder}, the values are spread across several stripes, so that threads that report
+ * events for the same component at the same time do not all contend on the same memory, and the stripes are summed when the values
+ * are read. Unlike a LongAdder, the values can be drained atomically, so that no event is lost if it is reported while the values
+ * are being drained.
+ * </p>
+ */
+class EventAccumulator {
+    static final int FLOWFILES_IN = 0;
+    static final int FLOWFILES_OUT = 1;
+    static final int FLOWFILES_REMOVED = 2;
+    static final int FLOWFILES_RECEIVED = 3;
+    static final int FLOWFILES_SENT = 4;
+    static final int CONTENT_SIZE_IN = 5;
+    static final int CONTENT_SIZE_OUT = 6;
+    static final int CONTENT_SIZE_REMOVED = 7;
+    static final int BYTES_READ = 8;
+    static final int BYTES_WRITTEN = 9;
+    static final int BYTES_RECEIVED = 10;
+    static final int BYTES_SENT = 11;
+    static final int PROCESSING_NANOS = 12;
+    static final int AGGREGATE_LINEAGE_MILLIS = 13;
+    static final int INVOCATIONS = 14;
+    static final int FIELD_COUNT = 15;
+
+    // Each stripe occupies two cache lines, so that threads that update different stripes do not invalidate each other's cache lines
+    private static final int STRIPE_WIDTH = 16;
+    private static final int STRIPE_COUNT = stripeCount(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLongArray values = new AtomicLongArray(STRIPE_COUNT * STRIPE_WIDTH);
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    static int stripeCount(final int availableProcessors) {
+        // At most 4 stripes, because there is an accumulator for every component
+        int stripes = 1;
+        while (stripes < availableProcessors && stripes < 4) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    void add(final FlowFileEvent event) {
+        final int base = ((int) Thread.currentThread().getId() & (STRIPE_COUNT - 1)) * STRIPE_WIDTH;
+
+        add(base + FLOWFILES_IN, event.getFlowFilesIn());
+        add(base + FLOWFILES_OUT, event.getFlowFilesOut());
+        add(base + FLOWFILES_REMOVED, event.getFlowFilesRemoved());
+        add(base + FLOWFILES_RECEIVED, event.getFlowFilesReceived());
+        add(base + FLOWFILES_SENT, event.getFlowFilesSent());
+        add(base + CONTENT_SIZE_IN, event.getContentSizeIn());
+        add(base + CONTENT_SIZE_OUT, event.getContentSizeOut());
+        add(base + CONTENT_SIZE_REMOVED, event.getContentSizeRemoved());
+        add(base + BYTES_READ, event.getBytesRead());
+        add(base + BYTES_WRITTEN, event.getBytesWritten());
+        add(base + BYTES_RECEIVED, event.getBytesReceived());
+        add(base + BYTES_SENT, event.getBytesSent());
+        add(base + PROCESSING_NANOS, event.getProcessingNanoseconds());
+        add(base + AGGREGATE_LINEAGE_MILLIS, event.getAggregateLineageMillis());
+        add(base + INVOCATIONS, event.getInvocations());
+
+        final Map<String, Long> eventCounters = event.getCounters();
+        if (eventCounters != null && !eventCounters.isEmpty()) {
+            for (final Map.Entry<String, Long> entry : eventCounters.entrySet()) {
+                AtomicLong counter = counters.get(entry.getKey());
+                if (counter == null) {
+                    counter = counters.computeIfAbsent(entry.getKey(), name -> new AtomicLong());
+                }
+                counter.addAndGet(entry.getValue());
+            }
+        }
+    }
+
+    private void add(final int index, final long delta) {
+        if (delta != 0L) {
+            values.getAndAdd(index, delta);
+        }
+    }
+
+    /**
+     * Adds the accumulated values to the given array without resetting them
+     *
+     * @param destination the array to add the values to, indexed by field
+     */
+    void addTo(final long[] destination) {
+        for (int stripe = 0; stripe < STRIPE_COUNT; stripe++) {
+            final int base = stripe * STRIPE_WIDTH;
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                destination[field] += values.get(base + field);
+            }
+        }
+    }
+
+    /**
+     * Adds the accumulated values to the given array and resets them to zero. Values that are added concurrently are either drained by
+     * this call or remain accumulated, never lost.
+     *
+     * @param destination the array to add the values to, indexed by field
+     * @return <code>true</code> if any value was non-zero
+     */
+    boolean drainTo(final long[] destination) {
+        boolean drained = false;
+        for (int stripe = 0; stripe < STRIPE_COUNT; stripe++) {
+            final int base = stripe * STRIPE_WIDTH;
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                // avoid the write if there is nothing to drain, so that idle stripes' cache lines are not invalidated
+                if (values.get(base + field) != 0L) {
+                    final long value = values.getAndSet(base + field, 0L);
+                    destination[field] += value;
+                    drained = true;
+                }
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * @return the accumulated counter values, or <code>null</code> if no counter has been updated
+     */
+    Map<String, Long> getCounters() {
+        if (counters.isEmpty()) {
+            return null;
+        }
+
+        final Map<String, Long> snapshot = new HashMap<>();
+        counters.forEach((name, value) -> snapshot.put(name, value.get()));
+        return snapshot;
+    }
+
+    /**
+     * Resets the accumulated counter values to zero
+     *
+     * @return the values that were accumulated, or <code>null</code> if no counter had been updated
+     */
+    Map<String, Long> drainCounters() {
+        if (counters.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Long> drained = null;
+        for (final Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            final AtomicLong counter = entry.getValue();
+            if (counter.get() != 0L) {
+                if (drained == null) {
+                    drained = new HashMap<>();
+                }
+                drained.put(entry.getKey(), counter.getAndSet(0L));
+            }
+        }
+        return drained;
+    }
+}
@@ -38,7 +38,11 @@ public class RingBufferEventRepository implements FlowFileEventRepository {
 
     @Override
     public void updateRepository(final FlowFileEvent event, final String componentId) {
-        final EventContainer eventContainer = componentEventMap.computeIfAbsent(componentId, id -> new SecondPrecisionEventContainer(numMinutes));
+        // look up the container before falling back to computeIfAbsent, so that the lambda is not allocated for every update
+        EventContainer eventContainer = componentEventMap.get(componentId);
+        if (eventContainer == null) {
+            eventContainer = componentEventMap.computeIfAbsent(componentId, id -> new SecondPrecisionEventContainer(numMinutes));
+        }
         eventContainer.addEvent(event);
     }
 
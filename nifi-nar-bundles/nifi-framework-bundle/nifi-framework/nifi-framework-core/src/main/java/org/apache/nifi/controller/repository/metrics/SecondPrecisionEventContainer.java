@@ -1,5 +1,5 @@
 /*
-e * Licensed to the Apache Software Foundation (ASF) under one or more
+ * Licensed to the Apache Software Foundation (ASF) under one or more
  * contributor license agreements.  See the NOTICE file distributed with
  * this work for additional information regarding copyright ownership.
  * The ASF licenses this file to You under the Apache License, Version 2.0
@@ -14,33 +14,53 @@ e * Licensed to the Apache Software Foundation (ASF) under one or more
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.apache.nifi.controller.repository.metrics;
 
 import org.apache.nifi.controller.repository.FlowFileEvent;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * <p>
+ * Holds the FlowFile Events of a component for a rolling window of a number of minutes, with a precision of one second.
+ * </p>
+ *
+ * <p>
+ * Events are added to an {@link EventAccumulator}, which does not allocate any objects or take any lock. Once per second, the
+ * accumulated values are drained into a bin for that second, and the bins that have fallen out of the window are subtracted from the
+ * aggregate values of the window. A report is generated from the aggregate values plus the values that are still accumulating.
+ * </p>
+ */
 public class SecondPrecisionEventContainer implements EventContainer {
-    private static final Logger logger = LoggerFactory.getLogger(SecondPrecisionEventContainer.class);
-
     private final int numBins;
-    private final EventSum[] sums;
-    private final EventSumValue aggregateValue = new EventSumValue(0L);
-    private final AtomicLong lastUpdateSecond = new AtomicLong(System.currentTimeMillis() / 1000L);
+    private final EventAccumulator accumulator = new EventAccumulator();
 
+    // the second that the values that are accumulating will be attributed to
+    private volatile long currentSecond;
+
+    // guarded by synchronizing on 'this'
+    private final long[][] binValues;
+    private final long[] binSeconds;
+    private final Map<String, Long>[] binCounters;
+    private final long[] aggregateValues = new long[EventAccumulator.FIELD_COUNT];
+    private final Map<String, Long> aggregateCounters = new HashMap<>();
+    private final long[] drainBuffer = new long[EventAccumulator.FIELD_COUNT];
+    private long expiredThroughSecond = 0L;
+
+    @SuppressWarnings("unchecked")
     public SecondPrecisionEventContainer(final int numMinutes) {
         // number of bins is number of seconds in 'numMinutes' plus 1. We add one because
         // we want to have the 'current bin' that we are adding values to, in addition to the
         // previous (X = numMinutes * 60) bins of values that have completed
         numBins = numMinutes * 60 + 1;
-        sums = new EventSum[numBins];
-
-        for (int i = 0; i < numBins; i++) {
-            sums[i] = new EventSum();
-        }
+        binValues = new long[numBins][];
+        binSeconds = new long[numBins];
+        binCounters = new Map[numBins];
+        Arrays.fill(binSeconds, -1L);
+        currentSecond = System.currentTimeMillis() / 1000L;
     }
 
     @Override
@@ -49,58 +69,146 @@ public class SecondPrecisionEventContainer implements EventContainer {
     }
 
     protected void addEvent(final FlowFileEvent event, final long timestamp) {
-        final long second = timestamp / 1000;
-        final int binIdx = (int) (second % numBins);
-        final EventSum sum = sums[binIdx];
+        final long second = timestamp / 1000L;
+        if (second > currentSecond) {
+            advance(second);
+        }
 
-        final EventSumValue replaced = sum.addOrReset(event, timestamp);
+        accumulator.add(event);
+    }
 
-        aggregateValue.add(event);
+    /**
+     * Drains the accumulated values into the bin of the current second, expires the bins that are no longer in the window as of the
+     * given second, and begins attributing accumulated values to the given second
+     */
+    private synchronized void advance(final long second) {
+        final long previousSecond = currentSecond;
+        if (second <= previousSecond) {
+            return;
+        }
 
-        if (replaced == null) {
-            logger.debug("Updated bin {}. Did NOT replace.", binIdx);
+        final long expirationSecond = second - numBins;
+        if (expirationSecond - expiredThroughSecond >= numBins) {
+            expireAll();
         } else {
-            logger.debug("Replaced bin {}", binIdx);
-            aggregateValue.subtract(replaced);
+            for (long expiring = expiredThroughSecond; expiring < expirationSecond; expiring++) {
+                expire(expiring);
+            }
         }
+        expiredThroughSecond = Math.max(expiredThroughSecond, expirationSecond);
 
-        // If there are any buckets that have expired, we need to update our aggregate value to reflect that.
-        processExpiredBuckets(second);
+        drain(previousSecond, previousSecond >= expirationSecond);
+        currentSecond = second;
     }
 
-    private void processExpiredBuckets(final long currentSecond) {
-        final long lastUpdate = lastUpdateSecond.get();
-        if (currentSecond > lastUpdate) {
-            final boolean updated = lastUpdateSecond.compareAndSet(lastUpdate, currentSecond);
-            if (updated) {
-                if (lastUpdate == 0L) {
-                    // First update, so nothing to expire
-                    return;
-                }
+    private void drain(final long second, final boolean retain) {
+        final long[] drained = drainBuffer;
+        for (int i = 0; i < drained.length; i++) {
+            drained[i] = 0L;
+        }
+
+        final boolean drainedValues = accumulator.drainTo(drained);
+        final Map<String, Long> drainedCounters = accumulator.drainCounters();
+        if (!retain || (!drainedValues && drainedCounters == null)) {
+            return;
+        }
+
+        final int binIndex = (int) (second % numBins);
+        if (binSeconds[binIndex] != second) {
+            expire(binSeconds[binIndex]);
+            binSeconds[binIndex] = second;
+        }
+
+        long[] values = binValues[binIndex];
+        if (values == null) {
+            values = new long[EventAccumulator.FIELD_COUNT];
+            binValues[binIndex] = values;
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] += drained[i];
+            aggregateValues[i] += drained[i];
+        }
+
+        if (drainedCounters != null) {
+            Map<String, Long> counters = binCounters[binIndex];
+            if (counters == null) {
+                counters = new HashMap<>();
+                binCounters[binIndex] = counters;
+            }
+
+            for (final Map.Entry<String, Long> entry : drainedCounters.entrySet()) {
+                counters.merge(entry.getKey(), entry.getValue(), Long::sum);
+                aggregateCounters.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+        }
+    }
 
-                final int secondsElapsed = (int) (currentSecond - lastUpdate);
+    private void expire(final long second) {
+        if (second < 0L) {
+            return;
+        }
+
+        final int binIndex = (int) (second % numBins);
+        if (binSeconds[binIndex] != second) {
+            return;
+        }
+
+        final long[] values = binValues[binIndex];
+        final Map<String, Long> counters = binCounters[binIndex];
+
+        if (values != null) {
+            for (int i = 0; i < values.length; i++) {
+                aggregateValues[i] -= values[i];
+                values[i] = 0L;
+            }
+        }
 
-                int index = (int) (currentSecond % numBins);
-                final long expirationTimestamp = 1000 * (currentSecond - numBins);
+        if (counters != null) {
+            counters.forEach((name, value) -> aggregateCounters.merge(name, -value, Long::sum));
+            counters.clear();
+        }
 
-                int expired = 0;
-                for (int i=0; i < secondsElapsed; i++) {
-                    index--;
-                    if (index < 0) {
-                        index = sums.length - 1;
-                    }
+        binSeconds[binIndex] = -1L;
+    }
 
-                    final EventSum expiredSum = sums[index];
-                    final EventSumValue expiredValue = expiredSum.reset(expirationTimestamp);
-                    if (expiredValue != null) {
-                        aggregateValue.subtract(expiredValue);
-                        expired++;
-                    }
+    private void expireAll() {
+        for (int binIndex = 0; binIndex < numBins; binIndex++) {
+            final long[] values = binValues[binIndex];
+            if (values != null) {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = 0L;
                 }
+            }
+
+            final Map<String, Long> counters = binCounters[binIndex];
+            if (counters != null) {
+                counters.clear();
+            }
+
+            binSeconds[binIndex] = -1L;
+        }
 
-                logger.debug("Expired {} bins", expired);
+        for (int i = 0; i < aggregateValues.length; i++) {
+            aggregateValues[i] = 0L;
+        }
+        aggregateCounters.clear();
+    }
+
+    private static boolean isEmpty(final long[] values, final Map<String, Long> counters) {
+        if (counters != null && !counters.isEmpty()) {
+            return false;
+        }
+
+        if (values != null) {
+            for (final long value : values) {
+                if (value != 0L) {
+                    return false;
+                }
             }
         }
+
+        return true;
     }
 
     @Override
@@ -111,15 +219,50 @@ public class SecondPrecisionEventContainer implements EventContainer {
     @Override
     public FlowFileEvent generateReport(final long now) {
         final long second = now / 1000 + 1;
-        final long lastUpdate = lastUpdateSecond.get();
-        final long secondsSinceUpdate = second - lastUpdate;
-        if (secondsSinceUpdate > numBins) {
-            logger.debug("EventContainer hasn't been updated in {} seconds so will generate report as Empty FlowFile Event", secondsSinceUpdate);
+        advance(second);
+
+        final long[] values = new long[EventAccumulator.FIELD_COUNT];
+        final Map<String, Long> counters;
+        synchronized (this) {
+            System.arraycopy(aggregateValues, 0, values, 0, values.length);
+            counters = aggregateCounters.isEmpty() ? null : new HashMap<>(aggregateCounters);
+        }
+
+        // Include the values that have been accumulated since the last time that they were drained
+        accumulator.addTo(values);
+        final Map<String, Long> accumulatingCounters = accumulator.getCounters();
+
+        final Map<String, Long> combinedCounters;
+        if (accumulatingCounters == null) {
+            combinedCounters = counters;
+        } else if (counters == null) {
+            combinedCounters = accumulatingCounters;
+        } else {
+            accumulatingCounters.forEach((name, value) -> counters.merge(name, value, Long::sum));
+            combinedCounters = counters;
+        }
+
+        if (combinedCounters == null && isEmpty(values, null)) {
             return EmptyFlowFileEvent.INSTANCE;
         }
 
-        logger.debug("Will expire up to {} bins", secondsSinceUpdate);
-        processExpiredBuckets(second);
-        return aggregateValue.toFlowFileEvent();
+        final StandardFlowFileEvent event = new StandardFlowFileEvent();
+        event.setFlowFilesIn((int) values[EventAccumulator.FLOWFILES_IN]);
+        event.setFlowFilesOut((int) values[EventAccumulator.FLOWFILES_OUT]);
+        event.setFlowFilesRemoved((int) values[EventAccumulator.FLOWFILES_REMOVED]);
+        event.setFlowFilesReceived((int) values[EventAccumulator.FLOWFILES_RECEIVED]);
+        event.setFlowFilesSent((int) values[EventAccumulator.FLOWFILES_SENT]);
+        event.setContentSizeIn(values[EventAccumulator.CONTENT_SIZE_IN]);
+        event.setContentSizeOut(values[EventAccumulator.CONTENT_SIZE_OUT]);
+        event.setContentSizeRemoved(values[EventAccumulator.CONTENT_SIZE_REMOVED]);
+        event.setBytesRead(values[EventAccumulator.BYTES_READ]);
+        event.setBytesWritten(values[EventAccumulator.BYTES_WRITTEN]);
+        event.setBytesReceived(values[EventAccumulator.BYTES_RECEIVED]);
+        event.setBytesSent(values[EventAccumulator.BYTES_SENT]);
+        event.setProcessingNanos(values[EventAccumulator.PROCESSING_NANOS]);
+        event.setAggregateLineageMillis(values[EventAccumulator.AGGREGATE_LINEAGE_MILLIS]);
+        event.setInvocations((int) values[EventAccumulator.INVOCATIONS]);
+        event.setCounters(combinedCounters == null ? Collections.emptyMap() : Collections.unmodifiableMap(combinedCounters));
+        return event;
     }
 }
@@ -79,6 +79,7 @@ public final class StandardProcessScheduler implements ProcessScheduler {
     private final String administrativeYieldDuration;
     private final StateManagerProvider stateManagerProvider;
     private final long processorStartTimeoutMillis;
+    private final boolean timerDrivenWorkAware;
 
     private final ConcurrentMap<Object, LifecycleState> lifecycleStates = new ConcurrentHashMap<>();
     private final ScheduledExecutorService frameworkTaskExecutor;
@@ -104,6 +105,7 @@ public final class StandardProcessScheduler implements ProcessScheduler {
         processorStartTimeoutMillis = timeoutString == null ? 60000 : FormatUtils.getTimeDuration(timeoutString.trim(), TimeUnit.MILLISECONDS);
 
         frameworkTaskExecutor = new FlowEngine(4, "Framework Task Thread");
+        timerDrivenWorkAware = nifiProperties.isTimerDrivenWorkAware();
     }
 
     public ControllerServiceProvider getControllerServiceProvider() {
@@ -427,7 +429,15 @@ public final class StandardProcessScheduler implements ProcessScheduler {
 
     @Override
     public void registerEvent(final Connectable worker) {
-        getSchedulingAgent(worker).onEvent(worker);
+        final SchedulingAgent agent = getSchedulingAgent(worker);
+        if (agent != null) {
+            agent.onEvent(worker);
+        }
+    }
+
+    @Override
+    public boolean isTimerDrivenWorkAware() {
+        return timerDrivenWorkAware;
     }
 
     @Override
@@ -31,14 +31,25 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
 
     private static final Logger logger = LoggerFactory.getLogger(TimerDrivenSchedulingAgent.class);
     private final long noWorkYieldNanos;
+    private final boolean workAware;
+    private final long maxParkNanos;
+
+    // when work-aware, the tasks of each scheduled component that are parked until a FlowFile is enqueued for the component
+    private final ConcurrentMap<Connectable, ParkedTasks> parkedTasks = new ConcurrentHashMap<>();
 
     private final FlowController flowController;
     private final RepositoryContextFactory contextFactory;
@@ -59,6 +70,19 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
         } catch (final IllegalArgumentException e) {
             throw new RuntimeException("Failed to create SchedulingAgent because the " + NiFiProperties.BORED_YIELD_DURATION + " property is set to an invalid time duration: " + boredYieldDuration);
         }
+
+        workAware = nifiProperties.isTimerDrivenWorkAware();
+        final String maxParkDuration = nifiProperties.getTimerDrivenMaxParkDuration();
+        try {
+            maxParkNanos = FormatUtils.getTimeDuration(maxParkDuration, TimeUnit.NANOSECONDS);
+        } catch (final IllegalArgumentException e) {
+            throw new RuntimeException("Failed to create SchedulingAgent because the " + NiFiProperties.TIMER_DRIVEN_MAX_PARK_DURATION + " property is set to an invalid time duration: "
+                + maxParkDuration);
+        }
+
+        if (workAware) {
+            logger.info("Timer-Driven components with no work to do will be parked until data is queued for them, or for at most {}", maxParkDuration);
+        }
     }
 
     @Override
@@ -82,13 +106,21 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
     @Override
     public void doSchedule(final Connectable connectable, final LifecycleState scheduleState) {
         final List<ScheduledFuture<?>> futures = new ArrayList<>();
-        final ConnectableTask connectableTask = new ConnectableTask(this, connectable, flowController, contextFactory, scheduleState, encryptor);
+        final ConnectableTask connectableTask = createConnectableTask(connectable, scheduleState);
+
+        final ParkedTasks parked;
+        if (workAware) {
+            parked = new ParkedTasks();
+            parkedTasks.put(connectable, parked);
+        } else {
+            parked = null;
+        }
 
         for (int i = 0; i < connectable.getMaxConcurrentTasks(); i++) {
             // Determine the task to run and create it.
             final AtomicReference<ScheduledFuture<?>> futureRef = new AtomicReference<>();
 
-            final Runnable trigger = createTrigger(connectableTask, scheduleState, futureRef);
+            final Runnable trigger = createTrigger(connectableTask, scheduleState, futureRef, parked);
 
             // Schedule the task to run
             final ScheduledFuture<?> future = flowEngine.scheduleWithFixedDelay(trigger, 0L,
@@ -107,11 +139,22 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
     }
 
 
-    private Runnable createTrigger(final ConnectableTask connectableTask, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef) {
+    ConnectableTask createConnectableTask(final Connectable connectable, final LifecycleState scheduleState) {
+        return new ConnectableTask(this, connectable, flowController, contextFactory, scheduleState, encryptor);
+    }
+
+    private Runnable createTrigger(final ConnectableTask connectableTask, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef,
+            final ParkedTasks parked) {
         final Connectable connectable = connectableTask.getConnectable();
         final Runnable yieldDetectionRunnable = new Runnable() {
+            private final AtomicBoolean isParked = new AtomicBoolean(false);
+
             @Override
             public void run() {
+                // Note how many wake events had been registered for the component before checking for work, so that if another one is
+                // registered before this task is parked, because a FlowFile was enqueued in the meantime, the task is woken again.
+                final long wakeCount = parked == null ? 0L : parked.getWakeCount();
+
                 // Call the task. It will return a boolean indicating whether or not we should yield
                 // based on a lack of work for to do for the component.
                 final InvocationResult invocationResult = connectableTask.invoke();
@@ -147,6 +190,13 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
                             }
                         }
                     }
+                } else if (parked != null && invocationResult == InvocationResult.NO_WORK_TO_DO) {
+                    // There is no data queued for the component. Rather than checking again after the bored yield duration, park the
+                    // task until data is queued, which wakes it immediately. Checking again after the maximum park duration guards
+                    // against work becoming available without data being queued, such as the component's connections being changed.
+                    if (reschedule(this, connectable, scheduleState, futureRef, futureRef.get(), maxParkNanos) && isParked.compareAndSet(false, true)) {
+                        parked.park(new ParkedTask(this, connectable, scheduleState, futureRef, isParked), wakeCount);
+                    }
                 } else if (noWorkYieldNanos > 0L && invocationResult.isYield()) {
                     // Component itself didn't yield but there was no work to do, so the framework will choose
                     // to yield the component automatically for a short period of time.
@@ -176,6 +226,31 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
         return yieldDetectionRunnable;
     }
 
+    /**
+     * Cancels the given future of the given trigger and schedules the trigger to run again after the given delay, provided that the future
+     * has not already been cancelled and the component is still scheduled to run
+     *
+     * @return <code>true</code> if the trigger was rescheduled
+     */
+    private boolean reschedule(final Runnable trigger, final Connectable connectable, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef,
+            final ScheduledFuture<?> scheduledFuture, final long delayNanos) {
+        if (scheduledFuture == null || !scheduledFuture.cancel(false)) {
+            return false;
+        }
+
+        synchronized (scheduleState) {
+            if (!scheduleState.isScheduled()) {
+                return false;
+            }
+
+            final long schedulingNanos = connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS);
+            final ScheduledFuture<?> newFuture = flowEngine.scheduleWithFixedDelay(trigger, delayNanos, schedulingNanos, TimeUnit.NANOSECONDS);
+            scheduleState.replaceFuture(scheduledFuture, newFuture);
+            futureRef.set(newFuture);
+            return true;
+        }
+    }
+
     @Override
     public void doUnschedule(final Connectable connectable, final LifecycleState scheduleState) {
         for (final ScheduledFuture<?> future : scheduleState.getFutures()) {
@@ -183,6 +258,8 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
             future.cancel(false);
         }
 
+        parkedTasks.remove(connectable);
+
         logger.info("Stopped scheduling {} to run", connectable);
     }
 
@@ -211,8 +288,22 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
         return FormatUtils.getTimeDuration(adminYieldDuration, timeUnit);
     }
 
+    /**
+     * Called when a FlowFile is enqueued into one of the given component's incoming connections. If the component has tasks that are parked
+     * because it had no work to do, they are scheduled to run immediately.
+     *
+     * @param connectable the component for which data has been queued
+     */
     @Override
     public void onEvent(final Connectable connectable) {
+        if (!workAware) {
+            return;
+        }
+
+        final ParkedTasks parked = parkedTasks.get(connectable);
+        if (parked != null) {
+            parked.wake();
+        }
     }
 
     @Override
@@ -228,4 +319,63 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
 
         flowEngine.setCorePoolSize(corePoolSize + toAdd);
     }
+
+    /**
+     * The tasks of a component that are parked until data is queued for the component
+     */
+    private class ParkedTasks {
+        private final AtomicLong wakeCount = new AtomicLong(0L);
+        private final Queue<ParkedTask> tasks = new ConcurrentLinkedQueue<>();
+
+        long getWakeCount() {
+            return wakeCount.get();
+        }
+
+        /**
+         * Parks the given task. If data was queued for the component since the task checked for work, as indicated by the wake count
+         * having changed, the task is woken again straight away.
+         */
+        void park(final ParkedTask task, final long wakeCountBeforeCheck) {
+            tasks.add(task);
+
+            if (wakeCount.get() != wakeCountBeforeCheck) {
+                wake();
+            }
+        }
+
+        void wake() {
+            // The wake count must be incremented before looking for parked tasks: a task that is parked concurrently either is found here
+            // or sees the new count when it parks.
+            wakeCount.incrementAndGet();
+
+            ParkedTask task;
+            while ((task = tasks.poll()) != null) {
+                task.wake();
+            }
+        }
+    }
+
+    private class ParkedTask {
+        private final Runnable trigger;
+        private final Connectable connectable;
+        private final LifecycleState scheduleState;
+        private final AtomicReference<ScheduledFuture<?>> futureRef;
+        private final AtomicBoolean parked;
+
+        ParkedTask(final Runnable trigger, final Connectable connectable, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef,
+                final AtomicBoolean parked) {
+            this.trigger = trigger;
+            this.connectable = connectable;
+            this.scheduleState = scheduleState;
+            this.futureRef = futureRef;
+            this.parked = parked;
+        }
+
+        void wake() {
+            parked.set(false);
+
+            // Replace the future that would check for work once the maximum park duration has elapsed with one that runs immediately
+            reschedule(trigger, connectable, scheduleState, futureRef, futureRef.get(), 0L);
+        }
+    }
 }
@@ -0,0 +1,429 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ReportingTaskNode;
+import org.apache.nifi.controller.tasks.ConnectableTask;
+import org.apache.nifi.controller.tasks.InvocationResult;
+import org.apache.nifi.controller.tasks.ReportingTaskWrapper;
+import org.apache.nifi.encrypt.StringEncryptor;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.util.FormatUtils;
+import org.apache.nifi.util.NiFiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Schedules components that use the {@link org.apache.nifi.scheduling.SchedulingStrategy#VIRTUAL_THREAD_DRIVEN} strategy. Components are run
+ * on the same schedule as Timer-Driven components, but each concurrent task is a chain of invocations, each of which runs on a new virtual
+ * thread. Virtual threads are cheap to create and do not hold on to a platform thread while they are blocked on I/O, so a component that
+ * spends most of its time waiting on a remote system can be given thousands of concurrent tasks.
+ * </p>
+ *
+ * <p>
+ * The virtual threads are run on a bounded set of carrier threads that is separate from the Timer-Driven thread pool, so that such components
+ * cannot take threads away from CPU-bound components. While a concurrent task is yielded, or has no work to do, it does not occupy any thread;
+ * its next invocation is submitted by a timer once the yield has expired.
+ * </p>
+ *
+ * <p>
+ * If the JVM does not support virtual threads, each invocation instead runs on one of a fixed pool of carrier threads. Concurrent tasks then
+ * take turns on the carrier threads, which still keeps them away from the Timer-Driven thread pool.
+ * </p>
+ *
+ * <p>
+ * The number of carrier threads of the JVM's virtual thread scheduler is configured through System Properties. The JVM reads them only once,
+ * when the first virtual thread is created, and the scheduler is shared by every virtual thread in the JVM. So the number of carrier threads
+ * is only applied by the first agent that is created in the JVM, and only if nothing else in the JVM has created a virtual thread before it.
+ * A different number of carrier threads takes effect only once NiFi is restarted.
+ * </p>
+ *
+ * <p>
+ * Note that the {@value #CARRIER_PARALLELISM_PROPERTY} and {@value #CARRIER_MAX_POOL_SIZE_PROPERTY} System Properties that this agent sets are
+ * global to the JVM. They limit the carrier threads of every virtual thread in the JVM, including any virtual threads that extensions create.
+ * </p>
+ *
+ * <p>
+ * Unlike the other agents, this agent ignores {@link #onEvent(Connectable)} and {@link #setMaxThreadCount(int)}. Components are run only on
+ * their schedule, whether or not data has been queued for them. The number of carrier threads is fixed when the agent is created, so the
+ * Maximum Timer Driven Thread Count has no effect on it.
+ * </p>
+ */
+public class VirtualThreadSchedulingAgent extends AbstractSchedulingAgent {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadSchedulingAgent.class);
+
+    static final String CARRIER_PARALLELISM_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+    static final String CARRIER_MAX_POOL_SIZE_PROPERTY = "jdk.virtualThreadScheduler.maxPoolSize";
+    private static final String THREAD_NAME_PREFIX = "Virtual-Thread-Driven Process Thread-";
+
+    // whether an agent has already configured the carrier threads of the JVM's virtual thread scheduler
+    private static final AtomicBoolean carrierThreadsConfigured = new AtomicBoolean(false);
+
+    private final long noWorkYieldNanos;
+
+    private final FlowController flowController;
+    private final RepositoryContextFactory contextFactory;
+    private final StringEncryptor encryptor;
+    private final ThreadPoolExecutor taskExecutor;
+    private final boolean virtualThreads;
+
+    // the schedule that each component's concurrent tasks belong to; a concurrent task stops once its schedule is no longer active
+    private final ConcurrentMap<Connectable, AtomicBoolean> activeSchedules = new ConcurrentHashMap<>();
+
+    private volatile String adminYieldDuration = "1 sec";
+
+    /**
+     * @param flowController the flow controller
+     * @param flowEngine the engine that is used to run Reporting Tasks and to re-submit concurrent tasks once they are no longer yielded
+     * @param contextFactory the factory for the components' repository contexts
+     * @param encryptor the encryptor for sensitive properties
+     * @param nifiProperties the NiFi properties, which provide the number of carrier threads
+     */
+    public VirtualThreadSchedulingAgent(final FlowController flowController, final FlowEngine flowEngine, final RepositoryContextFactory contextFactory,
+            final StringEncryptor encryptor, final NiFiProperties nifiProperties) {
+        super(flowEngine);
+        this.flowController = flowController;
+        this.contextFactory = contextFactory;
+        this.encryptor = encryptor;
+
+        final String boredYieldDuration = nifiProperties.getBoredYieldDuration();
+        try {
+            noWorkYieldNanos = FormatUtils.getTimeDuration(boredYieldDuration, TimeUnit.NANOSECONDS);
+        } catch (final IllegalArgumentException e) {
+            throw new RuntimeException("Failed to create SchedulingAgent because the " + NiFiProperties.BORED_YIELD_DURATION + " property is set to an invalid time duration: " + boredYieldDuration);
+        }
+
+        final int carrierThreads = nifiProperties.getVirtualThreadCarrierThreads();
+        if (carrierThreads < 1) {
+            throw new RuntimeException("Failed to create SchedulingAgent because the " + NiFiProperties.VIRTUAL_THREAD_CARRIER_THREADS + " property is set to "
+                + carrierThreads + " but must be positive");
+        }
+
+        // The carrier threads of the JVM's virtual thread scheduler are configured through System Properties that are read when the first
+        // virtual thread is created, so they must be set before creating the virtual thread factory.
+        if (isVirtualThreadSupported()) {
+            configureCarrierThreads(carrierThreads);
+        }
+
+        final ThreadFactory virtualThreadFactory = createVirtualThreadFactory();
+        if (virtualThreadFactory == null) {
+            virtualThreads = false;
+
+            final AtomicInteger threadIndex = new AtomicInteger(0);
+            taskExecutor = new ThreadPoolExecutor(carrierThreads, carrierThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                final Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            logger.info("Virtual threads are not supported by this JVM; Virtual-Thread-Driven components will share a pool of {} threads", carrierThreads);
+        } else {
+            virtualThreads = true;
+
+            // Every invocation gets a new virtual thread. Virtual threads are not pooled, so none is kept alive once its invocation completes.
+            taskExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), virtualThreadFactory);
+
+            logger.info("Virtual-Thread-Driven components will run on virtual threads with {} carrier threads", System.getProperty(CARRIER_PARALLELISM_PROPERTY));
+        }
+    }
+
+    private static boolean isVirtualThreadSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (final NoSuchMethodException nsme) {
+            return false;
+        }
+    }
+
+    private static void configureCarrierThreads(final int carrierThreads) {
+        // Only the first agent in the JVM can configure the carrier threads. By the time another agent is created, for instance because the
+        // flow controller was re-created, the JVM has already created virtual threads and will not read the System Properties again.
+        final boolean firstConfiguration = carrierThreadsConfigured.compareAndSet(false, true);
+
+        final String carrierThreadValue = String.valueOf(carrierThreads);
+        for (final String propertyName : new String[] {CARRIER_PARALLELISM_PROPERTY, CARRIER_MAX_POOL_SIZE_PROPERTY}) {
+            final String existingValue = System.getProperty(propertyName);
+            if (carrierThreadValue.equals(existingValue)) {
+                continue;
+            }
+
+            if (existingValue == null && firstConfiguration) {
+                System.setProperty(propertyName, carrierThreadValue);
+            } else if (existingValue == null) {
+                logger.warn("The {} value of {} cannot be applied to System Property {} because the JVM has already created virtual threads; "
+                    + "NiFi must be restarted for it to take effect", NiFiProperties.VIRTUAL_THREAD_CARRIER_THREADS, carrierThreads, propertyName);
+            } else {
+                logger.warn("System Property {} is already set to {}, so the {} value of {} will not be applied to it{}", propertyName, existingValue,
+                    NiFiProperties.VIRTUAL_THREAD_CARRIER_THREADS, carrierThreads, firstConfiguration ? "" : " until NiFi is restarted");
+            }
+        }
+    }
+
+    /**
+     * Creates a ThreadFactory that creates virtual threads. Virtual threads are only available in later versions of Java than the one that
+     * this class is compiled against, so the factory is obtained reflectively.
+     *
+     * @return a ThreadFactory that creates virtual threads, or <code>null</code> if the JVM does not support them
+     */
+    private static ThreadFactory createVirtualThreadFactory() {
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Object namedBuilder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(namedBuilder);
+        } catch (final Exception e) {
+            // Either the JVM pre-dates virtual threads, or they are a preview feature that has not been enabled
+            logger.debug("Unable to create virtual threads", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if components are run on virtual threads, <code>false</code> if they are run on a fixed pool of platform threads
+     */
+    public boolean isVirtualThreadsEnabled() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return the number of concurrent tasks that are currently running a component
+     */
+    public int getActiveThreadCount() {
+        return taskExecutor.getActiveCount();
+    }
+
+    @Override
+    public void shutdown() {
+        for (final AtomicBoolean scheduled : activeSchedules.values()) {
+            scheduled.set(false);
+        }
+        activeSchedules.clear();
+
+        flowEngine.shutdown();
+        taskExecutor.shutdown();
+    }
+
+    @Override
+    public void doSchedule(final ReportingTaskNode taskNode, final LifecycleState scheduleState) {
+        final Runnable reportingTaskWrapper = new ReportingTaskWrapper(taskNode, scheduleState, flowController.getExtensionManager());
+        final long schedulingNanos = taskNode.getSchedulingPeriod(TimeUnit.NANOSECONDS);
+
+        final ScheduledFuture<?> future = flowEngine.scheduleWithFixedDelay(reportingTaskWrapper, 0L, schedulingNanos, TimeUnit.NANOSECONDS);
+        final List<ScheduledFuture<?>> futures = new ArrayList<>(1);
+        futures.add(future);
+        scheduleState.setFutures(futures);
+
+        logger.info("{} started.", taskNode.getReportingTask());
+    }
+
+    @Override
+    public void doSchedule(final Connectable connectable, final LifecycleState scheduleState) {
+        // If the component was stopped and started again before all of its concurrent tasks noticed, the old tasks must not keep running
+        // alongside the new ones.
+        final AtomicBoolean scheduled = new AtomicBoolean(true);
+        final AtomicBoolean previousSchedule = activeSchedules.put(connectable, scheduled);
+        if (previousSchedule != null) {
+            previousSchedule.set(false);
+        }
+
+        final ConnectableTask connectableTask = createConnectableTask(connectable, scheduleState);
+        final int concurrentTasks = connectable.getMaxConcurrentTasks();
+        for (int i = 0; i < concurrentTasks; i++) {
+            submit(new ConcurrentTask(connectableTask, scheduleState, scheduled));
+        }
+
+        logger.info("Scheduled {} to run with {} concurrent tasks on {}", connectable, concurrentTasks, virtualThreads ? "virtual threads" : "the Virtual-Thread-Driven thread pool");
+    }
+
+    ConnectableTask createConnectableTask(final Connectable connectable, final LifecycleState scheduleState) {
+        return new ConnectableTask(this, connectable, flowController, contextFactory, scheduleState, encryptor);
+    }
+
+    @Override
+    public void doUnschedule(final Connectable connectable, final LifecycleState scheduleState) {
+        // stop scheduling to run but do not interrupt currently running tasks.
+        final AtomicBoolean scheduled = activeSchedules.remove(connectable);
+        if (scheduled != null) {
+            scheduled.set(false);
+        }
+
+        logger.info("Stopped scheduling {} to run", connectable);
+    }
+
+    @Override
+    public void doUnschedule(final ReportingTaskNode taskNode, final LifecycleState scheduleState) {
+        for (final ScheduledFuture<?> future : scheduleState.getFutures()) {
+            // stop scheduling to run but do not interrupt currently running tasks.
+            future.cancel(false);
+        }
+
+        logger.info("Stopped scheduling {} to run", taskNode.getReportingTask());
+    }
+
+    private void submit(final ConcurrentTask task) {
+        try {
+            taskExecutor.execute(task);
+        } catch (final RejectedExecutionException ree) {
+            if (!taskExecutor.isShutdown()) {
+                throw ree;
+            }
+
+            logger.debug("Will not run {} because the Scheduling Agent has been shut down", task.connectableTask.getConnectable());
+        }
+    }
+
+    private void submit(final ConcurrentTask task, final long delayNanos) {
+        if (delayNanos <= 0L) {
+            submit(task);
+            return;
+        }
+
+        try {
+            flowEngine.schedule(() -> submit(task), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (final RejectedExecutionException ree) {
+            if (!flowEngine.isShutdown()) {
+                throw ree;
+            }
+
+            logger.debug("Will not run {} because the Scheduling Agent has been shut down", task.connectableTask.getConnectable());
+        }
+    }
+
+    @Override
+    public void setAdministrativeYieldDuration(final String yieldDuration) {
+        this.adminYieldDuration = yieldDuration;
+    }
+
+    @Override
+    public String getAdministrativeYieldDuration() {
+        return adminYieldDuration;
+    }
+
+    @Override
+    public long getAdministrativeYieldDuration(final TimeUnit timeUnit) {
+        return FormatUtils.getTimeDuration(adminYieldDuration, timeUnit);
+    }
+
+    @Override
+    public void onEvent(final Connectable connectable) {
+        // Components are run only on their schedule, so there is no concurrent task to wake up
+    }
+
+    @Override
+    public void setMaxThreadCount(final int maxThreads) {
+        // The number of carrier threads is fixed by nifi.virtual.thread.carrier.threads when the agent is created
+    }
+
+    @Override
+    public synchronized void incrementMaxThreadCount(final int toAdd) {
+        // Virtual threads are not pooled, so a task that has been terminated while blocked does not prevent any other task from running
+        if (virtualThreads) {
+            return;
+        }
+
+        final int corePoolSize = taskExecutor.getCorePoolSize();
+        if (toAdd < 0 && corePoolSize + toAdd < 1) {
+            throw new IllegalStateException("Cannot remove " + (-toAdd) + " threads from pool because there are only " + corePoolSize + " threads in the pool");
+        }
+
+        if (toAdd > 0) {
+            taskExecutor.setMaximumPoolSize(corePoolSize + toAdd);
+            taskExecutor.setCorePoolSize(corePoolSize + toAdd);
+        } else {
+            taskExecutor.setCorePoolSize(corePoolSize + toAdd);
+            taskExecutor.setMaximumPoolSize(corePoolSize + toAdd);
+        }
+    }
+
+    /**
+     * One of a component's concurrent tasks. Each run invokes the component once and then submits the next run, either immediately or, if the
+     * component is yielded or had no work to do, once the yield has expired.
+     */
+    private class ConcurrentTask implements Runnable {
+        private final ConnectableTask connectableTask;
+        private final LifecycleState scheduleState;
+        private final AtomicBoolean scheduled;
+
+        ConcurrentTask(final ConnectableTask connectableTask, final LifecycleState scheduleState, final AtomicBoolean scheduled) {
+            this.connectableTask = connectableTask;
+            this.scheduleState = scheduleState;
+            this.scheduled = scheduled;
+        }
+
+        private boolean isScheduled() {
+            return scheduled.get() && scheduleState.isScheduled();
+        }
+
+        @Override
+        public void run() {
+            if (!isScheduled()) {
+                return;
+            }
+
+            final Connectable connectable = connectableTask.getConnectable();
+
+            long delayNanos;
+            try {
+                // Call the task. It will return a boolean indicating whether or not we should yield
+                // based on a lack of work for to do for the component.
+                final InvocationResult invocationResult = connectableTask.invoke();
+                if (invocationResult.isYield()) {
+                    logger.debug("Yielding {} due to {}", connectable, invocationResult.getYieldExplanation());
+                }
+
+                final long schedulingNanos = connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS);
+                final long yieldExpiration = connectable.getYieldExpiration();
+                final long now = System.currentTimeMillis();
+                if (yieldExpiration > now) {
+                    delayNanos = Math.max(schedulingNanos, TimeUnit.MILLISECONDS.toNanos(yieldExpiration - now));
+                } else if (noWorkYieldNanos > 0L && invocationResult.isYield()) {
+                    // Component itself didn't yield but there was no work to do, so the framework will choose
+                    // to yield the component automatically for a short period of time.
+                    delayNanos = Math.max(schedulingNanos, noWorkYieldNanos);
+                } else {
+                    delayNanos = schedulingNanos;
+                }
+            } catch (final Throwable t) {
+                logger.error("Failed to run {}; will try again after the administrative yield duration of {}", connectable, adminYieldDuration, t);
+                delayNanos = getAdministrativeYieldDuration(TimeUnit.NANOSECONDS);
+            }
+
+            if (isScheduled()) {
+                submit(this, delayNanos);
+            }
+        }
+    }
+}
@@ -343,6 +343,7 @@ public class FlowFromDOMFactory {
         dto.setLoadBalanceStrategy(getString(element, "loadBalanceStrategy"));
         dto.setLoadBalancePartitionAttribute(getString(element, "partitioningAttribute"));
         dto.setLoadBalanceCompression(getString(element, "loadBalanceCompression"));
+        dto.setQueueMode(getString(element, "queueMode"));
 
         return dto;
     }
@@ -19,6 +19,8 @@ package org.apache.nifi.controller.status.analytics;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.nifi.controller.flow.FlowManager;
+import org.apache.nifi.controller.status.ConnectionStatus;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
 import org.apache.nifi.controller.status.history.ComponentStatusRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,5 +66,25 @@ public class CachingConnectionStatusAnalyticsEngine extends ConnectionStatusAnal
 
     }
 
+    /**
+     * Train the models of the connections within the given group, and its descendant groups, with the given status snapshot. Only the connection
+     * status analytics that have already been created and that support online learning are trained, so that they need not retrieve
+     * the observations of the query interval from the status repository each time that they are refreshed.
+     * @param groupStatus status of the group
+     * @param timestampMillis time at which the status was captured
+     */
+    public void update(final ProcessGroupStatus groupStatus, final long timestampMillis) {
+        for (final ConnectionStatus connectionStatus : groupStatus.getConnectionStatus()) {
+            final StatusAnalytics connectionStatusAnalytics = cache.getIfPresent(connectionStatus.getId());
+            if (connectionStatusAnalytics instanceof ConnectionStatusAnalytics && connectionStatusAnalytics.supportsOnlineLearning()) {
+                ((ConnectionStatusAnalytics) connectionStatusAnalytics).update(connectionStatus, timestampMillis);
+            }
+        }
+
+        for (final ProcessGroupStatus childGroupStatus : groupStatus.getProcessGroupStatus()) {
+            update(childGroupStatus, timestampMillis);
+        }
+    }
+
 
 }
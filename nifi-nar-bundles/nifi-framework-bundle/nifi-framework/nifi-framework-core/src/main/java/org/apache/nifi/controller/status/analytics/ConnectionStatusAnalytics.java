@@ -30,6 +30,7 @@ import org.apache.nifi.connectable.Connection;
 import org.apache.nifi.controller.flow.FlowManager;
 import org.apache.nifi.controller.repository.FlowFileEvent;
 import org.apache.nifi.controller.repository.RepositoryStatusReport;
+import org.apache.nifi.controller.status.ConnectionStatus;
 import org.apache.nifi.controller.status.history.ComponentStatusRepository;
 import org.apache.nifi.controller.status.history.StatusHistory;
 import org.apache.nifi.processor.DataUnit;
@@ -47,12 +48,12 @@ public class ConnectionStatusAnalytics implements StatusAnalytics {
 
     private static final Logger LOG = LoggerFactory.getLogger(ConnectionStatusAnalytics.class);
     private final Map<String, Tuple<StatusAnalyticsModel, StatusMetricExtractFunction>> modelMap;
-    private QueryWindow queryWindow;
+    private volatile QueryWindow queryWindow;
     private final ComponentStatusRepository componentStatusRepository;
     private final String connectionIdentifier;
     private final FlowManager flowManager;
     private final Boolean supportOnlineLearning;
-    private Boolean extendWindow = false;
+    private volatile boolean extendWindow = false;
     private long intervalMillis = 3L * 60 * 1000; // Default is 3 minutes
     private long queryIntervalMillis = 5L * 60 * 1000;  //Default is 3 minutes
     private String scoreName = "rSquared";
@@ -78,16 +79,25 @@ public class ConnectionStatusAnalytics implements StatusAnalytics {
     }
 
     /**
-     *  Retrieve observations and train available model(s)
+     *  Retrieve observations and train available model(s). When online learning is supported, the observations of the query interval are
+     *  retrieved only until the models have been trained, after which the models are trained with each new observation by {@link #update(ConnectionStatus, long)}.
      */
     public void refresh() {
 
-        if (supportOnlineLearning && this.queryWindow != null) {
-            //Obtain latest observations when available, extend window if needed to obtain minimum observations
-            this.queryWindow = new QueryWindow(extendWindow ? queryWindow.getStartTimeMillis() : queryWindow.getEndTimeMillis(), System.currentTimeMillis());
+        final QueryWindow currentWindow = this.queryWindow;
+        final QueryWindow queryWindow;
+        if (supportOnlineLearning && currentWindow != null) {
+            if (!extendWindow) {
+                LOG.trace("Models for connection id {} are trained as status snapshots are captured; not retrieving observations", connectionIdentifier);
+                return;
+            }
+
+            //Extend window to obtain minimum observations
+            queryWindow = new QueryWindow(currentWindow.getStartTimeMillis(), System.currentTimeMillis());
         } else {
-            this.queryWindow = new QueryWindow(System.currentTimeMillis() - getQueryIntervalMillis(), System.currentTimeMillis());
+            queryWindow = new QueryWindow(System.currentTimeMillis() - getQueryIntervalMillis(), System.currentTimeMillis());
         }
+        this.queryWindow = queryWindow;
 
         modelMap.forEach((metric, modelFunction) -> {
 
@@ -121,6 +131,32 @@ public class ConnectionStatusAnalytics implements StatusAnalytics {
         });
     }
 
+    /**
+     * Train the available model(s) with a single new observation of the connection's status, rather than retrieving the observations of the
+     * query interval from the Component Status Repository. This has no effect unless online learning is supported and the models have first
+     * been trained by {@link #refresh()}, or if the observation was captured before that training and so is already known to the models.
+     *
+     * @param connectionStatus the status of the connection
+     * @param timestampMillis the time at which the status was captured
+     */
+    public void update(final ConnectionStatus connectionStatus, final long timestampMillis) {
+        final QueryWindow queryWindow = this.queryWindow;
+        if (!supportOnlineLearning || queryWindow == null || extendWindow || timestampMillis <= queryWindow.getEndTimeMillis()) {
+            return;
+        }
+
+        modelMap.forEach((metric, modelFunction) -> {
+            final StatusAnalyticsModel model = modelFunction.getKey();
+            final Tuple<Double[], Double> observation = StatusAnalyticsModelMapFactory.extractConnectionStatusObservation(metric, connectionStatus, timestampMillis);
+
+            try {
+                model.learn(Stream.<Double[]>of(observation.getKey()), Stream.of(observation.getValue()));
+            } catch (Exception ex) {
+                LOG.debug("Exception encountered while updating model for connection id {}: {}", connectionIdentifier, ex.getMessage());
+            }
+        });
+    }
+
     protected StatusAnalyticsModel getModel(String modelType){
 
         if(modelMap.containsKey(modelType)){
@@ -380,7 +416,7 @@ public class ConnectionStatusAnalytics implements StatusAnalytics {
 
         if (score == null || (Doubles.isFinite(score) && !Double.isNaN(score) && score < scoreThreshold)) {
             if (supportOnlineLearning && model.supportsOnlineLearning()) {
-                model.clear();
+                reseedModels();
             }
             return false;
         } else {
@@ -388,6 +424,19 @@ public class ConnectionStatusAnalytics implements StatusAnalytics {
         }
     }
 
+    /**
+     * Discard the observations that the models have learned, and retrieve the observations of the query interval again upon the next
+     * {@link #refresh()}. Clearing the models without doing so would leave them untrained, because they are otherwise only trained with the
+     * snapshots that are captured from now on. All of the models are cleared, so that none of them learns the observations of the query
+     * interval twice.
+     */
+    private void reseedModels() {
+        LOG.debug("Model for connection id {} is not valid; clearing models and retrieving observations of the query interval upon next refresh", connectionIdentifier);
+        modelMap.values().forEach(modelFunction -> modelFunction.getKey().clear());
+        extendWindow = true;
+        queryWindow = null;
+    }
+
     /**
      * Get specific score from trained model
      * @param model StatusAnalyticsModel object
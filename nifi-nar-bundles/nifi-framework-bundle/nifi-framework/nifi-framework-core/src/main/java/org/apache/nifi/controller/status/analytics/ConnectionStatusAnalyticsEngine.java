@@ -59,7 +59,9 @@ public class ConnectionStatusAnalyticsEngine implements StatusAnalyticsEngine {
     @Override
     public StatusAnalytics getStatusAnalytics(String identifier) {
         Map<String, Tuple<StatusAnalyticsModel, StatusMetricExtractFunction>> modelMap = statusAnalyticsModelMapFactory.getConnectionStatusModelMap();
-        ConnectionStatusAnalytics connectionStatusAnalytics = new ConnectionStatusAnalytics(statusRepository, flowManager, modelMap, identifier, false);
+        // the models are trained with each status snapshot as it is captured if they all support online learning
+        boolean supportOnlineLearning = modelMap.values().stream().allMatch(modelFunction -> Boolean.TRUE.equals(modelFunction.getKey().supportsOnlineLearning()));
+        ConnectionStatusAnalytics connectionStatusAnalytics = new ConnectionStatusAnalytics(statusRepository, flowManager, modelMap, identifier, supportOnlineLearning);
         connectionStatusAnalytics.setIntervalTimeMillis(predictionIntervalMillis);
         connectionStatusAnalytics.setQueryIntervalMillis(queryIntervalMillis);
         connectionStatusAnalytics.setScoreName(scoreName);
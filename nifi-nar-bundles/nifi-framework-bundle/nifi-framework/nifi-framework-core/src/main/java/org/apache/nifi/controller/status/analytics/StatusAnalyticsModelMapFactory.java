@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
+import org.apache.nifi.controller.status.ConnectionStatus;
 import org.apache.nifi.controller.status.history.StatusHistoryUtil;
 import org.apache.nifi.nar.ExtensionManager;
 import org.apache.nifi.nar.NarThreadContextClassLoader;
@@ -104,19 +105,16 @@ public class StatusAnalyticsModelMapFactory {
                 long snapTime = snap.getTimestamp().getTime();
 
                 featureArray.add((double) snapTime);
-                Double randomError = +(rand.nextInt(1000) * .0000001);
                 if (metric.equals(QUEUED_COUNT_METRIC)) {
 
                     Long inputCount = snap.getStatusMetrics().get(INPUT_COUNT_METRIC);
                     Long outputCount = snap.getStatusMetrics().get(OUTPUT_COUNT_METRIC);
-                    Double inOutRatio = ((double) outputCount / (double) inputCount) + randomError;
-                    featureArray.add(Double.isNaN(inOutRatio) ? randomError : inOutRatio);
+                    featureArray.add(getInOutRatio(inputCount, outputCount, rand));
 
                 } else {
                     Long inputBytes = snap.getStatusMetrics().get(INPUT_BYTES_METRIC);
                     Long outputBytes = snap.getStatusMetrics().get(OUTPUT_BYTES_METRIC);
-                    Double inOutRatio = ((double) outputBytes / (double) inputBytes) + randomError;
-                    featureArray.add(Double.isNaN(inOutRatio) ? randomError : inOutRatio);
+                    featureArray.add(getInOutRatio(inputBytes, outputBytes, rand));
                 }
 
                 values.add((double) snapValue);
@@ -128,5 +126,37 @@ public class StatusAnalyticsModelMapFactory {
         };
     }
 
+    /**
+     * Extract the features and the target value of the given metric from a single observation of a connection's status, in the same manner
+     * as the connection status extract function extracts them from each snapshot of the connection's status history. This allows models
+     * that support online learning to be trained with each status snapshot as it is captured.
+     * @param metric the metric being predicted
+     * @param connectionStatus the status of the connection
+     * @param timestampMillis the time at which the status was captured
+     * @return Tuple of the features and the target value
+     */
+    public static Tuple<Double[], Double> extractConnectionStatusObservation(final String metric, final ConnectionStatus connectionStatus, final long timestampMillis) {
+        final Random rand = new Random();
+        final Double[] features = new Double[2];
+        features[0] = (double) timestampMillis;
+
+        final double value;
+        if (metric.equals(QUEUED_COUNT_METRIC)) {
+            features[1] = getInOutRatio((long) connectionStatus.getInputCount(), (long) connectionStatus.getOutputCount(), rand);
+            value = connectionStatus.getQueuedCount();
+        } else {
+            features[1] = getInOutRatio(connectionStatus.getInputBytes(), connectionStatus.getOutputBytes(), rand);
+            value = connectionStatus.getQueuedBytes();
+        }
+
+        return new Tuple<>(features, value);
+    }
+
+    private static Double getInOutRatio(final Long input, final Long output, final Random rand) {
+        // a small random error prevents the features from being linearly dependent when the ratio does not change
+        Double randomError = +(rand.nextInt(1000) * .0000001);
+        Double inOutRatio = ((double) output / (double) input) + randomError;
+        return Double.isNaN(inOutRatio) ? randomError : inOutRatio;
+    }
 
 }
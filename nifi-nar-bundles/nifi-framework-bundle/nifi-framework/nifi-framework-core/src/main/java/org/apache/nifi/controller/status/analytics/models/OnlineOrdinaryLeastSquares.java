@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status.analytics.models;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.DecompositionSolver;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.nifi.controller.status.analytics.StatusAnalyticsModel;
+import org.apache.nifi.util.FormatUtils;
+import org.apache.nifi.util.NiFiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * An implementation of the {@link StatusAnalyticsModel} that uses Ordinary Least Squares computation for multiple regression over a sliding
+ * window of the most recent observations, and supports online learning: each observation that is learned is added to the model, and the oldest
+ * observation is removed once the window is full, without refitting the model from all of the observations in the window. This allows the
+ * model to be kept up to date with every status snapshot rather than retrieving the observations of the entire query interval from the
+ * Component Status Repository in order to refit the model.
+ * </p>
+ *
+ * <p>
+ * The model maintains the means and the co-moments of the features and the label, which are updated with each observation that is added
+ * or removed, and from which the regression parameters and scores are computed exactly as {@link OrdinaryLeastSquares} computes them from
+ * the same observations. The co-moments are centered on the means so that features of large magnitude, such as timestamps, do not cost
+ * precision.
+ * </p>
+ */
+public class OnlineOrdinaryLeastSquares implements StatusAnalyticsModel {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OnlineOrdinaryLeastSquares.class);
+    static final int MIN_OBSERVATIONS = 5;
+
+    private final int maxObservations;
+    private final Deque<double[]> observations = new ArrayDeque<>();
+
+    // all guarded by synchronizing on 'this'. Each observation is the values of the features followed by the value of the label.
+    private double[] means;
+    private double[][] coMoments;
+    private double[] coefficients;
+    private double rSquared;
+    private double totalSumOfSquares;
+
+    /**
+     * Creates a model whose window holds the observations of the configured query interval, given the configured frequency of status snapshots
+     *
+     * @param nifiProperties the NiFi Properties
+     */
+    public OnlineOrdinaryLeastSquares(final NiFiProperties nifiProperties) {
+        this(getMaxObservations(nifiProperties));
+    }
+
+    public OnlineOrdinaryLeastSquares(final int maxObservations) {
+        if (maxObservations < MIN_OBSERVATIONS) {
+            throw new IllegalArgumentException("Model must hold at least " + MIN_OBSERVATIONS + " observations");
+        }
+
+        this.maxObservations = maxObservations;
+    }
+
+    private static int getMaxObservations(final NiFiProperties nifiProperties) {
+        final double queryMillis = FormatUtils.getPreciseTimeDuration(nifiProperties.getProperty(NiFiProperties.ANALYTICS_QUERY_INTERVAL,
+                NiFiProperties.DEFAULT_ANALYTICS_QUERY_INTERVAL), TimeUnit.MILLISECONDS);
+        final double snapshotMillis = FormatUtils.getPreciseTimeDuration(nifiProperties.getProperty(NiFiProperties.COMPONENT_STATUS_SNAPSHOT_FREQUENCY,
+                NiFiProperties.DEFAULT_COMPONENT_STATUS_SNAPSHOT_FREQUENCY), TimeUnit.MILLISECONDS);
+
+        return (int) Math.max(MIN_OBSERVATIONS, Math.ceil(queryMillis / snapshotMillis));
+    }
+
+    @Override
+    public synchronized void learn(final Stream<Double[]> features, final Stream<Double> labels) {
+        final Iterator<Double[]> featureItr = features.iterator();
+        final Iterator<Double> labelItr = labels.iterator();
+
+        while (featureItr.hasNext() && labelItr.hasNext()) {
+            final Double[] feature = featureItr.next();
+            final double[] observation = new double[feature.length + 1];
+            for (int i = 0; i < feature.length; i++) {
+                observation[i] = feature[i];
+            }
+            observation[feature.length] = labelItr.next();
+
+            // An infinite or NaN value, such as the ratio of output to input when nothing was input, would make the means and co-moments
+            // infinite or NaN. Removing it from the window later would not restore them, so the model could never be estimated again.
+            if (!isFinite(observation)) {
+                LOG.debug("Ignoring observation {} because not all of its values are finite", Arrays.toString(observation));
+                continue;
+            }
+
+            add(observation);
+            if (observations.size() > maxObservations) {
+                remove(observations.peekFirst());
+            }
+        }
+
+        estimateRegressionParameters();
+    }
+
+    private static boolean isFinite(final double[] observation) {
+        for (final double value : observation) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void add(final double[] observation) {
+        if (means == null) {
+            means = new double[observation.length];
+            coMoments = new double[observation.length][observation.length];
+        } else if (observation.length != means.length) {
+            throw new IllegalArgumentException("Observation has " + (observation.length - 1) + " features but model was trained with " + (means.length - 1) + " features");
+        }
+
+        observations.addLast(observation);
+        final int count = observations.size();
+
+        final double[] deltas = new double[observation.length];
+        for (int i = 0; i < observation.length; i++) {
+            deltas[i] = observation[i] - means[i];
+            means[i] += deltas[i] / count;
+        }
+
+        for (int i = 0; i < observation.length; i++) {
+            for (int j = 0; j < observation.length; j++) {
+                coMoments[i][j] += deltas[i] * (observation[j] - means[j]);
+            }
+        }
+    }
+
+    private void remove(final double[] observation) {
+        observations.removeFirst();
+        final int count = observations.size();
+
+        final double[] deltas = new double[observation.length];
+        for (int i = 0; i < observation.length; i++) {
+            deltas[i] = observation[i] - means[i];
+            means[i] -= deltas[i] / count;
+        }
+
+        for (int i = 0; i < observation.length; i++) {
+            for (int j = 0; j < observation.length; j++) {
+                coMoments[i][j] -= deltas[i] * (observation[j] - means[j]);
+            }
+        }
+    }
+
+    private void estimateRegressionParameters() {
+        coefficients = null;
+
+        // As with OrdinaryLeastSquares, there must be more observations than there are regression parameters, including the intercept
+        final int featureCount = means == null ? 0 : means.length - 1;
+        if (featureCount == 0 || observations.size() <= featureCount + 1) {
+            return;
+        }
+
+        // Solve the normal equations using the correlations of the features rather than their co-moments, so that whether the features
+        // are linearly dependent does not depend upon their magnitude.
+        final double[] scales = new double[featureCount];
+        for (int i = 0; i < featureCount; i++) {
+            scales[i] = Math.sqrt(coMoments[i][i]);
+            if (scales[i] == 0D || Double.isNaN(scales[i])) {
+                LOG.debug("Feature {} has the same value for all observations so regression parameters can not be estimated at this time.", i);
+                return;
+            }
+        }
+
+        final double[][] correlations = new double[featureCount][featureCount];
+        final double[] labelCorrelations = new double[featureCount];
+        for (int i = 0; i < featureCount; i++) {
+            for (int j = 0; j < featureCount; j++) {
+                correlations[i][j] = coMoments[i][j] / (scales[i] * scales[j]);
+            }
+            labelCorrelations[i] = coMoments[i][featureCount] / scales[i];
+        }
+
+        final DecompositionSolver solver = new LUDecomposition(new Array2DRowRealMatrix(correlations, false)).getSolver();
+        if (!solver.isNonSingular()) {
+            LOG.debug("The features are linearly dependent (i.e. the matrix is singular) so regression parameters can not be estimated at this time.");
+            return;
+        }
+
+        final double[] solution = solver.solve(new ArrayRealVector(labelCorrelations, false)).toArray();
+        final double[] slopes = new double[featureCount];
+        double explainedSumOfSquares = 0D;
+        for (int i = 0; i < featureCount; i++) {
+            slopes[i] = solution[i] / scales[i];
+            explainedSumOfSquares += slopes[i] * coMoments[i][featureCount];
+        }
+
+        totalSumOfSquares = coMoments[featureCount][featureCount];
+        rSquared = 1D - (totalSumOfSquares - explainedSumOfSquares) / totalSumOfSquares;
+        coefficients = slopes;
+    }
+
+    @Override
+    public synchronized Double predict(final Double[] feature) {
+        if (coefficients == null) {
+            return null;
+        }
+
+        double prediction = means[coefficients.length];
+        for (int i = 0; i < coefficients.length; i++) {
+            prediction += coefficients[i] * (feature[i] - means[i]);
+        }
+        return prediction;
+    }
+
+    @Override
+    public synchronized Double predictVariable(final Integer predictVariableIndex, final Map<Integer, Double> knownVariablesWithIndex, final Double label) {
+        if (coefficients == null) {
+            return null;
+        }
+
+        // As with OrdinaryLeastSquares, any other variable whose value is not known is taken to be 0
+        double remainder = label - means[coefficients.length];
+        for (int i = 0; i < coefficients.length; i++) {
+            if (i != predictVariableIndex) {
+                final Double value = knownVariablesWithIndex.get(i);
+                remainder -= coefficients[i] * ((value == null ? 0D : value) - means[i]);
+            }
+        }
+
+        return means[predictVariableIndex] + remainder / coefficients[predictVariableIndex];
+    }
+
+    @Override
+    public synchronized Map<String, Double> getScores() {
+        if (coefficients == null) {
+            return null;
+        }
+
+        final Map<String, Double> scores = new HashMap<>();
+        scores.put("rSquared", rSquared);
+        scores.put("totalSumOfSquares", totalSumOfSquares);
+        return scores;
+    }
+
+    @Override
+    public Boolean supportsOnlineLearning() {
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        observations.clear();
+        means = null;
+        coMoments = null;
+        coefficients = null;
+    }
+
+    /**
+     * @return the number of observations that the model currently holds
+     */
+    public synchronized int getObservationCount() {
+        return observations.size();
+    }
+
+    public int getMaxObservations() {
+        return maxObservations;
+    }
+}
@@ -0,0 +1,1075 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status.history;
+
+import org.apache.nifi.controller.status.ConnectionStatus;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.status.ProcessorStatus;
+import org.apache.nifi.controller.status.RemoteProcessGroupStatus;
+import org.apache.nifi.controller.status.history.StatusSnapshotCodec.ByteSink;
+import org.apache.nifi.controller.status.history.StatusSnapshotCodec.ComponentKind;
+import org.apache.nifi.controller.status.history.StatusSnapshotCodec.Entry;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.util.ComponentMetrics;
+import org.apache.nifi.util.FormatUtils;
+import org.apache.nifi.util.NiFiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * A Component Status Repository that persists status history to disk, so that it survives a restart and may be retained for much longer
+ * than the {@link VolatileComponentStatusRepository} can hold in memory.
+ * </p>
+ *
+ * <p>
+ * Snapshots are grouped into segments, each of which covers a fixed period of time. The snapshots of the current segment are held in
+ * memory and are also appended to a journal, from which they are recovered on restart. Once a snapshot is captured for a later period, the
+ * current segment is written to a segment file, in which the snapshots of each component are stored together as a compact time series and
+ * an index records where each component's series is located. Reading the history of a component therefore reads only that component's
+ * series from each segment that overlaps the requested time range.
+ * </p>
+ *
+ * <p>
+ * Segments that are older than the raw retention period are downsampled: the segments of each day are combined into a single segment in
+ * which the snapshots of each component are averaged over the downsample interval. Segments that are older than the retention period are
+ * deleted. Components are identified within the segments by an index into a dictionary, which holds the details of each component.
+ * Details are appended to the dictionary as components are added or changed. Whenever segments are written or deleted, the dictionary is
+ * rewritten to hold only the latest details of the components whose history is retained, and the indexes of other components are reused.
+ * </p>
+ */
+public class PersistentComponentStatusRepository implements ComponentStatusRepository, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(PersistentComponentStatusRepository.class);
+
+    private static final long DOWNSAMPLED_SEGMENT_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final long MAX_MAINTENANCE_PERIOD_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int MAX_CACHED_INDEXES = 64;
+    private static final String DICTIONARY_FILENAME = "components.dict";
+    private static final String JOURNAL_FILENAME = "active.journal";
+    private static final String SEGMENTS_DIRECTORY_NAME = "segments";
+    private static final String GARBAGE_COLLECTION_ID_PREFIX = "gc:";
+
+    private final File directory;
+    private final File segmentDirectory;
+    private final long segmentMillis;
+    private final long rawRetentionMillis;
+    private final long downsampleMillis;
+    private final long retentionMillis;
+
+    // guarded by synchronizing on 'this'
+    private final List<DictionaryEntry> dictionary = new ArrayList<>();
+    private final Map<String, Integer> componentIndexes = new HashMap<>();
+    private final TreeSet<Integer> freeIndexes = new TreeSet<>();
+    private final ByteSink snapshotBuffer = new ByteSink(256);
+    private DataOutputStream dictionaryOut;
+    private int supersededDictionaryEntries = 0;
+    private boolean journalHoldsSealedCaptures = false;
+    private DataOutputStream journalOut;
+    private ActiveSegment activeSegment;
+    private boolean closed = false;
+
+    // replaced while synchronized on 'segmentsLock', read without locking
+    private final Object segmentsLock = new Object();
+    private volatile List<StatusSegment> segments = Collections.emptyList();
+
+    // guarded by synchronizing on 'indexCache'
+    private final Map<File, StatusSegment.Index> indexCache = new LinkedHashMap<>(16, 0.75F, true);
+
+    private final Object maintenanceLock = new Object();
+    private List<StatusSegment> compactedSegments = null; // guarded by synchronizing on 'maintenanceLock'
+    private final FlowEngine maintenanceExecutor;
+    private volatile long lastCaptureTime = 0L;
+
+    public PersistentComponentStatusRepository(final NiFiProperties nifiProperties) {
+        this(new File(nifiProperties.getProperty(NiFiProperties.COMPONENT_STATUS_REPOSITORY_DIRECTORY, NiFiProperties.DEFAULT_COMPONENT_STATUS_REPOSITORY_DIRECTORY)),
+            getDurationMillis(nifiProperties, NiFiProperties.COMPONENT_STATUS_REPOSITORY_SEGMENT_DURATION, NiFiProperties.DEFAULT_COMPONENT_STATUS_REPOSITORY_SEGMENT_DURATION),
+            getDurationMillis(nifiProperties, NiFiProperties.COMPONENT_STATUS_REPOSITORY_RAW_RETENTION, NiFiProperties.DEFAULT_COMPONENT_STATUS_REPOSITORY_RAW_RETENTION),
+            getDurationMillis(nifiProperties, NiFiProperties.COMPONENT_STATUS_REPOSITORY_DOWNSAMPLE_INTERVAL, NiFiProperties.DEFAULT_COMPONENT_STATUS_REPOSITORY_DOWNSAMPLE_INTERVAL),
+            getDurationMillis(nifiProperties, NiFiProperties.COMPONENT_STATUS_REPOSITORY_RETENTION, NiFiProperties.DEFAULT_COMPONENT_STATUS_REPOSITORY_RETENTION));
+    }
+
+    PersistentComponentStatusRepository(final File directory, final long segmentMillis, final long rawRetentionMillis, final long downsampleMillis,
+                                        final long retentionMillis) {
+        if (segmentMillis < 1L || rawRetentionMillis < 1L || downsampleMillis < 1L || retentionMillis < 1L) {
+            throw new IllegalArgumentException("Component Status Repository durations must be positive");
+        }
+        if (downsampleMillis > DOWNSAMPLED_SEGMENT_MILLIS) {
+            throw new IllegalArgumentException("Component Status Repository downsample interval must not be longer than 1 day");
+        }
+
+        this.directory = directory;
+        this.segmentDirectory = new File(directory, SEGMENTS_DIRECTORY_NAME);
+        this.segmentMillis = segmentMillis;
+        this.rawRetentionMillis = rawRetentionMillis;
+        this.downsampleMillis = downsampleMillis;
+        this.retentionMillis = retentionMillis;
+
+        try {
+            Files.createDirectories(segmentDirectory.toPath());
+            loadDictionary();
+            loadSegments();
+            recoverJournal();
+        } catch (final IOException ioe) {
+            throw new RuntimeException("Unable to initialize Component Status Repository at " + directory, ioe);
+        }
+
+        maintenanceExecutor = new FlowEngine(1, "Component Status Repository Maintenance", true);
+        final long maintenancePeriod = Math.min(segmentMillis, MAX_MAINTENANCE_PERIOD_MILLIS);
+        maintenanceExecutor.scheduleWithFixedDelay(this::performMaintenance, 0L, maintenancePeriod, TimeUnit.MILLISECONDS);
+
+        logger.info("Initialized {} with {} segments and {} components", this, segments.size(), dictionary.size());
+    }
+
+    private static long getDurationMillis(final NiFiProperties nifiProperties, final String propertyName, final String defaultValue) {
+        final String value = nifiProperties.getProperty(propertyName, defaultValue);
+        try {
+            return Math.round(FormatUtils.getPreciseTimeDuration(value.trim(), TimeUnit.MILLISECONDS));
+        } catch (final Exception e) {
+            throw new IllegalArgumentException("Invalid value for property " + propertyName + ": " + value, e);
+        }
+    }
+
+    @Override
+    public void capture(final ProcessGroupStatus rootGroupStatus, final List<GarbageCollectionStatus> gcStatus) {
+        capture(rootGroupStatus, gcStatus, new Date());
+    }
+
+    @Override
+    public synchronized void capture(final ProcessGroupStatus rootGroupStatus, final List<GarbageCollectionStatus> gcStatus, final Date timestamp) {
+        if (closed) {
+            logger.debug("Will not capture metrics because {} has been closed", this);
+            return;
+        }
+
+        final long captureTime = timestamp.getTime();
+        final List<CapturedSnapshot> captured = new ArrayList<>();
+        capture(rootGroupStatus, timestamp, captured);
+
+        if (gcStatus != null) {
+            for (final GarbageCollectionStatus status : gcStatus) {
+                final String id = GARBAGE_COLLECTION_ID_PREFIX + status.getMemoryManagerName();
+                final ComponentDetails details = new ComponentDetails(id, null, status.getMemoryManagerName(), null, null, null, null);
+                snapshotBuffer.clear();
+                StatusSnapshotCodec.writeGarbageCollectionStatus(status, snapshotBuffer);
+                captured.add(new CapturedSnapshot(getComponentIndex(details, ComponentKind.GARBAGE_COLLECTION), snapshotBuffer.toByteArray()));
+            }
+        }
+
+        // The active segment is written, and the journal truncated, before the capture is journaled if the capture belongs to a later segment
+        addToActiveSegment(captureTime, captured, false);
+
+        try {
+            journalOut.writeLong(captureTime);
+            journalOut.writeInt(captured.size());
+            for (final CapturedSnapshot snapshot : captured) {
+                journalOut.writeInt(snapshot.componentIndex);
+                journalOut.writeInt(snapshot.payload.length);
+                journalOut.write(snapshot.payload);
+            }
+            journalOut.flush();
+        } catch (final IOException ioe) {
+            logger.warn("Failed to write captured metrics to the journal of {}; the metrics will not be recovered if NiFi is restarted before they are written to a segment",
+                this, ioe);
+        }
+
+        logger.debug("Captured metrics for {}", this);
+        lastCaptureTime = Math.max(lastCaptureTime, captureTime);
+    }
+
+    private void capture(final ProcessGroupStatus groupStatus, final Date timestamp, final List<CapturedSnapshot> captured) {
+        // Capture status for the ProcessGroup
+        addSnapshot(ComponentMetrics.createSnapshot(groupStatus, timestamp), ComponentDetails.forProcessGroup(groupStatus), ComponentKind.PROCESS_GROUP, captured);
+
+        // Capture statuses for the Processors
+        for (final ProcessorStatus processorStatus : groupStatus.getProcessorStatus()) {
+            addSnapshot(ComponentMetrics.createSnapshot(processorStatus, timestamp), ComponentDetails.forProcessor(processorStatus), ComponentKind.PROCESSOR, captured);
+        }
+
+        // Capture statuses for the Connections
+        for (final ConnectionStatus connectionStatus : groupStatus.getConnectionStatus()) {
+            addSnapshot(ComponentMetrics.createSnapshot(connectionStatus, timestamp), ComponentDetails.forConnection(connectionStatus), ComponentKind.CONNECTION, captured);
+        }
+
+        // Capture statuses for the RPG's
+        for (final RemoteProcessGroupStatus rpgStatus : groupStatus.getRemoteProcessGroupStatus()) {
+            addSnapshot(ComponentMetrics.createSnapshot(rpgStatus, timestamp), ComponentDetails.forRemoteProcessGroup(rpgStatus), ComponentKind.REMOTE_PROCESS_GROUP, captured);
+        }
+
+        // Capture statuses for the child groups
+        for (final ProcessGroupStatus childStatus : groupStatus.getProcessGroupStatus()) {
+            capture(childStatus, timestamp, captured);
+        }
+    }
+
+    private void addSnapshot(final StatusSnapshot snapshot, final ComponentDetails details, final ComponentKind kind, final List<CapturedSnapshot> captured) {
+        if (snapshot == null) {
+            return;
+        }
+
+        snapshotBuffer.clear();
+        StatusSnapshotCodec.writeSnapshot(snapshot, kind, snapshotBuffer);
+        captured.add(new CapturedSnapshot(getComponentIndex(details, kind), snapshotBuffer.toByteArray()));
+    }
+
+    // must be called while synchronized on 'this'
+    private int getComponentIndex(final ComponentDetails details, final ComponentKind kind) {
+        final Integer existingIndex = componentIndexes.get(details.getComponentId());
+        if (existingIndex != null) {
+            final DictionaryEntry existing = dictionary.get(existingIndex);
+            if (existing.kind == kind && isSameDetails(existing.details, details)) {
+                return existingIndex;
+            }
+
+            // The component has been renamed, moved, etc. The latest details are the ones that are reported.
+            final DictionaryEntry updated = new DictionaryEntry(kind, details);
+            dictionary.set(existingIndex, updated);
+            appendToDictionary(existingIndex, updated);
+            supersededDictionaryEntries++;
+            return existingIndex;
+        }
+
+        // Reuse the index of a component whose history is no longer retained, if there is one
+        final DictionaryEntry entry = new DictionaryEntry(kind, details);
+        final Integer freeIndex = freeIndexes.pollFirst();
+        final int index;
+        if (freeIndex == null) {
+            index = dictionary.size();
+            dictionary.add(entry);
+        } else {
+            index = freeIndex;
+            dictionary.set(index, entry);
+        }
+
+        componentIndexes.put(details.getComponentId(), index);
+        appendToDictionary(index, entry);
+        return index;
+    }
+
+    private static boolean isSameDetails(final ComponentDetails a, final ComponentDetails b) {
+        return Objects.equals(a.getComponentId(), b.getComponentId())
+            && Objects.equals(a.getGroupId(), b.getGroupId())
+            && Objects.equals(a.getComponentName(), b.getComponentName())
+            && Objects.equals(a.getComponentType(), b.getComponentType())
+            && Objects.equals(a.getSourceName(), b.getSourceName())
+            && Objects.equals(a.getDestinationName(), b.getDestinationName())
+            && Objects.equals(a.getTargetUri(), b.getTargetUri());
+    }
+
+    private void appendToDictionary(final int index, final DictionaryEntry entry) {
+        try {
+            writeDictionaryEntry(dictionaryOut, index, entry);
+            dictionaryOut.flush();
+        } catch (final IOException ioe) {
+            logger.warn("Failed to write details of component {} to the dictionary of {}", entry.details.getComponentId(), this, ioe);
+        }
+    }
+
+    // must be called while synchronized on 'this'
+    private void addToActiveSegment(final long captureTime, final List<CapturedSnapshot> captured, final boolean recovering) {
+        if (activeSegment != null && !activeSegment.contains(captureTime)) {
+            sealActiveSegment(recovering);
+        }
+
+        if (activeSegment == null) {
+            final long start = Math.floorDiv(captureTime, segmentMillis) * segmentMillis;
+            activeSegment = new ActiveSegment(start, start + segmentMillis);
+        }
+
+        activeSegment.add(captureTime, captured);
+    }
+
+    // must be called while synchronized on 'this'
+    private void sealActiveSegment(final boolean recovering) {
+        final ActiveSegment sealing = activeSegment;
+        activeSegment = null;
+
+        final File file = StatusSegment.createFile(segmentDirectory, StatusSegment.Level.RAW, sealing.start, sealing.end);
+        try (final StatusSegment.Writer writer = new StatusSegment.Writer(file, sealing.start, sealing.end, sealing.getTimestamps())) {
+            for (final Map.Entry<Integer, ActiveSeries> entry : sealing.series.entrySet()) {
+                final ByteSink bytes = entry.getValue().bytes;
+                writer.addSeries(entry.getKey(), bytes.getBytes(), bytes.getLength());
+            }
+
+            addSegment(writer.commit());
+        } catch (final IOException ioe) {
+            logger.error("Failed to write status history segment {} for {}; the segment's metrics will be recovered from the journal on restart", file, this, ioe);
+            journalHoldsSealedCaptures = true;
+            return;
+        }
+
+        if (!recovering) {
+            try {
+                journalOut.close();
+                journalOut = openJournal(false);
+                journalHoldsSealedCaptures = false;
+            } catch (final IOException ioe) {
+                logger.warn("Failed to truncate the journal of {}", this, ioe);
+            }
+
+            maintenanceExecutor.execute(this::performMaintenance);
+        }
+
+        logger.debug("Wrote status history segment {} for {}", file, this);
+    }
+
+    private void addSegment(final StatusSegment segment) {
+        synchronized (segmentsLock) {
+            final List<StatusSegment> updated = new ArrayList<>(segments);
+            updated.add(segment);
+            updated.sort(Comparator.comparingLong(StatusSegment::getStart));
+            segments = Collections.unmodifiableList(updated);
+        }
+    }
+
+    private void replaceSegments(final List<StatusSegment> removed, final StatusSegment added) {
+        synchronized (segmentsLock) {
+            final List<StatusSegment> updated = new ArrayList<>(segments);
+            updated.removeAll(removed);
+            if (added != null) {
+                updated.add(added);
+            }
+            updated.sort(Comparator.comparingLong(StatusSegment::getStart));
+            segments = Collections.unmodifiableList(updated);
+        }
+
+        synchronized (indexCache) {
+            for (final StatusSegment segment : removed) {
+                indexCache.remove(segment.getFile());
+            }
+        }
+
+        for (final StatusSegment segment : removed) {
+            try {
+                Files.deleteIfExists(segment.getFile().toPath());
+            } catch (final IOException ioe) {
+                logger.warn("Failed to delete status history segment {}", segment.getFile(), ioe);
+            }
+        }
+    }
+
+    @Override
+    public Date getLastCaptureDate() {
+        return new Date(lastCaptureTime);
+    }
+
+    @Override
+    public StatusHistory getProcessorStatusHistory(final String processorId, final Date start, final Date end, final int preferredDataPoints, final boolean includeCounters) {
+        return getStatusHistory(processorId, includeCounters, ComponentKind.PROCESSOR, start, end, preferredDataPoints);
+    }
+
+    @Override
+    public StatusHistory getConnectionStatusHistory(final String connectionId, final Date start, final Date end, final int preferredDataPoints) {
+        return getStatusHistory(connectionId, true, ComponentKind.CONNECTION, start, end, preferredDataPoints);
+    }
+
+    @Override
+    public StatusHistory getProcessGroupStatusHistory(final String processGroupId, final Date start, final Date end, final int preferredDataPoints) {
+        return getStatusHistory(processGroupId, true, ComponentKind.PROCESS_GROUP, start, end, preferredDataPoints);
+    }
+
+    @Override
+    public StatusHistory getRemoteProcessGroupStatusHistory(final String remoteGroupId, final Date start, final Date end, final int preferredDataPoints) {
+        return getStatusHistory(remoteGroupId, true, ComponentKind.REMOTE_PROCESS_GROUP, start, end, preferredDataPoints);
+    }
+
+    private StatusHistory getStatusHistory(final String componentId, final boolean includeCounters, final ComponentKind defaultKind,
+                                           final Date start, final Date end, final int preferredDataPoints) {
+        final long startMillis = start == null ? 0L : start.getTime();
+        final long endMillis = end == null ? System.currentTimeMillis() : end.getTime();
+
+        final int componentIndex;
+        final DictionaryEntry dictionaryEntry;
+        synchronized (this) {
+            final Integer index = componentIndexes.get(componentId);
+            if (index == null) {
+                return new StandardStatusHistory(Collections.emptyList(), Collections.emptyMap(), new Date());
+            }
+
+            componentIndex = index;
+            dictionaryEntry = dictionary.get(index);
+        }
+
+        final TreeSet<Long> timestamps = new TreeSet<>();
+        final Map<Long, Entry> entries = readEntries(componentIndex, startMillis, endMillis, timestamps);
+
+        // Only the latest timestamps are reported if there are more than are preferred
+        final List<Long> reportedTimestamps = new ArrayList<>(timestamps);
+        final List<Long> latestTimestamps = reportedTimestamps.subList(Math.max(reportedTimestamps.size() - preferredDataPoints, 0), reportedTimestamps.size());
+
+        final ComponentKind kind = dictionaryEntry.kind;
+        final List<StatusSnapshot> snapshots = new ArrayList<>(latestTimestamps.size());
+        for (final Long timestamp : latestTimestamps) {
+            final Entry entry = entries.get(timestamp);
+            if (entry == null) {
+                snapshots.add(new EmptyStatusSnapshot(new Date(timestamp), defaultKind.getDescriptorSet()));
+            } else {
+                snapshots.add(entry.toSnapshot(kind, includeCounters));
+            }
+        }
+
+        return new StandardStatusHistory(snapshots, dictionaryEntry.details.toMap(), new Date());
+    }
+
+    /**
+     * Reads the snapshots of the given component that were captured in the given time range
+     *
+     * @param componentIndex the index of the component in the dictionary
+     * @param startMillis the start of the time range, inclusive
+     * @param endMillis the end of the time range, inclusive
+     * @param timestamps populated with the timestamps of all snapshots that were captured in the time range, for any component
+     * @return the component's snapshots, keyed by timestamp
+     */
+    private Map<Long, Entry> readEntries(final int componentIndex, final long startMillis, final long endMillis, final TreeSet<Long> timestamps) {
+        final Map<Long, Entry> entries = new TreeMap<>();
+
+        for (final StatusSegment segment : segments) {
+            if (!segment.overlaps(startMillis, endMillis)) {
+                continue;
+            }
+
+            try {
+                final StatusSegment.Index index = getIndex(segment);
+                for (final long timestamp : index.getTimestamps()) {
+                    if (timestamp >= startMillis && timestamp <= endMillis) {
+                        timestamps.add(timestamp);
+                    }
+                }
+
+                final byte[] series = segment.readSeries(index, componentIndex);
+                if (series != null) {
+                    for (final Entry entry : StatusSnapshotCodec.readSeries(series, series.length, segment.getStart(), startMillis, endMillis)) {
+                        entries.put(entry.getTimestamp(), entry);
+                    }
+                }
+            } catch (final FileNotFoundException fnfe) {
+                // The segment was downsampled or expired while it was being read
+                logger.debug("Status history segment {} no longer exists", segment.getFile());
+            } catch (final IOException ioe) {
+                logger.warn("Failed to read status history segment {}", segment.getFile(), ioe);
+            }
+        }
+
+        final byte[] activeSeries;
+        final int activeSeriesLength;
+        final long activeStart;
+        synchronized (this) {
+            if (activeSegment == null || !activeSegment.overlaps(startMillis, endMillis)) {
+                return entries;
+            }
+
+            for (int i = 0; i < activeSegment.timestampCount; i++) {
+                final long timestamp = activeSegment.timestamps[i];
+                if (timestamp >= startMillis && timestamp <= endMillis) {
+                    timestamps.add(timestamp);
+                }
+            }
+
+            final ActiveSeries series = activeSegment.series.get(componentIndex);
+            if (series == null) {
+                return entries;
+            }
+
+            activeSeries = series.bytes.toByteArray();
+            activeSeriesLength = activeSeries.length;
+            activeStart = activeSegment.start;
+        }
+
+        try {
+            for (final Entry entry : StatusSnapshotCodec.readSeries(activeSeries, activeSeriesLength, activeStart, startMillis, endMillis)) {
+                entries.put(entry.getTimestamp(), entry);
+            }
+        } catch (final IOException ioe) {
+            logger.warn("Failed to read status history of the active segment of {}", this, ioe);
+        }
+
+        return entries;
+    }
+
+    private StatusSegment.Index getIndex(final StatusSegment segment) throws IOException {
+        synchronized (indexCache) {
+            final StatusSegment.Index cached = indexCache.get(segment.getFile());
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        final StatusSegment.Index index = segment.readIndex();
+        synchronized (indexCache) {
+            indexCache.put(segment.getFile(), index);
+            final Iterator<File> itr = indexCache.keySet().iterator();
+            while (indexCache.size() > MAX_CACHED_INDEXES && itr.hasNext()) {
+                itr.next();
+                itr.remove();
+            }
+        }
+
+        return index;
+    }
+
+    @Override
+    public GarbageCollectionHistory getGarbageCollectionHistory(final Date start, final Date end) {
+        final long startMillis = start == null ? 0L : start.getTime();
+        final long endMillis = end == null ? System.currentTimeMillis() : end.getTime();
+
+        final Map<Integer, String> memoryManagers = new TreeMap<>();
+        synchronized (this) {
+            for (int i = 0; i < dictionary.size(); i++) {
+                final DictionaryEntry entry = dictionary.get(i);
+                if (entry != null && entry.kind == ComponentKind.GARBAGE_COLLECTION) {
+                    memoryManagers.put(i, entry.details.getComponentName());
+                }
+            }
+        }
+
+        final StandardGarbageCollectionHistory history = new StandardGarbageCollectionHistory();
+        for (final Map.Entry<Integer, String> memoryManager : memoryManagers.entrySet()) {
+            final Map<Long, Entry> entries = readEntries(memoryManager.getKey(), startMillis, endMillis, new TreeSet<>());
+            for (final Entry entry : entries.values()) {
+                final long[] values = entry.getValues();
+                if (values.length < 2) {
+                    continue;
+                }
+
+                history.addGarbageCollectionStatus(new StandardGarbageCollectionStatus(memoryManager.getValue(), new Date(entry.getTimestamp()), values[0], values[1]));
+            }
+        }
+
+        return history;
+    }
+
+    /**
+     * Deletes the segments that are older than the retention period, downsamples the segments that are older than the raw retention
+     * period, and compacts the dictionary. This is performed periodically in the background, and whenever a segment is written.
+     */
+    void performMaintenance() {
+        try {
+            performMaintenance(System.currentTimeMillis());
+        } catch (final Throwable t) {
+            logger.error("Failed to perform maintenance of {}", this, t);
+        }
+    }
+
+    void performMaintenance(final long now) throws IOException {
+        synchronized (maintenanceLock) {
+            final long expirationThreshold = now - retentionMillis;
+            final List<StatusSegment> expired = new ArrayList<>();
+            for (final StatusSegment segment : segments) {
+                if (segment.getEnd() <= expirationThreshold) {
+                    expired.add(segment);
+                }
+            }
+
+            if (!expired.isEmpty()) {
+                replaceSegments(expired, null);
+                logger.info("Deleted {} status history segments that were older than the retention period", expired.size());
+            }
+
+            // Raw segments are downsampled a day at a time, once all of the day's segments are older than the raw retention period
+            final long downsampleThreshold = now - rawRetentionMillis;
+            final Map<Long, List<StatusSegment>> rawSegmentsByDay = new TreeMap<>();
+            for (final StatusSegment segment : segments) {
+                if (segment.getLevel() == StatusSegment.Level.RAW) {
+                    final long day = Math.floorDiv(segment.getStart(), DOWNSAMPLED_SEGMENT_MILLIS) * DOWNSAMPLED_SEGMENT_MILLIS;
+                    rawSegmentsByDay.computeIfAbsent(day, key -> new ArrayList<>()).add(segment);
+                }
+            }
+
+            for (final Map.Entry<Long, List<StatusSegment>> entry : rawSegmentsByDay.entrySet()) {
+                final long dayEnd = entry.getKey() + DOWNSAMPLED_SEGMENT_MILLIS;
+                final List<StatusSegment> daySegments = entry.getValue();
+                final long lastEnd = daySegments.stream().mapToLong(StatusSegment::getEnd).max().getAsLong();
+                if (Math.max(dayEnd, lastEnd) <= downsampleThreshold) {
+                    downsample(daySegments);
+                }
+            }
+
+            compactDictionary();
+        }
+    }
+
+    /**
+     * Rewrites the dictionary so that it holds only the latest details of the components whose history is retained, if segments have been
+     * written or deleted, or components have changed, since it was last rewritten. The indexes of components that have no snapshots in any
+     * segment are freed so that they can be assigned to other components. Must be called while synchronized on 'maintenanceLock'.
+     */
+    private void compactDictionary() throws IOException {
+        final List<StatusSegment> retainedSegments = segments;
+        final boolean segmentsChanged = retainedSegments != compactedSegments;
+        synchronized (this) {
+            if (!segmentsChanged && supersededDictionaryEntries == 0) {
+                return;
+            }
+        }
+
+        final Set<Integer> referencedIndexes = new HashSet<>();
+        if (segmentsChanged) {
+            for (final StatusSegment segment : retainedSegments) {
+                for (final int componentIndex : getIndex(segment).getComponentIndexes()) {
+                    referencedIndexes.add(componentIndex);
+                }
+            }
+        }
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            int freedCount = 0;
+            // If a segment was written while the segments were being read, the components of the active segment were not all accounted for.
+            // Nor are the components of captures that remain in the journal only because their segment could not be written.
+            if (segmentsChanged && segments == retainedSegments && !journalHoldsSealedCaptures) {
+                if (activeSegment != null) {
+                    referencedIndexes.addAll(activeSegment.series.keySet());
+                }
+
+                for (int i = 0; i < dictionary.size(); i++) {
+                    final DictionaryEntry entry = dictionary.get(i);
+                    if (entry == null || referencedIndexes.contains(i)) {
+                        continue;
+                    }
+
+                    dictionary.set(i, null);
+                    componentIndexes.remove(entry.details.getComponentId(), i);
+                    freeIndexes.add(i);
+                    freedCount++;
+                }
+
+                compactedSegments = retainedSegments;
+            }
+
+            if (freedCount == 0 && supersededDictionaryEntries == 0) {
+                return;
+            }
+
+            dictionaryOut.close();
+            try {
+                rewriteDictionary();
+            } catch (final IOException ioe) {
+                // Continue appending to the dictionary as it is; the latest entry for each index is the one that is loaded.
+                dictionaryOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(directory, DICTIONARY_FILENAME), true)));
+                throw ioe;
+            }
+
+            logger.debug("Compacted the dictionary of {}, removing {} superseded entries and {} components whose history is no longer retained",
+                this, supersededDictionaryEntries, freedCount);
+            supersededDictionaryEntries = 0;
+        }
+    }
+
+    private void downsample(final List<StatusSegment> rawSegments) throws IOException {
+        final long start = rawSegments.stream().mapToLong(StatusSegment::getStart).min().getAsLong();
+        final long end = rawSegments.stream().mapToLong(StatusSegment::getEnd).max().getAsLong();
+
+        // Determine how many snapshots were captured in each downsample interval and which components have snapshots
+        final TreeMap<Long, Integer> snapshotCounts = new TreeMap<>();
+        final TreeSet<Integer> componentIndexSet = new TreeSet<>();
+        final Map<StatusSegment, StatusSegment.Index> indexes = new HashMap<>();
+        for (final StatusSegment segment : rawSegments) {
+            final StatusSegment.Index index = getIndex(segment);
+            indexes.put(segment, index);
+
+            for (final long timestamp : index.getTimestamps()) {
+                snapshotCounts.merge(getBucket(timestamp), 1, Integer::sum);
+            }
+            for (final int componentIndex : index.getComponentIndexes()) {
+                componentIndexSet.add(componentIndex);
+            }
+        }
+
+        final long[] bucketTimestamps = new long[snapshotCounts.size()];
+        int bucketIndex = 0;
+        for (final Long bucket : snapshotCounts.keySet()) {
+            bucketTimestamps[bucketIndex++] = bucket;
+        }
+
+        final File file = StatusSegment.createFile(segmentDirectory, StatusSegment.Level.DOWNSAMPLED, start, end);
+        final StatusSegment downsampled;
+        try (final StatusSegment.Writer writer = new StatusSegment.Writer(file, start, end, bucketTimestamps)) {
+            final ByteSink series = new ByteSink(1024);
+            for (final Integer componentIndex : componentIndexSet) {
+                final ComponentKind kind = getComponentKind(componentIndex);
+
+                final List<Entry> entries = new ArrayList<>();
+                for (final StatusSegment segment : rawSegments) {
+                    final byte[] segmentSeries = segment.readSeries(indexes.get(segment), componentIndex);
+                    if (segmentSeries != null) {
+                        entries.addAll(StatusSnapshotCodec.readSeries(segmentSeries, segmentSeries.length, segment.getStart(), Long.MIN_VALUE, Long.MAX_VALUE));
+                    }
+                }
+                entries.sort(Comparator.comparingLong(Entry::getTimestamp));
+
+                series.clear();
+                long previousTimestamp = start;
+                int bucketStart = 0;
+                while (bucketStart < entries.size()) {
+                    final long bucket = getBucket(entries.get(bucketStart).getTimestamp());
+                    int bucketEnd = bucketStart + 1;
+                    while (bucketEnd < entries.size() && getBucket(entries.get(bucketEnd).getTimestamp()) == bucket) {
+                        bucketEnd++;
+                    }
+
+                    final Entry averaged = StatusSnapshotCodec.average(entries.subList(bucketStart, bucketEnd), snapshotCounts.get(bucket), kind, bucket);
+                    series.writeVarLong(bucket - previousTimestamp);
+                    StatusSnapshotCodec.writeEntry(averaged, series);
+                    previousTimestamp = bucket;
+                    bucketStart = bucketEnd;
+                }
+
+                if (series.getLength() > 0) {
+                    writer.addSeries(componentIndex, series.getBytes(), series.getLength());
+                }
+            }
+
+            downsampled = writer.commit();
+        }
+
+        replaceSegments(rawSegments, downsampled);
+        logger.info("Downsampled {} status history segments into {}", rawSegments.size(), downsampled);
+    }
+
+    private long getBucket(final long timestamp) {
+        return Math.floorDiv(timestamp, downsampleMillis) * downsampleMillis;
+    }
+
+    private synchronized ComponentKind getComponentKind(final int componentIndex) {
+        return dictionary.get(componentIndex).kind;
+    }
+
+    private void loadDictionary() throws IOException {
+        final File dictionaryFile = new File(directory, DICTIONARY_FILENAME);
+        final Map<Integer, DictionaryEntry> entries = new TreeMap<>();
+
+        if (dictionaryFile.exists()) {
+            try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(dictionaryFile)))) {
+                while (true) {
+                    final int index;
+                    try {
+                        index = in.readInt();
+                    } catch (final EOFException eof) {
+                        break;
+                    }
+
+                    try {
+                        final ComponentKind kind = ComponentKind.fromId(in.readByte());
+                        final ComponentDetails details = new ComponentDetails(readNullableString(in), readNullableString(in), readNullableString(in),
+                            readNullableString(in), readNullableString(in), readNullableString(in), readNullableString(in));
+                        entries.put(index, new DictionaryEntry(kind, details));
+                    } catch (final EOFException eof) {
+                        logger.warn("Component Status Repository dictionary {} ends with an incomplete entry, which will be ignored", dictionaryFile);
+                        break;
+                    }
+                }
+            }
+        }
+
+        // Indexes are assigned sequentially, so any gap means that the entry was lost. Its history can no longer be attributed to a component.
+        int expectedIndex = 0;
+        for (final Map.Entry<Integer, DictionaryEntry> entry : entries.entrySet()) {
+            while (expectedIndex < entry.getKey()) {
+                dictionary.add(new DictionaryEntry(ComponentKind.PROCESSOR, new ComponentDetails("unknown:" + expectedIndex, null, null, null, null, null, null)));
+                expectedIndex++;
+            }
+
+            dictionary.add(entry.getValue());
+            componentIndexes.put(entry.getValue().details.getComponentId(), expectedIndex);
+            expectedIndex++;
+        }
+
+        rewriteDictionary();
+    }
+
+    /**
+     * Rewrites the dictionary so that it holds only the latest details of each component, and opens it so that entries can be appended.
+     * Must be called while synchronized on 'this', unless the repository is being initialized.
+     */
+    private void rewriteDictionary() throws IOException {
+        final File dictionaryFile = new File(directory, DICTIONARY_FILENAME);
+        final File compacted = new File(directory, DICTIONARY_FILENAME + ".tmp");
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(compacted)))) {
+            for (int i = 0; i < dictionary.size(); i++) {
+                final DictionaryEntry entry = dictionary.get(i);
+                if (entry != null) {
+                    writeDictionaryEntry(out, i, entry);
+                }
+            }
+        }
+        Files.move(compacted.toPath(), dictionaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        dictionaryOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dictionaryFile, true)));
+    }
+
+    private static void writeDictionaryEntry(final DataOutputStream out, final int index, final DictionaryEntry entry) throws IOException {
+        final ComponentDetails details = entry.details;
+        out.writeInt(index);
+        out.writeByte(entry.kind.getId());
+        writeNullableString(out, details.getComponentId());
+        writeNullableString(out, details.getGroupId());
+        writeNullableString(out, details.getComponentName());
+        writeNullableString(out, details.getComponentType());
+        writeNullableString(out, details.getSourceName());
+        writeNullableString(out, details.getDestinationName());
+        writeNullableString(out, details.getTargetUri());
+    }
+
+    private static void writeNullableString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private void loadSegments() throws IOException {
+        final File[] files = segmentDirectory.listFiles();
+        if (files == null) {
+            throw new IOException("Unable to list files in " + segmentDirectory);
+        }
+
+        final List<StatusSegment> loaded = new ArrayList<>();
+        for (final File file : files) {
+            if (StatusSegment.isPartial(file)) {
+                // NiFi was stopped while the segment was being written. Its contents are still held by the journal or by the segments
+                // that were being downsampled.
+                Files.deleteIfExists(file.toPath());
+                continue;
+            }
+
+            final StatusSegment segment = StatusSegment.fromFile(file);
+            if (segment != null) {
+                loaded.add(segment);
+            }
+        }
+
+        // If NiFi was stopped after a downsampled segment was written but before the raw segments it replaced were deleted, delete them now
+        final List<StatusSegment> replaced = new ArrayList<>();
+        for (final StatusSegment segment : loaded) {
+            if (segment.getLevel() != StatusSegment.Level.RAW) {
+                continue;
+            }
+
+            for (final StatusSegment other : loaded) {
+                if (other.getLevel() == StatusSegment.Level.DOWNSAMPLED && other.getStart() <= segment.getStart() && other.getEnd() >= segment.getEnd()) {
+                    replaced.add(segment);
+                    break;
+                }
+            }
+        }
+
+        for (final StatusSegment segment : replaced) {
+            loaded.remove(segment);
+            Files.deleteIfExists(segment.getFile().toPath());
+        }
+
+        loaded.sort(Comparator.comparingLong(StatusSegment::getStart));
+        segments = Collections.unmodifiableList(loaded);
+    }
+
+    private void recoverJournal() throws IOException {
+        final File journalFile = new File(directory, JOURNAL_FILENAME);
+        int recoveredCount = 0;
+
+        if (journalFile.exists()) {
+            try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+                while (true) {
+                    final long captureTime;
+                    final List<CapturedSnapshot> captured = new ArrayList<>();
+                    try {
+                        captureTime = in.readLong();
+                        final int count = in.readInt();
+                        for (int i = 0; i < count; i++) {
+                            final int componentIndex = in.readInt();
+                            final byte[] payload = new byte[in.readInt()];
+                            in.readFully(payload);
+                            captured.add(new CapturedSnapshot(componentIndex, payload));
+                        }
+                    } catch (final EOFException eof) {
+                        // NiFi was stopped while the last capture was being written to the journal, or the journal is complete.
+                        break;
+                    }
+
+                    addToActiveSegment(captureTime, captured, true);
+                    lastCaptureTime = Math.max(lastCaptureTime, captureTime);
+                    recoveredCount++;
+                }
+            }
+        }
+
+        // Rewrite the journal so that it holds only the snapshots that have not been written to a segment
+        final File rewritten = new File(directory, JOURNAL_FILENAME + ".tmp");
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(rewritten)))) {
+            if (activeSegment != null) {
+                activeSegment.writeJournal(out);
+            }
+        }
+        Files.move(rewritten.toPath(), journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        journalOut = openJournal(true);
+        logger.debug("Recovered {} captures from the journal of {}", recoveredCount, this);
+    }
+
+    private DataOutputStream openJournal(final boolean append) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(directory, JOURNAL_FILENAME), append)));
+    }
+
+    /**
+     * Stops the background maintenance and closes the dictionary and journal. Snapshots that have not yet been written to a segment are
+     * recovered from the journal when the repository is next created.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        maintenanceExecutor.shutdown();
+        try {
+            journalOut.close();
+        } finally {
+            dictionaryOut.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PersistentComponentStatusRepository[directory=" + directory + "]";
+    }
+
+    private static class DictionaryEntry {
+        private final ComponentKind kind;
+        private final ComponentDetails details;
+
+        DictionaryEntry(final ComponentKind kind, final ComponentDetails details) {
+            this.kind = kind;
+            this.details = details;
+        }
+    }
+
+    private static class CapturedSnapshot {
+        private final int componentIndex;
+        private final byte[] payload;
+
+        CapturedSnapshot(final int componentIndex, final byte[] payload) {
+            this.componentIndex = componentIndex;
+            this.payload = payload;
+        }
+    }
+
+    private static class ActiveSeries {
+        private final ByteSink bytes = new ByteSink(64);
+        private long lastTimestamp;
+
+        ActiveSeries(final long start) {
+            this.lastTimestamp = start;
+        }
+    }
+
+    /**
+     * The snapshots of the segment that is currently being captured, which are held in memory until the segment is written
+     */
+    private static class ActiveSegment {
+        private final long start;
+        private final long end;
+        private final Map<Integer, ActiveSeries> series = new TreeMap<>();
+        private final List<List<CapturedSnapshot>> captures = new ArrayList<>();
+        private long[] timestamps = new long[16];
+        private int timestampCount = 0;
+
+        ActiveSegment(final long start, final long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        boolean contains(final long timestamp) {
+            return timestamp >= start && timestamp < end;
+        }
+
+        boolean overlaps(final long rangeStart, final long rangeEnd) {
+            return start <= rangeEnd && end > rangeStart;
+        }
+
+        void add(final long timestamp, final List<CapturedSnapshot> captured) {
+            if (timestampCount == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, timestampCount * 2);
+            }
+            timestamps[timestampCount++] = timestamp;
+            captures.add(captured);
+
+            for (final CapturedSnapshot snapshot : captured) {
+                final ActiveSeries componentSeries = series.computeIfAbsent(snapshot.componentIndex, index -> new ActiveSeries(start));
+                componentSeries.bytes.writeVarLong(timestamp - componentSeries.lastTimestamp);
+                componentSeries.bytes.write(snapshot.payload, 0, snapshot.payload.length);
+                componentSeries.lastTimestamp = timestamp;
+            }
+        }
+
+        long[] getTimestamps() {
+            final long[] sorted = Arrays.copyOf(timestamps, timestampCount);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        void writeJournal(final DataOutputStream out) throws IOException {
+            for (int i = 0; i < timestampCount; i++) {
+                final List<CapturedSnapshot> captured = captures.get(i);
+                out.writeLong(timestamps[i]);
+                out.writeInt(captured.size());
+                for (final CapturedSnapshot snapshot : captured) {
+                    out.writeInt(snapshot.componentIndex);
+                    out.writeInt(snapshot.payload.length);
+                    out.write(snapshot.payload);
+                }
+            }
+        }
+    }
+}
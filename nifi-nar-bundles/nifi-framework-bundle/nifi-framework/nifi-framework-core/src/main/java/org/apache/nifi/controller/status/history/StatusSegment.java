@@ -0,0 +1,360 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status.history;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * A file that holds the status history of all components for a period of time, as written by the {@link PersistentComponentStatusRepository}.
+ * </p>
+ *
+ * <p>
+ * The file starts with a header that contains the start and end of the period and the timestamps at which snapshots were captured, which are
+ * the timestamps that the status history of any component in the period is reported at. The header is followed by the series of snapshots of
+ * each component, as encoded by {@link StatusSnapshotCodec}, one after the other. The file ends with an index of the offset and length of each
+ * component's series, sorted by the component's index in the repository's dictionary, followed by the offset of the index. The status history
+ * of a single component can therefore be read with one read of the index, which is cached, and one read of the component's series.
+ * </p>
+ */
+class StatusSegment {
+    private static final int MAGIC = 0x4E435348; // NCSH
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".seg";
+    private static final String PARTIAL_EXTENSION = ".part";
+    private static final Pattern FILENAME_PATTERN = Pattern.compile("(raw|downsampled)-(\\d+)-(\\d+)(?:-(\\d+))?\\.seg");
+
+    /**
+     * Whether a segment holds the snapshots as they were captured or snapshots that have been averaged over a longer interval
+     */
+    enum Level {
+        RAW("raw"),
+        DOWNSAMPLED("downsampled");
+
+        private final String prefix;
+
+        Level(final String prefix) {
+            this.prefix = prefix;
+        }
+
+        static Level fromPrefix(final String prefix) {
+            for (final Level level : values()) {
+                if (level.prefix.equals(prefix)) {
+                    return level;
+                }
+            }
+
+            throw new IllegalArgumentException("Unknown segment level " + prefix);
+        }
+    }
+
+    private final File file;
+    private final Level level;
+    private final long start;
+    private final long end;
+
+    private StatusSegment(final File file, final Level level, final long start, final long end) {
+        this.file = file;
+        this.level = level;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @param file a file in the segment directory
+     * @return the segment that is stored in the given file, or <code>null</code> if the file is not a segment
+     */
+    static StatusSegment fromFile(final File file) {
+        final Matcher matcher = FILENAME_PATTERN.matcher(file.getName());
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        return new StatusSegment(file, Level.fromPrefix(matcher.group(1)), Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3)));
+    }
+
+    /**
+     * @return whether or not the given file is a segment that was not completely written
+     */
+    static boolean isPartial(final File file) {
+        return file.getName().endsWith(EXTENSION + PARTIAL_EXTENSION);
+    }
+
+    /**
+     * Chooses the file for a new segment. More than one segment may cover the same period if status was captured with timestamps that were
+     * out of order, in which case a sequence number distinguishes them.
+     *
+     * @param directory the segment directory
+     * @param level the level of the segment
+     * @param start the start of the period that the segment covers
+     * @param end the end of the period that the segment covers
+     * @return a file in the segment directory that does not yet exist
+     */
+    static File createFile(final File directory, final Level level, final long start, final long end) {
+        final String baseName = level.prefix + "-" + start + "-" + end;
+        File file = new File(directory, baseName + EXTENSION);
+        for (int sequence = 1; file.exists(); sequence++) {
+            file = new File(directory, baseName + "-" + sequence + EXTENSION);
+        }
+
+        return file;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    Level getLevel() {
+        return level;
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    long getEnd() {
+        return end;
+    }
+
+    boolean overlaps(final long rangeStart, final long rangeEnd) {
+        return start <= rangeEnd && end > rangeStart;
+    }
+
+    /**
+     * @return the header and index of this segment
+     * @throws IOException if unable to read the segment
+     */
+    Index readIndex() throws IOException {
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            final long fileLength = raf.length();
+            if (fileLength < 40) {
+                throw new IOException("Status history segment " + file + " is truncated");
+            }
+
+            final byte[] header = new byte[28];
+            raf.readFully(header);
+            final ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+            if (headerBuffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a status history segment");
+            }
+            final int version = headerBuffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Status history segment " + file + " has unsupported version " + version);
+            }
+            headerBuffer.getLong(); // start
+            headerBuffer.getLong(); // end
+            final int timestampCount = headerBuffer.getInt();
+
+            final ByteBuffer timestampBuffer = read(raf, 28, timestampCount * 8L);
+            final long[] timestamps = new long[timestampCount];
+            for (int i = 0; i < timestampCount; i++) {
+                timestamps[i] = timestampBuffer.getLong();
+            }
+
+            final ByteBuffer footer = read(raf, fileLength - 12, 12);
+            final long indexOffset = footer.getLong();
+            if (footer.getInt() != MAGIC || indexOffset < 0 || indexOffset > fileLength - 16) {
+                throw new IOException("Status history segment " + file + " is corrupt");
+            }
+
+            final ByteBuffer indexBuffer = read(raf, indexOffset, fileLength - 12 - indexOffset);
+            final int componentCount = indexBuffer.getInt();
+            final int[] componentIndexes = new int[componentCount];
+            final long[] offsets = new long[componentCount];
+            final int[] lengths = new int[componentCount];
+            for (int i = 0; i < componentCount; i++) {
+                componentIndexes[i] = indexBuffer.getInt();
+                offsets[i] = indexBuffer.getLong();
+                lengths[i] = indexBuffer.getInt();
+            }
+
+            return new Index(timestamps, componentIndexes, offsets, lengths);
+        }
+    }
+
+    /**
+     * @param index the index of this segment
+     * @param componentIndex the index of the component in the repository's dictionary
+     * @return the encoded series of the given component's snapshots, or <code>null</code> if this segment has no snapshots for the component
+     * @throws IOException if unable to read the segment
+     */
+    byte[] readSeries(final Index index, final int componentIndex) throws IOException {
+        final int position = Arrays.binarySearch(index.componentIndexes, componentIndex);
+        if (position < 0) {
+            return null;
+        }
+
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            final byte[] series = new byte[index.lengths[position]];
+            raf.seek(index.offsets[position]);
+            raf.readFully(series);
+            return series;
+        }
+    }
+
+    private static ByteBuffer read(final RandomAccessFile raf, final long offset, final long length) throws IOException {
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Invalid status history segment region length " + length);
+        }
+
+        final byte[] bytes = new byte[(int) length];
+        raf.seek(offset);
+        raf.readFully(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "StatusSegment[" + file.getName() + "]";
+    }
+
+    /**
+     * The timestamps at which the snapshots in a segment were captured and the location of each component's series
+     */
+    static class Index {
+        private final long[] timestamps;
+        private final int[] componentIndexes;
+        private final long[] offsets;
+        private final int[] lengths;
+
+        Index(final long[] timestamps, final int[] componentIndexes, final long[] offsets, final int[] lengths) {
+            this.timestamps = timestamps;
+            this.componentIndexes = componentIndexes;
+            this.offsets = offsets;
+            this.lengths = lengths;
+        }
+
+        long[] getTimestamps() {
+            return timestamps;
+        }
+
+        int[] getComponentIndexes() {
+            return componentIndexes;
+        }
+    }
+
+    /**
+     * Writes a new segment. The segment is written to a temporary file that is renamed once it is complete, so that a segment that was
+     * only partially written, because NiFi was stopped, is never read.
+     */
+    static class Writer implements Closeable {
+        private final File destination;
+        private final File partialFile;
+        private final DataOutputStream out;
+        private final ByteBuffer indexBuffer;
+        private int[] componentIndexes = new int[64];
+        private long[] offsets = new long[64];
+        private int[] lengths = new int[64];
+        private int componentCount = 0;
+        private long position;
+        private boolean committed = false;
+
+        Writer(final File destination, final long start, final long end, final long[] timestamps) throws IOException {
+            this.destination = destination;
+            this.partialFile = new File(destination.getParentFile(), destination.getName() + PARTIAL_EXTENSION);
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(partialFile), 65536));
+            this.indexBuffer = ByteBuffer.allocate(16);
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(start);
+            out.writeLong(end);
+            out.writeInt(timestamps.length);
+            for (final long timestamp : timestamps) {
+                out.writeLong(timestamp);
+            }
+
+            position = 28L + timestamps.length * 8L;
+        }
+
+        /**
+         * Adds the series of a component. Series must be added in ascending order of component index.
+         *
+         * @param componentIndex the index of the component in the repository's dictionary
+         * @param series the encoded series
+         * @param length the number of bytes of the encoded series
+         * @throws IOException if unable to write to the segment
+         */
+        void addSeries(final int componentIndex, final byte[] series, final int length) throws IOException {
+            if (componentCount > 0 && componentIndexes[componentCount - 1] >= componentIndex) {
+                throw new IllegalArgumentException("Series must be added in ascending order of component index");
+            }
+
+            if (componentCount == componentIndexes.length) {
+                final int newLength = componentCount * 2;
+                componentIndexes = Arrays.copyOf(componentIndexes, newLength);
+                offsets = Arrays.copyOf(offsets, newLength);
+                lengths = Arrays.copyOf(lengths, newLength);
+            }
+
+            componentIndexes[componentCount] = componentIndex;
+            offsets[componentCount] = position;
+            lengths[componentCount] = length;
+            componentCount++;
+
+            out.write(series, 0, length);
+            position += length;
+        }
+
+        /**
+         * Writes the index, syncs the segment to disk and moves it to its destination
+         *
+         * @return the segment that was written
+         * @throws IOException if unable to write the segment
+         */
+        StatusSegment commit() throws IOException {
+            final long indexOffset = position;
+            out.writeInt(componentCount);
+            for (int i = 0; i < componentCount; i++) {
+                indexBuffer.clear();
+                indexBuffer.putInt(componentIndexes[i]);
+                indexBuffer.putLong(offsets[i]);
+                indexBuffer.putInt(lengths[i]);
+                out.write(indexBuffer.array(), 0, 16);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(MAGIC);
+            out.flush();
+
+            out.close();
+            Files.move(partialFile.toPath(), destination.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+
+            return fromFile(destination);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(partialFile.toPath());
+            }
+        }
+    }
+}
@@ -0,0 +1,433 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status.history;
+
+import org.apache.nifi.util.ComponentMetrics;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>
+ * Encodes and decodes the status snapshots that are stored by the {@link PersistentComponentStatusRepository}.
+ * </p>
+ *
+ * <p>
+ * The snapshots of a single component are stored together as a series of entries, each of which consists of the difference between its
+ * timestamp and the timestamp of the previous entry in the series, followed by the number of metric values and the values themselves, in the
+ * order of the component's status descriptors, followed by the number of counters and the name and value of each counter. All numbers are
+ * written as zig-zag encoded variable-length integers, so the small values that make up most status snapshots take one or two bytes.
+ * Because the number of metric values is written with each entry, series that were written before a metric was added can still be read.
+ * </p>
+ */
+class StatusSnapshotCodec {
+
+    /**
+     * The types of component whose status is stored. The identifier of each is written to disk and so must never change.
+     */
+    enum ComponentKind {
+        PROCESSOR(0, descriptors(ProcessorStatusDescriptor.values())),
+        CONNECTION(1, descriptors(ConnectionStatusDescriptor.values())),
+        PROCESS_GROUP(2, descriptors(ProcessGroupStatusDescriptor.values())),
+        REMOTE_PROCESS_GROUP(3, descriptors(RemoteProcessGroupStatusDescriptor.values())),
+        GARBAGE_COLLECTION(4, Collections.emptyList());
+
+        private final int id;
+        private final List<MetricDescriptor<?>> descriptors;
+        private final Set<MetricDescriptor<?>> descriptorSet;
+
+        ComponentKind(final int id, final List<MetricDescriptor<?>> descriptors) {
+            this.id = id;
+            this.descriptors = descriptors;
+            this.descriptorSet = new LinkedHashSet<>(descriptors);
+        }
+
+        int getId() {
+            return id;
+        }
+
+        /**
+         * @return the status descriptors of this kind of component, in the order in which their values are written
+         */
+        List<MetricDescriptor<?>> getDescriptors() {
+            return descriptors;
+        }
+
+        Set<MetricDescriptor<?>> getDescriptorSet() {
+            return descriptorSet;
+        }
+
+        static ComponentKind fromId(final int id) {
+            for (final ComponentKind kind : values()) {
+                if (kind.id == id) {
+                    return kind;
+                }
+            }
+
+            throw new IllegalArgumentException("Unknown Component Kind " + id);
+        }
+
+        private static List<MetricDescriptor<?>> descriptors(final Object[] statusDescriptors) {
+            final List<MetricDescriptor<?>> descriptors = new ArrayList<>(statusDescriptors.length);
+            for (final Object statusDescriptor : statusDescriptors) {
+                if (statusDescriptor instanceof ProcessorStatusDescriptor) {
+                    descriptors.add(((ProcessorStatusDescriptor) statusDescriptor).getDescriptor());
+                } else if (statusDescriptor instanceof ConnectionStatusDescriptor) {
+                    descriptors.add(((ConnectionStatusDescriptor) statusDescriptor).getDescriptor());
+                } else if (statusDescriptor instanceof ProcessGroupStatusDescriptor) {
+                    descriptors.add(((ProcessGroupStatusDescriptor) statusDescriptor).getDescriptor());
+                } else {
+                    descriptors.add(((RemoteProcessGroupStatusDescriptor) statusDescriptor).getDescriptor());
+                }
+            }
+
+            return Collections.unmodifiableList(descriptors);
+        }
+    }
+
+    /**
+     * A decoded status snapshot, or a snapshot of a garbage collector's cumulative collection count and time
+     */
+    static class Entry {
+        private final long timestamp;
+        private final long[] values;
+        private final String[] counterNames;
+        private final long[] counterValues;
+
+        Entry(final long timestamp, final long[] values, final String[] counterNames, final long[] counterValues) {
+            this.timestamp = timestamp;
+            this.values = values;
+            this.counterNames = counterNames;
+            this.counterValues = counterValues;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        long[] getValues() {
+            return values;
+        }
+
+        String[] getCounterNames() {
+            return counterNames;
+        }
+
+        long[] getCounterValues() {
+            return counterValues;
+        }
+
+        Entry withTimestamp(final long newTimestamp) {
+            return new Entry(newTimestamp, values, counterNames, counterValues);
+        }
+
+        StatusSnapshot toSnapshot(final ComponentKind kind, final boolean includeCounters) {
+            final StandardStatusSnapshot snapshot = new StandardStatusSnapshot(kind.getDescriptorSet());
+            snapshot.setTimestamp(new Date(timestamp));
+
+            final List<MetricDescriptor<?>> descriptors = kind.getDescriptors();
+            for (int i = 0; i < descriptors.size(); i++) {
+                snapshot.addStatusMetric(descriptors.get(i), i < values.length ? values[i] : 0L);
+            }
+
+            if (includeCounters) {
+                for (int i = 0; i < counterNames.length; i++) {
+                    snapshot.addStatusMetric(ComponentMetrics.createCounterDescriptor(counterNames[i]), counterValues[i]);
+                }
+            }
+
+            return snapshot;
+        }
+    }
+
+    private static final String[] NO_COUNTER_NAMES = new String[0];
+    private static final long[] NO_COUNTER_VALUES = new long[0];
+
+    /**
+     * Writes the metric values and counters of the given snapshot, without its timestamp
+     *
+     * @param snapshot the snapshot to write
+     * @param kind the kind of component that the snapshot belongs to
+     * @param out the buffer to write to
+     */
+    static void writeSnapshot(final StatusSnapshot snapshot, final ComponentKind kind, final ByteSink out) {
+        final List<MetricDescriptor<?>> descriptors = kind.getDescriptors();
+        out.writeVarLong(descriptors.size());
+        for (final MetricDescriptor<?> descriptor : descriptors) {
+            final Long value = snapshot.getStatusMetric(descriptor);
+            out.writeVarLong(value == null ? 0L : value);
+        }
+
+        int counterCount = 0;
+        for (final MetricDescriptor<?> descriptor : snapshot.getMetricDescriptors()) {
+            if (descriptor.isCounter()) {
+                counterCount++;
+            }
+        }
+
+        out.writeVarLong(counterCount);
+        if (counterCount > 0) {
+            for (final MetricDescriptor<?> descriptor : snapshot.getMetricDescriptors()) {
+                if (descriptor.isCounter()) {
+                    final Long value = snapshot.getStatusMetric(descriptor);
+                    out.writeString(descriptor.getField());
+                    out.writeVarLong(value == null ? 0L : value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the cumulative collection count and time of a garbage collector, without a timestamp
+     *
+     * @param status the garbage collection status to write
+     * @param out the buffer to write to
+     */
+    static void writeGarbageCollectionStatus(final GarbageCollectionStatus status, final ByteSink out) {
+        out.writeVarLong(2);
+        out.writeVarLong(status.getCollectionCount());
+        out.writeVarLong(status.getCollectionMillis());
+        out.writeVarLong(0);
+    }
+
+    /**
+     * Writes the values and counters of the given entry, without its timestamp
+     *
+     * @param entry the entry to write
+     * @param out the buffer to write to
+     */
+    static void writeEntry(final Entry entry, final ByteSink out) {
+        out.writeVarLong(entry.values.length);
+        for (final long value : entry.values) {
+            out.writeVarLong(value);
+        }
+
+        out.writeVarLong(entry.counterNames.length);
+        for (int i = 0; i < entry.counterNames.length; i++) {
+            out.writeString(entry.counterNames[i]);
+            out.writeVarLong(entry.counterValues[i]);
+        }
+    }
+
+    /**
+     * Reads all entries of a series
+     *
+     * @param series the encoded series
+     * @param length the number of bytes of the encoded series
+     * @param baseTimestamp the timestamp that the first entry's timestamp is relative to
+     * @param start the earliest timestamp of the entries to return
+     * @param end the latest timestamp of the entries to return
+     * @return the entries whose timestamps are between the given start and end, inclusive
+     * @throws IOException if the series is corrupt
+     */
+    static List<Entry> readSeries(final byte[] series, final int length, final long baseTimestamp, final long start, final long end) throws IOException {
+        final ByteSource in = new ByteSource(series, length);
+        final List<Entry> entries = new ArrayList<>();
+
+        long timestamp = baseTimestamp;
+        while (in.hasRemaining()) {
+            timestamp += in.readVarLong();
+
+            final int valueCount = (int) in.readVarLong();
+            final long[] values = new long[valueCount];
+            for (int i = 0; i < valueCount; i++) {
+                values[i] = in.readVarLong();
+            }
+
+            final int counterCount = (int) in.readVarLong();
+            final String[] counterNames = counterCount == 0 ? NO_COUNTER_NAMES : new String[counterCount];
+            final long[] counterValues = counterCount == 0 ? NO_COUNTER_VALUES : new long[counterCount];
+            for (int i = 0; i < counterCount; i++) {
+                counterNames[i] = in.readString();
+                counterValues[i] = in.readVarLong();
+            }
+
+            if (timestamp >= start && timestamp <= end) {
+                entries.add(new Entry(timestamp, values, counterNames, counterValues));
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Combines the given entries into a single entry whose values are the averages of the entries' values. Snapshots are only stored for
+     * components that had some activity, so the number of snapshots that were captured in the period that the entries cover is provided,
+     * and the missing snapshots count as zero. For a garbage collector, whose values are cumulative, the latest values are retained.
+     *
+     * @param entries the entries to combine, in the order of their timestamps
+     * @param snapshotCount the number of snapshots that were captured in the period that the entries cover
+     * @param kind the kind of component that the entries belong to
+     * @param timestamp the timestamp of the combined entry
+     * @return the combined entry
+     */
+    static Entry average(final List<Entry> entries, final int snapshotCount, final ComponentKind kind, final long timestamp) {
+        if (kind == ComponentKind.GARBAGE_COLLECTION) {
+            return entries.get(entries.size() - 1).withTimestamp(timestamp);
+        }
+
+        final int divisor = Math.max(snapshotCount, entries.size());
+
+        int valueCount = 0;
+        final List<String> counterNames = new ArrayList<>();
+        for (final Entry entry : entries) {
+            valueCount = Math.max(valueCount, entry.values.length);
+            for (final String counterName : entry.counterNames) {
+                if (!counterNames.contains(counterName)) {
+                    counterNames.add(counterName);
+                }
+            }
+        }
+
+        final long[] valueSums = new long[valueCount];
+        final long[] counterSums = new long[counterNames.size()];
+        for (final Entry entry : entries) {
+            for (int i = 0; i < entry.values.length; i++) {
+                valueSums[i] += entry.values[i];
+            }
+            for (int i = 0; i < entry.counterNames.length; i++) {
+                counterSums[counterNames.indexOf(entry.counterNames[i])] += entry.counterValues[i];
+            }
+        }
+
+        for (int i = 0; i < valueSums.length; i++) {
+            valueSums[i] = Math.round((double) valueSums[i] / divisor);
+        }
+        for (int i = 0; i < counterSums.length; i++) {
+            counterSums[i] = Math.round((double) counterSums[i] / divisor);
+        }
+
+        final String[] names = counterNames.isEmpty() ? NO_COUNTER_NAMES : counterNames.toArray(new String[0]);
+        return new Entry(timestamp, valueSums, names, counterSums.length == 0 ? NO_COUNTER_VALUES : counterSums);
+    }
+
+    /**
+     * A growable buffer of variable-length encoded values
+     */
+    static class ByteSink {
+        private byte[] bytes;
+        private int length = 0;
+
+        ByteSink(final int initialCapacity) {
+            bytes = new byte[Math.max(initialCapacity, 8)];
+        }
+
+        void writeVarLong(final long value) {
+            // zig-zag encode so that small negative values are also small
+            long remaining = (value << 1) ^ (value >> 63);
+            ensureCapacity(10);
+            while ((remaining & ~0x7FL) != 0L) {
+                bytes[length++] = (byte) ((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            bytes[length++] = (byte) remaining;
+        }
+
+        void writeString(final String value) {
+            final byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(encoded.length);
+            write(encoded, 0, encoded.length);
+        }
+
+        void write(final byte[] source, final int offset, final int count) {
+            ensureCapacity(count);
+            System.arraycopy(source, offset, bytes, length, count);
+            length += count;
+        }
+
+        private void ensureCapacity(final int additional) {
+            if (length + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+            }
+        }
+
+        byte[] getBytes() {
+            return bytes;
+        }
+
+        int getLength() {
+            return length;
+        }
+
+        void clear() {
+            length = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+
+    /**
+     * Reads variable-length encoded values that were written by a {@link ByteSink}
+     */
+    static class ByteSource {
+        private final byte[] bytes;
+        private final int length;
+        private int position = 0;
+
+        ByteSource(final byte[] bytes, final int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+
+        boolean hasRemaining() {
+            return position < length;
+        }
+
+        long readVarLong() throws IOException {
+            long encoded = 0L;
+            int shift = 0;
+            while (true) {
+                if (position >= length) {
+                    throw new EOFException("Unexpected end of status history data");
+                }
+                if (shift > 63) {
+                    throw new IOException("Status history data is corrupt: variable-length value is too long");
+                }
+
+                final byte b = bytes[position++];
+                encoded |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+                shift += 7;
+            }
+
+            return (encoded >>> 1) ^ -(encoded & 1L);
+        }
+
+        String readString() throws IOException {
+            final long stringLength = readVarLong();
+            if (stringLength < 0 || stringLength > length - position) {
+                throw new IOException("Status history data is corrupt: invalid string length " + stringLength);
+            }
+
+            final String value = new String(bytes, position, (int) stringLength, StandardCharsets.UTF_8);
+            position += (int) stringLength;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,433 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * A bounded, in-memory copy of the most recently written swap files, keyed by swap location. The serialized form of each swap file
+ * is held in fixed-size chunks of direct (off-heap) memory, so that swapping FlowFiles back in does not require reading the file from
+ * disk, and so that the cached data does not add to the size of the Java heap that swapping is intended to relieve.
+ * </p>
+ *
+ * <p>
+ * The cache is write-through: it never holds the only copy of a swap file. An entry may therefore be evicted at any time, in which case
+ * the swap file is simply read from disk. Chunks are allocated lazily, up to the configured maximum, and are reused rather than freed,
+ * because direct memory is otherwise released only when the garbage collector gets around to collecting the owning buffer.
+ * </p>
+ */
+public class DirectMemorySwapCache {
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private final int chunkSize;
+    private final int maxChunks;
+
+    // all guarded by synchronizing on 'this'
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75F, true);
+    private final Deque<ByteBuffer> freeChunks = new ArrayDeque<>();
+    private int allocatedChunks = 0;
+    private long cachedBytes = 0L;
+    private long hitCount = 0L;
+    private long missCount = 0L;
+    private long evictionCount = 0L;
+    private long rejectionCount = 0L;
+
+    public DirectMemorySwapCache(final long maxBytes) {
+        this(maxBytes, (int) Math.min(DEFAULT_CHUNK_SIZE, maxBytes));
+    }
+
+    public DirectMemorySwapCache(final long maxBytes, final int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        if (maxBytes < chunkSize) {
+            throw new IllegalArgumentException("Maximum size of " + maxBytes + " bytes is smaller than the chunk size of " + chunkSize + " bytes");
+        }
+
+        this.chunkSize = chunkSize;
+        this.maxChunks = (int) Math.min(Integer.MAX_VALUE, maxBytes / chunkSize);
+    }
+
+    /**
+     * Creates a Writer that captures the bytes of a swap file as it is being written. The captured bytes become visible
+     * only once {@link Writer#commit(String)} is called.
+     *
+     * @return a new Writer
+     */
+    public Writer createWriter() {
+        return new Writer();
+    }
+
+    /**
+     * Returns an InputStream over the cached contents of the swap file at the given location, or <code>null</code> if the swap file
+     * is not cached. The cached contents remain available to the returned stream until the stream is closed, even if the entry is
+     * evicted or removed in the meantime.
+     *
+     * @param swapLocation the location of the swap file
+     * @return an InputStream over the cached contents, or <code>null</code> if the swap file is not cached
+     */
+    public synchronized InputStream read(final String swapLocation) {
+        final Entry entry = entries.get(swapLocation);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        entry.references++;
+        return new EntryInputStream(entry);
+    }
+
+    /**
+     * Removes the swap file at the given location from the cache, if it is cached.
+     *
+     * @param swapLocation the location of the swap file
+     */
+    public synchronized void remove(final String swapLocation) {
+        final Entry entry = entries.remove(swapLocation);
+        if (entry != null) {
+            discard(entry);
+        }
+    }
+
+    /**
+     * Updates the cache to reflect that the swap file at the given location has been renamed.
+     *
+     * @param swapLocation the previous location of the swap file
+     * @param newSwapLocation the new location of the swap file
+     */
+    public synchronized void rename(final String swapLocation, final String newSwapLocation) {
+        final Entry entry = entries.remove(swapLocation);
+        if (entry != null) {
+            entries.put(newSwapLocation, entry);
+        }
+    }
+
+    /**
+     * Removes all swap files from the cache.
+     */
+    public synchronized void clear() {
+        final Iterator<Entry> itr = entries.values().iterator();
+        while (itr.hasNext()) {
+            final Entry entry = itr.next();
+            itr.remove();
+            discard(entry);
+        }
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    public synchronized int getCachedSwapFileCount() {
+        return entries.size();
+    }
+
+    public long getMaxBytes() {
+        return (long) maxChunks * chunkSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of swap files that were removed from the cache in order to make room for more recently written swap files
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return the number of swap files that could not be cached because there was not enough room for them
+     */
+    public synchronized long getRejectionCount() {
+        return rejectionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DirectMemorySwapCache[cachedSwapFiles=" + entries.size() + ", cachedBytes=" + cachedBytes + ", maxBytes=" + getMaxBytes()
+            + ", hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + ", rejections=" + rejectionCount + "]";
+    }
+
+    private synchronized ByteBuffer allocateChunk() {
+        while (true) {
+            final ByteBuffer free = freeChunks.poll();
+            if (free != null) {
+                free.clear();
+                return free;
+            }
+
+            if (allocatedChunks < maxChunks) {
+                allocatedChunks++;
+                return ByteBuffer.allocateDirect(chunkSize);
+            }
+
+            // Evict the least recently used entry. If it is being read, its chunks are returned once the reader is done with them,
+            // so keep evicting until a chunk is freed up or there is nothing left to evict.
+            final Iterator<Entry> itr = entries.values().iterator();
+            if (!itr.hasNext()) {
+                return null;
+            }
+
+            final Entry eldest = itr.next();
+            itr.remove();
+            evictionCount++;
+            discard(eldest);
+        }
+    }
+
+    private synchronized void releaseChunks(final List<ByteBuffer> chunks) {
+        freeChunks.addAll(chunks);
+        chunks.clear();
+    }
+
+    private synchronized void publish(final String swapLocation, final Entry entry) {
+        final Entry previous = entries.put(swapLocation, entry);
+        if (previous != null) {
+            discard(previous);
+        }
+
+        cachedBytes += entry.length;
+    }
+
+    private synchronized void reject(final List<ByteBuffer> chunks) {
+        rejectionCount++;
+        releaseChunks(chunks);
+    }
+
+    // must be called while synchronized on 'this', after the entry has been removed from the map
+    private void discard(final Entry entry) {
+        if (!entry.discarded) {
+            entry.discarded = true;
+            cachedBytes -= entry.length;
+        }
+
+        if (entry.references == 0) {
+            releaseChunks(entry.chunks);
+        }
+    }
+
+    private synchronized void release(final Entry entry) {
+        entry.references--;
+        if (entry.discarded && entry.references == 0) {
+            releaseChunks(entry.chunks);
+        }
+    }
+
+
+    private static class Entry {
+        private final List<ByteBuffer> chunks;
+        private final long length;
+        private int references = 0;
+        private boolean discarded = false;
+
+        Entry(final List<ByteBuffer> chunks, final long length) {
+            this.chunks = chunks;
+            this.length = length;
+        }
+    }
+
+    /**
+     * An OutputStream that copies the bytes that are written to it into direct memory. If the cache runs out of room while the swap file
+     * is being written, the bytes captured so far are given back and everything else that is written is ignored, so the Writer never
+     * causes the writing of the swap file itself to fail.
+     */
+    public class Writer extends OutputStream {
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private ByteBuffer current;
+        private long length = 0L;
+        private boolean abandoned = false;
+        private boolean finished = false;
+
+        private Writer() {
+        }
+
+        @Override
+        public void write(final int b) {
+            if (abandoned || !ensureCapacity()) {
+                return;
+            }
+
+            current.put((byte) b);
+            length++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            int offset = off;
+            int remaining = len;
+            while (remaining > 0) {
+                if (abandoned || !ensureCapacity()) {
+                    return;
+                }
+
+                final int toCopy = Math.min(remaining, current.remaining());
+                current.put(b, offset, toCopy);
+                offset += toCopy;
+                remaining -= toCopy;
+                length += toCopy;
+            }
+        }
+
+        private boolean ensureCapacity() {
+            if (finished) {
+                abandoned = true;
+                return false;
+            }
+
+            if (current != null && current.hasRemaining()) {
+                return true;
+            }
+
+            current = allocateChunk();
+            if (current == null) {
+                abandoned = true;
+                reject(chunks);
+                return false;
+            }
+
+            chunks.add(current);
+            return true;
+        }
+
+        /**
+         * Makes the captured bytes available to readers of the given swap location. This should be called only after the swap file has
+         * been durably written to the given location.
+         *
+         * @param swapLocation the location of the swap file whose bytes were captured
+         * @return <code>true</code> if the swap file was cached, <code>false</code> if there was not enough room to cache it
+         */
+        public boolean commit(final String swapLocation) {
+            if (finished) {
+                throw new IllegalStateException("Writer has already been committed or discarded");
+            }
+
+            finished = true;
+            if (abandoned) {
+                return false;
+            }
+
+            for (final ByteBuffer chunk : chunks) {
+                chunk.flip();
+            }
+
+            publish(swapLocation, new Entry(new ArrayList<>(chunks), length));
+            chunks.clear();
+            return true;
+        }
+
+        /**
+         * Gives back any bytes that have been captured without making them available to readers. Has no effect if the
+         * Writer has already been committed.
+         */
+        public void discard() {
+            if (finished) {
+                return;
+            }
+
+            finished = true;
+            if (!abandoned) {
+                releaseChunks(chunks);
+            }
+        }
+
+        /**
+         * Does not give back the captured bytes, so that the Writer can be closed along with the stream of the swap file
+         * before the swap file has been durably written; call {@link #commit(String)} or {@link #discard()} to do that.
+         */
+        @Override
+        public void close() {
+        }
+    }
+
+    private class EntryInputStream extends InputStream {
+        private final Entry entry;
+        private int chunkIndex = 0;
+        private ByteBuffer current;
+        private boolean closed = false;
+
+        EntryInputStream(final Entry entry) {
+            this.entry = entry;
+        }
+
+        private boolean nextChunk() {
+            while (current == null || !current.hasRemaining()) {
+                if (closed || chunkIndex >= entry.chunks.size()) {
+                    return false;
+                }
+
+                // duplicate the buffer so that concurrent readers of the same entry each have their own position
+                current = entry.chunks.get(chunkIndex++).duplicate();
+            }
+
+            return true;
+        }
+
+        @Override
+        public int read() {
+            if (!nextChunk()) {
+                return -1;
+            }
+
+            return current.get() & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextChunk()) {
+                return -1;
+            }
+
+            final int toCopy = Math.min(len, current.remaining());
+            current.get(b, off, toCopy);
+            return toCopy;
+        }
+
+        @Override
+        public int available() {
+            return current == null ? 0 : current.remaining();
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                current = null;
+                release(entry);
+            }
+        }
+    }
+}
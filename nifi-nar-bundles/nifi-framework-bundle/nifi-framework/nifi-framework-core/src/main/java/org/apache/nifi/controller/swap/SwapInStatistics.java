@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics about the FlowFiles that have been swapped in. A single instance is shared by the Swap Managers of all queues, so that the
+ * statistics describe the node as a whole.
+ */
+public class SwapInStatistics {
+    private final AtomicLong swapInCount = new AtomicLong(0L);
+    private final AtomicLong cacheHits = new AtomicLong(0L);
+    private final AtomicLong bytesRead = new AtomicLong(0L);
+    private final AtomicLong swapInNanos = new AtomicLong(0L);
+    private final AtomicLong maxSwapInNanos = new AtomicLong(0L);
+
+    /**
+     * Records that a swap file has been swapped in
+     *
+     * @param bytes the number of bytes of the swap file that were read
+     * @param fromCache whether the swap file was read from the swap cache rather than from disk
+     * @param nanos the number of nanoseconds that it took to swap the FlowFiles in
+     */
+    public void record(final long bytes, final boolean fromCache, final long nanos) {
+        swapInCount.incrementAndGet();
+        if (fromCache) {
+            cacheHits.incrementAndGet();
+        }
+        bytesRead.addAndGet(bytes);
+        swapInNanos.addAndGet(nanos);
+        maxSwapInNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * @return the number of swap files that have been swapped in
+     */
+    public long getSwapInCount() {
+        return swapInCount.get();
+    }
+
+    /**
+     * @return the number of swap files that were swapped in from the swap cache, rather than from disk
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return the total number of bytes of swap files that have been read in order to swap FlowFiles in
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * @param timeUnit the desired time unit
+     * @return the total amount of time that has been spent swapping FlowFiles in
+     */
+    public long getTotalSwapInTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(swapInNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit the desired time unit
+     * @return the average amount of time that it has taken to swap in a single swap file, or 0 if nothing has been swapped in
+     */
+    public long getAverageSwapInTime(final TimeUnit timeUnit) {
+        final long count = swapInCount.get();
+        return count == 0L ? 0L : timeUnit.convert(swapInNanos.get() / count, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit the desired time unit
+     * @return the longest amount of time that it has taken to swap in a single swap file
+     */
+    public long getMaxSwapInTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(maxSwapInNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "SwapInStatistics[swapIns=" + swapInCount.get() + ", cacheHits=" + cacheHits.get() + ", bytesRead=" + bytesRead.get()
+            + ", averageMillis=" + getAverageSwapInTime(TimeUnit.MILLISECONDS) + ", maxMillis=" + getMaxSwapInTime(TimeUnit.MILLISECONDS) + "]";
+    }
+}
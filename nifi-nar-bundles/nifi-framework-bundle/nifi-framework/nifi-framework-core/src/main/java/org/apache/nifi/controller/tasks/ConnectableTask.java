@@ -169,7 +169,7 @@ public class ConnectableTask {
         // Make sure processor has work to do.
         if (!isWorkToDo()) {
             logger.debug("Yielding {} because it has no work to do", connectable);
-            return InvocationResult.yield("No work to do");
+            return InvocationResult.NO_WORK_TO_DO;
         }
 
         if (numRelationships > 0) {
@@ -260,7 +260,7 @@ public class ConnectableTask {
             try {
                 if (batch) {
                     try {
-                        rawSession.commit();
+                        rawSession.commitAsync();
                     } catch (final Throwable t) {
                         final ComponentLog procLog = new SimpleProcessLogger(connectable.getIdentifier(), connectable.getRunnableComponent());
                         procLog.error("Failed to commit session {} due to {}; rolling back", new Object[] { rawSession, t.toString() }, t);
@@ -35,6 +35,11 @@ public interface InvocationResult {
         }
     };
 
+    /**
+     * The result of invoking a component that has no work to do because there is no data in any of its incoming connections
+     */
+    public static final InvocationResult NO_WORK_TO_DO = InvocationResult.yield("No work to do");
+
     public static InvocationResult yield(final String explanation) {
         return new InvocationResult() {
             @Override
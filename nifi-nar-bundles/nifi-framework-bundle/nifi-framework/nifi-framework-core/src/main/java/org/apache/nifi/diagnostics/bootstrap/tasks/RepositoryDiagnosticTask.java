@@ -19,8 +19,11 @@ package org.apache.nifi.diagnostics.bootstrap.tasks;
 import org.apache.nifi.controller.FlowController;
 import org.apache.nifi.controller.repository.ContentRepository;
 import org.apache.nifi.controller.repository.FlowFileRepository;
+import org.apache.nifi.controller.repository.SessionCommitPipeline;
 import org.apache.nifi.controller.scheduling.RepositoryContextFactory;
 import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.swap.DirectMemorySwapCache;
+import org.apache.nifi.controller.swap.SwapInStatistics;
 import org.apache.nifi.diagnostics.DiagnosticTask;
 import org.apache.nifi.diagnostics.DiagnosticsDumpElement;
 import org.apache.nifi.diagnostics.StandardDiagnosticsDumpElement;
@@ -30,6 +33,8 @@ import org.apache.nifi.util.FormatUtils;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class RepositoryDiagnosticTask implements DiagnosticTask {
     private final FlowController flowController;
@@ -66,6 +71,15 @@ public class RepositoryDiagnosticTask implements DiagnosticTask {
             details.add("Failed to gather details about Provenance Repository");
         }
 
+        details.add("");
+        captureDiagnostics(flowController.getSwapInStatistics(), flowController.getSwapCache(), details);
+
+        final SessionCommitPipeline commitPipeline = contextFactory.getCommitPipeline();
+        if (commitPipeline != null) {
+            details.add("");
+            details.add("Session Commit Pipeline: " + commitPipeline);
+        }
+
         return new StandardDiagnosticsDumpElement("NiFi Repositories", details);
     }
 
@@ -95,6 +109,31 @@ public class RepositoryDiagnosticTask implements DiagnosticTask {
             details.add("Provenance Repository <" + containerName + "> Storage Capacity: " + FormatUtils.formatDataSize(repository.getContainerCapacity(containerName)));
             details.add("Provenance Repository <" + containerName + "> Usable Space: " + FormatUtils.formatDataSize(repository.getContainerUsableSpace(containerName)));
         }
+
+        for (final Map.Entry<String, String> entry : repository.getDiagnostics().entrySet()) {
+            details.add("Provenance Repository " + entry.getKey() + ": " + entry.getValue());
+        }
+    }
+
+    private void captureDiagnostics(final SwapInStatistics statistics, final DirectMemorySwapCache swapCache, final List<String> details) {
+        details.add("Swap-In Count: " + statistics.getSwapInCount());
+        details.add("Swap-In Cache Hits: " + statistics.getCacheHits());
+        details.add("Swap-In Bytes Read: " + FormatUtils.formatDataSize(statistics.getBytesRead()));
+        details.add("Swap-In Average Time: " + statistics.getAverageSwapInTime(TimeUnit.MILLISECONDS) + " millis");
+        details.add("Swap-In Max Time: " + statistics.getMaxSwapInTime(TimeUnit.MILLISECONDS) + " millis");
+
+        if (swapCache == null) {
+            details.add("Swap Cache: Disabled");
+            return;
+        }
+
+        details.add("Swap Cache Max Size: " + FormatUtils.formatDataSize(swapCache.getMaxBytes()));
+        details.add("Swap Cache Size: " + FormatUtils.formatDataSize(swapCache.getCachedBytes()));
+        details.add("Swap Cache Swap Files: " + swapCache.getCachedSwapFileCount());
+        details.add("Swap Cache Hits: " + swapCache.getHitCount());
+        details.add("Swap Cache Misses: " + swapCache.getMissCount());
+        details.add("Swap Cache Evictions: " + swapCache.getEvictionCount());
+        details.add("Swap Cache Rejections: " + swapCache.getRejectionCount());
     }
 
 }
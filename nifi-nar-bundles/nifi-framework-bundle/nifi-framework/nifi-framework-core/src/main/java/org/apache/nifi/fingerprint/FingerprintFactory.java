@@ -36,6 +36,7 @@ import org.apache.nifi.bundle.BundleCoordinate;
 import org.apache.nifi.components.ConfigurableComponent;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.queue.QueueMode;
 import org.apache.nifi.controller.serialization.FlowEncodingVersion;
 import org.apache.nifi.controller.serialization.FlowFromDOMFactory;
 import org.apache.nifi.encrypt.StringEncryptor;
@@ -698,6 +699,13 @@ public class FingerprintFactory {
         appendFirstValue(builder, DomUtils.getChildNodesByTagName(connectionElem, "partitioningAttribute"));
         appendFirstValue(builder, DomUtils.getChildNodesByTagName(connectionElem, "loadBalanceCompression"));
 
+        // Only a queue mode other than the default contributes to the fingerprint, so that a flow whose connections use the default queue mode
+        // has the same fingerprint whether or not the queue mode was serialized, as it is not by nodes that predate queue modes.
+        final String queueMode = getFirstValue(DomUtils.getChildNodesByTagName(connectionElem, "queueMode"), QueueMode.PRIORITIZED.name());
+        if (!QueueMode.PRIORITIZED.name().equals(queueMode)) {
+            builder.append(queueMode);
+        }
+
         // relationships
         final NodeList relationshipElems = DomUtils.getChildNodesByTagName(connectionElem, "relationship");
         final List<Element> sortedRelationshipElems = sortElements(relationshipElems, getElementTextComparator());
@@ -19,6 +19,7 @@ package org.apache.nifi.reporting;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -75,11 +76,26 @@ public class StandardEventAccess implements UserAwareEventAccess {
     private final FlowFileEventRepository flowFileEventRepository;
     private final FlowController flowController;
     private final StatusAnalyticsEngine statusAnalyticsEngine;
+    private final long statusCacheNanos;
+
+    private final Object statusSnapshotLock = new Object();
+    private volatile StatusSnapshot statusSnapshot;
 
     public StandardEventAccess(final FlowController flowController, final FlowFileEventRepository flowFileEventRepository) {
+        this(flowController, flowFileEventRepository, 0L);
+    }
+
+    /**
+     * @param flowController the flow controller
+     * @param flowFileEventRepository the FlowFile Event Repository
+     * @param statusCacheMillis how long the status of the entire flow may be reused once it has been computed, or 0 to compute
+     *            the status anew for every request
+     */
+    public StandardEventAccess(final FlowController flowController, final FlowFileEventRepository flowFileEventRepository, final long statusCacheMillis) {
         this.flowController = flowController;
         this.flowFileEventRepository = flowFileEventRepository;
         this.statusAnalyticsEngine = flowController.getStatusAnalyticsEngine();
+        this.statusCacheNanos = TimeUnit.MILLISECONDS.toNanos(statusCacheMillis);
     }
 
     /**
@@ -102,6 +118,11 @@ public class StandardEventAccess implements UserAwareEventAccess {
      */
     @Override
     public ProcessGroupStatus getGroupStatus(final String groupId) {
+        final ProcessGroupStatus snapshotStatus = getGroupStatusFromSnapshot(groupId, authorizable -> true, Integer.MAX_VALUE);
+        if (snapshotStatus != null) {
+            return snapshotStatus;
+        }
+
         final RepositoryStatusReport repoStatusReport = generateRepositoryStatusReport();
         return getGroupStatus(groupId, repoStatusReport);
     }
@@ -169,6 +190,12 @@ public class StandardEventAccess implements UserAwareEventAccess {
      * @return the component status
      */
     public ProcessGroupStatus getGroupStatus(final String groupId, final NiFiUser user, final int recursiveStatusDepth) {
+        final ProcessGroupStatus snapshotStatus = getGroupStatusFromSnapshot(groupId,
+            authorizable -> authorizable.isAuthorized(flowController.getAuthorizer(), RequestAction.READ, user), recursiveStatusDepth);
+        if (snapshotStatus != null) {
+            return snapshotStatus;
+        }
+
         final RepositoryStatusReport repoStatusReport = generateRepositoryStatusReport();
         return getGroupStatus(groupId, repoStatusReport, user, recursiveStatusDepth);
     }
@@ -200,6 +227,12 @@ public class StandardEventAccess implements UserAwareEventAccess {
      * @return the component status
      */
     public ProcessGroupStatus getGroupStatus(final String groupId, final NiFiUser user) {
+        final ProcessGroupStatus snapshotStatus = getGroupStatusFromSnapshot(groupId,
+            authorizable -> authorizable.isAuthorized(flowController.getAuthorizer(), RequestAction.READ, user), Integer.MAX_VALUE);
+        if (snapshotStatus != null) {
+            return snapshotStatus;
+        }
+
         final RepositoryStatusReport repoStatusReport = generateRepositoryStatusReport();
         return getGroupStatus(groupId, repoStatusReport, user);
     }
@@ -224,6 +257,168 @@ public class StandardEventAccess implements UserAwareEventAccess {
         return getGroupStatus(group, statusReport, authorizable -> authorizable.isAuthorized(flowController.getAuthorizer(), RequestAction.READ, user), recursiveStatusDepth, 1);
     }
 
+    /**
+     * Returns the status of the specified group from the most recent snapshot of the status of the entire flow, computing a new
+     * snapshot if the most recent one is older than the configured cache duration. The snapshot is computed without regard to any
+     * user, so the status that is returned is a copy in which the names of the components that are not authorized are replaced with
+     * their identifiers, exactly as if the status had been computed for the user.
+     *
+     * @param groupId group id
+     * @param isAuthorized is authorized check
+     * @param recursiveStatusDepth the number of levels deep we should recurse and still include the the processors' statuses, the groups' statuses, etc. in the returned ProcessGroupStatus
+     * @return the component status, or <code>null</code> if caching is disabled or the group is not part of the snapshot, in which case
+     *         the caller must compute the status itself
+     */
+    private ProcessGroupStatus getGroupStatusFromSnapshot(final String groupId, final Predicate<Authorizable> isAuthorized, final int recursiveStatusDepth) {
+        final StatusSnapshot snapshot = getStatusSnapshot();
+        if (snapshot == null) {
+            return null;
+        }
+
+        final ProcessGroupStatus snapshotStatus = snapshot.getGroupStatus(groupId);
+        final ProcessGroup group = flowController.getFlowManager().getGroup(groupId);
+        if (snapshotStatus == null || group == null) {
+            return null;
+        }
+
+        return copyGroupStatus(snapshotStatus, group, isAuthorized, recursiveStatusDepth, 1);
+    }
+
+    private StatusSnapshot getStatusSnapshot() {
+        if (statusCacheNanos <= 0L) {
+            return null;
+        }
+
+        StatusSnapshot snapshot = statusSnapshot;
+        if (snapshot != null && System.nanoTime() - snapshot.getTimestamp() < statusCacheNanos) {
+            return snapshot;
+        }
+
+        // Only one thread computes the status at a time. Any other thread that needs it waits for that thread to finish and then
+        // uses its result, rather than walking the entire flow itself.
+        synchronized (statusSnapshotLock) {
+            snapshot = statusSnapshot;
+            if (snapshot != null && System.nanoTime() - snapshot.getTimestamp() < statusCacheNanos) {
+                return snapshot;
+            }
+
+            final ProcessGroup rootGroup = flowController.getFlowManager().getRootGroup();
+            if (rootGroup == null) {
+                return null;
+            }
+
+            final long timestamp = System.nanoTime();
+            final ProcessGroupStatus rootStatus = getGroupStatus(rootGroup, generateRepositoryStatusReport(), authorizable -> true, Integer.MAX_VALUE, 1);
+            snapshot = new StatusSnapshot(rootStatus, timestamp);
+            statusSnapshot = snapshot;
+
+            logger.debug("Computed status of {} Process Groups in {} millis", snapshot.getGroupCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - timestamp));
+            return snapshot;
+        }
+    }
+
+    /**
+     * Copies the given status, which was computed without regard to any user, filtering it by executing the specified predicate
+     * against the components of the given group. A component that has been removed since the status was computed is considered
+     * not authorized.
+     *
+     * @param snapshotStatus the status to copy
+     * @param group the group whose status is being copied, or <code>null</code> if it has been removed
+     * @param isAuthorized is authorized check
+     * @param recursiveStatusDepth the number of levels deep we should recurse and still include the the processors' statuses, the groups' statuses, etc. in the returned ProcessGroupStatus
+     * @param currentDepth the current number of levels deep that we have recursed
+     * @return the filtered copy of the status
+     */
+    private ProcessGroupStatus copyGroupStatus(final ProcessGroupStatus snapshotStatus, final ProcessGroup group, final Predicate<Authorizable> isAuthorized,
+                                               final int recursiveStatusDepth, final int currentDepth) {
+        final ProcessGroupStatus status = new ProcessGroupStatus();
+        status.setId(snapshotStatus.getId());
+        status.setName(isAuthorized(group, isAuthorized) ? snapshotStatus.getName() : snapshotStatus.getId());
+        status.setVersionedFlowState(snapshotStatus.getVersionedFlowState());
+        status.setActiveThreadCount(snapshotStatus.getActiveThreadCount());
+        status.setTerminatedThreadCount(snapshotStatus.getTerminatedThreadCount());
+        status.setBytesRead(snapshotStatus.getBytesRead());
+        status.setBytesWritten(snapshotStatus.getBytesWritten());
+        status.setQueuedCount(snapshotStatus.getQueuedCount());
+        status.setQueuedContentSize(snapshotStatus.getQueuedContentSize());
+        status.setInputContentSize(snapshotStatus.getInputContentSize());
+        status.setInputCount(snapshotStatus.getInputCount());
+        status.setOutputContentSize(snapshotStatus.getOutputContentSize());
+        status.setOutputCount(snapshotStatus.getOutputCount());
+        status.setFlowFilesReceived(snapshotStatus.getFlowFilesReceived());
+        status.setBytesReceived(snapshotStatus.getBytesReceived());
+        status.setFlowFilesSent(snapshotStatus.getFlowFilesSent());
+        status.setBytesSent(snapshotStatus.getBytesSent());
+        status.setFlowFilesTransferred(snapshotStatus.getFlowFilesTransferred());
+        status.setBytesTransferred(snapshotStatus.getBytesTransferred());
+
+        // the individual statuses of the components below the requested depth are not included, only their contribution to the aggregate values
+        if (currentDepth > recursiveStatusDepth) {
+            return status;
+        }
+
+        for (final ProcessorStatus snapshotProcStatus : snapshotStatus.getProcessorStatus()) {
+            final ProcessorStatus procStatus = snapshotProcStatus.clone();
+            if (!isAuthorized(group == null ? null : group.getProcessor(procStatus.getId()), isAuthorized)) {
+                procStatus.setName(procStatus.getId());
+                procStatus.setType("Processor");
+                procStatus.setCounters(null);
+            }
+            status.getProcessorStatus().add(procStatus);
+        }
+
+        for (final ProcessGroupStatus snapshotChildStatus : snapshotStatus.getProcessGroupStatus()) {
+            final ProcessGroup childGroup = group == null ? null : group.getProcessGroup(snapshotChildStatus.getId());
+            status.getProcessGroupStatus().add(copyGroupStatus(snapshotChildStatus, childGroup, isAuthorized, recursiveStatusDepth, currentDepth + 1));
+        }
+
+        for (final RemoteProcessGroupStatus snapshotRemoteStatus : snapshotStatus.getRemoteProcessGroupStatus()) {
+            final RemoteProcessGroupStatus remoteStatus = snapshotRemoteStatus.clone();
+            if (!isAuthorized(group == null ? null : group.getRemoteProcessGroup(remoteStatus.getId()), isAuthorized)) {
+                remoteStatus.setName(remoteStatus.getId());
+                remoteStatus.setTargetUri(null);
+            }
+            status.getRemoteProcessGroupStatus().add(remoteStatus);
+        }
+
+        for (final ConnectionStatus snapshotConnStatus : snapshotStatus.getConnectionStatus()) {
+            final ConnectionStatus connStatus = snapshotConnStatus.clone();
+            final Connection conn = group == null ? null : group.getConnection(connStatus.getId());
+            if (!isAuthorized(conn, isAuthorized)) {
+                connStatus.setName(connStatus.getId());
+            }
+            if (!isAuthorized(conn == null ? null : conn.getSource(), isAuthorized)) {
+                connStatus.setSourceName(connStatus.getSourceId());
+            }
+            if (!isAuthorized(conn == null ? null : conn.getDestination(), isAuthorized)) {
+                connStatus.setDestinationName(connStatus.getDestinationId());
+            }
+            status.getConnectionStatus().add(connStatus);
+        }
+
+        for (final PortStatus snapshotPortStatus : snapshotStatus.getInputPortStatus()) {
+            final PortStatus portStatus = snapshotPortStatus.clone();
+            if (!isAuthorized(group == null ? null : group.getInputPort(portStatus.getId()), isAuthorized)) {
+                portStatus.setName(portStatus.getId());
+            }
+            status.getInputPortStatus().add(portStatus);
+        }
+
+        for (final PortStatus snapshotPortStatus : snapshotStatus.getOutputPortStatus()) {
+            final PortStatus portStatus = snapshotPortStatus.clone();
+            if (!isAuthorized(group == null ? null : group.getOutputPort(portStatus.getId()), isAuthorized)) {
+                portStatus.setName(portStatus.getId());
+            }
+            status.getOutputPortStatus().add(portStatus);
+        }
+
+        return status;
+    }
+
+    private static boolean isAuthorized(final Authorizable authorizable, final Predicate<Authorizable> isAuthorized) {
+        return authorizable != null && isAuthorized.evaluate(authorizable);
+    }
+
     /**
      * Returns the status for the components in the specified group with the
      * specified report. The results will be filtered by executing the specified
@@ -744,4 +939,36 @@ public class StandardEventAccess implements UserAwareEventAccess {
 
         return status;
     }
+
+    /**
+     * The status of the entire flow at a point in time, indexed by the identifiers of the groups that it contains
+     */
+    private static class StatusSnapshot {
+        private final long timestamp;
+        private final Map<String, ProcessGroupStatus> groupStatuses = new HashMap<>();
+
+        StatusSnapshot(final ProcessGroupStatus rootStatus, final long timestamp) {
+            this.timestamp = timestamp;
+            index(rootStatus);
+        }
+
+        private void index(final ProcessGroupStatus groupStatus) {
+            groupStatuses.put(groupStatus.getId(), groupStatus);
+            for (final ProcessGroupStatus childStatus : groupStatus.getProcessGroupStatus()) {
+                index(childStatus);
+            }
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        int getGroupCount() {
+            return groupStatuses.size();
+        }
+
+        ProcessGroupStatus getGroupStatus(final String groupId) {
+            return groupStatuses.get(groupId);
+        }
+    }
 }
@@ -23,6 +23,8 @@ import org.apache.nifi.controller.repository.SwapContents;
 import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
 import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.swap.DirectMemorySwapCache;
+import org.apache.nifi.controller.swap.SwapInStatistics;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.junit.Assert;
@@ -44,6 +46,9 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
@@ -146,6 +151,120 @@ public class TestFileSystemSwapManager {
         assertEquals(10000, contents.getFlowFiles().size());
     }
 
+    @Test
+    public void testSwapInFromCache() throws IOException {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+
+        final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
+        when(flowFileRepo.isValidSwapLocationSuffix(anyString())).thenReturn(true);
+
+        final DirectMemorySwapCache swapCache = new DirectMemorySwapCache(1024 * 1024, 4096);
+        final FileSystemSwapManager swapManager = new FileSystemSwapManager(Paths.get("target/swap-cache"), swapCache);
+        initialize(swapManager, flowFileRepo);
+
+        final List<FlowFileRecord> flowFileRecords = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            flowFileRecords.add(new MockFlowFileRecord(i));
+        }
+
+        final String swapLocation = swapManager.swapOut(flowFileRecords, flowFileQueue, null);
+        final long swapFileLength = new File(swapLocation).length();
+
+        // the swap file must still be written to disk, so that it can be recovered upon restart
+        assertEquals(swapFileLength, swapCache.getCachedBytes());
+        assertEquals(1, swapManager.recoverSwapLocations(flowFileQueue, null).size());
+
+        final String renamedLocation = swapManager.changePartitionName(swapLocation, "partition-1");
+        final SwapContents contents = swapManager.swapIn(renamedLocation, flowFileQueue);
+        assertEquals(1000, contents.getFlowFiles().size());
+        assertEquals(999L, contents.getFlowFiles().get(999).getSize());
+
+        final SwapInStatistics statistics = swapManager.getSwapInStatistics();
+        assertEquals(1, statistics.getSwapInCount());
+        assertEquals(1, statistics.getCacheHits());
+        assertEquals(swapFileLength, statistics.getBytesRead());
+        assertEquals(0, swapCache.getCachedBytes());
+        assertFalse(new File(renamedLocation).exists());
+    }
+
+    @Test
+    public void testSwapInFromDiskWhenEvicted() throws IOException {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+
+        final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
+        when(flowFileRepo.isValidSwapLocationSuffix(anyString())).thenReturn(true);
+
+        final List<FlowFileRecord> flowFileRecords = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            flowFileRecords.add(new MockFlowFileRecord(i));
+        }
+
+        // size the cache so that there is room for only one swap file
+        final FileSystemSwapManager uncachedSwapManager = new FileSystemSwapManager(Paths.get("target/swap-cache-evicted"));
+        initialize(uncachedSwapManager, flowFileRepo);
+        final File uncachedSwapFile = new File(uncachedSwapManager.swapOut(flowFileRecords, flowFileQueue, null));
+        final long chunksPerSwapFile = uncachedSwapFile.length() / 4096 + 1;
+        uncachedSwapManager.swapIn(uncachedSwapFile.getAbsolutePath(), flowFileQueue);
+
+        final DirectMemorySwapCache swapCache = new DirectMemorySwapCache((chunksPerSwapFile + chunksPerSwapFile / 2) * 4096, 4096);
+        final FileSystemSwapManager swapManager = new FileSystemSwapManager(Paths.get("target/swap-cache-evicted"), swapCache);
+        initialize(swapManager, flowFileRepo);
+
+        final List<String> swapLocations = new ArrayList<>();
+        swapLocations.add(swapManager.swapOut(flowFileRecords, flowFileQueue, null));
+        swapLocations.add(swapManager.swapOut(flowFileRecords, flowFileQueue, null));
+
+        assertEquals(1, swapCache.getEvictionCount());
+        for (final String swapLocation : swapLocations) {
+            assertEquals(1000, swapManager.swapIn(swapLocation, flowFileQueue).getFlowFiles().size());
+        }
+
+        assertEquals(2, swapManager.getSwapInStatistics().getSwapInCount());
+        assertEquals(1, swapManager.getSwapInStatistics().getCacheHits());
+    }
+
+    @Test
+    public void testSharedSwapInStatistics() throws IOException {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+
+        final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
+        when(flowFileRepo.isValidSwapLocationSuffix(anyString())).thenReturn(true);
+
+        final List<FlowFileRecord> flowFileRecords = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            flowFileRecords.add(new MockFlowFileRecord(i));
+        }
+
+        final DirectMemorySwapCache swapCache = new DirectMemorySwapCache(1024 * 1024, 4096);
+        final SwapInStatistics statistics = new SwapInStatistics();
+
+        final FileSystemSwapManager cachingSwapManager = new FileSystemSwapManager(Paths.get("target/swap-shared"));
+        cachingSwapManager.setSharedResources(swapCache, statistics);
+        initialize(cachingSwapManager, flowFileRepo);
+
+        final FileSystemSwapManager uncachedSwapManager = new FileSystemSwapManager(Paths.get("target/swap-shared"));
+        uncachedSwapManager.setSharedResources(null, statistics);
+        initialize(uncachedSwapManager, flowFileRepo);
+
+        final String cachedLocation = cachingSwapManager.swapOut(flowFileRecords, flowFileQueue, null);
+        final String uncachedLocation = uncachedSwapManager.swapOut(flowFileRecords, flowFileQueue, null);
+        final long expectedBytes = new File(cachedLocation).length() + new File(uncachedLocation).length();
+
+        cachingSwapManager.swapIn(cachedLocation, flowFileQueue);
+        uncachedSwapManager.swapIn(uncachedLocation, flowFileQueue);
+
+        assertSame(statistics, cachingSwapManager.getSwapInStatistics());
+        assertEquals(2, statistics.getSwapInCount());
+        assertEquals(1, statistics.getCacheHits());
+        assertEquals(expectedBytes, statistics.getBytesRead());
+        assertTrue(statistics.getMaxSwapInTime(TimeUnit.NANOSECONDS) > 0L);
+        assertTrue(statistics.getAverageSwapInTime(TimeUnit.NANOSECONDS) <= statistics.getMaxSwapInTime(TimeUnit.NANOSECONDS));
+        assertEquals(statistics.getTotalSwapInTime(TimeUnit.NANOSECONDS) / 2, statistics.getAverageSwapInTime(TimeUnit.NANOSECONDS));
+    }
+
     private FileSystemSwapManager createSwapManager() {
         final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
         return createSwapManager(flowFileRepo);
@@ -153,6 +272,11 @@ public class TestFileSystemSwapManager {
 
     private FileSystemSwapManager createSwapManager(final FlowFileRepository flowFileRepo) {
         final FileSystemSwapManager swapManager = new FileSystemSwapManager();
+        initialize(swapManager, flowFileRepo);
+        return swapManager;
+    }
+
+    private void initialize(final FileSystemSwapManager swapManager, final FlowFileRepository flowFileRepo) {
         final ResourceClaimManager resourceClaimManager = new NopResourceClaimManager();
         swapManager.initialize(new SwapManagerInitializationContext() {
             @Override
@@ -170,8 +294,6 @@ public class TestFileSystemSwapManager {
                 return EventReporter.NO_OP;
             }
         });
-
-        return swapManager;
     }
 
     public class NopResourceClaimManager implements ResourceClaimManager {
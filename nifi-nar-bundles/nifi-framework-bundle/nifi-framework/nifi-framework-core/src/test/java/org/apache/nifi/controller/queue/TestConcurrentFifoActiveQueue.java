@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestConcurrentFifoActiveQueue {
+
+    private static FlowFileRecord createFlowFile(final long id, final long queueDateIndex) {
+        return createFlowFile(id, queueDateIndex, 0L);
+    }
+
+    private static FlowFileRecord createFlowFile(final long id, final long queueDateIndex, final long penaltyExpiration) {
+        final FlowFileRecord flowFile = mock(FlowFileRecord.class);
+        when(flowFile.getId()).thenReturn(id);
+        when(flowFile.getQueueDateIndex()).thenReturn(queueDateIndex);
+        when(flowFile.getPenaltyExpirationMillis()).thenReturn(penaltyExpiration);
+        when(flowFile.isPenalized()).thenAnswer(invocation -> penaltyExpiration > System.currentTimeMillis());
+        return flowFile;
+    }
+
+    @Test
+    public void testPollReturnsFlowFilesInQueueOrder() {
+        final ConcurrentFifoActiveQueue queue = new ConcurrentFifoActiveQueue();
+        final FlowFileRecord first = createFlowFile(5L, 1L);
+        final FlowFileRecord second = createFlowFile(1L, 2L);
+        final FlowFileRecord third = createFlowFile(3L, 3L);
+
+        queue.addAll(Arrays.asList(third, first, second));
+        assertEquals(3, queue.size());
+
+        assertSame(first, queue.poll());
+        assertSame(second, queue.poll());
+        assertSame(third, queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testRequeuedFlowFilesAreFirst() {
+        final ConcurrentFifoActiveQueue queue = new ConcurrentFifoActiveQueue();
+        final FlowFileRecord first = createFlowFile(1L, 1L);
+        final FlowFileRecord second = createFlowFile(2L, 2L);
+        final FlowFileRecord third = createFlowFile(3L, 3L);
+        queue.addAll(Arrays.asList(first, second, third));
+
+        final List<FlowFileRecord> polled = Arrays.asList(queue.poll(), queue.poll());
+        queue.requeue(polled);
+
+        assertEquals(3, queue.size());
+        assertSame(first, queue.poll());
+        assertSame(second, queue.poll());
+        assertSame(third, queue.poll());
+    }
+
+    @Test
+    public void testPenalizedFlowFilesReturnedLast() {
+        final ConcurrentFifoActiveQueue queue = new ConcurrentFifoActiveQueue();
+        final FlowFileRecord penalized = createFlowFile(1L, 1L, System.currentTimeMillis() + 60_000L);
+        final FlowFileRecord available = createFlowFile(2L, 2L);
+        queue.add(penalized);
+        queue.add(available);
+
+        assertSame(available, queue.peek());
+        assertSame(available, queue.poll());
+        assertSame(penalized, queue.peek());
+        assertSame(penalized, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testExpiredPenaltyReturnedBeforeAvailable() {
+        final ConcurrentFifoActiveQueue queue = new ConcurrentFifoActiveQueue();
+        final FlowFileRecord available = createFlowFile(2L, 2L);
+        queue.add(available);
+
+        // A FlowFile whose penalty already expired is treated as available but it has been waiting longer.
+        final FlowFileRecord expired = createFlowFile(1L, 1L, System.currentTimeMillis() + 100L);
+        queue.add(expired);
+        when(expired.isPenalized()).thenReturn(false);
+
+        assertSame(expired, queue.poll());
+        assertSame(available, queue.poll());
+    }
+
+    @Test
+    public void testClear() {
+        final ConcurrentFifoActiveQueue queue = new ConcurrentFifoActiveQueue();
+        queue.add(createFlowFile(1L, 1L));
+        queue.add(createFlowFile(2L, 2L, System.currentTimeMillis() + 60_000L));
+        assertEquals(2, queue.getFlowFiles().size());
+
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+        assertEquals(Collections.emptyList(), queue.getFlowFiles());
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentAddAndPoll() throws Exception {
+        final ConcurrentFifoActiveQueue queue = new ConcurrentFifoActiveQueue();
+        final int threads = 4;
+        final int perThread = 10_000;
+
+        final List<FlowFileRecord> flowFiles = new ArrayList<>();
+        for (int i = 0; i < threads * perThread; i++) {
+            flowFiles.add(createFlowFile(i, i));
+        }
+
+        final ConcurrentLinkedQueue<FlowFileRecord> polled = new ConcurrentLinkedQueue<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final List<FlowFileRecord> toAdd = flowFiles.subList(t * perThread, (t + 1) * perThread);
+                futures.add(executor.submit(() -> toAdd.forEach(queue::add)));
+                futures.add(executor.submit(() -> {
+                    int count = 0;
+                    while (count < perThread) {
+                        final FlowFileRecord flowFile = queue.poll();
+                        if (flowFile != null) {
+                            polled.add(flowFile);
+                            count++;
+                        }
+                    }
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, polled.size());
+        assertEquals(threads * perThread, polled.stream().distinct().count());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+}
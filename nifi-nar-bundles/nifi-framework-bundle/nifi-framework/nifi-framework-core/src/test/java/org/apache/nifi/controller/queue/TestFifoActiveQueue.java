@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestFifoActiveQueue {
+
+    private static FlowFileRecord createFlowFile(final long id, final long queueDateIndex) {
+        return createFlowFile(id, queueDateIndex, 0L);
+    }
+
+    private static FlowFileRecord createFlowFile(final long id, final long queueDateIndex, final long penaltyExpiration) {
+        final FlowFileRecord flowFile = mock(FlowFileRecord.class);
+        when(flowFile.getId()).thenReturn(id);
+        when(flowFile.getQueueDateIndex()).thenReturn(queueDateIndex);
+        when(flowFile.getPenaltyExpirationMillis()).thenReturn(penaltyExpiration);
+        when(flowFile.isPenalized()).thenAnswer(invocation -> penaltyExpiration > System.currentTimeMillis());
+        return flowFile;
+    }
+
+    @Test
+    public void testPollReturnsFlowFilesInQueueOrder() {
+        final FifoActiveQueue queue = new FifoActiveQueue(0);
+        final FlowFileRecord first = createFlowFile(5L, 1L);
+        final FlowFileRecord second = createFlowFile(1L, 2L);
+        final FlowFileRecord third = createFlowFile(3L, 3L);
+
+        queue.addAll(Arrays.asList(third, first, second));
+        assertEquals(3, queue.size());
+
+        assertSame(first, queue.poll());
+        assertSame(second, queue.poll());
+        assertSame(third, queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testRequeuedFlowFilesAreFirst() {
+        final FifoActiveQueue queue = new FifoActiveQueue(0);
+        final FlowFileRecord first = createFlowFile(1L, 1L);
+        final FlowFileRecord second = createFlowFile(2L, 2L);
+        final FlowFileRecord third = createFlowFile(3L, 3L);
+        queue.addAll(Arrays.asList(first, second, third));
+
+        final List<FlowFileRecord> polled = Arrays.asList(queue.poll(), queue.poll());
+        queue.requeue(polled);
+
+        assertSame(first, queue.poll());
+        assertSame(second, queue.poll());
+        assertSame(third, queue.poll());
+    }
+
+    @Test
+    public void testPenalizedFlowFilesOrderedByPenaltyExpiration() {
+        final FifoActiveQueue queue = new FifoActiveQueue(0);
+        final long now = System.currentTimeMillis();
+        final FlowFileRecord penalizedLonger = createFlowFile(1L, 1L, now + 120_000L);
+        final FlowFileRecord penalizedShorter = createFlowFile(2L, 2L, now + 60_000L);
+        final FlowFileRecord available = createFlowFile(3L, 3L);
+        queue.add(penalizedLonger);
+        queue.add(penalizedShorter);
+        queue.add(available);
+
+        assertSame(available, queue.peek());
+        assertSame(available, queue.poll());
+        assertSame(penalizedShorter, queue.poll());
+        assertSame(penalizedLonger, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testExpiredPenaltyReturnedBeforeAvailable() {
+        final FifoActiveQueue queue = new FifoActiveQueue(0);
+        final FlowFileRecord available = createFlowFile(2L, 2L);
+        queue.add(available);
+
+        final FlowFileRecord expired = createFlowFile(1L, 1L, System.currentTimeMillis() + 100L);
+        queue.add(expired);
+        when(expired.isPenalized()).thenReturn(false);
+
+        assertSame(expired, queue.poll());
+        assertSame(available, queue.poll());
+        assertEquals(0, queue.size());
+    }
+}
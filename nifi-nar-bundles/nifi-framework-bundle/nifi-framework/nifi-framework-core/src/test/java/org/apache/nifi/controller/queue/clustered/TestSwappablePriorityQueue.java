@@ -22,9 +22,11 @@ import org.apache.nifi.controller.MockSwapManager;
 import org.apache.nifi.controller.queue.DropFlowFileAction;
 import org.apache.nifi.controller.queue.DropFlowFileRequest;
 import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueMode;
 import org.apache.nifi.controller.queue.QueueSize;
 import org.apache.nifi.controller.queue.SwappablePriorityQueue;
 import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.SwapSummary;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.FlowFilePrioritizer;
@@ -36,11 +38,17 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -716,4 +724,224 @@ public class TestSwappablePriorityQueue {
 
         assertTrue(swapManager.swappedOut.isEmpty());
     }
+
+    @Test
+    public void testConcurrentFifoOrderMaintainedAcrossSwapping() {
+        queue.setQueueMode(QueueMode.CONCURRENT_FIFO);
+        assertEquals(QueueMode.CONCURRENT_FIFO, queue.getQueueMode());
+
+        final List<FlowFileRecord> flowFiles = new ArrayList<>();
+        for (int i = 0; i < 25000; i++) {
+            final FlowFileRecord flowFile = new MockFlowFileRecord();
+            flowFiles.add(flowFile);
+            queue.put(flowFile);
+        }
+
+        assertEquals(1, swapManager.swapOutCalledCount);
+        assertEquals(25000, queue.size().getObjectCount());
+        assertEquals(10000, queue.getQueueDiagnostics().getActiveQueueSize().getObjectCount());
+
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        for (final FlowFileRecord expected : flowFiles) {
+            final FlowFileRecord polled = queue.poll(expired, 0L);
+            assertSame(expected, polled);
+        }
+
+        assertNull(queue.poll(expired, 0L));
+        assertEquals(1, swapManager.swapInCalledCount);
+        assertTrue(swapManager.swappedOut.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentFifoIgnoredWhenPrioritized() {
+        queue.setPriorities(Collections.singletonList((o1, o2) -> Long.compare(o1.getSize(), o2.getSize())));
+        queue.setQueueMode(QueueMode.CONCURRENT_FIFO);
+
+        for (int i = 0; i < 100; i++) {
+            queue.put(new MockFlowFileRecord(100 - i));
+        }
+
+        final List<FlowFileRecord> polled = queue.poll(100, Collections.emptySet(), 0L);
+        assertEquals(100, polled.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i + 1, polled.get(i).getSize());
+        }
+
+        // Once the prioritizers are removed, the queue should become First-In-First-Out
+        queue.setPriorities(Collections.emptyList());
+        final List<FlowFileRecord> flowFiles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final FlowFileRecord flowFile = new MockFlowFileRecord(100 - i);
+            flowFiles.add(flowFile);
+            queue.put(flowFile);
+        }
+
+        assertEquals(flowFiles, queue.poll(100, Collections.emptySet(), 0L));
+    }
+
+    @Test
+    public void testQueueModeChangeRetainsFlowFiles() {
+        for (int i = 0; i < 100; i++) {
+            queue.put(new MockFlowFileRecord(i));
+        }
+
+        queue.setQueueMode(QueueMode.CONCURRENT_FIFO);
+        assertEquals(100, queue.size().getObjectCount());
+        assertEquals(100, queue.getActiveFlowFiles().size());
+
+        queue.setQueueMode(QueueMode.PRIORITIZED);
+        assertEquals(100, queue.size().getObjectCount());
+        assertEquals(100, queue.poll(1000, Collections.emptySet(), 0L).size());
+    }
+
+    @Test
+    public void testFifoOrderMaintainedAcrossSwapping() {
+        queue.setQueueMode(QueueMode.FIFO);
+
+        final List<FlowFileRecord> flowFiles = new ArrayList<>();
+        for (int i = 0; i < 25000; i++) {
+            final FlowFileRecord flowFile = new MockFlowFileRecord(25000 - i);
+            flowFiles.add(flowFile);
+        }
+
+        // Add the FlowFiles in batches, as a session would, and then drain them in batches.
+        for (int i = 0; i < flowFiles.size(); i += 100) {
+            queue.putAll(flowFiles.subList(i, i + 100));
+        }
+
+        assertEquals(1, swapManager.swapOutCalledCount);
+        assertEquals(25000, queue.size().getObjectCount());
+
+        final List<FlowFileRecord> polled = new ArrayList<>();
+        List<FlowFileRecord> batch;
+        while (!(batch = queue.poll(100, Collections.emptySet(), 0L)).isEmpty()) {
+            polled.addAll(batch);
+        }
+
+        assertEquals(flowFiles, polled);
+        assertEquals(1, swapManager.swapInCalledCount);
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentFifoConcurrentPutAndPoll() throws Exception {
+        queue.setQueueMode(QueueMode.CONCURRENT_FIFO);
+
+        final int threads = 4;
+        final int flowFilesPerThread = 20000;
+        final AtomicInteger polledCount = new AtomicInteger(0);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < flowFilesPerThread; i++) {
+                        queue.put(new MockFlowFileRecord());
+                    }
+                }));
+
+                futures.add(executor.submit(() -> {
+                    final Set<FlowFileRecord> expired = new HashSet<>();
+                    while (polledCount.get() < threads * flowFilesPerThread) {
+                        final List<FlowFileRecord> polled = queue.poll(100, expired, 0L);
+                        if (!polled.isEmpty()) {
+                            queue.acknowledge(polled);
+                            polledCount.addAndGet(polled.size());
+                        }
+                    }
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * flowFilesPerThread, polledCount.get());
+        assertEquals(0, queue.size().getObjectCount());
+        assertEquals(0, queue.size().getByteCount());
+        assertTrue(queue.isEmpty());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentFifoPutsDoNotExceedSwapThreshold() throws Exception {
+        queue.setQueueMode(QueueMode.CONCURRENT_FIFO);
+
+        final int threads = 8;
+        final int flowFilesPerThread = 5000;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < flowFilesPerThread; i += 10) {
+                        final List<FlowFileRecord> flowFiles = new ArrayList<>();
+                        for (int j = 0; j < 10; j++) {
+                            flowFiles.add(new MockFlowFileRecord());
+                        }
+                        queue.putAll(flowFiles);
+                    }
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * flowFilesPerThread, queue.size().getObjectCount());
+        assertTrue(queue.getFlowFileQueueSize().getActiveCount() <= 10000);
+        assertEquals(queue.getFlowFileQueueSize().getActiveCount(), queue.getActiveFlowFiles().size());
+    }
+
+    @Test
+    public void testSwapSummariesRecoveredInParallel() throws Exception {
+        final MockSwapManager failingSwapManager = new MockSwapManager() {
+            @Override
+            public SwapSummary getSwapSummary(final String swapLocation) throws IOException {
+                if (swapLocation.startsWith("corrupt")) {
+                    throw new IOException("Intentional Unit Test IOException for corrupt swap file");
+                }
+
+                return super.getSwapSummary(swapLocation);
+            }
+        };
+
+        long expectedMaxId = -1L;
+        for (int i = 0; i < 20; i++) {
+            final List<FlowFileRecord> flowFiles = new ArrayList<>();
+            for (int j = 0; j < 100; j++) {
+                final FlowFileRecord flowFile = new MockFlowFileRecord(10L);
+                flowFiles.add(flowFile);
+                expectedMaxId = Math.max(expectedMaxId, flowFile.getId());
+            }
+
+            failingSwapManager.swappedOut.put("swap-" + i + ".local", flowFiles);
+        }
+        failingSwapManager.swappedOut.put("corrupt-swap.local", Collections.singletonList(new MockFlowFileRecord(10L)));
+
+        final SwappablePriorityQueue recoveringQueue = new SwappablePriorityQueue(failingSwapManager, 10000, eventReporter, flowFileQueue, dropAction, "local");
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final SwapSummary summary;
+        try {
+            summary = pool.submit(recoveringQueue::recoverSwappedFlowFiles).get();
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(2000, summary.getQueueSize().getObjectCount());
+        assertEquals(20000L, summary.getQueueSize().getByteCount());
+        assertEquals(Long.valueOf(expectedMaxId), summary.getMaxFlowFileId());
+        assertEquals(1, events.size());
+
+        // the corrupt swap file is still counted as a swap file, as was the case before swap summaries were read in parallel
+        assertEquals(21, recoveringQueue.getFlowFileQueueSize().getSwapFileCount());
+    }
 }
@@ -388,6 +388,78 @@ public class TestFileSystemRepository {
         assertFalse(Files.exists(claimPath));
     }
 
+    @Test
+    public void testReadFromMappedResourceClaim() throws IOException {
+        // We are going to construct our own repository using different properties, so
+        // we need to shutdown the existing one.
+        shutdown();
+
+        final Map<String, String> addProps = new HashMap<>();
+        addProps.put(NiFiProperties.CONTENT_REPOSITORY_MMAP_CACHE_MAX_SIZE, "10 MB");
+        final NiFiProperties localProps = NiFiProperties.createBasicNiFiProperties(TestFileSystemRepository.class.getResource("/conf/nifi.properties").getFile(), addProps);
+        repository = new FileSystemRepository(localProps);
+        repository.initialize(claimManager);
+        repository.purge();
+
+        final List<ContentClaim> claims = new ArrayList<>();
+        final List<byte[]> contents = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final byte[] content = ("Hello " + i).getBytes(StandardCharsets.UTF_8);
+            final ContentClaim claim = repository.create(false);
+            try (final OutputStream out = repository.write(claim)) {
+                out.write(content);
+            }
+
+            claims.add(claim);
+            contents.add(content);
+        }
+
+        // The Resource Claim is still being written to, so it must not be mapped
+        assertTrue(claims.get(0).getResourceClaim().isWritable());
+        try (final InputStream in = repository.read(claims.get(0))) {
+            assertArrayEquals(contents.get(0), readFully(in, contents.get(0).length));
+        }
+        assertEquals(0, repository.getMappedClaimCache().getMappedClaimCount());
+
+        // Fill up the Resource Claim so that it is no longer written to
+        final int maxClaimLength = DataUnit.parseDataSize(localProps.getMaxAppendableClaimSize(), DataUnit.B).intValue();
+        final ContentClaim lastClaim = repository.create(false);
+        assertEquals(claims.get(0).getResourceClaim(), lastClaim.getResourceClaim());
+        try (final OutputStream out = repository.write(lastClaim)) {
+            out.write(new byte[maxClaimLength]);
+        }
+        assertFalse(lastClaim.getResourceClaim().isWritable());
+
+        for (int i = 0; i < claims.size(); i++) {
+            try (final InputStream in = repository.read(claims.get(i))) {
+                final byte[] expected = contents.get(i);
+                assertArrayEquals(expected, readFully(in, expected.length));
+                assertEquals(-1, in.read());
+            }
+        }
+
+        final MappedResourceClaimCache mappedClaimCache = repository.getMappedClaimCache();
+        assertEquals(1, mappedClaimCache.getMappedClaimCount());
+        assertEquals(1, mappedClaimCache.getMissCount());
+        assertEquals(2, mappedClaimCache.getHitCount());
+
+        // Content larger than the max appendable claim size is read from the file
+        try (final InputStream in = repository.read(lastClaim)) {
+            assertEquals(maxClaimLength, readFully(in, maxClaimLength).length);
+        }
+        assertEquals(2, mappedClaimCache.getHitCount());
+
+        // Removing the Resource Claim must release its mapping
+        final Path path = getPath(lastClaim);
+        for (final ContentClaim claim : claims) {
+            repository.decrementClaimantCount(claim);
+        }
+        repository.decrementClaimantCount(lastClaim);
+        assertTrue(repository.remove(lastClaim));
+        assertFalse(Files.exists(path));
+        assertEquals(0, mappedClaimCache.getMappedClaimCount());
+    }
+
     private Path getPath(final ContentClaim claim) {
         try {
             final Method m = repository.getClass().getDeclaredMethod("getPath", ContentClaim.class);
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaim;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class TestMappedResourceClaimCache {
+    private final File directory = new File("target/mapped-resource-claims");
+    private final StandardResourceClaimManager claimManager = new StandardResourceClaimManager();
+
+    @Before
+    public void setup() throws IOException {
+        Files.createDirectories(directory.toPath());
+    }
+
+    @Test
+    public void testReadRangesOfMappedFile() throws IOException {
+        final MappedResourceClaimCache cache = new MappedResourceClaimCache(1024);
+        final ResourceClaim claim = createResourceClaim("1");
+        final byte[] data = randomBytes(300);
+        final Path path = writeFile(claim, data);
+
+        assertArrayEquals(Arrays.copyOfRange(data, 0, 100), read(cache, claim, path, 0, 100));
+        assertArrayEquals(Arrays.copyOfRange(data, 100, 300), read(cache, claim, path, 100, 200));
+        assertArrayEquals(Arrays.copyOfRange(data, 150, 151), read(cache, claim, path, 150, 1));
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMappedClaimCount());
+        assertEquals(300, cache.getMappedBytes());
+    }
+
+    @Test
+    public void testFileTooShortOrTooLargeNotMapped() throws IOException {
+        final MappedResourceClaimCache cache = new MappedResourceClaimCache(200);
+
+        final ResourceClaim shortClaim = createResourceClaim("short");
+        final Path shortPath = writeFile(shortClaim, randomBytes(50));
+        assertNull(cache.read(shortClaim, shortPath, 40, 20));
+
+        final ResourceClaim largeClaim = createResourceClaim("large");
+        final Path largePath = writeFile(largeClaim, randomBytes(201));
+        assertNull(cache.read(largeClaim, largePath, 0, 10));
+
+        assertEquals(0, cache.getMappedClaimCount());
+        assertEquals(0, cache.getMappedBytes());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedReleased() throws IOException {
+        final MappedResourceClaimCache cache = new MappedResourceClaimCache(300);
+        final ResourceClaim[] claims = new ResourceClaim[4];
+        final Path[] paths = new Path[4];
+        final byte[][] data = new byte[4][];
+        for (int i = 0; i < claims.length; i++) {
+            claims[i] = createResourceClaim(String.valueOf(i));
+            data[i] = randomBytes(100);
+            paths[i] = writeFile(claims[i], data[i]);
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(data[i], read(cache, claims[i], paths[i], 0, 100));
+        }
+
+        // touch the first so that the second is the least recently used
+        assertArrayEquals(data[0], read(cache, claims[0], paths[0], 0, 100));
+
+        assertArrayEquals(data[3], read(cache, claims[3], paths[3], 0, 100));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cache.getMappedClaimCount());
+        assertEquals(300, cache.getMappedBytes());
+
+        final long missesBefore = cache.getMissCount();
+        assertArrayEquals(data[0], read(cache, claims[0], paths[0], 0, 100));
+        assertEquals(missesBefore, cache.getMissCount());
+        assertArrayEquals(data[1], read(cache, claims[1], paths[1], 0, 100));
+        assertEquals(missesBefore + 1, cache.getMissCount());
+    }
+
+    @Test
+    public void testStreamReadableAfterInvalidateUntilClosed() throws IOException {
+        final MappedResourceClaimCache cache = new MappedResourceClaimCache(1024);
+        final ResourceClaim claim = createResourceClaim("1");
+        final byte[] data = randomBytes(100);
+        final Path path = writeFile(claim, data);
+
+        final InputStream in = cache.read(claim, path, 0, 100);
+        assertNotNull(in);
+
+        // the file is about to be deleted or archived; the open stream must still be readable
+        cache.invalidate(claim);
+        assertEquals(0, cache.getMappedClaimCount());
+        assertEquals(0, cache.getMappedBytes());
+        Files.delete(path);
+
+        assertArrayEquals(data, readFully(in));
+        in.close();
+
+        try {
+            in.read();
+            fail("Was able to read from closed stream");
+        } catch (final IOException expected) {
+        }
+    }
+
+    @Test
+    public void testRemappedWhenFileGrows() throws IOException {
+        final MappedResourceClaimCache cache = new MappedResourceClaimCache(1024);
+        final ResourceClaim claim = createResourceClaim("1");
+        final byte[] data = randomBytes(200);
+        final Path path = writeFile(claim, Arrays.copyOfRange(data, 0, 100));
+
+        assertArrayEquals(Arrays.copyOfRange(data, 0, 100), read(cache, claim, path, 0, 100));
+
+        writeFile(claim, data);
+        assertArrayEquals(Arrays.copyOfRange(data, 100, 200), read(cache, claim, path, 100, 100));
+        assertEquals(1, cache.getMappedClaimCount());
+        assertEquals(200, cache.getMappedBytes());
+    }
+
+    private ResourceClaim createResourceClaim(final String id) {
+        return new StandardResourceClaim(claimManager, "default", "0", id, false);
+    }
+
+    private Path writeFile(final ResourceClaim claim, final byte[] data) throws IOException {
+        final Path path = new File(directory, claim.getId()).toPath();
+        Files.write(path, data);
+        return path;
+    }
+
+    private byte[] read(final MappedResourceClaimCache cache, final ResourceClaim claim, final Path path, final long offset, final long length) throws IOException {
+        try (final InputStream in = cache.read(claim, path, offset, length)) {
+            assertNotNull(in);
+            return readFully(in);
+        }
+    }
+
+    private byte[] readFully(final InputStream in) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        StreamUtils.copy(in, baos);
+        return baos.toByteArray();
+    }
+
+    private byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random().nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -38,6 +38,7 @@ import org.apache.nifi.processor.FlowFileFilter.FlowFileFilterResult;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.FlowFileAccessException;
+import org.apache.nifi.processor.exception.FlowFileHandlingException;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.io.InputStreamCallback;
@@ -85,6 +86,11 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -95,9 +101,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.notNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
@@ -270,6 +278,13 @@ public class TestStandardProcessSession {
             }
         }).when(connection).poll(any(FlowFileFilter.class), any(Set.class));
 
+        Mockito.doAnswer(new Answer<List<FlowFileRecord>>() {
+            @Override
+            public List<FlowFileRecord> answer(InvocationOnMock invocation) throws Throwable {
+                return localFlowFileQueue.poll((int) invocation.getArgument(0), invocation.getArgument(1));
+            }
+        }).when(connection).poll(anyInt(), any(Set.class));
+
         Mockito.when(connection.getIdentifier()).thenReturn("conn-uuid");
         return connection;
     }
@@ -692,8 +707,8 @@ public class TestStandardProcessSession {
         session.get(1);
         session.get(1);
 
-        verify(conn1, times(1)).poll(any(FlowFileFilter.class), any(Set.class));
-        verify(conn2, times(1)).poll(any(FlowFileFilter.class), any(Set.class));
+        verify(conn1, times(1)).poll(anyInt(), any(Set.class));
+        verify(conn2, times(1)).poll(anyInt(), any(Set.class));
     }
 
     @Test
@@ -724,8 +739,8 @@ public class TestStandardProcessSession {
 
         assertEquals(1, result.size());
 
-        verify(conn1, times(1)).poll(any(FlowFileFilter.class), any(Set.class));
-        verify(conn2, times(1)).poll(any(FlowFileFilter.class), any(Set.class));
+        verify(conn1, times(1)).poll(anyInt(), any(Set.class));
+        verify(conn2, times(1)).poll(anyInt(), any(Set.class));
     }
 
     @Test
@@ -1811,6 +1826,172 @@ public class TestStandardProcessSession {
         assertFalse(flowFileQueue.isUnacknowledgedFlowFile());
     }
 
+    @Test
+    public void testCommitAsyncTransfersFlowFilesOnCommitThread() throws InterruptedException {
+        final SessionCommitPipeline commitPipeline = new SessionCommitPipeline(1, 10);
+        final RepositoryContext asyncContext = new RepositoryContext(connectable, new AtomicLong(0L), contentRepo, flowFileRepo, flowFileEventRepository,
+            counterRepository, provenanceRepo, commitPipeline);
+        session = new StandardProcessSession(asyncContext, () -> false);
+
+        final FlowFileRecord flowFileRecord = new StandardFlowFileRecord.Builder()
+            .addAttribute("uuid", "12345678-1234-1234-1234-123456789012")
+            .entryDate(System.currentTimeMillis())
+            .size(0L)
+            .build();
+        flowFileQueue.put(flowFileRecord);
+
+        FlowFile flowFile = session.get();
+        flowFile = session.write(flowFile, out -> out.write("Hello".getBytes()));
+        session.transfer(flowFile);
+
+        final CountDownLatch committed = new CountDownLatch(1);
+        final AtomicReference<String> commitThreadName = new AtomicReference<>();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        session.commitAsync(() -> {
+            commitThreadName.set(Thread.currentThread().getName());
+            committed.countDown();
+        }, failure::set);
+
+        assertTrue(committed.await(10, TimeUnit.SECONDS));
+        assertTrue(commitThreadName.get().startsWith("Session Commit Thread"));
+        assertNull(failure.get());
+        assertEquals(1, flowFileQueue.size().getObjectCount());
+        assertFalse(flowFileQueue.isUnacknowledgedFlowFile());
+        assertEquals(1, flowFileRepo.getUpdates().size());
+
+        assertTrue(commitPipeline.shutdown(10, TimeUnit.SECONDS));
+        assertEquals(1, commitPipeline.getCommitCount());
+        assertEquals(0, commitPipeline.getFailureCount());
+    }
+
+    @Test
+    public void testCommitAsyncFailureRequeuesFlowFiles() throws InterruptedException {
+        final SessionCommitPipeline commitPipeline = new SessionCommitPipeline(1, 10);
+        final RepositoryContext asyncContext = new RepositoryContext(connectable, new AtomicLong(0L), contentRepo, flowFileRepo, flowFileEventRepository,
+            counterRepository, provenanceRepo, commitPipeline);
+        session = new StandardProcessSession(asyncContext, () -> false);
+
+        final FlowFileRecord flowFileRecord = new StandardFlowFileRecord.Builder()
+            .addAttribute("uuid", "12345678-1234-1234-1234-123456789012")
+            .entryDate(System.currentTimeMillis())
+            .size(0L)
+            .build();
+        flowFileQueue.put(flowFileRecord);
+
+        FlowFile flowFile = session.get();
+        flowFile = session.write(flowFile, out -> out.write("Hello".getBytes()));
+        session.transfer(flowFile);
+
+        flowFileRepo.setFailOnUpdate(true);
+
+        final CountDownLatch rolledBack = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        session.commitAsync(() -> Assert.fail("Session was committed, even though FlowFile Repo threw IOException"), t -> {
+            failure.set(t);
+            rolledBack.countDown();
+        });
+
+        assertTrue(rolledBack.await(10, TimeUnit.SECONDS));
+        assertTrue(failure.get() instanceof ProcessException);
+        assertEquals(1, flowFileQueue.size().getObjectCount());
+        assertFalse(flowFileQueue.isUnacknowledgedFlowFile());
+
+        // the original FlowFile, not the modified one, must have been put back on the queue
+        final FlowFile requeued = session.get();
+        assertEquals(0L, requeued.getSize());
+        session.rollback();
+
+        assertTrue(commitPipeline.shutdown(10, TimeUnit.SECONDS));
+        assertEquals(1, commitPipeline.getFailureCount());
+    }
+
+    @Test
+    public void testCommitAsyncPersistsCheckpointsInOrderUnderLoad() throws InterruptedException {
+        // A single thread and room for only two waiting sessions, so that the second checkpoint of the session cannot be queued
+        final SessionCommitPipeline commitPipeline = new SessionCommitPipeline(1, 2);
+        final RepositoryContext asyncContext = new RepositoryContext(connectable, new AtomicLong(0L), contentRepo, flowFileRepo, flowFileEventRepository,
+            counterRepository, provenanceRepo, commitPipeline);
+        session = new StandardProcessSession(asyncContext, () -> false);
+
+        // Keep the only commit thread busy persisting another component's session
+        final CountDownLatch releaseOtherComponent = new CountDownLatch(1);
+        commitPipeline.submit("other-component", () -> {
+            try {
+                releaseOtherComponent.await();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        for (int i = 0; i < 2; i++) {
+            flowFileQueue.put(new StandardFlowFileRecord.Builder()
+                .id(i + 1)
+                .addAttribute("uuid", "12345678-1234-1234-1234-12345678901" + i)
+                .addAttribute("checkpoint", String.valueOf(i))
+                .entryDate(System.currentTimeMillis())
+                .size(0L)
+                .build());
+        }
+
+        final List<String> successOrder = Collections.synchronizedList(new ArrayList<>());
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        final FlowFile first = session.get();
+        session.transfer(first);
+        session.commitAsync(() -> successOrder.add(first.getAttribute("checkpoint")), failure::set);
+
+        // The second checkpoint exceeds the number of sessions that may wait, so committing it blocks until it has been persisted
+        final FlowFile second = session.get();
+        session.transfer(second);
+        final Thread committer = new Thread(() -> session.commitAsync(() -> successOrder.add(second.getAttribute("checkpoint")), failure::set));
+        committer.start();
+
+        final long waitUntil = System.currentTimeMillis() + 10_000L;
+        while (commitPipeline.getCallerRunsCount() == 0 && System.currentTimeMillis() < waitUntil) {
+            Thread.sleep(10L);
+        }
+        assertEquals(1, commitPipeline.getCallerRunsCount());
+
+        // The second checkpoint must not be persisted ahead of the first one, which is still waiting for the commit thread
+        Thread.sleep(100L);
+        assertTrue(successOrder.isEmpty());
+        assertTrue(flowFileRepo.getUpdates().isEmpty());
+
+        releaseOtherComponent.countDown();
+        committer.join(10_000L);
+        assertFalse(committer.isAlive());
+
+        assertNull(failure.get());
+        assertEquals(Arrays.asList("0", "1"), successOrder);
+
+        final List<RepositoryRecord> updates = flowFileRepo.getUpdates();
+        assertEquals(2, updates.size());
+        assertEquals("0", updates.get(0).getCurrent().getAttribute("checkpoint"));
+        assertEquals("1", updates.get(1).getCurrent().getAttribute("checkpoint"));
+
+        assertTrue(commitPipeline.shutdown(10, TimeUnit.SECONDS));
+        assertEquals(0, commitPipeline.getQueuedCommitCount());
+    }
+
+    @Test
+    public void testCommitAsyncValidationFailureThrown() {
+        final SessionCommitPipeline commitPipeline = new SessionCommitPipeline(1, 10);
+        final RepositoryContext asyncContext = new RepositoryContext(connectable, new AtomicLong(0L), contentRepo, flowFileRepo, flowFileEventRepository,
+            counterRepository, provenanceRepo, commitPipeline);
+        session = new StandardProcessSession(asyncContext, () -> false);
+
+        session.create();
+
+        try {
+            session.commitAsync(() -> Assert.fail("Session was committed without a transfer relationship"), t -> Assert.fail("Validation failure was not thrown"));
+            Assert.fail("Session was committed without a transfer relationship");
+        } catch (final FlowFileHandlingException expected) {
+        }
+
+        assertTrue(commitPipeline.shutdown(10, TimeUnit.SECONDS));
+        assertEquals(0, commitPipeline.getCommitCount());
+    }
+
     @Test
     public void testRollbackAfterCheckpoint() {
         final StandardFlowFileRecord.Builder recordBuilder = new StandardFlowFileRecord.Builder()
@@ -2168,6 +2349,88 @@ public class TestStandardProcessSession {
     }
 
 
+    @Test
+    public void testWriteChildrenOnOtherThreadsWhileReadingParent() throws Exception {
+        // QueryRecord's shared scan opens the OutputStreams of the children and reads the parent on the session's thread,
+        // but writes to each child's OutputStream on a separate thread
+        final ContentClaim claim = contentRepo.create(false);
+        try (final OutputStream out = contentRepo.write(claim)) {
+            out.write("hello, world".getBytes());
+        }
+
+        final FlowFileRecord flowFileRecord = new StandardFlowFileRecord.Builder()
+            .contentClaim(claim)
+            .addAttribute("uuid", "12345678-1234-1234-1234-123456789012")
+            .entryDate(System.currentTimeMillis())
+            .size(12L)
+            .build();
+        flowFileQueue.put(flowFileRecord);
+
+        final FlowFile original = session.get();
+        final int childCount = 3;
+        final int linesPerChild = 10_000;
+
+        final List<FlowFile> children = new ArrayList<>();
+        final List<OutputStream> outputStreams = new ArrayList<>();
+        for (int i = 0; i < childCount; i++) {
+            final FlowFile child = session.create(original);
+            children.add(child);
+            outputStreams.add(session.write(child));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(childCount);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < childCount; i++) {
+                final OutputStream out = outputStreams.get(i);
+                final byte[] line = ("child-" + i + "\n").getBytes(StandardCharsets.UTF_8);
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < linesPerChild; j++) {
+                        out.write(line);
+                    }
+                    return null;
+                }));
+            }
+
+            final byte[] buffer = new byte[12];
+            try (final InputStream in = session.read(original)) {
+                StreamUtils.fillBuffer(in, buffer);
+            }
+            assertEquals("hello, world", new String(buffer));
+
+            for (final Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (final OutputStream out : outputStreams) {
+            out.close();
+        }
+
+        for (int i = 0; i < childCount; i++) {
+            // Call putAllAttributes in order to obtain the most recent version of the FlowFile
+            final FlowFile child = session.putAllAttributes(children.get(i), Collections.emptyMap());
+            final byte[] line = ("child-" + i + "\n").getBytes(StandardCharsets.UTF_8);
+            assertEquals((long) line.length * linesPerChild, child.getSize());
+
+            final byte[] content = new byte[(int) child.getSize()];
+            try (final InputStream in = session.read(child)) {
+                StreamUtils.fillBuffer(in, content);
+            }
+
+            for (int j = 0; j < linesPerChild; j++) {
+                assertArrayEquals(line, Arrays.copyOfRange(content, j * line.length, (j + 1) * line.length));
+            }
+
+            session.remove(child);
+        }
+
+        session.remove(original);
+        session.commit();
+    }
+
     @Test
     public void testTransferUnknownRelationship() {
         final FlowFileRecord flowFileRecord1 = new StandardFlowFileRecord.Builder()
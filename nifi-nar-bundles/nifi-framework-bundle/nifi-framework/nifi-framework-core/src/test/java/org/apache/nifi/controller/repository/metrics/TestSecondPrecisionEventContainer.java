@@ -19,6 +19,10 @@ package org.apache.nifi.controller.repository.metrics;
 import org.apache.nifi.controller.repository.FlowFileEvent;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 
 public class TestSecondPrecisionEventContainer {
@@ -132,4 +136,41 @@ public class TestSecondPrecisionEventContainer {
         assertEquals(0, resultsAt5MinsPlus600seconds.getBytesWritten());
     }
 
+    @Test
+    public void testConcurrentUpdatesNotLost() throws InterruptedException {
+        final SecondPrecisionEventContainer container = new SecondPrecisionEventContainer(5);
+
+        final StandardFlowFileEvent event = new StandardFlowFileEvent();
+        event.setFlowFilesIn(1);
+        event.setBytesRead(10L);
+        event.setCounters(Collections.singletonMap("records", 2L));
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 25_000; j++) {
+                    container.addEvent(event);
+                }
+            }));
+        }
+
+        // generating reports drains the accumulated values while events are being added
+        final Thread reporter = new Thread(() -> {
+            for (int j = 0; j < 1_000; j++) {
+                container.generateReport(System.currentTimeMillis());
+            }
+        });
+
+        threads.forEach(Thread::start);
+        reporter.start();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        reporter.join();
+
+        final FlowFileEvent result = container.generateReport(System.currentTimeMillis());
+        assertEquals(100_000, result.getFlowFilesIn());
+        assertEquals(1_000_000L, result.getBytesRead());
+        assertEquals(Long.valueOf(200_000L), result.getCounters().get("records"));
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.tasks.ConnectableTask;
+import org.apache.nifi.controller.tasks.InvocationResult;
+import org.apache.nifi.encrypt.StringEncryptor;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestTimerDrivenSchedulingAgent {
+
+    private final AtomicInteger invocationCount = new AtomicInteger(0);
+    private volatile IntFunction<InvocationResult> onInvoke = count -> InvocationResult.NO_WORK_TO_DO;
+
+    private FlowEngine flowEngine;
+    private TimerDrivenSchedulingAgent agent;
+    private Connectable connectable;
+
+    @Before
+    public void setup() {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(NiFiProperties.BORED_YIELD_DURATION, "10 millis");
+        properties.put(NiFiProperties.TIMER_DRIVEN_WORK_AWARE, "true");
+        // long enough that a task that is parked is only run again if it is woken
+        properties.put(NiFiProperties.TIMER_DRIVEN_MAX_PARK_DURATION, "1 min");
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties(null, properties);
+
+        flowEngine = new FlowEngine(2, "Unit Test", true);
+        agent = new TimerDrivenSchedulingAgent(Mockito.mock(FlowController.class), flowEngine, Mockito.mock(RepositoryContextFactory.class),
+            Mockito.mock(StringEncryptor.class), nifiProperties) {
+            @Override
+            ConnectableTask createConnectableTask(final Connectable connectable, final LifecycleState scheduleState) {
+                final ConnectableTask connectableTask = Mockito.mock(ConnectableTask.class);
+                Mockito.when(connectableTask.getConnectable()).thenReturn(connectable);
+                Mockito.when(connectableTask.invoke()).thenAnswer(invocation -> onInvoke.apply(invocationCount.incrementAndGet()));
+                return connectableTask;
+            }
+        };
+
+        connectable = Mockito.mock(Connectable.class);
+        Mockito.when(connectable.getMaxConcurrentTasks()).thenReturn(1);
+        Mockito.when(connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS)).thenReturn(0L);
+        Mockito.when(connectable.getSchedulingPeriod(TimeUnit.MILLISECONDS)).thenReturn(0L);
+        Mockito.when(connectable.getYieldExpiration()).thenReturn(0L);
+    }
+
+    @After
+    public void cleanup() {
+        agent.shutdown();
+    }
+
+    @Test(timeout = 10000)
+    public void testParkedTaskWokenWhenDataQueued() throws InterruptedException {
+        agent.schedule(connectable, new LifecycleState());
+
+        // the task finds no work to do and is parked
+        waitFor(1);
+        Thread.sleep(200L);
+        assertEquals(1, invocationCount.get());
+
+        agent.onEvent(connectable);
+        waitFor(2);
+    }
+
+    @Test(timeout = 10000)
+    public void testTaskWokenWhenDataQueuedBeforeParking() throws InterruptedException {
+        // A FlowFile is enqueued for the component after the task has found that there is no work to do, but before the task is parked
+        onInvoke = count -> {
+            if (count == 1) {
+                agent.onEvent(connectable);
+            }
+            return InvocationResult.NO_WORK_TO_DO;
+        };
+
+        agent.schedule(connectable, new LifecycleState());
+
+        // the task must be woken rather than staying parked for the maximum park duration, and then be parked once it finds no work again
+        waitFor(2);
+        Thread.sleep(200L);
+        assertEquals(2, invocationCount.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testTaskWithWorkIsNotParked() throws InterruptedException {
+        onInvoke = count -> InvocationResult.DO_NOT_YIELD;
+
+        agent.schedule(connectable, new LifecycleState());
+        waitFor(100);
+    }
+
+    private void waitFor(final int invocations) throws InterruptedException {
+        while (invocationCount.get() < invocations) {
+            Thread.sleep(10L);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.tasks.ConnectableTask;
+import org.apache.nifi.controller.tasks.InvocationResult;
+import org.apache.nifi.encrypt.StringEncryptor;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestVirtualThreadSchedulingAgent {
+
+    private final AtomicInteger invocationCount = new AtomicInteger(0);
+    private final AtomicReference<InvocationResult> invocationResult = new AtomicReference<>(InvocationResult.DO_NOT_YIELD);
+
+    private FlowEngine flowEngine;
+    private VirtualThreadSchedulingAgent agent;
+    private Connectable connectable;
+
+    @Before
+    public void setup() {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(NiFiProperties.BORED_YIELD_DURATION, "10 millis");
+        properties.put(NiFiProperties.VIRTUAL_THREAD_CARRIER_THREADS, "2");
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties(null, properties);
+
+        flowEngine = new FlowEngine(1, "Unit Test", true);
+        agent = new VirtualThreadSchedulingAgent(Mockito.mock(FlowController.class), flowEngine, Mockito.mock(RepositoryContextFactory.class),
+            Mockito.mock(StringEncryptor.class), nifiProperties) {
+            @Override
+            ConnectableTask createConnectableTask(final Connectable connectable, final LifecycleState scheduleState) {
+                final ConnectableTask connectableTask = Mockito.mock(ConnectableTask.class);
+                Mockito.when(connectableTask.getConnectable()).thenReturn(connectable);
+                Mockito.when(connectableTask.invoke()).thenAnswer(invocation -> {
+                    invocationCount.incrementAndGet();
+                    return invocationResult.get();
+                });
+                return connectableTask;
+            }
+        };
+
+        connectable = Mockito.mock(Connectable.class);
+        Mockito.when(connectable.getMaxConcurrentTasks()).thenReturn(2);
+        Mockito.when(connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS)).thenReturn(0L);
+        Mockito.when(connectable.getYieldExpiration()).thenReturn(0L);
+    }
+
+    @After
+    public void cleanup() {
+        agent.shutdown();
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduledComponentRunsRepeatedly() throws InterruptedException {
+        final LifecycleState scheduleState = new LifecycleState();
+        agent.schedule(connectable, scheduleState);
+
+        waitFor(() -> invocationCount.get() >= 100);
+    }
+
+    @Test(timeout = 10000)
+    public void testYieldedComponentNotRunUntilYieldExpires() throws InterruptedException {
+        final long yieldExpiration = System.currentTimeMillis() + 1000L;
+        Mockito.when(connectable.getYieldExpiration()).thenReturn(yieldExpiration);
+
+        final LifecycleState scheduleState = new LifecycleState();
+        agent.schedule(connectable, scheduleState);
+
+        // each concurrent task runs once, finds the component yielded and waits for the yield to expire
+        waitFor(() -> invocationCount.get() >= 2);
+        Thread.sleep(500L);
+        assertEquals(2, invocationCount.get());
+
+        waitFor(() -> invocationCount.get() > 2);
+        assertTrue(System.currentTimeMillis() >= yieldExpiration);
+    }
+
+    @Test(timeout = 10000)
+    public void testComponentWithNoWorkRunsAfterBoredYieldDuration() throws InterruptedException {
+        invocationResult.set(InvocationResult.NO_WORK_TO_DO);
+
+        final LifecycleState scheduleState = new LifecycleState();
+        agent.schedule(connectable, scheduleState);
+
+        // with a bored yield duration of 10 millis, the two concurrent tasks cannot run more than a couple of hundred times in a second
+        Thread.sleep(1000L);
+        final int count = invocationCount.get();
+        assertTrue(count > 2);
+        assertTrue(count < 400);
+    }
+
+    @Test(timeout = 10000)
+    public void testUnscheduledComponentStopsRunning() throws InterruptedException {
+        final LifecycleState scheduleState = new LifecycleState();
+        agent.schedule(connectable, scheduleState);
+        waitFor(() -> invocationCount.get() >= 10);
+
+        agent.unschedule(connectable, scheduleState);
+
+        // a concurrent task that was already running may complete its invocation, but none may be started afterward
+        Thread.sleep(100L);
+        final int countAfterStop = invocationCount.get();
+        Thread.sleep(500L);
+        assertEquals(countAfterStop, invocationCount.get());
+        assertEquals(0, agent.getActiveThreadCount());
+    }
+
+    @Test(timeout = 10000)
+    public void testRescheduledComponentDoesNotKeepOldTasks() throws InterruptedException {
+        final LifecycleState firstState = new LifecycleState();
+        agent.schedule(connectable, firstState);
+        waitFor(() -> invocationCount.get() >= 10);
+
+        // The component is stopped and started again before its concurrent tasks notice that it was stopped
+        final LifecycleState secondState = new LifecycleState();
+        agent.schedule(connectable, secondState);
+        agent.unschedule(connectable, secondState);
+
+        Thread.sleep(100L);
+        final int countAfterStop = invocationCount.get();
+        Thread.sleep(500L);
+        assertEquals(countAfterStop, invocationCount.get());
+    }
+
+    private void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        while (!condition.getAsBoolean()) {
+            Thread.sleep(10L);
+        }
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.nifi.controller.status.analytics;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -23,6 +24,8 @@ import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
@@ -65,10 +68,15 @@ public class TestConnectionStatusAnalytics {
     final Connection connection = Mockito.mock(Connection.class);
     final FlowFileEvent flowFileEvent = Mockito.mock(FlowFileEvent.class);
     final RepositoryStatusReport repositoryStatusReport = Mockito.mock(RepositoryStatusReport.class);
+    final ComponentStatusRepository statusRepository = Mockito.mock(ComponentStatusRepository.class);
 
     protected ConnectionStatusAnalytics getConnectionStatusAnalytics(Map<String, Tuple<StatusAnalyticsModel, StatusMetricExtractFunction>> modelMap) {
+        return getConnectionStatusAnalytics(modelMap, false);
+    }
+
+    protected ConnectionStatusAnalytics getConnectionStatusAnalytics(Map<String, Tuple<StatusAnalyticsModel, StatusMetricExtractFunction>> modelMap,
+                                                                     boolean supportOnlineLearning) {
 
-        ComponentStatusRepository statusRepository = Mockito.mock(ComponentStatusRepository.class);
         FlowManager flowManager;
         flowManager = Mockito.mock(FlowManager.class);
         final Map<String, String> otherProps = new HashMap<>();
@@ -102,7 +110,7 @@ public class TestConnectionStatusAnalytics {
         when(statusRepository.getConnectionStatusHistory(anyString(), any(), any(), anyInt())).thenReturn(statusHistory);
 
         ConnectionStatusAnalytics connectionStatusAnalytics = new ConnectionStatusAnalytics(statusRepository, flowManager,
-                                                                                            modelMap, connectionIdentifier, false);
+                                                                                            modelMap, connectionIdentifier, supportOnlineLearning);
         connectionStatusAnalytics.refresh();
         return connectionStatusAnalytics;
     }
@@ -145,6 +153,32 @@ public class TestConnectionStatusAnalytics {
         assert (countTime == -1);
     }
 
+    @Test
+    public void testInvalidOnlineModelIsReseeded() {
+        Date now = new Date();
+        Long tomorrowMillis = DateUtils.addDays(now,1).toInstant().toEpochMilli();
+        Map<String, Tuple<StatusAnalyticsModel, StatusMetricExtractFunction>> modelMap = getModelMap("queuedCount",.5,100.0,tomorrowMillis.doubleValue());
+        StatusAnalyticsModel model = modelMap.get("queuedCount").getKey();
+        when(model.supportsOnlineLearning()).thenReturn(true);
+
+        ConnectionStatusAnalytics connectionStatusAnalytics = getConnectionStatusAnalytics(modelMap, true);
+        connectionStatusAnalytics.refresh();
+        verify(statusRepository, times(1)).getConnectionStatusHistory(anyString(), any(), any(), anyInt());
+
+        Long countTime = connectionStatusAnalytics.getTimeToCountBackpressureMillis(connection, flowFileEvent);
+        assertEquals(-1L, countTime.longValue());
+        verify(model, times(1)).clear();
+
+        // the cleared model must be seeded again from the observations of the query interval
+        connectionStatusAnalytics.refresh();
+        verify(statusRepository, times(2)).getConnectionStatusHistory(anyString(), any(), any(), anyInt());
+        verify(model, times(2)).learn(any(), any());
+        assertNotNull(connectionStatusAnalytics.getQueryWindow());
+
+        connectionStatusAnalytics.refresh();
+        verify(statusRepository, times(2)).getConnectionStatusHistory(anyString(), any(), any(), anyInt());
+    }
+
       @Test
     public void testInvalidModelNaNScore() {
         Map<String, Tuple<StatusAnalyticsModel, StatusMetricExtractFunction>> modelMap = getModelMap("queuedCount",Double.NaN,Double.NaN,Double.NaN);
@@ -22,8 +22,11 @@ import static org.testng.Assert.assertNotNull;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.apache.nifi.bundle.Bundle;
+import org.apache.nifi.controller.status.ConnectionStatus;
+import org.apache.nifi.controller.status.analytics.models.OnlineOrdinaryLeastSquares;
 import org.apache.nifi.nar.ExtensionManager;
 import org.apache.nifi.nar.StandardExtensionDiscoveringManager;
 import org.apache.nifi.nar.SystemBundle;
@@ -62,4 +65,24 @@ public class TestStatusAnalyticsModelMapFactory {
         assertEquals(countModel.getClass().getName(),"org.apache.nifi.controller.status.analytics.models.OrdinaryLeastSquares");
         assertEquals(bytesModel.getClass().getName(),"org.apache.nifi.controller.status.analytics.models.OrdinaryLeastSquares");
     }
+
+    @Test
+    public void testOnlineModelSurvivesObservationWithNoInput() {
+        final OnlineOrdinaryLeastSquares model = new OnlineOrdinaryLeastSquares(5);
+        final long timestamp = 1565444720000L;
+
+        for (int i = 0; i < 10; i++) {
+            final ConnectionStatus connectionStatus = new ConnectionStatus();
+            // nothing was input to the connection in the third snapshot, so its ratio of output to input is infinite
+            connectionStatus.setInputCount(i == 2 ? 0 : 100 + i * 10);
+            connectionStatus.setOutputCount(100);
+            connectionStatus.setQueuedCount(1000 + i * 20);
+
+            final Tuple<Double[], Double> observation = StatusAnalyticsModelMapFactory.extractConnectionStatusObservation("queuedCount", connectionStatus, timestamp + i * 1000L);
+            model.learn(Stream.<Double[]>of(observation.getKey()), Stream.of(observation.getValue()));
+        }
+
+        assertNotNull(model.getScores());
+        assertNotNull(model.predict(new Double[] {(double) timestamp + 20000L, 0.5}));
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status.analytics.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class TestOnlineOrdinaryLeastSquares {
+
+    private static final double TIMESTAMP = 1565444720000.0;
+
+    private final Double[][] features = {
+        {TIMESTAMP, 50.0 / 1000.0},
+        {TIMESTAMP + 1000, 50.0 / 1050.0},
+        {TIMESTAMP + 2000, 100.0 / 1000.0},
+        {TIMESTAMP + 3000, 150.0 / 900.0},
+        {TIMESTAMP + 4000, 120.0 / 1000.0},
+        {TIMESTAMP + 5000, 90.0 / 950.0},
+        {TIMESTAMP + 6000, 200.0 / 1100.0},
+        {TIMESTAMP + 7000, 180.0 / 1000.0}
+    };
+    private final Double[] labels = {950.0, 1000.0, 900.0, 850.0, 870.0, 920.0, 800.0, 790.0};
+
+    @Test
+    public void testMatchesOrdinaryLeastSquares() {
+        final OrdinaryLeastSquares ordinaryLeastSquares = new OrdinaryLeastSquares();
+        ordinaryLeastSquares.learn(Stream.of(features), Stream.of(labels));
+
+        final OnlineOrdinaryLeastSquares onlineOrdinaryLeastSquares = new OnlineOrdinaryLeastSquares(features.length);
+        for (int i = 0; i < features.length; i++) {
+            onlineOrdinaryLeastSquares.learn(Stream.<Double[]>of(features[i]), Stream.of(labels[i]));
+        }
+
+        // OrdinaryLeastSquares fits the timestamps as they are, so it is not as precise; allow for that
+        assertEquals(ordinaryLeastSquares.getScores().get("rSquared"), onlineOrdinaryLeastSquares.getScores().get("rSquared"), 1e-4);
+        assertEquals(ordinaryLeastSquares.getScores().get("totalSumOfSquares"), onlineOrdinaryLeastSquares.getScores().get("totalSumOfSquares"), 1e-3);
+
+        final Double[] predictor = {TIMESTAMP + 10000, 0.15};
+        assertEquals(ordinaryLeastSquares.predict(predictor), onlineOrdinaryLeastSquares.predict(predictor), 0.5);
+
+        final Map<Integer, Double> predictorVars = new HashMap<>();
+        predictorVars.put(1, 0.15);
+        assertEquals(ordinaryLeastSquares.predictVariable(0, predictorVars, 500.0), onlineOrdinaryLeastSquares.predictVariable(0, predictorVars, 500.0), 1000.0);
+    }
+
+    @Test
+    public void testOldestObservationsRemoved() {
+        final int windowSize = 5;
+        final OnlineOrdinaryLeastSquares online = new OnlineOrdinaryLeastSquares(windowSize);
+        for (int i = 0; i < features.length; i++) {
+            online.learn(Stream.<Double[]>of(features[i]), Stream.of(labels[i]));
+            assertEquals(Math.min(i + 1, windowSize), online.getObservationCount());
+        }
+
+        // a model that learns only the most recent observations at once must be the same as the one that learned all of them one at a time
+        final OnlineOrdinaryLeastSquares batch = new OnlineOrdinaryLeastSquares(windowSize);
+        batch.learn(Arrays.stream(features, features.length - windowSize, features.length), Arrays.stream(labels, labels.length - windowSize, labels.length));
+
+        assertEquals(batch.getScores().get("rSquared"), online.getScores().get("rSquared"), 1e-9);
+        final Double[] predictor = {TIMESTAMP + 10000, 0.15};
+        assertEquals(batch.predict(predictor), online.predict(predictor), 1e-6);
+    }
+
+    @Test
+    public void testNoPredictionUntilEnoughObservations() {
+        final OnlineOrdinaryLeastSquares model = new OnlineOrdinaryLeastSquares(5);
+        final Double[] predictor = {TIMESTAMP + 10000, 0.15};
+
+        for (int i = 0; i < 3; i++) {
+            model.learn(Stream.<Double[]>of(features[i]), Stream.of(labels[i]));
+            assertNull(model.getScores());
+            assertNull(model.predict(predictor));
+        }
+
+        model.learn(Stream.<Double[]>of(features[3]), Stream.of(labels[3]));
+        assertNotNull(model.getScores());
+        assertNotNull(model.predict(predictor));
+
+        model.clear();
+        assertEquals(0, model.getObservationCount());
+        assertNull(model.getScores());
+    }
+
+    @Test
+    public void testNonFiniteObservationsIgnored() {
+        final OnlineOrdinaryLeastSquares model = new OnlineOrdinaryLeastSquares(5);
+        final OnlineOrdinaryLeastSquares expected = new OnlineOrdinaryLeastSquares(5);
+
+        for (int i = 0; i < features.length; i++) {
+            model.learn(Stream.<Double[]>of(features[i]), Stream.of(labels[i]));
+            expected.learn(Stream.<Double[]>of(features[i]), Stream.of(labels[i]));
+
+            if (i == 2) {
+                model.learn(Stream.<Double[]>of(new Double[] {TIMESTAMP + 2500, Double.POSITIVE_INFINITY}), Stream.of(900.0));
+                model.learn(Stream.<Double[]>of(new Double[] {TIMESTAMP + 2600, Double.NaN}), Stream.of(900.0));
+                model.learn(Stream.<Double[]>of(new Double[] {TIMESTAMP + 2700, 0.1}), Stream.of(Double.NEGATIVE_INFINITY));
+            }
+        }
+
+        // the window has slid past the point at which the non-finite observations were offered, and the model must still be estimated
+        assertEquals(5, model.getObservationCount());
+        assertNotNull(model.getScores());
+        assertEquals(expected.getScores().get("rSquared"), model.getScores().get("rSquared"), 1e-9);
+
+        final Double[] predictor = {TIMESTAMP + 10000, 0.15};
+        assertEquals(expected.predict(predictor), model.predict(predictor), 1e-6);
+    }
+
+    @Test
+    public void testConstantFeature() {
+        final Double[][] constantFeatures = new Double[5][];
+        final Double[] constantLabels = new Double[5];
+        for (int i = 0; i < constantFeatures.length; i++) {
+            constantFeatures[i] = new Double[] {TIMESTAMP + i * 1000, 1.0};
+            constantLabels[i] = 50.0 + i;
+        }
+
+        final OnlineOrdinaryLeastSquares model = new OnlineOrdinaryLeastSquares(5);
+        model.learn(Stream.of(constantFeatures), Stream.of(constantLabels));
+
+        // the features are linearly dependent, so the regression parameters cannot be estimated
+        assertNull(model.getScores());
+        assertTrue(model.supportsOnlineLearning());
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status.history;
+
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.status.ProcessorStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentComponentStatusRepositoryTest {
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long ONE_DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long FIVE_MINUTES = TimeUnit.MINUTES.toMillis(5);
+    private static final long FIFTEEN_MINUTES = TimeUnit.MINUTES.toMillis(15);
+
+    private final File directory = new File("target/persistent-status-repository");
+    private PersistentComponentStatusRepository repository;
+    private long base;
+
+    @Before
+    public void setup() {
+        deleteRecursively(directory);
+
+        // Start of the day before yesterday, so that no segment is old enough for the background maintenance to downsample or delete it
+        base = (System.currentTimeMillis() / ONE_DAY - 2) * ONE_DAY;
+        repository = createRepository();
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        repository.close();
+    }
+
+    private PersistentComponentStatusRepository createRepository() {
+        return new PersistentComponentStatusRepository(directory, ONE_HOUR, 10 * ONE_DAY, FIFTEEN_MINUTES, 100 * ONE_DAY);
+    }
+
+    @Test
+    public void testHistoryAcrossSegments() {
+        captureEveryFiveMinutes(3 * ONE_HOUR);
+
+        final StatusHistory history = repository.getProcessorStatusHistory("proc", new Date(base), new Date(base + 2 * ONE_HOUR), Integer.MAX_VALUE, true);
+        final List<StatusSnapshot> snapshots = history.getStatusSnapshots();
+        assertEquals(25, snapshots.size());
+        assertEquals("P", history.getComponentDetails().get("Name"));
+
+        for (int i = 0; i < snapshots.size(); i++) {
+            final StatusSnapshot snapshot = snapshots.get(i);
+            assertEquals(base + i * FIVE_MINUTES, snapshot.getTimestamp().getTime());
+            assertEquals(Long.valueOf(i + 1), snapshot.getStatusMetric(ProcessorStatusDescriptor.INPUT_COUNT.getDescriptor()));
+            assertTrue(snapshot.getMetricDescriptors().stream().anyMatch(MetricDescriptor::isCounter));
+        }
+
+        final List<StatusSnapshot> latest = repository.getProcessorStatusHistory("proc", null, null, 3, false).getStatusSnapshots();
+        assertEquals(3, latest.size());
+        assertEquals(base + 3 * ONE_HOUR - FIVE_MINUTES, latest.get(2).getTimestamp().getTime());
+        assertFalse(latest.get(2).getMetricDescriptors().stream().anyMatch(MetricDescriptor::isCounter));
+
+        assertEquals(base + 3 * ONE_HOUR - FIVE_MINUTES, repository.getLastCaptureDate().getTime());
+        assertTrue(repository.getProcessorStatusHistory("other", null, null, 10, true).getStatusSnapshots().isEmpty());
+    }
+
+    @Test
+    public void testHistoryRecoveredAfterRestart() throws IOException {
+        // The last 30 minutes are in the active segment and are recovered from the journal
+        captureEveryFiveMinutes(ONE_HOUR + 30 * 60 * 1000L);
+        repository.close();
+
+        repository = createRepository();
+        final List<StatusSnapshot> snapshots = repository.getProcessorStatusHistory("proc", null, null, Integer.MAX_VALUE, true).getStatusSnapshots();
+        assertEquals(18, snapshots.size());
+        assertEquals(Long.valueOf(18), snapshots.get(17).getStatusMetric(ProcessorStatusDescriptor.INPUT_COUNT.getDescriptor()));
+
+        final GarbageCollectionHistory gcHistory = repository.getGarbageCollectionHistory(new Date(base), new Date(base + 2 * ONE_HOUR));
+        assertEquals(18, gcHistory.getGarbageCollectionStatuses("G1").size());
+    }
+
+    @Test
+    public void testOlderSegmentsDownsampled() throws IOException {
+        captureEveryFiveMinutes(ONE_DAY + ONE_HOUR);
+        repository.performMaintenance(base + 11 * ONE_DAY + 12 * ONE_HOUR);
+
+        // The first day is averaged over 15 minutes. The snapshots at 0, 5 and 10 minutes have input counts of 1, 2 and 3.
+        final List<StatusSnapshot> snapshots = repository.getProcessorStatusHistory("proc", new Date(base), new Date(base + ONE_HOUR), Integer.MAX_VALUE, true).getStatusSnapshots();
+        assertEquals(5, snapshots.size());
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(base + i * FIFTEEN_MINUTES, snapshots.get(i).getTimestamp().getTime());
+            assertEquals(Long.valueOf(3 * i + 2), snapshots.get(i).getStatusMetric(ProcessorStatusDescriptor.INPUT_COUNT.getDescriptor()));
+        }
+
+        // The second day is not yet old enough to be downsampled
+        final List<StatusSnapshot> raw = repository.getProcessorStatusHistory("proc", new Date(base + ONE_DAY), null, Integer.MAX_VALUE, true).getStatusSnapshots();
+        assertEquals(12, raw.size());
+
+        // Garbage collection counts are cumulative, so the latest count of each interval is retained
+        final List<GarbageCollectionStatus> gcStatuses = repository.getGarbageCollectionHistory(new Date(base), new Date(base + ONE_HOUR)).getGarbageCollectionStatuses("G1");
+        assertEquals(5, gcStatuses.size());
+        assertEquals(3L, gcStatuses.get(0).getCollectionCount());
+
+        repository.performMaintenance(base + 200 * ONE_DAY);
+        assertTrue(repository.getProcessorStatusHistory("proc", new Date(base), new Date(base + ONE_DAY - 1), Integer.MAX_VALUE, true).getStatusSnapshots().isEmpty());
+    }
+
+    @Test
+    public void testDictionaryCompacted() throws IOException {
+        final File dictionaryFile = new File(directory, "components.dict");
+
+        // "proc" has history only on the first day. "later" has history on the third day, and is renamed partway through it.
+        captureEveryFiveMinutes(ONE_HOUR);
+        for (int i = 0; i < 12; i++) {
+            final String name = i < 6 ? "First Name" : "Second Name";
+            repository.capture(createRootGroupStatus(i + 1, "later", name), Collections.emptyList(), new Date(base + 2 * ONE_DAY + i * FIVE_MINUTES));
+        }
+
+        // Nothing is old enough to be deleted, so only the superseded details of "later" are removed
+        repository.performMaintenance(base + 3 * ONE_DAY);
+        final long uncompactedLength = dictionaryFile.length();
+
+        // The history of "proc" is deleted, so its details are removed and its index may be reused
+        repository.performMaintenance(base + 101 * ONE_DAY);
+        assertTrue(dictionaryFile.length() < uncompactedLength);
+        assertTrue(repository.getProcessorStatusHistory("proc", null, null, Integer.MAX_VALUE, true).getStatusSnapshots().isEmpty());
+
+        repository.capture(createRootGroupStatus(100, "new", "New"), Collections.emptyList(), new Date(base + 2 * ONE_DAY + 2 * ONE_HOUR));
+        repository.close();
+
+        repository = createRepository();
+        final StatusHistory laterHistory = repository.getProcessorStatusHistory("later", null, null, Integer.MAX_VALUE, true);
+        assertEquals("Second Name", laterHistory.getComponentDetails().get("Name"));
+        assertEquals(12, laterHistory.getStatusSnapshots().size());
+
+        // The capture of "new" may be later than the current time, so the end of the time range is given explicitly
+        final List<StatusSnapshot> newSnapshots = repository.getProcessorStatusHistory("new", null, new Date(base + 3 * ONE_DAY), Integer.MAX_VALUE, true).getStatusSnapshots();
+        assertEquals(Long.valueOf(100), newSnapshots.get(newSnapshots.size() - 1).getStatusMetric(ProcessorStatusDescriptor.INPUT_COUNT.getDescriptor()));
+        assertTrue(repository.getProcessorStatusHistory("proc", null, null, Integer.MAX_VALUE, true).getStatusSnapshots().isEmpty());
+    }
+
+    private void captureEveryFiveMinutes(final long duration) {
+        for (int i = 0; i * FIVE_MINUTES < duration; i++) {
+            final Date timestamp = new Date(base + i * FIVE_MINUTES);
+            final GarbageCollectionStatus gcStatus = new StandardGarbageCollectionStatus("G1", timestamp, i + 1, 10L * (i + 1));
+            repository.capture(createRootGroupStatus(i + 1), Collections.singletonList(gcStatus), timestamp);
+        }
+    }
+
+    private ProcessGroupStatus createRootGroupStatus(final int inputCount) {
+        return createRootGroupStatus(inputCount, "proc", "P");
+    }
+
+    private ProcessGroupStatus createRootGroupStatus(final int inputCount, final String processorId, final String processorName) {
+        final ProcessorStatus processorStatus = new ProcessorStatus();
+        processorStatus.setId(processorId);
+        processorStatus.setGroupId("root");
+        processorStatus.setName(processorName);
+        processorStatus.setType("GenerateFlowFile");
+        processorStatus.setInputCount(inputCount);
+        processorStatus.setCounters(Collections.singletonMap("records", (long) inputCount));
+
+        final ProcessGroupStatus groupStatus = new ProcessGroupStatus();
+        groupStatus.setId("root");
+        groupStatus.setName("root");
+        groupStatus.setInputCount(inputCount);
+        groupStatus.setInputContentSize(0L);
+        groupStatus.setOutputCount(0);
+        groupStatus.setOutputContentSize(0L);
+        groupStatus.setQueuedCount(0);
+        groupStatus.setQueuedContentSize(0L);
+        groupStatus.setBytesRead(0L);
+        groupStatus.setBytesWritten(0L);
+        groupStatus.setProcessorStatus(Collections.singletonList(processorStatus));
+        return groupStatus;
+    }
+
+    private void deleteRecursively(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                deleteRecursively(child);
+            }
+        }
+
+        file.delete();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import org.apache.nifi.stream.io.StreamUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestDirectMemorySwapCache {
+
+    @Test
+    public void testReadReturnsCommittedBytesAcrossChunks() throws IOException {
+        final DirectMemorySwapCache cache = new DirectMemorySwapCache(1024, 100);
+        final byte[] data = randomBytes(350);
+
+        assertTrue(write(cache, "a.swap", data));
+        assertEquals(350, cache.getCachedBytes());
+        assertArrayEquals(data, read(cache, "a.swap"));
+        assertEquals(1, cache.getHitCount());
+
+        assertNull(cache.read("b.swap"));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testUncommittedBytesNotVisible() {
+        final DirectMemorySwapCache cache = new DirectMemorySwapCache(1024, 100);
+        final DirectMemorySwapCache.Writer writer = cache.createWriter();
+        writer.write(randomBytes(250), 0, 250);
+        writer.close();
+
+        assertNull(cache.read("a.swap"));
+        writer.discard();
+        assertEquals(0, cache.getCachedBytes());
+
+        // all chunks must have been given back, so that a swap file the size of the entire cache fits
+        assertTrue(write(cache, "b.swap", randomBytes(1000)));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws IOException {
+        final DirectMemorySwapCache cache = new DirectMemorySwapCache(300, 100);
+        final byte[] first = randomBytes(100);
+        final byte[] second = randomBytes(100);
+        final byte[] third = randomBytes(100);
+
+        assertTrue(write(cache, "1.swap", first));
+        assertTrue(write(cache, "2.swap", second));
+        assertTrue(write(cache, "3.swap", third));
+
+        // touch the first so that the second is the least recently used
+        assertArrayEquals(first, read(cache, "1.swap"));
+
+        assertTrue(write(cache, "4.swap", randomBytes(100)));
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.read("2.swap"));
+        assertArrayEquals(first, read(cache, "1.swap"));
+        assertArrayEquals(third, read(cache, "3.swap"));
+        assertEquals(300, cache.getCachedBytes());
+    }
+
+    @Test
+    public void testSwapFileLargerThanCacheRejected() {
+        final DirectMemorySwapCache cache = new DirectMemorySwapCache(200, 100);
+        assertTrue(write(cache, "1.swap", randomBytes(100)));
+
+        assertFalse(write(cache, "2.swap", randomBytes(201)));
+        assertEquals(1, cache.getRejectionCount());
+        assertNull(cache.read("2.swap"));
+        assertEquals(0, cache.getCachedBytes());
+
+        assertTrue(write(cache, "3.swap", randomBytes(200)));
+        assertEquals(200, cache.getCachedBytes());
+    }
+
+    @Test
+    public void testEvictedEntryRemainsReadableUntilClosed() throws IOException {
+        final DirectMemorySwapCache cache = new DirectMemorySwapCache(100, 100);
+        final byte[] data = randomBytes(100);
+        assertTrue(write(cache, "1.swap", data));
+
+        final InputStream in = cache.read("1.swap");
+        assertNotNull(in);
+
+        // the only chunk is in use by the reader, so there is no room for another swap file until the reader is closed
+        assertFalse(write(cache, "2.swap", randomBytes(100)));
+        assertArrayEquals(data, readFully(in));
+        in.close();
+
+        assertTrue(write(cache, "3.swap", randomBytes(100)));
+    }
+
+    @Test
+    public void testRenameAndRemove() throws IOException {
+        final DirectMemorySwapCache cache = new DirectMemorySwapCache(1024, 100);
+        final byte[] data = randomBytes(150);
+        assertTrue(write(cache, "1.swap", data));
+
+        cache.rename("1.swap", "1.partition.swap");
+        assertNull(cache.read("1.swap"));
+        assertArrayEquals(data, read(cache, "1.partition.swap"));
+
+        cache.remove("1.partition.swap");
+        assertNull(cache.read("1.partition.swap"));
+        assertEquals(0, cache.getCachedBytes());
+        assertEquals(0, cache.getCachedSwapFileCount());
+    }
+
+    private boolean write(final DirectMemorySwapCache cache, final String swapLocation, final byte[] data) {
+        final DirectMemorySwapCache.Writer writer = cache.createWriter();
+        try {
+            writer.write(data, 0, data.length);
+            return writer.commit(swapLocation);
+        } finally {
+            writer.discard();
+        }
+    }
+
+    private byte[] read(final DirectMemorySwapCache cache, final String swapLocation) throws IOException {
+        try (final InputStream in = cache.read(swapLocation)) {
+            assertNotNull(in);
+            return readFully(in);
+        }
+    }
+
+    private byte[] readFully(final InputStream in) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        StreamUtils.copy(in, baos);
+        return baos.toByteArray();
+    }
+
+    private byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random().nextBytes(bytes);
+        return bytes;
+    }
+}
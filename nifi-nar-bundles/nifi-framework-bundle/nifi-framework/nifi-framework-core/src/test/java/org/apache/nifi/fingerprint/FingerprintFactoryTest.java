@@ -28,6 +28,7 @@ import static org.mockito.Mockito.when;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Optional;
 import javax.xml.XMLConstants;
@@ -135,6 +136,21 @@ public class FingerprintFactoryTest {
         assertTrue(fingerprint.contains("AAABBBCCCDDD"));
     }
 
+    @Test
+    public void testDefaultQueueModeNotInFingerprint() throws IOException {
+        final String flow = new String(getResourceBytes("/nifi/fingerprint/flow1a.xml"), StandardCharsets.UTF_8);
+        final String withoutQueueMode = fingerprinter.createFingerprint(flow.getBytes(StandardCharsets.UTF_8), null);
+
+        final String prioritizedFlow = flow.replace("</connection>", "<queueMode>PRIORITIZED</queueMode></connection>");
+        final String prioritized = fingerprinter.createFingerprint(prioritizedFlow.getBytes(StandardCharsets.UTF_8), null);
+        assertEquals(withoutQueueMode, prioritized);
+
+        final String concurrentFlow = flow.replace("</connection>", "<queueMode>CONCURRENT_FIFO</queueMode></connection>");
+        final String concurrent = fingerprinter.createFingerprint(concurrentFlow.getBytes(StandardCharsets.UTF_8), null);
+        assertNotEquals(withoutQueueMode, concurrent);
+        assertTrue(concurrent.contains("CONCURRENT_FIFO"));
+    }
+
     @Test
     public void testSchemaValidation() throws IOException {
         FingerprintFactory fp = new FingerprintFactory(null, getValidatingDocumentBuilder(), extensionManager);
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.reporting;
+
+import org.apache.nifi.authorization.Authorizer;
+import org.apache.nifi.authorization.RequestAction;
+import org.apache.nifi.authorization.user.NiFiUser;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ProcessScheduler;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.flow.FlowManager;
+import org.apache.nifi.controller.repository.FlowFileEventRepository;
+import org.apache.nifi.controller.repository.RepositoryStatusReport;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.status.ProcessorStatus;
+import org.apache.nifi.groups.ProcessGroup;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestStandardEventAccess {
+    private FlowController flowController;
+    private FlowFileEventRepository flowFileEventRepository;
+    private ProcessGroup rootGroup;
+    private ProcessorNode procNode;
+    private NiFiUser user;
+
+    @Before
+    public void setup() {
+        final Authorizer authorizer = Mockito.mock(Authorizer.class);
+        user = Mockito.mock(NiFiUser.class);
+
+        rootGroup = Mockito.mock(ProcessGroup.class);
+        when(rootGroup.getIdentifier()).thenReturn("root");
+        when(rootGroup.getName()).thenReturn("Root Group");
+        when(rootGroup.isAuthorized(authorizer, RequestAction.READ, user)).thenReturn(true);
+
+        procNode = Mockito.mock(ProcessorNode.class);
+        when(procNode.getIdentifier()).thenReturn("proc");
+        when(procNode.getName()).thenReturn("My Processor");
+        when(procNode.getComponentType()).thenReturn("GenerateFlowFile");
+        when(procNode.getProcessGroup()).thenReturn(rootGroup);
+        when(procNode.isAuthorized(authorizer, RequestAction.READ, user)).thenReturn(false);
+
+        when(rootGroup.getProcessors()).thenReturn(Collections.singleton(procNode));
+        when(rootGroup.getProcessor("proc")).thenReturn(procNode);
+
+        final FlowManager flowManager = Mockito.mock(FlowManager.class);
+        when(flowManager.getRootGroup()).thenReturn(rootGroup);
+        when(flowManager.getRootGroupId()).thenReturn("root");
+        when(flowManager.getGroup("root")).thenReturn(rootGroup);
+
+        flowController = Mockito.mock(FlowController.class);
+        when(flowController.getFlowManager()).thenReturn(flowManager);
+        when(flowController.getProcessScheduler()).thenReturn(Mockito.mock(ProcessScheduler.class));
+        when(flowController.getAuthorizer()).thenReturn(authorizer);
+
+        flowFileEventRepository = Mockito.mock(FlowFileEventRepository.class);
+        when(flowFileEventRepository.reportTransferEvents(anyLong())).thenReturn(Mockito.mock(RepositoryStatusReport.class));
+    }
+
+    @Test
+    public void testStatusComputedForEveryRequestByDefault() {
+        final StandardEventAccess eventAccess = new StandardEventAccess(flowController, flowFileEventRepository);
+
+        assertEquals("My Processor", getProcessorStatus(eventAccess.getControllerStatus()).getName());
+
+        when(procNode.getName()).thenReturn("Renamed Processor");
+        assertEquals("Renamed Processor", getProcessorStatus(eventAccess.getControllerStatus()).getName());
+        verify(flowFileEventRepository, times(2)).reportTransferEvents(anyLong());
+    }
+
+    @Test
+    public void testStatusReusedWithinCacheDuration() {
+        final StandardEventAccess eventAccess = new StandardEventAccess(flowController, flowFileEventRepository, 60_000L);
+
+        assertEquals("My Processor", getProcessorStatus(eventAccess.getControllerStatus()).getName());
+
+        when(procNode.getName()).thenReturn("Renamed Processor");
+        assertEquals("My Processor", getProcessorStatus(eventAccess.getControllerStatus()).getName());
+        assertEquals("My Processor", getProcessorStatus(eventAccess.getGroupStatus("root")).getName());
+        verify(flowFileEventRepository, times(1)).reportTransferEvents(anyLong());
+    }
+
+    @Test
+    public void testCachedStatusFilteredForUser() {
+        final StandardEventAccess uncached = new StandardEventAccess(flowController, flowFileEventRepository);
+        final StandardEventAccess cached = new StandardEventAccess(flowController, flowFileEventRepository, 60_000L);
+
+        // populate the cache without regard to any user
+        cached.getControllerStatus();
+
+        for (final ProcessGroupStatus groupStatus : new ProcessGroupStatus[] {uncached.getGroupStatus("root", user), cached.getGroupStatus("root", user)}) {
+            assertEquals("Root Group", groupStatus.getName());
+
+            final ProcessorStatus procStatus = getProcessorStatus(groupStatus);
+            assertEquals("proc", procStatus.getName());
+            assertEquals("Processor", procStatus.getType());
+        }
+
+        // the status that was filtered for the user is a copy; the cached status is unaffected
+        assertEquals("My Processor", getProcessorStatus(cached.getControllerStatus()).getName());
+        verify(flowFileEventRepository, times(2)).reportTransferEvents(anyLong());
+    }
+
+    @Test
+    public void testCachedStatusLimitedToRequestedDepth() {
+        final StandardEventAccess eventAccess = new StandardEventAccess(flowController, flowFileEventRepository, 60_000L);
+
+        final ProcessGroupStatus groupStatus = eventAccess.getGroupStatus("root", user, 0);
+        assertEquals("Root Group", groupStatus.getName());
+        assertEquals(0, groupStatus.getProcessorStatus().size());
+
+        assertEquals(1, eventAccess.getGroupStatus("root", user, 1).getProcessorStatus().size());
+    }
+
+    private ProcessorStatus getProcessorStatus(final ProcessGroupStatus groupStatus) {
+        assertEquals(1, groupStatus.getProcessorStatus().size());
+        return groupStatus.getProcessorStatus().iterator().next();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * A JVM-wide dictionary of FlowFile attribute keys, and of the values of a few attributes that are known to take on only a small number
+ * of distinct values, such as <code>path</code> and <code>mime.type</code>. Attribute maps that are created for FlowFiles share the
+ * instances that are held by this dictionary, so that each distinct String is held in heap only once, regardless of how many FlowFiles
+ * are queued.
+ * </p>
+ *
+ * <p>
+ * The dictionary is bounded. Once it is full, Strings that are not already in the dictionary are returned as-is, so that a flow that
+ * generates an unbounded number of distinct attribute names cannot cause the dictionary to grow without bound.
+ * </p>
+ */
+final class AttributeDictionary {
+    private static final int MAX_KEYS = 10_000;
+    private static final int MAX_VALUES = 10_000;
+    private static final int MAX_VALUE_LENGTH = 256;
+
+    private static final Set<String> SHARED_VALUE_KEYS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        CoreAttributes.PATH.key(), CoreAttributes.ABSOLUTE_PATH.key(), CoreAttributes.MIME_TYPE.key(), "schema.name")));
+
+    private static final ConcurrentMap<String, String> keys = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, String> values = new ConcurrentHashMap<>();
+
+    private AttributeDictionary() {
+    }
+
+    static String internKey(final String key) {
+        return intern(keys, MAX_KEYS, key);
+    }
+
+    static String internValue(final String key, final String value) {
+        if (value.length() > MAX_VALUE_LENGTH || !SHARED_VALUE_KEYS.contains(key)) {
+            return value;
+        }
+
+        return intern(values, MAX_VALUES, value);
+    }
+
+    private static String intern(final ConcurrentMap<String, String> dictionary, final int maxSize, final String value) {
+        final String existing = dictionary.get(value);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (dictionary.size() >= maxSize) {
+            return value;
+        }
+
+        final String previous = dictionary.putIfAbsent(value, value);
+        return previous == null ? value : previous;
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.repository;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>
+ * An immutable Map of FlowFile attributes that holds its keys and values in flat arrays rather than in a hash table of entry objects.
+ * Keys are ordered by hash code so that a lookup is a binary search. Keys, as well as the values of a few well-known attributes, are
+ * shared with all other attribute maps by way of the {@link AttributeDictionary}.
+ * </p>
+ *
+ * <p>
+ * A FlowFile that is derived from another FlowFile (for example, by adding an attribute or by cloning it) typically differs from it by
+ * only a few attributes. In that case, the derived map holds only the attributes that differ and refers to the original map for the
+ * rest, rather than holding a copy of every attribute. A map only ever refers to a map that holds all of its own attributes, so a lookup
+ * searches at most two maps, and the attributes held in the derived map are limited so that it does not keep many superseded values of
+ * the original map from being garbage collected.
+ * </p>
+ */
+final class CompactAttributeMap extends AbstractMap<String, String> {
+    static final CompactAttributeMap EMPTY = new CompactAttributeMap(new String[0], new String[0], new int[0], null);
+
+    private static final int MAX_OVERLAY_SIZE = 8;
+
+    private final String[] keys;
+    private final String[] values;
+    private final int[] hashes;
+    private final CompactAttributeMap base;
+    private final int size;
+
+    private CompactAttributeMap(final String[] keys, final String[] values, final int[] hashes, final CompactAttributeMap base) {
+        this.keys = keys;
+        this.values = values;
+        this.hashes = hashes;
+        this.base = base;
+
+        if (base == null) {
+            this.size = keys.length;
+        } else {
+            int inherited = base.size;
+            for (final String key : keys) {
+                if (base.indexOf(key) >= 0) {
+                    inherited--;
+                }
+            }
+
+            this.size = keys.length + inherited;
+        }
+    }
+
+    /**
+     * Creates a CompactAttributeMap that holds all of the given attributes. As with {@link StandardFlowFileRecord.Builder#addAttributes(Map)},
+     * any attribute whose key or value is <code>null</code> is skipped, since FlowFiles that are not StandardFlowFileRecords may have such
+     * attributes.
+     *
+     * @param attributes the attributes
+     * @return a CompactAttributeMap with the same entries as the given Map, other than those with a <code>null</code> key or value
+     */
+    static CompactAttributeMap of(final Map<String, String> attributes) {
+        if (attributes instanceof CompactAttributeMap) {
+            return (CompactAttributeMap) attributes;
+        }
+        if (attributes.isEmpty()) {
+            return EMPTY;
+        }
+
+        return create(attributes, null);
+    }
+
+    /**
+     * Creates a CompactAttributeMap that holds the given attributes, sharing the unchanged attributes of <code>previous</code> if the given
+     * attributes were derived from it by adding or updating only a few attributes.
+     *
+     * @param attributes the attributes
+     * @param previous the attributes from which the given attributes were derived
+     * @return a CompactAttributeMap with the same entries as the given Map
+     */
+    static CompactAttributeMap of(final Map<String, String> attributes, final CompactAttributeMap previous) {
+        final CompactAttributeMap root = previous.base == null ? previous : previous.base;
+
+        // If any attribute was removed, there is nothing to be gained by sharing.
+        if (attributes.size() < root.size() || root.isEmpty()) {
+            return of(attributes);
+        }
+
+        final Map<String, String> updated = new HashMap<>();
+        int added = 0;
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            final String key = entry.getKey();
+            final String value = entry.getValue();
+
+            if (key == null || value == null) {
+                return of(attributes);
+            }
+
+            final int index = root.indexOf(key);
+            if (index < 0) {
+                added++;
+            } else if (value.equals(root.values[index])) {
+                continue;
+            }
+
+            updated.put(key, value);
+            if (updated.size() > MAX_OVERLAY_SIZE) {
+                return of(attributes);
+            }
+        }
+
+        // Every attribute of the root must still be present; otherwise, an attribute was removed and another one added.
+        if (attributes.size() != root.size() + added) {
+            return of(attributes);
+        }
+
+        if (updated.isEmpty()) {
+            return root;
+        }
+
+        return create(updated, root);
+    }
+
+    private static CompactAttributeMap create(final Map<String, String> attributes, final CompactAttributeMap base) {
+        // Sort the entries by the hash code of the key. Pack the hash code and the entry's position into a single long
+        // so that a primitive sort can be used.
+        final String[] unsortedKeys = new String[attributes.size()];
+        final String[] unsortedValues = new String[attributes.size()];
+        long[] order = new long[attributes.size()];
+
+        int count = 0;
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                continue;
+            }
+
+            final String key = AttributeDictionary.internKey(entry.getKey());
+            unsortedKeys[count] = key;
+            unsortedValues[count] = AttributeDictionary.internValue(key, entry.getValue());
+            order[count] = ((long) key.hashCode() << 32) | count;
+            count++;
+        }
+
+        if (count == 0 && base == null) {
+            return EMPTY;
+        }
+        if (count < order.length) {
+            order = Arrays.copyOf(order, count);
+        }
+
+        Arrays.sort(order);
+
+        final String[] keys = new String[count];
+        final String[] values = new String[count];
+        final int[] hashes = new int[count];
+        for (int j = 0; j < count; j++) {
+            final int index = (int) order[j];
+            keys[j] = unsortedKeys[index];
+            values[j] = unsortedValues[index];
+            hashes[j] = (int) (order[j] >> 32);
+        }
+
+        return new CompactAttributeMap(keys, values, hashes, base);
+    }
+
+    private int indexOf(final Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+
+        final int hash = key.hashCode();
+        int low = 0;
+        int high = hashes.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midHash = hashes[mid];
+
+            if (midHash < hash) {
+                low = mid + 1;
+            } else if (midHash > hash) {
+                high = mid - 1;
+            } else {
+                // Several keys may share a hash code. Check each of them.
+                for (int i = mid; i >= 0 && hashes[i] == hash; i--) {
+                    if (key.equals(keys[i])) {
+                        return i;
+                    }
+                }
+                for (int i = mid + 1; i < hashes.length && hashes[i] == hash; i++) {
+                    if (key.equals(keys[i])) {
+                        return i;
+                    }
+                }
+
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public String get(final Object key) {
+        final int index = indexOf(key);
+        if (index >= 0) {
+            return values[index];
+        }
+
+        return base == null ? null : base.get(key);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return indexOf(key) >= 0 || (base != null && base.indexOf(key) >= 0);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void forEach(final BiConsumer<? super String, ? super String> action) {
+        for (int i = 0; i < keys.length; i++) {
+            action.accept(keys[i], values[i]);
+        }
+
+        if (base != null) {
+            for (int i = 0; i < base.keys.length; i++) {
+                if (indexOf(base.keys[i]) < 0) {
+                    action.accept(base.keys[i], base.values[i]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, String>> {
+        private CompactAttributeMap current = CompactAttributeMap.this;
+        private int index = -1;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (current != null) {
+                index++;
+                if (index >= current.keys.length) {
+                    current = current.base;
+                    index = -1;
+                    continue;
+                }
+
+                // Skip any attribute of the base map that is superseded by this map
+                if (current == CompactAttributeMap.this || indexOf(current.keys[index]) < 0) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+
+            final Entry<String, String> entry = new SimpleImmutableEntry<>(current.keys[index], current.values[index]);
+            advance();
+            return entry;
+        }
+    }
+}
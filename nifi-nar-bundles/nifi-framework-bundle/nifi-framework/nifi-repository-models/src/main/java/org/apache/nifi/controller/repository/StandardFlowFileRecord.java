@@ -106,7 +106,8 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
 
     @Override
     public Map<String, String> getAttributes() {
-        return Collections.unmodifiableMap(this.attributes);
+        // The Builder always provides an immutable Map, so there is no need to wrap it.
+        return this.attributes;
     }
 
     @Override
@@ -182,6 +183,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
         private long bQueueDateIndex = 0L;
         private Map<String, String> bAttributes;
         private boolean bAttributesCopied = false;
+        private CompactAttributeMap bOriginalAttributes;
 
         public Builder id(final long id) {
             bId = id;
@@ -216,6 +218,8 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
                 bAttributes = new HashMap<>();
                 bAttributesCopied = true;
             } else if (!bAttributesCopied) {
+                // Remember the attributes that we copied, so that the FlowFile that we build can share the attributes that are not changed.
+                bOriginalAttributes = bAttributes instanceof CompactAttributeMap ? (CompactAttributeMap) bAttributes : null;
                 bAttributes = new HashMap<>(bAttributes);
                 bAttributesCopied = true;
             }
@@ -319,13 +323,13 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
             bLineageIdentifiers.clear();
             bPenaltyExpirationMs = specFlowFile.getPenaltyExpirationMillis();
             bSize = specFlowFile.getSize();
-            // If this is a StandardFlowFileRecord, access the attributes map directly. Do not use the
-            // getAttributes() method, because that will wrap the original in an UnmodifiableMap. As a result,
-            // a Processor that continually calls session.append() for instance will have a FlowFile whose attributes
-            // Map is wrapped thousands of times until it hits a StackOverflowError. We want the getter to return
-            // UnmodifiableMap, though, so that Processors cannot directly modify that Map.
+            // If this is a StandardFlowFileRecord, access the attributes map directly. Other implementations may wrap their
+            // attributes in an UnmodifiableMap. As a result, a Processor that continually calls session.append() for instance
+            // could end up with a FlowFile whose attributes Map is wrapped thousands of times until it hits a StackOverflowError.
+            // The attributes of a StandardFlowFileRecord are immutable, so they can be shared until they are modified.
             bAttributes = specFlowFile instanceof StandardFlowFileRecord ? ((StandardFlowFileRecord) specFlowFile).attributes : specFlowFile.getAttributes();
             bAttributesCopied = false;
+            bOriginalAttributes = null;
             bClaim = specFlowFile.getContentClaim();
             bClaimOffset = specFlowFile.getContentClaimOffset();
             bLastQueueDate = specFlowFile.getLastQueueDate();
@@ -335,6 +339,16 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
         }
 
         public FlowFileRecord build() {
+            if (bAttributesCopied) {
+                bAttributes = bOriginalAttributes == null ? CompactAttributeMap.of(bAttributes) : CompactAttributeMap.of(bAttributes, bOriginalAttributes);
+            } else if (bAttributes != null) {
+                bAttributes = CompactAttributeMap.of(bAttributes);
+            }
+
+            // The attributes are now immutable. If this Builder is used again, they must be copied before being modified.
+            bAttributesCopied = false;
+            bOriginalAttributes = null;
+
             return new StandardFlowFileRecord(this);
         }
     }
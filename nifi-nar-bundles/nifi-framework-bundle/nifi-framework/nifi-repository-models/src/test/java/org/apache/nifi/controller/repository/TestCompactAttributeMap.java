@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.flowfile.FlowFile;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestCompactAttributeMap {
+
+    private static Map<String, String> createAttributes(final int count) {
+        final Map<String, String> attributes = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            attributes.put("attribute-" + i, "value-" + i);
+        }
+        attributes.put("uuid", UUID.randomUUID().toString());
+        return attributes;
+    }
+
+    @Test
+    public void testEqualToSourceMap() {
+        final Map<String, String> attributes = createAttributes(50);
+        final CompactAttributeMap compact = CompactAttributeMap.of(attributes);
+
+        assertEquals(attributes, compact);
+        assertEquals(compact, attributes);
+        assertEquals(attributes.hashCode(), compact.hashCode());
+        assertEquals(attributes.size(), compact.size());
+
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            assertEquals(entry.getValue(), compact.get(entry.getKey()));
+            assertTrue(compact.containsKey(entry.getKey()));
+        }
+
+        assertNull(compact.get("not-there"));
+        assertFalse(compact.containsKey("not-there"));
+        assertNull(compact.get(5));
+    }
+
+    @Test
+    public void testKeysWithSameHashCode() {
+        // "Aa" and "BB" have the same hash code
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("Aa", "1");
+        attributes.put("BB", "2");
+        attributes.put("AaAa", "3");
+        attributes.put("BBBB", "4");
+        attributes.put("AaBB", "5");
+
+        final CompactAttributeMap compact = CompactAttributeMap.of(attributes);
+        assertEquals(attributes, compact);
+        assertEquals("1", compact.get("Aa"));
+        assertEquals("2", compact.get("BB"));
+        assertEquals("5", compact.get("AaBB"));
+        assertNull(compact.get("BBAa"));
+    }
+
+    @Test
+    public void testKeysAreShared() {
+        final CompactAttributeMap first = CompactAttributeMap.of(createAttributes(5));
+        final CompactAttributeMap second = CompactAttributeMap.of(createAttributes(5));
+
+        final Map<String, String> keysOfFirst = new HashMap<>();
+        first.keySet().forEach(key -> keysOfFirst.put(key, key));
+        second.keySet().stream()
+            .filter(key -> !key.equals("uuid"))
+            .forEach(key -> assertSame(keysOfFirst.get(key), key));
+    }
+
+    @Test
+    public void testDerivedMapSharesOriginal() {
+        final Map<String, String> attributes = createAttributes(50);
+        final CompactAttributeMap original = CompactAttributeMap.of(attributes);
+
+        final Map<String, String> derivedAttributes = new HashMap<>(original);
+        derivedAttributes.put("uuid", UUID.randomUUID().toString());
+        derivedAttributes.put("new-attribute", "new-value");
+
+        final CompactAttributeMap derived = CompactAttributeMap.of(derivedAttributes, original);
+        assertEquals(derivedAttributes, derived);
+        assertEquals(derivedAttributes.size(), derived.size());
+        assertEquals(derivedAttributes.hashCode(), derived.hashCode());
+
+        final Map<String, String> forEachResult = new HashMap<>();
+        derived.forEach(forEachResult::put);
+        assertEquals(derivedAttributes, forEachResult);
+
+        // The original must not have been changed
+        assertEquals(attributes, original);
+
+        // Deriving again from a derived map must give the same result as deriving from the original
+        final Map<String, String> secondDerivation = new HashMap<>(derived);
+        secondDerivation.put("attribute-3", "updated");
+        assertEquals(secondDerivation, CompactAttributeMap.of(secondDerivation, derived));
+    }
+
+    @Test
+    public void testDerivedMapWithRemovedAttribute() {
+        final CompactAttributeMap original = CompactAttributeMap.of(createAttributes(10));
+
+        final Map<String, String> derivedAttributes = new HashMap<>(original);
+        derivedAttributes.remove("attribute-1");
+        derivedAttributes.put("other", "value");
+
+        final CompactAttributeMap derived = CompactAttributeMap.of(derivedAttributes, original);
+        assertEquals(derivedAttributes, derived);
+        assertFalse(derived.containsKey("attribute-1"));
+    }
+
+    @Test
+    public void testDerivedMapWithManyUpdates() {
+        final CompactAttributeMap original = CompactAttributeMap.of(createAttributes(50));
+
+        final Map<String, String> derivedAttributes = new HashMap<>(original);
+        for (int i = 0; i < 40; i++) {
+            derivedAttributes.put("attribute-" + i, "updated-" + i);
+        }
+
+        assertEquals(derivedAttributes, CompactAttributeMap.of(derivedAttributes, original));
+    }
+
+    @Test
+    public void testImmutable() {
+        final CompactAttributeMap compact = CompactAttributeMap.of(createAttributes(3));
+
+        try {
+            compact.put("a", "b");
+            fail("Expected UnsupportedOperationException");
+        } catch (final UnsupportedOperationException expected) {
+        }
+
+        try {
+            compact.remove("uuid");
+            fail("Expected UnsupportedOperationException");
+        } catch (final UnsupportedOperationException expected) {
+        }
+
+        assertEquals(4, compact.size());
+    }
+
+    @Test
+    public void testBuilderDoesNotModifyPreviouslyBuiltFlowFile() {
+        final StandardFlowFileRecord.Builder builder = new StandardFlowFileRecord.Builder()
+            .id(1L)
+            .addAttribute("uuid", UUID.randomUUID().toString())
+            .addAttribute("a", "1");
+
+        final FlowFileRecord first = builder.build();
+        final FlowFileRecord second = builder.id(2L).addAttribute("a", "2").build();
+
+        assertEquals("1", first.getAttribute("a"));
+        assertEquals("2", second.getAttribute("a"));
+    }
+
+    @Test
+    public void testClonedFlowFileSharesAttributes() {
+        final Map<String, String> attributes = createAttributes(20);
+        final FlowFileRecord parent = new StandardFlowFileRecord.Builder()
+            .id(1L)
+            .addAttributes(attributes)
+            .build();
+
+        final String childUuid = UUID.randomUUID().toString();
+        final FlowFileRecord child = new StandardFlowFileRecord.Builder()
+            .fromFlowFile(parent)
+            .id(2L)
+            .addAttribute("uuid", childUuid)
+            .build();
+
+        assertEquals(attributes, parent.getAttributes());
+        assertEquals(childUuid, child.getAttribute("uuid"));
+        assertEquals(attributes.size(), child.getAttributes().size());
+
+        final Map<String, String> expectedChildAttributes = new HashMap<>(attributes);
+        expectedChildAttributes.put("uuid", childUuid);
+        assertEquals(expectedChildAttributes, child.getAttributes());
+
+        final FlowFileRecord unchanged = new StandardFlowFileRecord.Builder().fromFlowFile(parent).build();
+        assertSame(parent.getAttributes(), unchanged.getAttributes());
+    }
+
+    @Test
+    public void testNullKeysAndValuesSkipped() {
+        final Map<String, String> attributes = createAttributes(5);
+        attributes.put("null-value", null);
+        attributes.put(null, "null-key");
+
+        final CompactAttributeMap compact = CompactAttributeMap.of(attributes);
+        assertEquals(6, compact.size());
+        assertFalse(compact.containsKey("null-value"));
+        assertFalse(compact.containsKey(null));
+        assertEquals("value-0", compact.get("attribute-0"));
+
+        final Map<String, String> derived = new HashMap<>(compact);
+        derived.put("attribute-0", null);
+        final CompactAttributeMap compactDerived = CompactAttributeMap.of(derived, compact);
+        assertEquals(5, compactDerived.size());
+        assertFalse(compactDerived.containsKey("attribute-0"));
+
+        final Map<String, String> onlyNulls = new HashMap<>();
+        onlyNulls.put("null-value", null);
+        assertSame(CompactAttributeMap.EMPTY, CompactAttributeMap.of(onlyNulls));
+    }
+
+    @Test
+    public void testBuildFromNonStandardFlowFile() {
+        final Map<String, String> attributes = createAttributes(5);
+        attributes.put("null-value", null);
+        final FlowFileRecord nonStandard = new NonStandardFlowFileRecord(7L, attributes);
+
+        final FlowFileRecord copy = new StandardFlowFileRecord.Builder().fromFlowFile(nonStandard).build();
+        assertEquals(7L, copy.getId());
+        assertEquals(6, copy.getAttributes().size());
+        assertEquals("value-4", copy.getAttribute("attribute-4"));
+        assertNull(copy.getAttribute("null-value"));
+
+        final FlowFileRecord updated = new StandardFlowFileRecord.Builder().fromFlowFile(nonStandard).addAttribute("attribute-1", "updated").build();
+        assertEquals("updated", updated.getAttribute("attribute-1"));
+        assertEquals(6, updated.getAttributes().size());
+        assertEquals("value-1", nonStandard.getAttribute("attribute-1"));
+    }
+
+    /**
+     * A FlowFileRecord that is not a StandardFlowFileRecord and whose attributes may therefore be any Map
+     */
+    private static class NonStandardFlowFileRecord implements FlowFileRecord {
+        private final long id;
+        private final Map<String, String> attributes;
+
+        NonStandardFlowFileRecord(final long id, final Map<String, String> attributes) {
+            this.id = id;
+            this.attributes = attributes;
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public long getEntryDate() {
+            return 0L;
+        }
+
+        @Override
+        public long getLineageStartDate() {
+            return 0L;
+        }
+
+        @Override
+        public long getLineageStartIndex() {
+            return 0L;
+        }
+
+        @Override
+        public Long getLastQueueDate() {
+            return 0L;
+        }
+
+        @Override
+        public long getQueueDateIndex() {
+            return 0L;
+        }
+
+        @Override
+        public boolean isPenalized() {
+            return false;
+        }
+
+        @Override
+        public String getAttribute(final String key) {
+            return attributes.get(key);
+        }
+
+        @Override
+        public long getSize() {
+            return 0L;
+        }
+
+        @Override
+        public Map<String, String> getAttributes() {
+            return Collections.unmodifiableMap(attributes);
+        }
+
+        @Override
+        public long getPenaltyExpirationMillis() {
+            return 0L;
+        }
+
+        @Override
+        public ContentClaim getContentClaim() {
+            return null;
+        }
+
+        @Override
+        public long getContentClaimOffset() {
+            return 0L;
+        }
+
+        @Override
+        public int compareTo(final FlowFile other) {
+            return Long.compare(id, other.getId());
+        }
+    }
+}
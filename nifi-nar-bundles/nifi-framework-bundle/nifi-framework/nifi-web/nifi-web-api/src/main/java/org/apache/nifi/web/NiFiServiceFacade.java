@@ -136,6 +136,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Defines the NiFiServiceFacade interface.
@@ -295,6 +296,17 @@ public interface NiFiServiceFacade {
      */
     ProvenanceEventDTO getProvenanceEvent(Long id);
 
+    /**
+     * Streams the provenance events starting with the specified id. The events are read as the Stream is
+     * consumed, so the Stream must be closed once it is no longer needed.
+     *
+     * @param firstEventId id of the first event
+     * @param maxEvents maximum number of events
+     * @param summarize whether the events should be summarized
+     * @return events
+     */
+    Stream<ProvenanceEventDTO> streamProvenanceEvents(long firstEventId, int maxEvents, boolean summarize);
+
     /**
      * Gets the configuration for this controller.
      *
@@ -3164,6 +3164,11 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
         return controllerFacade.getProvenanceEvent(id);
     }
 
+    @Override
+    public Stream<ProvenanceEventDTO> streamProvenanceEvents(final long firstEventId, final int maxEvents, final boolean summarize) {
+        return controllerFacade.streamProvenanceEvents(firstEventId, maxEvents, summarize);
+    }
+
     @Override
     public ProcessGroupStatusEntity getProcessGroupStatus(final String groupId, final boolean recursive) {
         final ProcessGroup processGroup = processGroupDAO.getProcessGroup(groupId);
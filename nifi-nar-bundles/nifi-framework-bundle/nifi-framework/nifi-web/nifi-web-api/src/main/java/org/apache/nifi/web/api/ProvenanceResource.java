@@ -16,6 +16,8 @@
  */
 package org.apache.nifi.web.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -28,6 +30,7 @@ import org.apache.nifi.authorization.resource.Authorizable;
 import org.apache.nifi.authorization.user.NiFiUserUtils;
 import org.apache.nifi.web.NiFiServiceFacade;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceEventDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceOptionsDTO;
 import org.apache.nifi.web.api.dto.provenance.lineage.LineageDTO;
 import org.apache.nifi.web.api.dto.provenance.lineage.LineageRequestDTO;
@@ -36,6 +39,8 @@ import org.apache.nifi.web.api.entity.ComponentEntity;
 import org.apache.nifi.web.api.entity.LineageEntity;
 import org.apache.nifi.web.api.entity.ProvenanceEntity;
 import org.apache.nifi.web.api.entity.ProvenanceOptionsEntity;
+import org.apache.nifi.web.api.request.IntegerParameter;
+import org.apache.nifi.web.api.request.LongParameter;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.Consumes;
@@ -48,12 +53,20 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Providers;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.stream.Stream;
 
 
 /**
@@ -69,6 +82,9 @@ public class ProvenanceResource extends ApplicationResource {
     private NiFiServiceFacade serviceFacade;
     private Authorizer authorizer;
 
+    @Context
+    private Providers providers;
+
     /**
      * Populates the uri for the specified provenance.
      */
@@ -320,6 +336,120 @@ public class ProvenanceResource extends ApplicationResource {
         return generateOkResponse(entity).build();
     }
 
+    /**
+     * Streams the provenance events of this node, in order of event id, starting with the specified event id. Unlike a
+     * provenance query, the events are read from the repository and written to the response one at a time, so the results
+     * are never held in memory in their entirety. A client pages through the events by issuing the next request with the
+     * nextEventId of the previous response.
+     *
+     * @param clusterNodeId The id of node in the cluster whose events are streamed. Required if clustered.
+     * @param startEventId  The id of the first event to return
+     * @param count         The maximum number of events to return
+     * @param summarize     Whether or not to summarize the provenance events
+     * @return The streamed provenance events
+     */
+    @GET
+    @Consumes(MediaType.WILDCARD)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("events")
+    @ApiOperation(
+            value = "Streams the provenance events starting with the specified event id",
+            notes = "The response is a JSON object whose provenanceEvents field holds the events and whose nextEventId field holds the id of the event to start the next request with.",
+            response = StreamingOutput.class,
+            authorizations = {
+                    @Authorization(value = "Read - /provenance"),
+                    @Authorization(value = "Read - /data/{component-type}/{uuid}")
+            }
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(code = 400, message = "NiFi was unable to complete the request because it was invalid. The request should not be retried without modification."),
+                    @ApiResponse(code = 401, message = "Client could not be authenticated."),
+                    @ApiResponse(code = 403, message = "Client is not authorized to make this request."),
+                    @ApiResponse(code = 409, message = "The request was valid but NiFi was not in the appropriate state to process it. Retrying the same request later may be successful.")
+            }
+    )
+    public Response streamProvenanceEvents(
+            @ApiParam(
+                    value = "The id of the node whose events are streamed if clustered.",
+                    required = false
+            )
+            @QueryParam("clusterNodeId") final String clusterNodeId,
+            @ApiParam(
+                    value = "The id of the first event to return. This property is 0 by default.",
+                    required = false
+            )
+            @QueryParam("startEventId") @DefaultValue(value = "0") final LongParameter startEventId,
+            @ApiParam(
+                    value = "The maximum number of events to return. This property is 1000 by default.",
+                    required = false
+            )
+            @QueryParam("count") @DefaultValue(value = "1000") final IntegerParameter count,
+            @ApiParam(
+                    value = "Whether or not to summarize provenance events returned. This property is false by default.",
+                    required = false
+            )
+            @QueryParam("summarize") @DefaultValue(value = "false") final Boolean summarize) {
+
+        if (startEventId.getLong() < 0) {
+            throw new IllegalArgumentException("The start event id must not be negative.");
+        }
+        if (count.getInteger() < 1) {
+            throw new IllegalArgumentException("The count must be a positive number.");
+        }
+
+        authorizeProvenanceRequest();
+
+        // replicate if cluster manager
+        if (isReplicateRequest()) {
+            // events are streamed from a single node since event ids are only unique within a node
+            if (clusterNodeId == null) {
+                throw new IllegalArgumentException("The id of the node in the cluster is required.");
+            } else {
+                return replicate(HttpMethod.GET, clusterNodeId);
+            }
+        }
+
+        final ObjectMapper objectMapper = providers.getContextResolver(ObjectMapper.class, MediaType.APPLICATION_JSON_TYPE).getContext(ProvenanceEventDTO.class);
+
+        // the events are authorized against the current user, so the stream is created before the response is written. no
+        // events are read from the repository until the response is written though
+        final Stream<ProvenanceEventDTO> eventStream = serviceFacade.streamProvenanceEvents(startEventId.getLong(), count.getInteger(), summarize);
+
+        // generate a streaming response that writes each event as it is read from the repository
+        final StreamingOutput response = new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                try (final Stream<ProvenanceEventDTO> events = eventStream;
+                     final JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+
+                    // leave closing the response to the container
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+                    long nextEventId = startEventId.getLong();
+                    generator.writeStartObject();
+                    generator.writeArrayFieldStart("provenanceEvents");
+
+                    final Iterator<ProvenanceEventDTO> itr = events.iterator();
+                    while (itr.hasNext()) {
+                        final ProvenanceEventDTO event = itr.next();
+                        event.setClusterNodeId(clusterNodeId);
+                        objectMapper.writeValue(generator, event);
+                        nextEventId = event.getEventId() + 1;
+                    }
+
+                    generator.writeEndArray();
+                    generator.writeNumberField("nextEventId", nextEventId);
+                    generator.writeEndObject();
+                } catch (final UncheckedIOException uioe) {
+                    throw uioe.getCause();
+                }
+            }
+        };
+
+        return generateOkResponse(response).type(MediaType.APPLICATION_JSON).build();
+    }
+
     /**
      * Deletes the provenance with the specified id.
      *
@@ -738,6 +738,7 @@ public final class DtoFactory {
         dto.setLoadBalancePartitionAttribute(flowFileQueue.getPartitioningAttribute());
         dto.setLoadBalanceStrategy(loadBalanceStrategy.name());
         dto.setLoadBalanceCompression(flowFileQueue.getLoadBalanceCompression().name());
+        dto.setQueueMode(flowFileQueue.getQueueMode().name());
 
         if (loadBalanceStrategy == LoadBalanceStrategy.DO_NOT_LOAD_BALANCE) {
             dto.setLoadBalanceStatus(ConnectionDTO.LOAD_BALANCE_NOT_CONFIGURED);
@@ -3984,11 +3985,13 @@ public final class DtoFactory {
         defaultConcurrentTasks.put(SchedulingStrategy.TIMER_DRIVEN.name(), String.valueOf(SchedulingStrategy.TIMER_DRIVEN.getDefaultConcurrentTasks()));
         defaultConcurrentTasks.put(SchedulingStrategy.EVENT_DRIVEN.name(), String.valueOf(SchedulingStrategy.EVENT_DRIVEN.getDefaultConcurrentTasks()));
         defaultConcurrentTasks.put(SchedulingStrategy.CRON_DRIVEN.name(), String.valueOf(SchedulingStrategy.CRON_DRIVEN.getDefaultConcurrentTasks()));
+        defaultConcurrentTasks.put(SchedulingStrategy.VIRTUAL_THREAD_DRIVEN.name(), String.valueOf(SchedulingStrategy.VIRTUAL_THREAD_DRIVEN.getDefaultConcurrentTasks()));
         dto.setDefaultConcurrentTasks(defaultConcurrentTasks);
 
         final Map<String, String> defaultSchedulingPeriod = new HashMap<>();
         defaultSchedulingPeriod.put(SchedulingStrategy.TIMER_DRIVEN.name(), SchedulingStrategy.TIMER_DRIVEN.getDefaultSchedulingPeriod());
         defaultSchedulingPeriod.put(SchedulingStrategy.CRON_DRIVEN.name(), SchedulingStrategy.CRON_DRIVEN.getDefaultSchedulingPeriod());
+        defaultSchedulingPeriod.put(SchedulingStrategy.VIRTUAL_THREAD_DRIVEN.name(), SchedulingStrategy.VIRTUAL_THREAD_DRIVEN.getDefaultSchedulingPeriod());
         dto.setDefaultSchedulingPeriod(defaultSchedulingPeriod);
 
         return dto;
@@ -4231,6 +4234,7 @@ public final class DtoFactory {
         copy.setLoadBalancePartitionAttribute(original.getLoadBalancePartitionAttribute());
         copy.setLoadBalanceStrategy(original.getLoadBalanceStrategy());
         copy.setLoadBalanceCompression(original.getLoadBalanceCompression());
+        copy.setQueueMode(original.getQueueMode());
         copy.setLoadBalanceStatus(original.getLoadBalanceStatus());
         copy.setVersionedComponentId(original.getVersionedComponentId());
 
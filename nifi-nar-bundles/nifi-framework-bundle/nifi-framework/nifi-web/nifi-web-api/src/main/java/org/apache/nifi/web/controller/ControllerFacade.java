@@ -135,6 +135,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ControllerFacade implements Authorizable {
 
@@ -1409,6 +1410,25 @@ public class ControllerFacade implements Authorizable {
         }
     }
 
+    /**
+     * Streams the provenance events starting with the specified event id. Only the events that the current user is
+     * authorized to access are included. The events are read from the repository as the Stream is consumed, so the
+     * Stream must be closed once it is no longer needed.
+     *
+     * @param firstEventId the id of the first event
+     * @param maxEvents the maximum number of events
+     * @param summarize whether the events should be summarized
+     * @return the provenance events
+     */
+    public Stream<ProvenanceEventDTO> streamProvenanceEvents(final long firstEventId, final int maxEvents, final boolean summarize) {
+        try {
+            return flowController.getProvenanceRepository().streamEvents(firstEventId, maxEvents, NiFiUserUtils.getNiFiUser())
+                .map(event -> createProvenanceEventDto(event, summarize));
+        } catch (final IOException ioe) {
+            throw new NiFiCoreException("An error occurred while getting the provenance events.", ioe);
+        }
+    }
+
     /**
      * Creates a ProvenanceEventDTO for the specified ProvenanceEventRecord. This should only be invoked once the
      * current user has been authorized for access to this provenance event.
@@ -26,6 +26,7 @@ import org.apache.nifi.connectable.Connectable;
 import org.apache.nifi.connectable.ConnectableType;
 import org.apache.nifi.connectable.Connection;
 import org.apache.nifi.controller.queue.LoadBalanceCompression;
+import org.apache.nifi.controller.queue.QueueMode;
 import org.apache.nifi.controller.queue.LoadBalanceStrategy;
 import org.apache.nifi.connectable.Position;
 import org.apache.nifi.controller.FlowController;
@@ -194,6 +195,11 @@ public class StandardConnectionDAO extends ComponentDAO implements ConnectionDAO
             connection.getFlowFileQueue().setLoadBalanceCompression(LoadBalanceCompression.valueOf(loadBalanceCompressionName));
         }
 
+        final String queueModeName = connectionDTO.getQueueMode();
+        if (isNotNull(queueModeName)) {
+            connection.getFlowFileQueue().setQueueMode(QueueMode.valueOf(queueModeName));
+        }
+
         // update the connection state
         if (isNotNull(connectionDTO.getBends())) {
             final List<Position> bendPoints = new ArrayList<>();
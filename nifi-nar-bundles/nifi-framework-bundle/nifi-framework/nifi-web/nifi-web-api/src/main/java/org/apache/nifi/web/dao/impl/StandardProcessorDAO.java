@@ -257,6 +257,7 @@ public class StandardProcessorDAO extends ComponentDAO implements ProcessorDAO {
             switch (schedulingStrategy) {
                 case TIMER_DRIVEN:
                 case PRIMARY_NODE_ONLY:
+                case VIRTUAL_THREAD_DRIVEN:
                     if (config.getConcurrentlySchedulableTaskCount() <= 0) {
                         validationErrors.add("Concurrent tasks must be greater than 0.");
                     }
@@ -274,6 +275,7 @@ public class StandardProcessorDAO extends ComponentDAO implements ProcessorDAO {
             switch (schedulingStrategy) {
                 case TIMER_DRIVEN:
                 case PRIMARY_NODE_ONLY:
+                case VIRTUAL_THREAD_DRIVEN:
                     final Matcher schedulingMatcher = FormatUtils.TIME_DURATION_PATTERN.matcher(config.getSchedulingPeriod());
                     if (!schedulingMatcher.matches()) {
                         validationErrors.add("Scheduling period is not a valid time duration (ie 30 sec, 5 min)");
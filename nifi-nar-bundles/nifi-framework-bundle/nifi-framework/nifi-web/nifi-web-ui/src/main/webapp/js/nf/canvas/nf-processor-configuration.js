@@ -128,6 +128,13 @@
             description: 'Processor will be scheduled to run on at specific times based on the specified CRON string.'
         });
 
+        // add an option for virtual thread driven
+        strategies.push({
+            text: 'Virtual thread driven',
+            value: 'VIRTUAL_THREAD_DRIVEN',
+            description: 'Processor will be scheduled to run on an interval defined by the run schedule, with each concurrent task running on a lightweight virtual thread rather than on the Timer Driven thread pool. Suited to processors that spend most of their time waiting on I/O.'
+        });
+
         return strategies;
     };
 
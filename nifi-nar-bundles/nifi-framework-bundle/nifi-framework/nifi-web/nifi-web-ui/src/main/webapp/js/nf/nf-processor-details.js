@@ -233,6 +233,8 @@
                         schedulingStrategy = 'CRON driven';
                     } else if (schedulingStrategy === 'TIMER_DRIVEN') {
                         schedulingStrategy = "Timer driven";
+                    } else if (schedulingStrategy === 'VIRTUAL_THREAD_DRIVEN') {
+                        schedulingStrategy = "Virtual thread driven";
                     } else {
                         schedulingStrategy = "On primary node";
                     }
@@ -35,6 +35,7 @@ import org.apache.nifi.provenance.schema.EventIdFirstHeaderSchema;
 import org.apache.nifi.provenance.schema.LookupTableEventRecord;
 import org.apache.nifi.provenance.schema.LookupTableEventSchema;
 import org.apache.nifi.provenance.serialization.CompressableRecordWriter;
+import org.apache.nifi.provenance.serialization.CompressionCodec;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.toc.TocWriter;
 import org.apache.nifi.provenance.util.ByteArrayDataOutputStream;
@@ -102,6 +103,16 @@ public class EventIdFirstSchemaRecordWriter extends CompressableRecordWriter {
         queueIdMap = idLookup.invertQueueIdentifiers();
     }
 
+    public EventIdFirstSchemaRecordWriter(final File file, final AtomicLong idGenerator, final TocWriter writer, final CompressionCodec compressionCodec,
+        final int uncompressedBlockSize, final IdentifierLookup idLookup) throws IOException {
+        super(file, idGenerator, writer, compressionCodec, uncompressedBlockSize);
+
+        this.idLookup = idLookup;
+        componentIdMap = idLookup.invertComponentIdentifiers();
+        componentTypeMap = idLookup.invertComponentTypes();
+        queueIdMap = idLookup.invertQueueIdentifiers();
+    }
+
     public EventIdFirstSchemaRecordWriter(final OutputStream out, final String storageLocation, final AtomicLong idGenerator, final TocWriter tocWriter, final boolean compressed,
         final int uncompressedBlockSize, final IdentifierLookup idLookup) throws IOException {
         super(out, storageLocation, idGenerator, tocWriter, compressed, uncompressedBlockSize);
@@ -28,6 +28,7 @@ import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.provenance.search.SearchableField;
+import org.apache.nifi.provenance.serialization.CompressionCodec;
 import org.apache.nifi.security.kms.CryptoUtils;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
@@ -40,6 +41,11 @@ public class RepositoryConfiguration {
     public static final String CONCURRENT_MERGE_THREADS = "nifi.provenance.repository.concurrent.merge.threads";
     public static final String WARM_CACHE_FREQUENCY = "nifi.provenance.repository.warm.cache.frequency";
     public static final String MAINTENACE_FREQUENCY = "nifi.provenance.repository.maintenance.frequency";
+    public static final String COMPRESSION_CODEC = "nifi.provenance.repository.compression.codec";
+    public static final String SUMMARY_INDEX_ENABLED = "nifi.provenance.repository.summary.index.enabled";
+    public static final String INDEX_DEGRADE_THRESHOLD = "nifi.provenance.repository.index.degrade.threshold";
+    public static final String RECOVERY_THREADS = "nifi.provenance.repository.recovery.threads";
+    public static final String BACKGROUND_REINDEX = "nifi.provenance.repository.background.reindex";
 
     private final Map<String, File> storageDirectories = new LinkedHashMap<>();
     private long recordLifeMillis = TimeUnit.MILLISECONDS.convert(24, TimeUnit.HOURS);
@@ -63,12 +69,17 @@ public class RepositoryConfiguration {
     private List<SearchableField> searchableFields = new ArrayList<>();
     private List<SearchableField> searchableAttributes = new ArrayList<>();
     private boolean compress = true;
+    private CompressionCodec compressionCodec = CompressionCodec.GZIP;
+    private boolean summaryIndexEnabled = false;
     private boolean alwaysSync = false;
     private int queryThreadPoolSize = 2;
     private int indexThreadPoolSize = 1;
+    private int recoveryThreadPoolSize = 4;
+    private boolean backgroundReindex = false;
     private boolean allowRollover = true;
     private int concurrentMergeThreads = 4;
     private Integer warmCacheFrequencyMinutes = null;
+    private Long indexDegradeThresholdMillis = null;
 
     public void setAllowRollover(final boolean allow) {
         this.allowRollover = allow;
@@ -233,6 +244,35 @@ public class RepositoryConfiguration {
         this.compress = compress;
     }
 
+    /**
+     * @return the codec that event files are compressed with when they are rolled over
+     */
+    public CompressionCodec getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    /**
+     * @param compressionCodec the codec to compress event files with when they are rolled over
+     */
+    public void setCompressionCodec(final CompressionCodec compressionCodec) {
+        this.compressionCodec = compressionCodec;
+    }
+
+    /**
+     * @return <code>true</code> if a Summary Index, which maps FlowFile UUID's and Component ID's to Event ID's, is written alongside each event file
+     *         and used to compute lineage and to find the events of a component without searching the Lucene index
+     */
+    public boolean isSummaryIndexEnabled() {
+        return summaryIndexEnabled;
+    }
+
+    /**
+     * @param summaryIndexEnabled whether or not a Summary Index should be written alongside each event file
+     */
+    public void setSummaryIndexEnabled(final boolean summaryIndexEnabled) {
+        this.summaryIndexEnabled = summaryIndexEnabled;
+    }
+
     /**
      * @return the number of threads to use to query the repo
      */
@@ -261,6 +301,34 @@ public class RepositoryConfiguration {
         this.indexThreadPoolSize = indexThreadPoolSize;
     }
 
+    /**
+     * @return the number of threads to use to recover the storage partitions, re-index events that were not indexed before
+     *         the repository was last shut down, and rebuild defunct indices
+     */
+    public int getRecoveryThreadPoolSize() {
+        return recoveryThreadPoolSize;
+    }
+
+    public void setRecoveryThreadPoolSize(final int recoveryThreadPoolSize) {
+        if (recoveryThreadPoolSize < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.recoveryThreadPoolSize = recoveryThreadPoolSize;
+    }
+
+    /**
+     * @return <code>true</code> if events that were not indexed before the repository was last shut down should be re-indexed in the
+     *         background, so that the repository can accept new events before re-indexing completes, <code>false</code> if the repository
+     *         should not finish initializing until the events have been re-indexed
+     */
+    public boolean isBackgroundReindex() {
+        return backgroundReindex;
+    }
+
+    public void setBackgroundReindex(final boolean backgroundReindex) {
+        this.backgroundReindex = backgroundReindex;
+    }
+
     public void setConcurrentMergeThreads(final int mergeThreads) {
         this.concurrentMergeThreads = mergeThreads;
     }
@@ -369,6 +437,22 @@ public class RepositoryConfiguration {
         return Optional.ofNullable(warmCacheFrequencyMinutes);
     }
 
+    /**
+     * @param thresholdMillis the amount of time per minute that threads may spend waiting for the Lucene index to catch up before
+     *            only the minimal set of fields is indexed, or <code>null</code> to always index all configured fields
+     */
+    public void setIndexDegradeThresholdMillis(final Long thresholdMillis) {
+        this.indexDegradeThresholdMillis = thresholdMillis;
+    }
+
+    /**
+     * @return the amount of time per minute that threads may spend waiting for the Lucene index to catch up before only the minimal set
+     *         of fields is indexed, or an empty Optional if all configured fields should always be indexed
+     */
+    public Optional<Long> getIndexDegradeThresholdMillis() {
+        return Optional.ofNullable(indexDegradeThresholdMillis);
+    }
+
     public boolean supportsEncryption() {
         boolean keyProviderIsConfigured = CryptoUtils.isValidKeyProvider(keyProviderImplementation, keyProviderLocation, keyId, encryptionKeys);
 
@@ -442,7 +526,9 @@ public class RepositoryConfiguration {
         final int indexThreads = nifiProperties.getIntegerProperty(NiFiProperties.PROVENANCE_INDEX_THREAD_POOL_SIZE, 2);
         final int journalCount = nifiProperties.getIntegerProperty(NiFiProperties.PROVENANCE_JOURNAL_COUNT, 16);
         final int concurrentMergeThreads = nifiProperties.getIntegerProperty(CONCURRENT_MERGE_THREADS, 2);
+        final int recoveryThreads = nifiProperties.getIntegerProperty(RECOVERY_THREADS, 4);
         final String warmCacheFrequency = nifiProperties.getProperty(WARM_CACHE_FREQUENCY);
+        final String indexDegradeThreshold = nifiProperties.getProperty(INDEX_DEGRADE_THRESHOLD);
         final String maintenanceFrequency = nifiProperties.getProperty(MAINTENACE_FREQUENCY);
         final long storageMillis = FormatUtils.getTimeDuration(storageTime, TimeUnit.MILLISECONDS);
         final long maxStorageBytes = DataUnit.parseDataSize(storageSize, DataUnit.B).longValue();
@@ -450,6 +536,9 @@ public class RepositoryConfiguration {
         final long rolloverBytes = DataUnit.parseDataSize(rolloverSize, DataUnit.B).longValue();
 
         final boolean compressOnRollover = Boolean.parseBoolean(nifiProperties.getProperty(NiFiProperties.PROVENANCE_COMPRESS_ON_ROLLOVER));
+        final String compressionCodecName = nifiProperties.getProperty(COMPRESSION_CODEC, CompressionCodec.GZIP.name());
+        final boolean summaryIndexEnabled = Boolean.parseBoolean(nifiProperties.getProperty(SUMMARY_INDEX_ENABLED, "false"));
+        final boolean backgroundReindex = Boolean.parseBoolean(nifiProperties.getProperty(BACKGROUND_REINDEX, "false"));
         final String indexedFieldString = nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_FIELDS);
         final String indexedAttrString = nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_ATTRIBUTES);
 
@@ -470,6 +559,17 @@ public class RepositoryConfiguration {
             maxAttrChars = defaultMaxAttrChars;
         }
 
+        CompressionCodec compressionCodec;
+        try {
+            compressionCodec = CompressionCodec.valueOf(compressionCodecName.trim().toUpperCase());
+        } catch (final IllegalArgumentException iae) {
+            compressionCodec = CompressionCodec.NONE;
+        }
+        if (!compressionCodec.isCompressed()) {
+            logger.warn("Found compression codec property set to " + compressionCodecName + " but valid values are GZIP, LZ4, SNAPPY and ZSTD; using GZIP instead");
+            compressionCodec = CompressionCodec.GZIP;
+        }
+
         final List<SearchableField> searchableFields = SearchableFieldParser.extractSearchableFields(indexedFieldString, true);
         final List<SearchableField> searchableAttributes = SearchableFieldParser.extractSearchableFields(indexedAttrString, false);
 
@@ -483,6 +583,8 @@ public class RepositoryConfiguration {
             config.addStorageDirectory(entry.getKey(), entry.getValue().toFile());
         }
         config.setCompressOnRollover(compressOnRollover);
+        config.setCompressionCodec(compressionCodec);
+        config.setSummaryIndexEnabled(summaryIndexEnabled);
         config.setSearchableFields(searchableFields);
         config.setSearchableAttributes(searchableAttributes);
         config.setMaxEventFileCapacity(rolloverBytes);
@@ -495,10 +597,15 @@ public class RepositoryConfiguration {
         config.setJournalCount(journalCount);
         config.setMaxAttributeChars(maxAttrChars);
         config.setConcurrentMergeThreads(concurrentMergeThreads);
+        config.setRecoveryThreadPoolSize(recoveryThreads);
+        config.setBackgroundReindex(backgroundReindex);
 
         if (warmCacheFrequency != null && !warmCacheFrequency.trim().equals("")) {
             config.setWarmCacheFrequencyMinutes((int) FormatUtils.getTimeDuration(warmCacheFrequency, TimeUnit.MINUTES));
         }
+        if (indexDegradeThreshold != null && !indexDegradeThreshold.trim().equals("")) {
+            config.setIndexDegradeThresholdMillis(FormatUtils.getTimeDuration(indexDegradeThreshold.trim(), TimeUnit.MILLISECONDS));
+        }
         if (shardSize != null) {
             config.setDesiredIndexSize(DataUnit.parseDataSize(shardSize, DataUnit.B).longValue());
         }
@@ -23,6 +23,7 @@ import org.apache.nifi.authorization.resource.Authorizable;
 import org.apache.nifi.authorization.user.NiFiUser;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.provenance.authorization.EventAuthorizer;
+import org.apache.nifi.provenance.authorization.EventTransformer;
 import org.apache.nifi.provenance.authorization.UserEventAuthorizer;
 import org.apache.nifi.provenance.index.EventIndex;
 import org.apache.nifi.provenance.index.lucene.LuceneEventIndex;
@@ -40,10 +41,12 @@ import org.apache.nifi.provenance.store.PartitionedWriteAheadEventStore;
 import org.apache.nifi.provenance.store.RecordReaderFactory;
 import org.apache.nifi.provenance.store.RecordWriterFactory;
 import org.apache.nifi.provenance.store.StorageResult;
+import org.apache.nifi.provenance.store.iterator.EventIterator;
 import org.apache.nifi.provenance.toc.StandardTocWriter;
 import org.apache.nifi.provenance.toc.TocUtil;
 import org.apache.nifi.provenance.toc.TocWriter;
 import org.apache.nifi.provenance.util.CloseableUtil;
+import org.apache.nifi.provenance.util.NamedThreadFactory;
 import org.apache.nifi.reporting.Severity;
 import org.apache.nifi.util.NiFiProperties;
 import org.apache.nifi.util.file.FileUtils;
@@ -52,12 +55,22 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -100,6 +113,7 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
     private EventReporter eventReporter;
     private Authorizer authorizer;
     private ProvenanceAuthorizableFactory resourceFactory;
+    private ExecutorService reindexExecutor;
 
     /**
      * This constructor exists solely for the use of the Java Service Loader mechanism and should not be used.
@@ -155,17 +169,33 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
         eventIndex.initialize(eventStore);
 
         if (eventIndex.isReindexNecessary()) {
-            try {
-                eventStore.reindexLatestEvents(eventIndex);
-            } catch (final Exception e) {
-                logger.error("Failed to re-index some of the Provenance Events. It is possible that some of the latest "
-                    + "events will not be available from the Provenance Repository when a query is issued.", e);
+            if (config.isBackgroundReindex()) {
+                logger.info("Provenance Repository will accept new events while the latest events are re-indexed in the background. "
+                    + "Until re-indexing completes, queries may not return all of the latest events.");
+
+                // The events to re-index are determined before any new event can be added, so that the events that are indexed
+                // as they are added are not re-indexed and the events that were never indexed are not missed.
+                final Runnable reindexTask = eventStore.createReindexTask(eventIndex);
+                reindexExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("Re-Index Provenance Repository", true));
+                reindexExecutor.submit(() -> reindexLatestEvents(reindexTask));
+                reindexExecutor.shutdown();
+            } else {
+                reindexLatestEvents(eventStore.createReindexTask(eventIndex));
             }
         } else {
             logger.info("Provenance Event Index indicates that no events should be re-indexed upon startup. Will not wait for re-indexing to occur.");
         }
     }
 
+    private void reindexLatestEvents(final Runnable reindexTask) {
+        try {
+            reindexTask.run();
+        } catch (final Exception e) {
+            logger.error("Failed to re-index some of the Provenance Events. It is possible that some of the latest "
+                + "events will not be available from the Provenance Repository when a query is issued.", e);
+        }
+    }
+
     @Override
     public ProvenanceEventBuilder eventBuilder() {
         return new StandardProvenanceEventRecord.Builder();
@@ -211,6 +241,10 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public void close() {
+        if (reindexExecutor != null) {
+            reindexExecutor.shutdownNow();
+        }
+
         CloseableUtil.closeQuietly(eventStore, eventIndex);
     }
 
@@ -241,6 +275,45 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
         return createEventAuthorizer(user).filterUnauthorizedEvents(events);
     }
 
+    @Override
+    public Stream<ProvenanceEventRecord> streamEvents(final long firstRecordId, final int maxRecords) {
+        return streamEvents(firstRecordId, maxRecords, EventAuthorizer.GRANT_ALL);
+    }
+
+    @Override
+    public Stream<ProvenanceEventRecord> streamEvents(final long firstRecordId, final int maxRecords, final NiFiUser user) {
+        return streamEvents(firstRecordId, maxRecords, createEventAuthorizer(user));
+    }
+
+    private Stream<ProvenanceEventRecord> streamEvents(final long firstRecordId, final int maxRecords, final EventAuthorizer eventAuthorizer) {
+        if (maxRecords < 1) {
+            return Stream.empty();
+        }
+
+        // Unauthorized events are dropped, as they are by getEvents(). Events are read from the Event Store only as the Stream is consumed.
+        final EventIterator iterator = eventStore.getEventIterator(firstRecordId, eventAuthorizer, EventTransformer.EMPTY_TRANSFORMER);
+        final Spliterator<ProvenanceEventRecord> spliterator = new Spliterators.AbstractSpliterator<ProvenanceEventRecord>(Long.MAX_VALUE,
+            Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT) {
+
+            @Override
+            public boolean tryAdvance(final Consumer<? super ProvenanceEventRecord> action) {
+                final Optional<ProvenanceEventRecord> nextEvent;
+                try {
+                    nextEvent = iterator.nextEvent();
+                } catch (final IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+
+                nextEvent.ifPresent(action);
+                return nextEvent.isPresent();
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false)
+            .limit(maxRecords)
+            .onClose(() -> CloseableUtil.closeQuietly(iterator));
+    }
+
     private EventAuthorizer createEventAuthorizer(final NiFiUser user) {
         return new UserEventAuthorizer(authorizer, resourceFactory, user);
     }
@@ -347,4 +420,20 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
             throw new IllegalArgumentException("There is no defined container with name " + containerName);
         }
     }
+
+    @Override
+    public Map<String, String> getDiagnostics() {
+        if (!(eventIndex instanceof LuceneEventIndex)) {
+            return Collections.emptyMap();
+        }
+
+        final LuceneEventIndex luceneIndex = (LuceneEventIndex) eventIndex;
+        final Map<String, String> diagnostics = new LinkedHashMap<>();
+        diagnostics.put("Documents Queued for Indexing", String.valueOf(luceneIndex.getIndexQueueSize()));
+        diagnostics.put("Time Waiting to Queue Documents for Indexing (Last Minute)", luceneIndex.getRecentIndexQueuePauseMillis() + " millis");
+        diagnostics.put("Time Waiting to Queue Documents for Indexing (Total)", luceneIndex.getTotalIndexQueuePauseMillis() + " millis");
+        diagnostics.put("Indexing Degraded", String.valueOf(luceneIndex.isIndexingDegraded()));
+        diagnostics.put("Events Indexed with Minimal Fields", String.valueOf(luceneIndex.getDegradedEventCount()));
+        return diagnostics;
+    }
 }
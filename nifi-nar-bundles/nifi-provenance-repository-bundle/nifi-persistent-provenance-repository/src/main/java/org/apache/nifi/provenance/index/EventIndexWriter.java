@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.util.List;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 
 public interface EventIndexWriter extends Closeable {
@@ -41,4 +42,14 @@ public interface EventIndexWriter extends Closeable {
 
     IndexWriter getIndexWriter();
 
+    /**
+     * Returns a near-real-time reader that sees all documents indexed so far, whether or not they have been committed. The reader is shared
+     * and refreshed only when documents have been indexed since it was opened, so the caller must release it by calling
+     * {@link DirectoryReader#decRef()} rather than closing it.
+     *
+     * @return a near-real-time reader of the index
+     * @throws IOException if unable to open or refresh the reader
+     */
+    DirectoryReader acquireReader() throws IOException;
+
 }
@@ -43,7 +43,9 @@ import java.util.stream.Collectors;
 public class EventIndexTask implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(EventIndexTask.class);
     private static final String EVENT_CATEGORY = "Provenance Repository";
-    public static final int MAX_DOCUMENTS_PER_THREAD = 100;
+    // Each thread indexes whatever documents are queued, up to this many at a time. When indexing falls behind, the batches
+    // grow toward this size so that Lucene receives fewer, larger updates, which is considerably more efficient.
+    public static final int MAX_DOCUMENTS_PER_THREAD = 500;
     public static final int DEFAULT_MAX_EVENTS_PER_COMMIT = 1_000_000;
 
     private final BlockingQueue<StoredDocument> documentQueue;
@@ -75,10 +77,10 @@ public class EventIndexTask implements Runnable {
     }
 
     private void fetchDocuments(final List<StoredDocument> destination) throws InterruptedException {
-        // We want to fetch up to INDEX_BUFFER_SIZE documents at a time. However, we don't want to continually
-        // call #drainTo on the queue. So we call poll, blocking for up to 1 second. If we get any event, then
+        // We want to fetch up to MAX_DOCUMENTS_PER_THREAD documents at a time. However, we don't want to continually
+        // call #drainTo on the queue. So we call poll, blocking for up to 10 milliseconds. If we get any event, then
         // we will call drainTo to gather the rest. If we get no events, then we just return, having gathered
-        // no events.
+        // no events. Because drainTo only takes what is already queued, the batch size adapts to the backlog.
         StoredDocument firstDoc = documentQueue.poll(10, TimeUnit.MILLISECONDS);
         if (firstDoc == null) {
             return;
@@ -44,8 +44,10 @@ import org.apache.nifi.provenance.lucene.IndexManager;
 import org.apache.nifi.provenance.lucene.LuceneUtil;
 import org.apache.nifi.provenance.search.Query;
 import org.apache.nifi.provenance.search.QuerySubmission;
+import org.apache.nifi.provenance.search.SearchableField;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.store.EventStore;
+import org.apache.nifi.provenance.summary.SummaryField;
 import org.apache.nifi.provenance.util.DirectoryUtils;
 import org.apache.nifi.provenance.util.NamedThreadFactory;
 import org.apache.nifi.reporting.Severity;
@@ -60,6 +62,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -78,6 +81,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 public class LuceneEventIndex implements EventIndex {
     private static final Logger logger = LoggerFactory.getLogger(LuceneEventIndex.class);
@@ -88,22 +92,32 @@ public class LuceneEventIndex implements EventIndex {
     public static final int MAX_LINEAGE_NODES = 1000;
     public static final int MAX_INDEX_THREADS = 100;
     public static final int MAX_LINEAGE_UUIDS = 100;
+    public static final int DOCUMENT_QUEUE_CAPACITY = 1000;
+
+    // The fields that are indexed while indexing is degraded, if they are configured to be indexed at all. These are enough to compute lineage
+    // and to find the events of a given component, which are by far the most common searches.
+    private static final List<SearchableField> MINIMAL_INDEXED_FIELDS = Arrays.asList(SearchableFields.FlowFileUUID, SearchableFields.ComponentID);
 
     private final ConcurrentMap<String, AsyncQuerySubmission> querySubmissionMap = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, AsyncLineageSubmission> lineageSubmissionMap = new ConcurrentHashMap<>();
-    private final BlockingQueue<StoredDocument> documentQueue = new LinkedBlockingQueue<>(1000);
+    private final BlockingQueue<StoredDocument> documentQueue = new LinkedBlockingQueue<>(DOCUMENT_QUEUE_CAPACITY);
     private final List<EventIndexTask> indexTasks = Collections.synchronizedList(new ArrayList<>());
     private final ExecutorService queryExecutor;
     private final ExecutorService indexExecutor;
     private final RepositoryConfiguration config;
     private final IndexManager indexManager;
     private final ConvertEventToLuceneDocument eventConverter;
+    private final List<SearchableField> minimalIndexedFields;
+    private final ConvertEventToLuceneDocument minimalEventConverter;
     private final IndexDirectoryManager directoryManager;
     private volatile boolean closed = false;
 
     private final TimedBuffer<TimestampedLong> queuePauseNanos = new TimedBuffer<>(TimeUnit.SECONDS, 300, new LongEntityAccess());
     private final TimedBuffer<TimestampedLong> eventsIndexed = new TimedBuffer<>(TimeUnit.SECONDS, 300, new LongEntityAccess());
     private final AtomicLong eventCount = new AtomicLong(0L);
+    private final AtomicLong totalQueuePauseNanos = new AtomicLong(0L);
+    private final AtomicLong degradedEventCount = new AtomicLong(0L);
+    private volatile boolean indexingDegraded = false;
     private final EventReporter eventReporter;
 
     private final List<CachedQuery> cachedQueries = new ArrayList<>();
@@ -151,6 +165,10 @@ public class LuceneEventIndex implements EventIndex {
         this.config = config;
         this.indexManager = indexManager;
         this.eventConverter = new ConvertEventToLuceneDocument(config.getSearchableFields(), config.getSearchableAttributes());
+
+        this.minimalIndexedFields = new ArrayList<>(MINIMAL_INDEXED_FIELDS);
+        this.minimalIndexedFields.retainAll(config.getSearchableFields());
+        this.minimalEventConverter = new ConvertEventToLuceneDocument(minimalIndexedFields, Collections.emptyList());
     }
 
     @Override
@@ -161,16 +179,20 @@ public class LuceneEventIndex implements EventIndex {
         maintenanceExecutor = Executors.newScheduledThreadPool(1, new NamedThreadFactory("Provenance Repository Maintenance"));
         maintenanceExecutor.scheduleWithFixedDelay(this::performMaintenance, 1, 1, TimeUnit.MINUTES);
         maintenanceExecutor.scheduleWithFixedDelay(this::purgeObsoleteQueries, 30, 30, TimeUnit.SECONDS);
+        maintenanceExecutor.scheduleWithFixedDelay(this::checkIndexingBackPressure, 5, 5, TimeUnit.SECONDS);
 
         cachedQueries.add(new LatestEventsQuery());
         cachedQueries.add(new LatestEventsPerProcessorQuery());
+        if (config.isSummaryIndexEnabled()) {
+            cachedQueries.add(new SummaryIndexQuery(eventStore));
+        }
 
         triggerReindexOfDefunctIndices();
         triggerCacheWarming();
     }
 
     private void triggerReindexOfDefunctIndices() {
-        final ExecutorService rebuildIndexExecutor = Executors.newScheduledThreadPool(2, new NamedThreadFactory("Rebuild Defunct Provenance Indices", true));
+        final ExecutorService rebuildIndexExecutor = Executors.newFixedThreadPool(config.getRecoveryThreadPoolSize(), new NamedThreadFactory("Rebuild Defunct Provenance Indices", true));
         final List<File> allIndexDirectories = directoryManager.getAllIndexDirectories(true, true);
         allIndexDirectories.sort(DirectoryUtils.OLDEST_INDEX_FIRST);
         final List<File> defunctIndices = detectDefunctIndices(allIndexDirectories);
@@ -453,7 +475,12 @@ public class LuceneEventIndex implements EventIndex {
             cachedQuery.update(event, location);
         }
 
-        final Document document = eventConverter.convert(event, location);
+        final boolean degraded = indexingDegraded;
+        final Document document = degraded ? minimalEventConverter.convert(event, location) : eventConverter.convert(event, location);
+        if (degraded) {
+            degradedEventCount.incrementAndGet();
+        }
+
         if (document == null) {
             logger.debug("Received Provenance Event {} to index but it contained no information that should be indexed, so skipping it", event.getEventId());
         } else {
@@ -471,8 +498,7 @@ public class LuceneEventIndex implements EventIndex {
                         logger.warn("Interrupted while attempting to enqueue Provenance Event for indexing; this event will not be indexed");
                         return;
                     }
-                    final long nanos = System.nanoTime() - start;
-                    queuePauseNanos.add(new TimestampedLong(nanos));
+                    recordQueuePause(System.nanoTime() - start);
                 }
 
                 if (added) {
@@ -485,6 +511,11 @@ public class LuceneEventIndex implements EventIndex {
         }
     }
 
+    void recordQueuePause(final long nanos) {
+        queuePauseNanos.add(new TimestampedLong(nanos));
+        totalQueuePauseNanos.addAndGet(nanos);
+    }
+
     private void incrementAndReportStats() {
         final long fiveMinutesAgo = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(5);
         final TimestampedLong nanosLastFive = queuePauseNanos.getAggregateValue(fiveMinutesAgo);
@@ -504,6 +535,71 @@ public class LuceneEventIndex implements EventIndex {
             millis, numEventsLast5, eventCount.get());
     }
 
+    /**
+     * Determines whether or not indexing is keeping up with the rate at which events are being added, based on how long threads have had to
+     * wait for room in the queue of documents to index over the last minute. If the wait exceeds the configured threshold, only the minimal
+     * set of fields is indexed until the wait falls back below half of the threshold.
+     */
+    void checkIndexingBackPressure() {
+        final long pauseMillis = getRecentIndexQueuePauseMillis();
+        logger.debug("Provenance indexing back-pressure: {} of {} documents queued for indexing; threads waited {} millis in the last minute to enqueue documents",
+            documentQueue.size(), DOCUMENT_QUEUE_CAPACITY, pauseMillis);
+
+        final Optional<Long> thresholdOption = config.getIndexDegradeThresholdMillis();
+        if (!thresholdOption.isPresent()) {
+            return;
+        }
+
+        final long thresholdMillis = thresholdOption.get();
+        if (!indexingDegraded && pauseMillis > thresholdMillis) {
+            indexingDegraded = true;
+            logger.warn("In the last minute, threads waited {} millis for Provenance Events to be indexed, which exceeds the threshold of {} millis. "
+                + "Until indexing catches up, new events will be searchable only by the fields {}", pauseMillis, thresholdMillis, minimalIndexedFields);
+            eventReporter.reportEvent(Severity.WARNING, EVENT_CATEGORY, "Provenance Events are being created faster than they can be indexed. Until indexing catches up, "
+                + "new events will be searchable by only a minimal set of fields. See logs for more information.");
+        } else if (indexingDegraded && pauseMillis < thresholdMillis / 2) {
+            indexingDegraded = false;
+            logger.info("Provenance indexing has caught up, having waited {} millis in the last minute; will again index all configured fields. "
+                + "{} events have been indexed with only the minimal fields", pauseMillis, degradedEventCount.get());
+        }
+    }
+
+    /**
+     * @return the number of documents that are waiting to be indexed
+     */
+    public int getIndexQueueSize() {
+        return documentQueue.size();
+    }
+
+    /**
+     * @return the number of milliseconds that threads have spent in the last minute waiting for room in the queue of documents to index
+     */
+    public long getRecentIndexQueuePauseMillis() {
+        final TimestampedLong pauseNanos = queuePauseNanos.getAggregateValueSince(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1));
+        return pauseNanos == null ? 0L : TimeUnit.NANOSECONDS.toMillis(pauseNanos.getValue());
+    }
+
+    /**
+     * @return the total number of milliseconds that threads have spent waiting for room in the queue of documents to index since NiFi started
+     */
+    public long getTotalIndexQueuePauseMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalQueuePauseNanos.get());
+    }
+
+    /**
+     * @return <code>true</code> if indexing has fallen far enough behind that new events are indexed with only the minimal set of fields
+     */
+    public boolean isIndexingDegraded() {
+        return indexingDegraded;
+    }
+
+    /**
+     * @return the number of events that have been indexed with only the minimal set of fields since NiFi started
+     */
+    public long getDegradedEventCount() {
+        return degradedEventCount.get();
+    }
+
     @Override
     public void addEvents(final Map<ProvenanceEventRecord, StorageSummary> events) {
         eventsIndexed.add(new TimestampedLong((long) events.size()));
@@ -546,6 +642,11 @@ public class LuceneEventIndex implements EventIndex {
             throw new IllegalArgumentException(String.format("Cannot compute lineage for more than %s FlowFiles. This lineage contains %s.", MAX_LINEAGE_UUIDS, flowFileUuids.size()));
         }
 
+        final Optional<List<Long>> summarizedEventIds = getSummarizedLineageEventIds(flowFileUuids);
+        if (summarizedEventIds.isPresent()) {
+            return submitSummarizedLineageComputation(summarizedEventIds.get(), flowFileUuids, user, eventAuthorizer, computationType, eventId, startTimestamp, endTimestamp);
+        }
+
         final List<File> indexDirs = directoryManager.getDirectories(startTimestamp, endTimestamp);
         final AsyncLineageSubmission submission = new AsyncLineageSubmission(computationType, eventId, flowFileUuids, indexDirs.size(), user == null ? null : user.getIdentity());
         lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
@@ -575,6 +676,73 @@ public class LuceneEventIndex implements EventIndex {
         return submission;
     }
 
+    private Optional<List<Long>> getSummarizedLineageEventIds(final Collection<String> flowFileUuids) {
+        if (!config.isSummaryIndexEnabled()) {
+            return Optional.empty();
+        }
+
+        final List<String> values = flowFileUuids.stream()
+            .map(SummaryField::normalize)
+            .collect(Collectors.toList());
+
+        try {
+            return eventStore.getSummarizedEventIds(SummaryField.FLOWFILE_UUID, values);
+        } catch (final IOException ioe) {
+            logger.warn("Failed to search the Summary Index for the events of FlowFiles {}; will search the Lucene index instead", flowFileUuids, ioe);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Computes lineage from the ID's of the events that the Summary Index holds for the FlowFiles of interest. As with the Lucene index, only the
+     * most recent {@link #MAX_LINEAGE_NODES} events that fall within the given time range are considered. The Summary Index does not hold the
+     * times of the events, so the events are retrieved from newest to oldest, a batch at a time, until enough of them fall within the range.
+     */
+    private ComputeLineageSubmission submitSummarizedLineageComputation(final List<Long> eventIds, final Collection<String> flowFileUuids, final NiFiUser user,
+        final EventAuthorizer eventAuthorizer, final LineageComputationType computationType, final Long eventId, final long startTimestamp, final long endTimestamp) {
+
+        final AsyncLineageSubmission submission = new AsyncLineageSubmission(computationType, eventId, flowFileUuids, 1, user == null ? null : user.getIdentity());
+        lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
+
+        logger.debug("Summary Index produced {} Event IDs for the lineage of FlowFiles {}", eventIds.size(), flowFileUuids);
+
+        queryExecutor.submit(() -> {
+            try {
+                // Events must be filtered by time before they are limited to the most recent ones, or newer events outside of the time range
+                // would take the place of the events that are within it.
+                final List<ProvenanceEventRecord> events = new ArrayList<>();
+                int batchEnd = eventIds.size();
+                while (batchEnd > 0 && events.size() < MAX_LINEAGE_NODES) {
+                    final int batchStart = Math.max(0, batchEnd - MAX_LINEAGE_NODES);
+                    final List<ProvenanceEventRecord> batch = eventStore.getEvents(eventIds.subList(batchStart, batchEnd), eventAuthorizer,
+                            EventTransformer.PLACEHOLDER_TRANSFORMER).stream()
+                        .filter(event -> event.getEventTime() >= startTimestamp && event.getEventTime() <= endTimestamp)
+                        .collect(Collectors.toList());
+
+                    events.addAll(0, batch);
+                    batchEnd = batchStart;
+                }
+
+                final List<ProvenanceEventRecord> latestEvents = events.subList(Math.max(0, events.size() - MAX_LINEAGE_NODES), events.size());
+                submission.getResult().update(latestEvents, eventIds.size());
+            } catch (final Exception e) {
+                submission.getResult().setError("Failed to retrieve Provenance Events from store; see logs for more details");
+                logger.error("Failed to retrieve Provenance Events from store", e);
+            }
+        });
+
+        // Some computations will complete very quickly. In this case, we don't want to wait
+        // for the client to submit a second query to obtain the result. Instead, we want to just
+        // wait some short period of time for the computation to complete before returning the submission.
+        try {
+            submission.getResult().awaitCompletion(500, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        return submission;
+    }
+
     private BooleanQuery buildLineageQuery(final Collection<String> flowFileUuids) {
         // Create a query for all Events related to the FlowFiles of interest. We do this by adding all ID's as
         // "SHOULD" clauses and then setting the minimum required to 1.
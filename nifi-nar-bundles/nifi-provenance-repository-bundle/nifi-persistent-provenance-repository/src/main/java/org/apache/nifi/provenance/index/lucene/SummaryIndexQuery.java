@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index.lucene;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.SearchTerm;
+import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.apache.nifi.provenance.store.EventStore;
+import org.apache.nifi.provenance.summary.SummaryField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers queries for the latest events of a single Component ID or FlowFile UUID from the Summary Index that the Event Store maintains,
+ * so that these queries do not need to search the Lucene index, and can be answered even if the field is not indexed by Lucene at all.
+ */
+public class SummaryIndexQuery implements CachedQuery {
+    private static final Logger logger = LoggerFactory.getLogger(SummaryIndexQuery.class);
+
+    private final EventStore eventStore;
+
+    public SummaryIndexQuery(final EventStore eventStore) {
+        this.eventStore = eventStore;
+    }
+
+    @Override
+    public void update(final ProvenanceEventRecord event, final StorageSummary storageSummary) {
+        // The Summary Index is updated by the Event Store as events are written
+    }
+
+    @Override
+    public Optional<List<Long>> evaluate(final Query query) {
+        if (query.getEndDate() != null || query.getStartDate() != null) {
+            return Optional.empty();
+        }
+
+        final List<SearchTerm> terms = query.getSearchTerms();
+        if (terms.size() != 1) {
+            return Optional.empty();
+        }
+
+        final SearchTerm term = terms.get(0);
+        final SummaryField field = SummaryField.fromSearchableField(term.getSearchableField());
+        final String value = term.getValue();
+        if (field == null || value == null || value.contains("*") || value.contains("?")) {
+            // wildcard searches are left to Lucene
+            return Optional.empty();
+        }
+
+        final Optional<List<Long>> eventIdsOption;
+        try {
+            eventIdsOption = eventStore.getSummarizedEventIds(field, Collections.singleton(SummaryField.normalize(value)));
+        } catch (final IOException ioe) {
+            logger.warn("Failed to search the Summary Index for {}; will search the Lucene index instead", query, ioe);
+            return Optional.empty();
+        }
+
+        if (!eventIdsOption.isPresent()) {
+            return Optional.empty();
+        }
+
+        // Event ID's are in ascending order. Return the latest events first, as the Lucene index does.
+        final List<Long> eventIds = eventIdsOption.get();
+        final int firstIndex = Math.max(0, eventIds.size() - query.getMaxResults());
+        final List<Long> latestEventIds = new ArrayList<>(eventIds.subList(firstIndex, eventIds.size()));
+        Collections.reverse(latestEventIds);
+        return Optional.of(latestEventIds);
+    }
+
+    @Override
+    public String toString() {
+        return "Summary Index Query";
+    }
+}
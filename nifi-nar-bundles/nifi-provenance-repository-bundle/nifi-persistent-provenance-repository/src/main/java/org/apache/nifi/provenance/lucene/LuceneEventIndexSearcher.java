@@ -60,7 +60,7 @@ public class LuceneEventIndexSearcher implements EventIndexSearcher {
     public synchronized void close() {
         closed = true;
         if (usageCounter == 0) {
-            closeQuietly(directoryReader);
+            releaseQuietly(directoryReader);
             closeQuietly(directory);
         }
     }
@@ -72,11 +72,25 @@ public class LuceneEventIndexSearcher implements EventIndexSearcher {
     public synchronized void decrementUsageCounter() {
         usageCounter--;
         if (usageCounter == 0 && closed) {
-            closeQuietly(directoryReader);
+            releaseQuietly(directoryReader);
             closeQuietly(directory);
         }
     }
 
+    // The reader may be shared with other searchers of the same index, so rather than closing it, release this searcher's reference to it.
+    // The reader is closed once all references have been released.
+    private void releaseQuietly(final DirectoryReader reader) {
+        if (reader == null) {
+            return;
+        }
+
+        try {
+            reader.decRef();
+        } catch (final Exception e) {
+            logger.warn("Failed to close {} due to {}", reader, e);
+        }
+    }
+
     private void closeQuietly(final Closeable closeable) {
         if (closeable == null) {
             return;
@@ -26,6 +26,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.nifi.provenance.index.EventIndexWriter;
 
@@ -37,6 +38,7 @@ public class LuceneEventIndexWriter implements EventIndexWriter {
     private final AtomicReference<CommitStats> commitStats = new AtomicReference<>();
     private final AtomicLong totalIndexed = new AtomicLong(0L);
     private final AtomicLong lastCommitTotalIndexed = new AtomicLong(0L);
+    private DirectoryReader nrtReader; // guarded by synchronizing on 'this'
 
     public LuceneEventIndexWriter(final IndexWriter indexWriter, final File directory) {
         this(indexWriter, directory, TimeUnit.SECONDS.toNanos(30L));
@@ -52,6 +54,13 @@ public class LuceneEventIndexWriter implements EventIndexWriter {
 
     @Override
     public void close() throws IOException {
+        synchronized (this) {
+            if (nrtReader != null) {
+                nrtReader.decRef();
+                nrtReader = null;
+            }
+        }
+
         indexWriter.close();
     }
 
@@ -119,6 +128,24 @@ public class LuceneEventIndexWriter implements EventIndexWriter {
         return indexWriter;
     }
 
+    @Override
+    public synchronized DirectoryReader acquireReader() throws IOException {
+        if (nrtReader == null) {
+            nrtReader = DirectoryReader.open(indexWriter, false, false);
+        } else {
+            // Only opens a new reader if documents have been indexed since the current one was opened, and even then reuses
+            // the readers of the segments that have not changed.
+            final DirectoryReader refreshed = DirectoryReader.openIfChanged(nrtReader, indexWriter, false);
+            if (refreshed != null) {
+                nrtReader.decRef();
+                nrtReader = refreshed;
+            }
+        }
+
+        nrtReader.incRef();
+        return nrtReader;
+    }
+
     @Override
     public String toString() {
         return "LuceneEventIndexWriter[dir=" + directory + "]";
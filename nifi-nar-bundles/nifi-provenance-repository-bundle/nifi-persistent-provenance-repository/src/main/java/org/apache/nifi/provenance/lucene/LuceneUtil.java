@@ -30,6 +30,7 @@ import org.apache.lucene.search.WildcardQuery;
 import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.provenance.SearchableFields;
 import org.apache.nifi.provenance.search.SearchTerm;
+import org.apache.nifi.provenance.serialization.CompressionCodec;
 
 import java.io.File;
 import java.nio.ByteBuffer;
@@ -80,10 +81,12 @@ public class LuceneUtil {
                 if ( file.exists() ) {
                     matchingFiles.add(file);
                 } else {
-                    final File dir = file.getParentFile();
-                    final File gzFile = new File(dir, file.getName() + ".gz");
-                    if ( gzFile.exists() ) {
-                        matchingFiles.add(gzFile);
+                    for (final CompressionCodec codec : CompressionCodec.values()) {
+                        final File compressedFile = codec.getCompressedFile(file);
+                        if ( codec.isCompressed() && compressedFile.exists() ) {
+                            matchingFiles.add(compressedFile);
+                            break;
+                        }
                     }
                 }
             }
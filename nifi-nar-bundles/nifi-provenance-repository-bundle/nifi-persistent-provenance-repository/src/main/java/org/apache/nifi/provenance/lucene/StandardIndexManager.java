@@ -109,7 +109,7 @@ public class StandardIndexManager implements IndexManager {
             directoryReader = DirectoryReader.open(directory);
         } else {
             final EventIndexWriter eventIndexWriter = writerCount.getWriter();
-            directoryReader = DirectoryReader.open(eventIndexWriter.getIndexWriter(), false, false);
+            directoryReader = eventIndexWriter.acquireReader();
         }
 
         final IndexSearcher searcher = new IndexSearcher(directoryReader, this.searchExecutor);
@@ -29,7 +29,6 @@ import org.apache.nifi.provenance.AbstractRecordWriter;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.toc.TocWriter;
 import org.apache.nifi.stream.io.ByteCountingOutputStream;
-import org.apache.nifi.stream.io.GZIPOutputStream;
 import org.apache.nifi.stream.io.NonCloseableOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,7 +38,7 @@ public abstract class CompressableRecordWriter extends AbstractRecordWriter {
 
     private final FileOutputStream fos;
     private final ByteCountingOutputStream rawOutStream;
-    private final boolean compressed;
+    private final CompressionCodec compressionCodec;
     private final int uncompressedBlockSize;
     private final AtomicLong idGenerator;
 
@@ -50,11 +49,16 @@ public abstract class CompressableRecordWriter extends AbstractRecordWriter {
 
 
     public CompressableRecordWriter(final File file, final AtomicLong idGenerator, final TocWriter writer, final boolean compressed,
+        final int uncompressedBlockSize) throws IOException {
+        this(file, idGenerator, writer, compressed ? CompressionCodec.GZIP : CompressionCodec.NONE, uncompressedBlockSize);
+    }
+
+    public CompressableRecordWriter(final File file, final AtomicLong idGenerator, final TocWriter writer, final CompressionCodec compressionCodec,
         final int uncompressedBlockSize) throws IOException {
         super(file, writer);
         logger.trace("Creating Record Writer for {}", file.getName());
 
-        this.compressed = compressed;
+        this.compressionCodec = compressionCodec;
         this.fos = new FileOutputStream(file);
         rawOutStream = new ByteCountingOutputStream(new BufferedOutputStream(fos));
         this.uncompressedBlockSize = uncompressedBlockSize;
@@ -63,10 +67,15 @@ public abstract class CompressableRecordWriter extends AbstractRecordWriter {
 
     public CompressableRecordWriter(final OutputStream out, final String storageLocation, final AtomicLong idGenerator, final TocWriter tocWriter, final boolean compressed,
         final int uncompressedBlockSize) throws IOException {
+        this(out, storageLocation, idGenerator, tocWriter, compressed ? CompressionCodec.GZIP : CompressionCodec.NONE, uncompressedBlockSize);
+    }
+
+    public CompressableRecordWriter(final OutputStream out, final String storageLocation, final AtomicLong idGenerator, final TocWriter tocWriter,
+        final CompressionCodec compressionCodec, final int uncompressedBlockSize) throws IOException {
         super(storageLocation, tocWriter);
         this.fos = null;
 
-        this.compressed = compressed;
+        this.compressionCodec = compressionCodec;
         this.uncompressedBlockSize = uncompressedBlockSize;
         this.rawOutStream = new ByteCountingOutputStream(new BufferedOutputStream(out));
         this.idGenerator = idGenerator;
@@ -114,9 +123,9 @@ public abstract class CompressableRecordWriter extends AbstractRecordWriter {
             final long byteOffset = (byteCountingOut == null) ? rawOutStream.getBytesWritten() : byteCountingOut.getBytesWritten();
             final TocWriter tocWriter = getTocWriter();
 
-            if (compressed) {
-                // because of the way that GZIPOutputStream works, we need to call close() on it in order for it
-                // to write its trailing bytes. But we don't want to close the underlying OutputStream, so we wrap
+            if (compressionCodec.isCompressed()) {
+                // because of the way that the compressing streams work, we need to call close() on them in order for them
+                // to write their trailing bytes. But we don't want to close the underlying OutputStream, so we wrap
                 // the underlying OutputStream in a NonCloseableOutputStream
                 // We don't have to check if the writer is dirty because we will have already checked before calling this method.
                 if (out != null) {
@@ -127,7 +136,7 @@ public abstract class CompressableRecordWriter extends AbstractRecordWriter {
                     tocWriter.addBlockOffset(rawOutStream.getBytesWritten(), eventId);
                 }
 
-                final OutputStream writableStream = new BufferedOutputStream(new GZIPOutputStream(new NonCloseableOutputStream(rawOutStream), 1), 65536);
+                final OutputStream writableStream = new BufferedOutputStream(compressionCodec.compress(new NonCloseableOutputStream(rawOutStream)), 65536);
                 this.byteCountingOut = new ByteCountingOutputStream(writableStream, byteOffset);
             } else {
                 if (tocWriter != null && eventId != null) {
@@ -212,7 +221,11 @@ public abstract class CompressableRecordWriter extends AbstractRecordWriter {
     }
 
     protected boolean isCompressed() {
-        return compressed;
+        return compressionCodec.isCompressed();
+    }
+
+    protected CompressionCodec getCompressionCodec() {
+        return compressionCodec;
     }
 
     protected abstract void writeRecord(final ProvenanceEventRecord event, final long eventId, final DataOutputStream out) throws IOException;
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.serialization;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.apache.nifi.provenance.toc.TocReader;
+import org.apache.nifi.stream.io.GZIPOutputStream;
+import org.xerial.snappy.SnappyFramedInputStream;
+import org.xerial.snappy.SnappyFramedOutputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <p>
+ * The codecs that may be used to compress the blocks of a Provenance Event File. Each block of an Event File is compressed independently
+ * of the others so that a block can be read without reading the blocks before it. The codec that an Event File was compressed with is
+ * identified both by the extension of the file name and by the compression flag in the file's Table of Contents, so that Event Files
+ * that were compressed with different codecs can be read from the same repository.
+ * </p>
+ *
+ * <p>
+ * The identifier of each codec is persisted in the Table of Contents, so it must never change. The identifiers 0 and 1 were written
+ * as the 'compressed' flag before codecs were configurable, which is why they identify the uncompressed and the GZIP formats.
+ * </p>
+ */
+public enum CompressionCodec {
+    NONE(0, "") {
+        @Override
+        public OutputStream compress(final OutputStream out) {
+            return out;
+        }
+
+        @Override
+        public InputStream decompress(final InputStream in) {
+            return in;
+        }
+    },
+
+    GZIP(1, ".gz") {
+        @Override
+        public OutputStream compress(final OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, 1);
+        }
+
+        @Override
+        public InputStream decompress(final InputStream in) throws IOException {
+            return new GZIPInputStream(in);
+        }
+    },
+
+    LZ4(2, ".lz4") {
+        @Override
+        public OutputStream compress(final OutputStream out) {
+            return new LZ4BlockOutputStream(out);
+        }
+
+        @Override
+        public InputStream decompress(final InputStream in) {
+            // do not stop at the end of the first LZ4 stream, so that an entire Event File can be read when there is no Table of Contents
+            return new LZ4BlockInputStream(in, false);
+        }
+    },
+
+    SNAPPY(3, ".snappy") {
+        @Override
+        public OutputStream compress(final OutputStream out) throws IOException {
+            return new SnappyFramedOutputStream(out);
+        }
+
+        @Override
+        public InputStream decompress(final InputStream in) throws IOException {
+            return new SnappyFramedInputStream(in);
+        }
+    },
+
+    ZSTD(4, ".zst") {
+        @Override
+        public OutputStream compress(final OutputStream out) throws IOException {
+            return new ZstdOutputStream(out, 1);
+        }
+
+        @Override
+        public InputStream decompress(final InputStream in) throws IOException {
+            return new ZstdInputStream(in);
+        }
+    };
+
+    private final int id;
+    private final String fileExtension;
+
+    CompressionCodec(final int id, final String fileExtension) {
+        this.id = id;
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * Wraps the given OutputStream so that the data written to the returned stream is compressed. The compressed block is not complete until
+     * the returned stream has been closed, which also closes the given stream.
+     *
+     * @param out the stream to write compressed data to
+     * @return a stream that compresses the data written to it
+     * @throws IOException if unable to write the header of the compressed stream
+     */
+    public abstract OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * Wraps the given InputStream so that the data read from the returned stream is decompressed
+     *
+     * @param in the stream to read compressed data from
+     * @return a stream that decompresses the data read from the given stream
+     * @throws IOException if unable to read the header of the compressed stream
+     */
+    public abstract InputStream decompress(InputStream in) throws IOException;
+
+    /**
+     * @return the identifier of the codec, as persisted in the Table of Contents
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the extension that is appended to the name of an Event File that is compressed with this codec, or an empty string if
+     *         the Event File is not compressed
+     */
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    public boolean isCompressed() {
+        return this != NONE;
+    }
+
+    /**
+     * Returns the file that the given uncompressed Event File is written to when it is compressed with this codec
+     *
+     * @param uncompressedFile the uncompressed Event File
+     * @return the compressed Event File
+     */
+    public File getCompressedFile(final File uncompressedFile) {
+        return new File(uncompressedFile.getParentFile(), uncompressedFile.getName() + fileExtension);
+    }
+
+    public static CompressionCodec fromId(final int id) {
+        for (final CompressionCodec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown compression codec " + id);
+    }
+
+    /**
+     * Determines the codec of an Event File from the extension of the file name
+     *
+     * @param filename the name of the Event File
+     * @return the codec that the Event File is compressed with, or {@link #NONE} if the extension does not identify a codec
+     */
+    public static CompressionCodec fromFilename(final String filename) {
+        for (final CompressionCodec codec : values()) {
+            if (codec.isCompressed() && filename.endsWith(codec.fileExtension)) {
+                return codec;
+            }
+        }
+
+        return NONE;
+    }
+
+    /**
+     * Determines the codec of an Event File. The Table of Contents is preferred, but Tables of Contents that were written before the codec
+     * was recorded, or by writers that compress inline, may not identify the codec, in which case the extension of the file name is used.
+     *
+     * @param filename the name of the Event File
+     * @param tocReader the Table of Contents of the Event File, or <code>null</code> if there is no Table of Contents
+     * @return the codec that the Event File is compressed with
+     */
+    public static CompressionCodec forEventFile(final String filename, final TocReader tocReader) {
+        if (tocReader != null && tocReader.getCompressionCodec().isCompressed()) {
+            return tocReader.getCompressionCodec();
+        }
+
+        return fromFilename(filename);
+    }
+}
@@ -25,8 +25,9 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.zip.GZIPInputStream;
+import java.util.List;
 import org.apache.nifi.properties.NiFiPropertiesLoader;
 import org.apache.nifi.provenance.ByteArraySchemaRecordReader;
 import org.apache.nifi.provenance.ByteArraySchemaRecordWriter;
@@ -48,6 +49,13 @@ public class RecordReaders {
 
     private static Logger logger = LoggerFactory.getLogger(RecordReaders.class);
 
+    // The extensions that an Event File may have, compressed extensions first because most often we are compressing on rollover
+    private static final String[] EVENT_FILE_EXTENSIONS = createEventFileExtensions();
+
+    // When the header is read, a compressed stream may read an entire compressed block from the underlying stream, so the mark
+    // must remain valid for longer than the header itself
+    private static final int HEADER_MARK_LIMIT = 256 * 1024;
+
     private static boolean isEncryptionAvailable = false;
     private static boolean encryptionPropertiesRead = false;
 
@@ -93,11 +101,11 @@ public class RecordReaders {
                 final File dir = file.getParentFile();
                 final String baseName = LuceneUtil.substringBefore(file.getName(), ".prov");
 
-                // depending on which rollover actions have occurred, we could have 2 possibilities for the
-                // filename that we need. The majority of the time, we will use the extension ".prov.gz"
+                // depending on which rollover actions have occurred, we could have several possibilities for the
+                // filename that we need. The majority of the time, we will use a compressed extension such as ".prov.gz"
                 // because most often we are compressing on rollover and most often we have already finished
                 // compressing by the time that we are querying the data.
-                for (final String extension : new String[]{".prov.gz", ".prov"}) {
+                for (final String extension : EVENT_FILE_EXTENSIONS) {
                     file = new File(dir, baseName + extension);
                     if (file.exists()) {
                         try {
@@ -121,12 +129,13 @@ public class RecordReaders {
             }
 
             final File tocFile = TocUtil.getTocFile(file);
+            final TocReader tocReader = tocFile.exists() ? new StandardTocReader(tocFile) : null;
 
             final InputStream bufferedInStream = new BufferedInputStream(fis);
             final String serializationName;
             try {
-                bufferedInStream.mark(4096);
-                final InputStream in = filename.endsWith(".gz") ? new GZIPInputStream(bufferedInStream) : bufferedInStream;
+                bufferedInStream.mark(HEADER_MARK_LIMIT);
+                final InputStream in = CompressionCodec.forEventFile(filename, tocReader).decompress(bufferedInStream);
                 final DataInputStream dis = new DataInputStream(in);
                 serializationName = dis.readUTF();
                 bufferedInStream.reset();
@@ -137,31 +146,28 @@ public class RecordReaders {
 
             switch (serializationName) {
                 case StandardRecordReader.SERIALIZATION_NAME: {
-                    if (tocFile.exists()) {
-                        final TocReader tocReader = new StandardTocReader(tocFile);
+                    if (tocReader != null) {
                         return new StandardRecordReader(bufferedInStream, filename, tocReader, maxAttributeChars);
                     } else {
                         return new StandardRecordReader(bufferedInStream, filename, maxAttributeChars);
                     }
                 }
                 case ByteArraySchemaRecordWriter.SERIALIZATION_NAME: {
-                    if (tocFile.exists()) {
-                        final TocReader tocReader = new StandardTocReader(tocFile);
+                    if (tocReader != null) {
                         return new ByteArraySchemaRecordReader(bufferedInStream, filename, tocReader, maxAttributeChars);
                     } else {
                         return new ByteArraySchemaRecordReader(bufferedInStream, filename, maxAttributeChars);
                     }
                 }
                 case EventIdFirstSchemaRecordWriter.SERIALIZATION_NAME: {
-                    if (!tocFile.exists()) {
+                    if (tocReader == null) {
                         throw new FileNotFoundException("Cannot create TOC Reader because the file " + tocFile + " does not exist");
                     }
 
-                    final TocReader tocReader = new StandardTocReader(tocFile);
                     return new EventIdFirstSchemaRecordReader(bufferedInStream, filename, tocReader, maxAttributeChars);
                 }
                 case EncryptedSchemaRecordReader.SERIALIZATION_NAME: {
-                    if (!tocFile.exists()) {
+                    if (tocReader == null) {
                         throw new FileNotFoundException("Cannot create TOC Reader because the file " + tocFile + " does not exist");
                     }
 
@@ -169,7 +175,6 @@ public class RecordReaders {
                         throw new IOException("Cannot read encrypted repository because this reader is not configured for encryption");
                     }
 
-                    final TocReader tocReader = new StandardTocReader(tocFile);
                     // Return a reader with no eventEncryptor because this method contract cannot change, then inject the encryptor from the writer in the calling method
                     return new EncryptedSchemaRecordReader(bufferedInStream, filename, tocReader, maxAttributeChars, null);
                 }
@@ -190,6 +195,18 @@ public class RecordReaders {
         }
     }
 
+    private static String[] createEventFileExtensions() {
+        final List<String> extensions = new ArrayList<>();
+        for (final CompressionCodec codec : CompressionCodec.values()) {
+            if (codec.isCompressed()) {
+                extensions.add(".prov" + codec.getFileExtension());
+            }
+        }
+
+        extensions.add(".prov");
+        return extensions.toArray(new String[0]);
+    }
+
     private static boolean isEncryptionAvailable() {
         if (encryptionPropertiesRead) {
             return isEncryptionAvailable;
@@ -23,9 +23,11 @@ import org.apache.nifi.provenance.authorization.EventTransformer;
 import org.apache.nifi.provenance.index.EventIndex;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
+import org.apache.nifi.provenance.summary.SummaryField;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -103,6 +105,20 @@ public interface EventStore extends Closeable {
      */
     List<ProvenanceEventRecord> getEvents(long firstRecordId, int maxRecords, EventAuthorizer authorizer, EventTransformer unauthorizedTransformer) throws IOException;
 
+    /**
+     * Returns an EventIterator that iterates over the events in the store, starting with the event whose ID is equal to firstRecordId.
+     * If that event cannot be found, then the first event will be the oldest event in the store whose ID is greater than firstRecordId.
+     * As with {@link #getEvents(long, int, EventAuthorizer, EventTransformer)}, the events are returned in order of Event ID, but they
+     * are read only as the iterator is advanced, so that any number of events can be read without holding them all in memory.
+     * The iterator must be closed once it is no longer needed.
+     *
+     * @param firstRecordId the ID of the first event to retrieve
+     * @param authorizer the authorizer that should be used to filter out any events that the user doesn't have access to
+     * @param unauthorizedTransformer the transformer to apply to unauthorized events
+     * @return an EventIterator over the events
+     */
+    EventIterator getEventIterator(long firstRecordId, EventAuthorizer authorizer, EventTransformer unauthorizedTransformer);
+
     /**
      * Given a List of Event ID's, returns a List of Provenance Events that contain the events that have those corresponding
      * Event ID's. If any events cannot be found, a warning will be logged but no Exception will be thrown.
@@ -115,6 +131,18 @@ public interface EventStore extends Closeable {
      */
     List<ProvenanceEventRecord> getEvents(List<Long> eventIds, EventAuthorizer authorizer, EventTransformer unauthorizedTransformer) throws IOException;
 
+    /**
+     * Uses the Summary Index that the store maintains alongside the events to find the ID's of the events that have any of the given values
+     * for the given field. Unlike the Event Index, the Summary Index covers every event in the store, so if the result is present, it is complete.
+     *
+     * @param field the field to search
+     * @param values the normalized values to search for, as produced by {@link SummaryField#normalize(String)}
+     * @return the ID's of the matching events in ascending order, or an empty Optional if the store has no Summary Index or the Summary Index
+     *         does not yet cover all of the events in the store
+     * @throws IOException if unable to read the Summary Index
+     */
+    Optional<List<Long>> getSummarizedEventIds(SummaryField field, Collection<String> values) throws IOException;
+
     /**
      * Causes the latest events in this store to be re-indexed by the given Event Index
      *
@@ -122,6 +150,16 @@ public interface EventStore extends Closeable {
      */
     void reindexLatestEvents(EventIndex eventIndex);
 
+    /**
+     * Determines which of the latest events in this store must be re-indexed by the given Event Index and returns a task that re-indexes them.
+     * Events that are added to the store after this method returns are not re-indexed by the task, so the task may be run in the background
+     * while new events are added to the store and indexed.
+     *
+     * @param eventIndex the EventIndex to use for indexing events
+     * @return a task that re-indexes the latest events when run
+     */
+    Runnable createReindexTask(EventIndex eventIndex);
+
     /**
      * Returns an EventIterator that can be used to iterate over all events whose timestamp fall between the given time range.
      * @param minTimestamp the minimum timestamp
@@ -19,6 +19,7 @@ package org.apache.nifi.provenance.store;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
@@ -26,6 +27,7 @@ import java.util.concurrent.TimeUnit;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
+import org.apache.nifi.provenance.summary.SummaryField;
 
 public interface EventStorePartition extends Closeable {
     /**
@@ -96,6 +98,17 @@ public interface EventStorePartition extends Closeable {
      */
     EventIterator createEventIterator(List<Long> eventIds);
 
+    /**
+     * Uses the Summary Index of each Event File in the partition to find the ID's of the events that have any of the given values for the given field.
+     *
+     * @param field the field to search
+     * @param values the normalized values to search for
+     * @return the ID's of the matching events in ascending order, or an empty Optional if the Summary Index is disabled or does not yet cover all
+     *         of the Event Files in the partition
+     * @throws IOException if unable to read the Summary Index
+     */
+    Optional<List<Long>> getSummarizedEventIds(SummaryField field, Collection<String> values) throws IOException;
+
     /**
      * Purges any events from the partition that are older than the given amount of time
      *
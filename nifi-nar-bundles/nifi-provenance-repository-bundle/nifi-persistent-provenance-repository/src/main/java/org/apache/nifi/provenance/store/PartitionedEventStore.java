@@ -17,7 +17,6 @@
 
 package org.apache.nifi.provenance.store;
 
-import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.RepositoryConfiguration;
@@ -25,7 +24,10 @@ import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.authorization.EventTransformer;
 import org.apache.nifi.provenance.store.iterator.AuthorizingEventIterator;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
+import org.apache.nifi.provenance.store.iterator.MergingEventIterator;
+import org.apache.nifi.provenance.summary.SummaryField;
 import org.apache.nifi.provenance.util.DirectoryUtils;
+import org.apache.nifi.provenance.util.NamedThreadFactory;
 import org.apache.nifi.reporting.Severity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,12 +35,14 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -65,9 +69,52 @@ public abstract class PartitionedEventStore implements EventStore {
         final long maintenanceMillis = repoConfig.getMaintenanceFrequency(TimeUnit.MILLISECONDS);
         maintenanceExecutor.scheduleWithFixedDelay(this::performMaintenance, maintenanceMillis, maintenanceMillis, TimeUnit.MILLISECONDS);
 
-        for (final EventStorePartition partition : getPartitions()) {
-            partition.initialize();
+        recoverPartitions();
+    }
+
+    private void recoverPartitions() throws IOException {
+        final List<? extends EventStorePartition> partitions = getPartitions();
+        if (partitions.size() < 2) {
+            for (final EventStorePartition partition : partitions) {
+                partition.initialize();
+            }
+            return;
+        }
+
+        // Each partition is recovered independently of the others, so recover them concurrently.
+        final int threadCount = Math.min(partitions.size(), repoConfig.getRecoveryThreadPoolSize());
+        final ExecutorService recoveryExecutor = Executors.newFixedThreadPool(threadCount, new NamedThreadFactory("Recover Provenance Partitions", true));
+        final long start = System.nanoTime();
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>(partitions.size());
+            for (final EventStorePartition partition : partitions) {
+                futures.add(recoveryExecutor.submit(() -> {
+                    partition.initialize();
+                    return null;
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (final ExecutionException ee) {
+                    final Throwable cause = ee.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new IOException("Failed to recover Provenance Repository partition", cause);
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while recovering Provenance Repository partitions", ie);
+                }
+            }
+        } finally {
+            recoveryExecutor.shutdown();
         }
+
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("Recovered {} Provenance Repository partitions using {} threads in {} millis", partitions.size(), threadCount, millis);
     }
 
     @Override
@@ -168,73 +215,63 @@ public abstract class PartitionedEventStore implements EventStore {
         return getEvents(eventIds.size(), authorizer, part -> part.createEventIterator(eventIds), transformer);
     }
 
-    private List<ProvenanceEventRecord> getEvents(final int maxRecords, final EventAuthorizer authorizer,
-        final Function<EventStorePartition, EventIterator> eventIteratorFactory, final EventTransformer transformer) throws IOException {
+    @Override
+    public Optional<List<Long>> getSummarizedEventIds(final SummaryField field, final Collection<String> values) throws IOException {
+        final List<Long> eventIds = new ArrayList<>();
+        for (final EventStorePartition partition : getPartitions()) {
+            final Optional<List<Long>> partitionEventIds = partition.getSummarizedEventIds(field, values);
+            if (!partitionEventIds.isPresent()) {
+                return Optional.empty();
+            }
 
-        if (maxRecords < 1) {
-            return Collections.emptyList();
+            eventIds.addAll(partitionEventIds.get());
         }
 
-        final List<ProvenanceEventRecord> selectedEvents = new ArrayList<>();
+        Collections.sort(eventIds);
+        return Optional.of(eventIds);
+    }
 
-        // Create a Map so that the key is the next record available from a partition and the value is the EventIterator from which
-        // the record came. This sorted map is then used so that we are able to always get the first entry, which is the next
-        // lowest record id among all partitions.
-        final SortedMap<ProvenanceEventRecord, EventIterator> recordToIteratorMap = new TreeMap<>(
-            (o1, o2) -> Long.compare(o1.getEventId(), o2.getEventId()));
+    @Override
+    public EventIterator getEventIterator(final long firstRecordId, final EventAuthorizer authorizer, final EventTransformer unauthorizedTransformer) {
+        return createMergingIterator(authorizer, part -> part.createEventIterator(firstRecordId), unauthorizedTransformer);
+    }
 
-        try {
-            // Seed our map with the first event in each Partition.
-            for (final EventStorePartition partition : getPartitions()) {
-                final EventAuthorizer nonNullAuthorizer = authorizer == null ? EventAuthorizer.GRANT_ALL : authorizer;
-                final EventIterator partitionIterator = eventIteratorFactory.apply(partition);
-                final EventIterator iterator = new AuthorizingEventIterator(partitionIterator, nonNullAuthorizer, transformer);
+    private EventIterator createMergingIterator(final EventAuthorizer authorizer, final Function<EventStorePartition, EventIterator> eventIteratorFactory,
+        final EventTransformer transformer) {
 
-                final Optional<ProvenanceEventRecord> option = iterator.nextEvent();
-                if (option.isPresent()) {
-                    recordToIteratorMap.put(option.get(), iterator);
-                }
-            }
+        final EventAuthorizer nonNullAuthorizer = authorizer == null ? EventAuthorizer.GRANT_ALL : authorizer;
+        final List<EventIterator> partitionIterators = new ArrayList<>();
+        for (final EventStorePartition partition : getPartitions()) {
+            final EventIterator partitionIterator = eventIteratorFactory.apply(partition);
+            partitionIterators.add(new AuthorizingEventIterator(partitionIterator, nonNullAuthorizer, transformer));
+        }
 
-            // If no records found, just return the empty list.
-            if (recordToIteratorMap.isEmpty()) {
-                return selectedEvents;
-            }
+        return new MergingEventIterator(partitionIterators);
+    }
 
-            // Get the event with the next-lowest ID. Add it to the list of selected events,
-            // then read the next event from the same EventIterator that this event came from.
-            // This ensures that our map is always populated with the next event for each
-            // EventIterator, which also ensures that the first key in our map is the event
-            // with the lowest ID (since all events from a given EventIterator have monotonically
-            // increasing Event ID's).
-            ProvenanceEventRecord nextEvent = recordToIteratorMap.firstKey();
-            while (nextEvent != null && selectedEvents.size() < maxRecords) {
-                selectedEvents.add(nextEvent);
-
-                final EventIterator iterator = recordToIteratorMap.remove(nextEvent);
-                final Optional<ProvenanceEventRecord> nextRecordFromIterator = iterator.nextEvent();
-                if (nextRecordFromIterator.isPresent()) {
-                    recordToIteratorMap.put(nextRecordFromIterator.get(), iterator);
-                }
+    private List<ProvenanceEventRecord> getEvents(final int maxRecords, final EventAuthorizer authorizer,
+        final Function<EventStorePartition, EventIterator> eventIteratorFactory, final EventTransformer transformer) throws IOException {
 
-                nextEvent = recordToIteratorMap.isEmpty() ? null : recordToIteratorMap.firstKey();
-            }
+        if (maxRecords < 1) {
+            return Collections.emptyList();
+        }
 
-            return selectedEvents;
-        } finally {
-            // Ensure that we close all record readers that have been created
-            for (final EventIterator iterator : recordToIteratorMap.values()) {
-                try {
-                    iterator.close();
-                } catch (final Exception e) {
-                    if (logger.isDebugEnabled()) {
-                        logger.warn("Failed to close Record Reader {}", iterator, e);
-                    } else {
-                        logger.warn("Failed to close Record Reader {}", iterator);
-                    }
+        final List<ProvenanceEventRecord> selectedEvents = new ArrayList<>();
+
+        // The merging iterator always returns the event with the next-lowest ID among all partitions.
+        try (final EventIterator iterator = createMergingIterator(authorizer, eventIteratorFactory, transformer)) {
+            Optional<ProvenanceEventRecord> nextEvent = iterator.nextEvent();
+            while (nextEvent.isPresent()) {
+                selectedEvents.add(nextEvent.get());
+                if (selectedEvents.size() >= maxRecords) {
+                    break;
                 }
+
+                nextEvent = iterator.nextEvent();
             }
         }
+
+        return selectedEvents;
     }
 
 
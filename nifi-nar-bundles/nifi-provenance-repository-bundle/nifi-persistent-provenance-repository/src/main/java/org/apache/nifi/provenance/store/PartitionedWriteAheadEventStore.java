@@ -17,18 +17,21 @@
 
 package org.apache.nifi.provenance.store;
 
-import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.provenance.RepositoryConfiguration;
 import org.apache.nifi.provenance.index.EventIndex;
 import org.apache.nifi.provenance.serialization.EventFileCompressor;
 import org.apache.nifi.provenance.store.iterator.AggregateEventIterator;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
+import org.apache.nifi.provenance.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
@@ -37,9 +40,14 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedWriteAheadEventStore.class);
+    private static final long PROGRESS_REPORT_SECONDS = 10L;
+
     private final BlockingQueue<File> filesToCompress;
     private final List<WriteAheadStorePartition> partitions;
     private final RepositoryConfiguration repoConfig;
@@ -49,6 +57,10 @@ public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
     private final EventReporter eventReporter;
     private final EventFileManager fileManager;
 
+    // guarded by itself
+    private final List<ExecutorService> reindexExecutors = new ArrayList<>();
+    private boolean closed = false;
+
     public PartitionedWriteAheadEventStore(final RepositoryConfiguration repoConfig, final RecordWriterFactory recordWriterFactory,
         final RecordReaderFactory recordReaderFactory, final EventReporter eventReporter, final EventFileManager fileManager) {
         super(repoConfig, eventReporter);
@@ -90,7 +102,7 @@ public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
     public void initialize() throws IOException {
         if (repoConfig.isCompressOnRollover()) {
             for (int i = 0; i < repoConfig.getIndexThreadPoolSize(); i++) {
-                final EventFileCompressor compressor = new EventFileCompressor(filesToCompress, fileManager);
+                final EventFileCompressor compressor = new EventFileCompressor(filesToCompress, fileManager, repoConfig.getCompressionCodec());
                 compressionExecutor.submit(compressor);
                 fileCompressors.add(compressor);
             }
@@ -101,6 +113,11 @@ public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
 
     @Override
     public void close() throws IOException {
+        synchronized (reindexExecutors) {
+            closed = true;
+            reindexExecutors.forEach(ExecutorService::shutdownNow);
+        }
+
         super.close();
 
         for (final EventFileCompressor compressor : fileCompressors) {
@@ -114,27 +131,83 @@ public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
 
     @Override
     public void reindexLatestEvents(final EventIndex eventIndex) {
-        final List<WriteAheadStorePartition> partitions = getPartitions();
-        final int numPartitions = partitions.size();
+        createReindexTask(eventIndex).run();
+    }
 
-        final List<Future<?>> futures = new ArrayList<>(numPartitions);
-        final ExecutorService executor = Executors.newFixedThreadPool(numPartitions);
+    @Override
+    public Runnable createReindexTask(final EventIndex eventIndex) {
+        // The range of each partition must be determined now. Once new events are added, the Event Index reflects them, so determining the
+        // range when the task is run would skip the events that were never indexed and re-index the new ones.
+        final Map<WriteAheadStorePartition, ReindexRange> ranges = new LinkedHashMap<>();
+        for (final WriteAheadStorePartition partition : getPartitions()) {
+            final ReindexRange range = partition.getReindexRange(eventIndex);
+            if (range != null) {
+                ranges.put(partition, range);
+            }
+        }
+
+        return () -> reindexEvents(eventIndex, ranges);
+    }
 
-        for (final WriteAheadStorePartition partition : partitions) {
-            futures.add(executor.submit(() -> partition.reindexLatestEvents(eventIndex)));
+    private void reindexEvents(final EventIndex eventIndex, final Map<WriteAheadStorePartition, ReindexRange> ranges) {
+        final int numPartitions = ranges.size();
+        if (numPartitions == 0) {
+            return;
         }
 
-        executor.shutdown();
-        for (final Future<?> future : futures) {
-            try {
-                future.get();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Failed to re-index events because Thread was interrupted", e);
-            } catch (ExecutionException e) {
-                throw new RuntimeException("Failed to re-index events", e);
+        // Each partition is re-indexed by its own thread, which submits the re-indexing of its event files to an executor that is shared
+        // by all partitions. This allows as many event files to be re-indexed concurrently as configured, regardless of how the events
+        // are spread across partitions.
+        final ExecutorService reindexExecutor;
+        final ExecutorService partitionExecutor;
+        synchronized (reindexExecutors) {
+            if (closed) {
+                logger.info("Event Store was closed before the latest events could be re-indexed");
+                return;
             }
+
+            reindexExecutor = Executors.newFixedThreadPool(repoConfig.getRecoveryThreadPoolSize(), new NamedThreadFactory("Re-Index Provenance Events", true));
+            partitionExecutor = Executors.newFixedThreadPool(numPartitions, new NamedThreadFactory("Re-Index Provenance Partition", true));
+            reindexExecutors.add(reindexExecutor);
+            reindexExecutors.add(partitionExecutor);
         }
+
+        final ReindexProgress progress = new ReindexProgress();
+        final List<Future<?>> futures = new ArrayList<>(numPartitions);
+
+        try {
+            for (final Map.Entry<WriteAheadStorePartition, ReindexRange> entry : ranges.entrySet()) {
+                final WriteAheadStorePartition partition = entry.getKey();
+                final ReindexRange range = entry.getValue();
+                futures.add(partitionExecutor.submit(() -> partition.reindexEvents(eventIndex, range, reindexExecutor, progress)));
+            }
+
+            for (final Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get(PROGRESS_REPORT_SECONDS, TimeUnit.SECONDS);
+                        break;
+                    } catch (final TimeoutException te) {
+                        logger.info("{} across {} partitions; re-indexing continues", progress, numPartitions);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("Failed to re-index events because Thread was interrupted", e);
+                    } catch (ExecutionException e) {
+                        throw new RuntimeException("Failed to re-index events", e);
+                    }
+                }
+            }
+        } finally {
+            partitionExecutor.shutdown();
+            reindexExecutor.shutdown();
+
+            synchronized (reindexExecutors) {
+                reindexExecutors.remove(partitionExecutor);
+                reindexExecutors.remove(reindexExecutor);
+            }
+        }
+
+        logger.info("{} across {} partitions using {} threads", progress, numPartitions, repoConfig.getRecoveryThreadPoolSize());
     }
 
     @Override
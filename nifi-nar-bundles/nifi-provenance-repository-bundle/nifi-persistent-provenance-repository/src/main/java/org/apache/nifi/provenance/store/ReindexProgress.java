@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the progress of re-indexing the latest events across all partitions of the Event Store, so that progress can be reported
+ * while the event files are re-indexed concurrently.
+ */
+class ReindexProgress {
+    private final AtomicInteger totalFileCount = new AtomicInteger(0);
+    private final AtomicInteger completedFileCount = new AtomicInteger(0);
+    private final AtomicLong reindexedEventCount = new AtomicLong(0L);
+
+    void addFilesToReindex(final int fileCount) {
+        totalFileCount.addAndGet(fileCount);
+    }
+
+    void fileCompleted() {
+        completedFileCount.incrementAndGet();
+    }
+
+    void eventsReindexed(final long eventCount) {
+        reindexedEventCount.addAndGet(eventCount);
+    }
+
+    int getTotalFileCount() {
+        return totalFileCount.get();
+    }
+
+    int getCompletedFileCount() {
+        return completedFileCount.get();
+    }
+
+    long getReindexedEventCount() {
+        return reindexedEventCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Re-indexed " + getReindexedEventCount() + " events from " + getCompletedFileCount() + " of " + getTotalFileCount() + " event files";
+    }
+}
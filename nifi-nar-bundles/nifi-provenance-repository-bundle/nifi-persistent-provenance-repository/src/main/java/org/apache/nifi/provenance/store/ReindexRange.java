@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * The events of a single partition that must be re-indexed. The range is fixed when it is created, so that events that are added to the
+ * partition afterward, and are indexed as they are added, are not re-indexed.
+ */
+class ReindexRange {
+    private final long minEventId;
+    private final long maxEventId;
+    private final List<File> eventFiles;
+
+    ReindexRange(final long minEventId, final long maxEventId, final List<File> eventFiles) {
+        this.minEventId = minEventId;
+        this.maxEventId = maxEventId;
+        this.eventFiles = eventFiles;
+    }
+
+    /**
+     * @return the ID of the first event to re-index
+     */
+    long getMinEventId() {
+        return minEventId;
+    }
+
+    /**
+     * @return the ID of the last event to re-index
+     */
+    long getMaxEventId() {
+        return maxEventId;
+    }
+
+    /**
+     * @return the event files that contain the events to re-index, with the smallest event ID's first
+     */
+    List<File> getEventFiles() {
+        return eventFiles;
+    }
+
+    @Override
+    public String toString() {
+        return "ReindexRange[minEventId=" + minEventId + ", maxEventId=" + maxEventId + ", eventFiles=" + eventFiles.size() + "]";
+    }
+}
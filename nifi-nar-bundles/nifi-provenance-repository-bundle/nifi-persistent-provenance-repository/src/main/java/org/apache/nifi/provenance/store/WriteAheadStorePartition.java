@@ -23,12 +23,17 @@ import org.apache.nifi.provenance.RepositoryConfiguration;
 import org.apache.nifi.provenance.StandardProvenanceEventRecord;
 import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.index.EventIndex;
+import org.apache.nifi.provenance.serialization.CompressionCodec;
 import org.apache.nifi.provenance.serialization.RecordReader;
 import org.apache.nifi.provenance.serialization.RecordWriter;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
 import org.apache.nifi.provenance.store.iterator.SelectiveRecordReaderEventIterator;
 import org.apache.nifi.provenance.store.iterator.SequentialRecordReaderEventIterator;
+import org.apache.nifi.provenance.summary.SummaryField;
+import org.apache.nifi.provenance.summary.SummaryIndexReader;
+import org.apache.nifi.provenance.summary.SummaryIndexWriter;
+import org.apache.nifi.provenance.summary.SummaryUtil;
 import org.apache.nifi.provenance.toc.TocUtil;
 import org.apache.nifi.provenance.util.DirectoryUtils;
 import org.apache.nifi.provenance.util.NamedThreadFactory;
@@ -43,6 +48,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -52,6 +58,8 @@ import java.util.Optional;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -80,6 +88,9 @@ public class WriteAheadStorePartition implements EventStorePartition {
 
     private final SortedMap<Long, File> minEventIdToPathMap = new TreeMap<>();  // guarded by synchronizing on object
 
+    // Summary Indices of the Event Files that are still being written to. Once an Event File is rolled over, its Summary Index is written to disk.
+    private final ConcurrentMap<File, SummaryIndexWriter> summaryIndexWriters = new ConcurrentHashMap<>();
+
     public WriteAheadStorePartition(final File storageDirectory, final String partitionName, final RepositoryConfiguration repoConfig, final RecordWriterFactory recordWriterFactory,
                                     final RecordReaderFactory recordReaderFactory, final BlockingQueue<File> filesToCompress, final AtomicLong idGenerator, final EventReporter eventReporter,
                                     final EventFileManager eventFileManager) {
@@ -145,6 +156,10 @@ public class WriteAheadStorePartition implements EventStorePartition {
 
         this.maxEventId.set(maxEventId);
 
+        if (config.isSummaryIndexEnabled()) {
+            summarizeEventFiles(fileList);
+        }
+
         // If configured to compress, compress any files that are not yet compressed.
         if (config.isCompressOnRollover()) {
             final File[] uncompressedFiles = partitionDirectory.listFiles(f -> f.getName().endsWith(".prov"));
@@ -152,10 +167,12 @@ public class WriteAheadStorePartition implements EventStorePartition {
                 for (final File file : uncompressedFiles) {
                     // If we have both a compressed file and an uncompressed file for the same .prov file, then
                     // we must have been in the process of compressing it when NiFi was restarted. Delete the partial
-                    // .gz file and we will start compressing it again.
-                    final File compressed = new File(file.getParentFile(), file.getName() + ".gz");
-                    if (compressed.exists()) {
-                        compressed.delete();
+                    // compressed file and we will start compressing it again.
+                    for (final CompressionCodec codec : CompressionCodec.values()) {
+                        final File compressed = codec.getCompressedFile(file);
+                        if (codec.isCompressed() && compressed.exists()) {
+                            compressed.delete();
+                        }
                     }
                 }
             }
@@ -260,10 +277,20 @@ public class WriteAheadStorePartition implements EventStorePartition {
         final RecordWriter updatedWriter = recordWriterFactory.createWriter(updatedEventFile, idGenerator, false, true);
         updatedWriter.writeHeader(nextEventId);
 
+        // Register the Summary Index before the lease is made available so that no event is written to the Event File without being summarized
+        final SummaryIndexWriter summaryIndexWriter = config.isSummaryIndexEnabled() ? new SummaryIndexWriter() : null;
+        if (summaryIndexWriter != null) {
+            summaryIndexWriters.put(updatedEventFile, summaryIndexWriter);
+        }
+
         final RecordWriterLease updatedLease = new RecordWriterLease(updatedWriter, config.getMaxEventFileCapacity(), config.getMaxEventFileCount(), config.getMaxEventFileLife(TimeUnit.MILLISECONDS));
         final boolean updated = eventWriterLeaseRef.compareAndSet(lease, updatedLease);
 
         if (!updated) {
+            if (summaryIndexWriter != null) {
+                summaryIndexWriters.remove(updatedEventFile, summaryIndexWriter);
+            }
+
             try {
                 updatedWriter.close();
             } catch (final Exception e) {
@@ -276,6 +303,11 @@ public class WriteAheadStorePartition implements EventStorePartition {
 
         if (lease != null) {
             lease.close();
+
+            // A lease is only rolled over once no thread holds a claim on it, so no more events will be written to its Event File
+            if (lease.getWriter() != null) {
+                writeSummaryIndex(lease.getWriter().getFile());
+            }
         }
 
         synchronized (minEventIdToPathMap) {
@@ -299,6 +331,7 @@ public class WriteAheadStorePartition implements EventStorePartition {
 
     private Map<ProvenanceEventRecord, StorageSummary> addEvents(final Iterable<ProvenanceEventRecord> events, final RecordWriter writer) throws IOException {
         final Map<ProvenanceEventRecord, StorageSummary> locationMap = new HashMap<>();
+        final SummaryIndexWriter summaryIndexWriter = summaryIndexWriters.get(writer.getFile());
 
         try {
             long maxId = -1L;
@@ -309,6 +342,10 @@ public class WriteAheadStorePartition implements EventStorePartition {
                     writerSummary.getBlockIndex(), writerSummary.getSerializedLength(), writerSummary.getBytesWritten());
                 locationMap.put(nextEvent, summaryWithIndex);
                 maxId = summaryWithIndex.getEventId();
+
+                if (summaryIndexWriter != null) {
+                    summaryIndexWriter.addEvent(nextEvent, maxId);
+                }
                 numEvents++;
             }
 
@@ -471,6 +508,125 @@ public class WriteAheadStorePartition implements EventStorePartition {
     }
 
 
+    @Override
+    public Optional<List<Long>> getSummarizedEventIds(final SummaryField field, final Collection<String> values) throws IOException {
+        if (!config.isSummaryIndexEnabled()) {
+            return Optional.empty();
+        }
+
+        final List<File> eventFiles;
+        synchronized (minEventIdToPathMap) {
+            eventFiles = new ArrayList<>(minEventIdToPathMap.values());
+        }
+
+        // Event Files are ordered by their minimum Event ID, so appending the ID's from each file keeps the list in ascending order
+        final List<Long> eventIds = new ArrayList<>();
+        for (final File eventFile : eventFiles) {
+            final SummaryIndexWriter summaryIndexWriter = summaryIndexWriters.get(eventFile);
+            if (summaryIndexWriter != null) {
+                eventIds.addAll(summaryIndexWriter.getEventIds(field, values));
+                continue;
+            }
+
+            final File summaryFile = SummaryUtil.getSummaryFile(eventFile);
+            try {
+                eventIds.addAll(new SummaryIndexReader(summaryFile).getEventIds(field, values));
+            } catch (final FileNotFoundException fnfe) {
+                if (isEventFileRetained(eventFile)) {
+                    logger.debug("{} has no Summary Index for Event File {} yet, so the Summary Index cannot be used", this, eventFile);
+                    return Optional.empty();
+                }
+
+                // The Event File was aged off after we obtained the list of files
+            }
+        }
+
+        return Optional.of(eventIds);
+    }
+
+    private boolean isEventFileRetained(final File eventFile) {
+        synchronized (minEventIdToPathMap) {
+            return minEventIdToPathMap.containsValue(eventFile);
+        }
+    }
+
+    private void writeSummaryIndex(final File eventFile) {
+        final SummaryIndexWriter summaryIndexWriter = summaryIndexWriters.get(eventFile);
+        if (summaryIndexWriter == null) {
+            return;
+        }
+
+        final File summaryFile = SummaryUtil.getSummaryFile(eventFile);
+        try {
+            summaryIndexWriter.writeTo(summaryFile);
+            logger.debug("Wrote Summary Index of {} events to {}", summaryIndexWriter.getEventCount(), summaryFile);
+        } catch (final IOException ioe) {
+            logger.warn("Failed to write Summary Index {} for Event File {}; the Summary Index will be rebuilt when NiFi is restarted", summaryFile, eventFile, ioe);
+        }
+
+        summaryIndexWriters.remove(eventFile, summaryIndexWriter);
+    }
+
+    /**
+     * Builds the Summary Index of any of the given Event Files that do not have one, such as the Event File that was being written to when NiFi
+     * was last stopped, or all Event Files if the Summary Index was only just enabled. Until this completes, the Summary Index will not be used
+     * to search the partition.
+     *
+     * @param eventFiles the Event Files of the partition
+     */
+    private void summarizeEventFiles(final List<File> eventFiles) {
+        final List<File> unsummarizedFiles = eventFiles.stream()
+            .filter(file -> !SummaryUtil.getSummaryFile(file).exists())
+            .sorted(DirectoryUtils.LARGEST_ID_FIRST)
+            .collect(Collectors.toList());
+
+        if (unsummarizedFiles.isEmpty()) {
+            return;
+        }
+
+        logger.info("{} Event Files in {} have no Summary Index; will build the Summary Indices in the background", unsummarizedFiles.size(), partitionDirectory);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("Build Provenance Summary Index", true));
+        executor.submit(() -> {
+            final long start = System.nanoTime();
+            for (final File eventFile : unsummarizedFiles) {
+                if (closed) {
+                    return;
+                }
+
+                final SummaryIndexWriter summaryIndexWriter = new SummaryIndexWriter();
+                try (final RecordReader reader = recordReaderFactory.newRecordReader(eventFile, Collections.emptyList(), config.getMaxAttributeChars())) {
+                    StandardProvenanceEventRecord event;
+                    while ((event = reader.nextRecord()) != null) {
+                        summaryIndexWriter.addEvent(event, event.getEventId());
+                    }
+                } catch (final EOFException eof) {
+                    // The Event File ends with an incomplete event, because NiFi was stopped while the event was being written
+                    logger.debug("Event File {} ended unexpectedly while building its Summary Index", eventFile, eof);
+                } catch (final Exception e) {
+                    // The events that could not be read cannot be retrieved from the Event File either, so summarize the events that could be read
+                    logger.warn("Failed to read all events from Event File {}; its Summary Index will include only the events that could be read", eventFile, e);
+                }
+
+                final File summaryFile = SummaryUtil.getSummaryFile(eventFile);
+                try {
+                    summaryIndexWriter.writeTo(summaryFile);
+                } catch (final IOException ioe) {
+                    logger.warn("Failed to write Summary Index {} for Event File {}", summaryFile, eventFile, ioe);
+                }
+
+                // If the Event File was aged off while it was being summarized, do not leave its Summary Index behind
+                if (!isEventFileRetained(eventFile)) {
+                    summaryFile.delete();
+                }
+            }
+
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            logger.info("Finished building the Summary Index of {} Event Files for {} in {} millis", unsummarizedFiles.size(), partitionDirectory, millis);
+        });
+        executor.shutdown();
+    }
+
     @Override
     public void purgeOldEvents(final long olderThan, final TimeUnit unit) {
         final long timeCutoff = System.currentTimeMillis() - unit.toMillis(olderThan);
@@ -550,16 +706,35 @@ public class WriteAheadStorePartition implements EventStorePartition {
                 logger.warn("Failed to remove Provenance Table-of-Contents file {}; this file should be cleaned up manually", tocFile);
             }
 
+            final File summaryFile = SummaryUtil.getSummaryFile(file);
+            if (summaryFile.exists() && !summaryFile.delete()) {
+                logger.warn("Failed to remove Provenance Summary Index file {}; this file should be cleaned up manually", summaryFile);
+            }
+
             return true;
         } finally {
             eventFileManager.releaseWriteLock(file);
         }
     }
 
-    void reindexLatestEvents(final EventIndex eventIndex) {
+    void reindexLatestEvents(final EventIndex eventIndex, final ExecutorService executor, final ReindexProgress progress) {
+        final ReindexRange range = getReindexRange(eventIndex);
+        if (range != null) {
+            reindexEvents(eventIndex, range, executor, progress);
+        }
+    }
+
+    /**
+     * Determines which of the events that have been written to this partition must be re-indexed. Events that are written after this
+     * method returns are not part of the range, so the range may be re-indexed while new events are written and indexed.
+     *
+     * @param eventIndex the Event Index that the events are to be re-indexed into
+     * @return the events to re-index, or <code>null</code> if the partition contains no events
+     */
+    ReindexRange getReindexRange(final EventIndex eventIndex) {
         final List<File> eventFiles = getEventFilesFromDisk().sorted(DirectoryUtils.SMALLEST_ID_FIRST).collect(Collectors.toList());
         if (eventFiles.isEmpty()) {
-            return;
+            return null;
         }
 
         final long minEventIdToReindex = eventIndex.getMinimumEventIdToReindex(partitionName);
@@ -582,9 +757,25 @@ public class WriteAheadStorePartition implements EventStorePartition {
         }
 
         // Create a subList that contains the files of interest
-        final List<File> eventFilesToReindex = eventFiles.subList(firstEventFileIndex, eventFiles.size());
+        return new ReindexRange(minEventIdToReindex, maxEventId, new ArrayList<>(eventFiles.subList(firstEventFileIndex, eventFiles.size())));
+    }
 
-        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(4, eventFilesToReindex.size()), new NamedThreadFactory("Re-Index Provenance Events", true));
+    /**
+     * Re-indexes the given range of events, using the given executor to re-index the event files concurrently
+     *
+     * @param eventIndex the Event Index to re-index the events into
+     * @param range the events to re-index, as determined by {@link #getReindexRange(EventIndex)}
+     * @param executor the executor to re-index the event files with
+     * @param progress the progress of re-indexing, to update as events are re-indexed
+     */
+    void reindexEvents(final EventIndex eventIndex, final ReindexRange range, final ExecutorService executor, final ReindexProgress progress) {
+        final long minEventIdToReindex = range.getMinEventId();
+        final long maxEventId = range.getMaxEventId();
+        final List<File> eventFilesToReindex = range.getEventFiles();
+
+        progress.addFilesToReindex(eventFilesToReindex.size());
+
+        // The executor is shared by all partitions, so that the event files of all partitions are re-indexed concurrently
         final List<Future<?>> futures = new ArrayList<>(eventFilesToReindex.size());
         final AtomicLong reindexedCount = new AtomicLong(0L);
 
@@ -620,9 +811,12 @@ public class WriteAheadStorePartition implements EventStorePartition {
                             final long startBytesConsumed = recordReader.getBytesConsumed();
 
                             event = recordReader.nextRecord();
-                            if (event == null) {
+
+                            // Events after the end of the range were written after re-indexing was started, so they have already been indexed
+                            if (event == null || event.getEventId() > maxEventId) {
                                 eventIndex.reindexEvents(storageMap);
                                 reindexedCount.addAndGet(storageMap.size());
+                                progress.eventsReindexed(storageMap.size());
                                 storageMap.clear();
                                 break; // stop reading from this file
                             } else {
@@ -632,6 +826,7 @@ public class WriteAheadStorePartition implements EventStorePartition {
                                 if (storageMap.size() == 1000) {
                                     eventIndex.reindexEvents(storageMap);
                                     reindexedCount.addAndGet(storageMap.size());
+                                    progress.eventsReindexed(storageMap.size());
                                     storageMap.clear();
                                 }
                             }
@@ -641,6 +836,8 @@ public class WriteAheadStorePartition implements EventStorePartition {
                         logger.warn("Failed to find event with ID {} in Event File {} due to {}", minEventIdToReindex, eventFile, eof.toString());
                     } catch (final Exception e) {
                         logger.error("Failed to index Provenance Events found in {}", eventFile, e);
+                    } finally {
+                        progress.fileCompleted();
                     }
                 }
             };
@@ -666,8 +863,6 @@ public class WriteAheadStorePartition implements EventStorePartition {
             logger.error("Failed to re-index Provenance Events for partition " + partitionName, e);
         }
 
-        executor.shutdown();
-
         final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
         final long seconds = millis / 1000L;
         final long millisRemainder = millis % 1000L;
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.iterator;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Merges several EventIterators, each of which returns events in order of Event ID, into a single EventIterator that returns
+ * the events of all of them in order of Event ID. Only the next event of each EventIterator is held in memory, so the events
+ * are read lazily, as they are consumed.
+ */
+public class MergingEventIterator implements EventIterator {
+    private static final Logger logger = LoggerFactory.getLogger(MergingEventIterator.class);
+
+    private final List<EventIterator> eventIterators;
+
+    // The key is the next event available from an EventIterator and the value is the EventIterator from which the event came.
+    // Because the map is sorted, the first key is always the event with the lowest ID among all of the EventIterators.
+    private final SortedMap<ProvenanceEventRecord, EventIterator> eventToIteratorMap = new TreeMap<>(
+        (o1, o2) -> Long.compare(o1.getEventId(), o2.getEventId()));
+    private boolean seeded = false;
+
+    public MergingEventIterator(final List<EventIterator> eventIterators) {
+        this.eventIterators = eventIterators;
+    }
+
+    @Override
+    public Optional<ProvenanceEventRecord> nextEvent() throws IOException {
+        if (!seeded) {
+            for (final EventIterator iterator : eventIterators) {
+                addNextEvent(iterator);
+            }
+
+            seeded = true;
+        }
+
+        if (eventToIteratorMap.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Remove the event with the lowest ID and replace it with the next event from the same EventIterator. Because each
+        // EventIterator returns events with monotonically increasing ID's, the map always holds the next event overall.
+        final ProvenanceEventRecord nextEvent = eventToIteratorMap.firstKey();
+        final EventIterator iterator = eventToIteratorMap.remove(nextEvent);
+        addNextEvent(iterator);
+
+        return Optional.of(nextEvent);
+    }
+
+    private void addNextEvent(final EventIterator iterator) throws IOException {
+        final Optional<ProvenanceEventRecord> option = iterator.nextEvent();
+        if (option.isPresent()) {
+            eventToIteratorMap.put(option.get(), iterator);
+        }
+    }
+
+    @Override
+    public void close() {
+        // Close any iterator that has not been exhausted, so that its Record Reader is closed
+        final List<EventIterator> toClose = seeded ? new ArrayList<>(eventToIteratorMap.values()) : eventIterators;
+        for (final EventIterator iterator : toClose) {
+            try {
+                iterator.close();
+            } catch (final Exception e) {
+                if (logger.isDebugEnabled()) {
+                    logger.warn("Failed to close Record Reader {}", iterator, e);
+                } else {
+                    logger.warn("Failed to close Record Reader {}", iterator);
+                }
+            }
+        }
+
+        eventToIteratorMap.clear();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.summary;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.SearchableFields;
+import org.apache.nifi.provenance.search.SearchableField;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The fields of a Provenance Event that are held by the Summary Index. Each field maps the values that an event has for that field to the
+ * ID of the event. Values are held in lower case, as they are in the Lucene index, so that the same search terms match both indices.
+ */
+public enum SummaryField {
+    /**
+     * The UUID of the FlowFile that the event is about. As in the Lucene index, the event is also mapped to the UUIDs of the children
+     * of a FORK, CLONE or REPLAY event, the parents of a JOIN event and the FlowFile UUID of the source system of a RECEIVE event,
+     * so that the lineage of a FlowFile can be computed from the events that are mapped to its UUID.
+     */
+    FLOWFILE_UUID(1, SearchableFields.FlowFileUUID) {
+        @Override
+        public Collection<String> getValues(final ProvenanceEventRecord event) {
+            final Set<String> values = new LinkedHashSet<>();
+            addValue(values, event.getFlowFileUuid());
+
+            final ProvenanceEventType eventType = event.getEventType();
+            if (eventType == ProvenanceEventType.FORK || eventType == ProvenanceEventType.CLONE || eventType == ProvenanceEventType.REPLAY) {
+                for (final String uuid : event.getChildUuids()) {
+                    addValue(values, uuid);
+                }
+            } else if (eventType == ProvenanceEventType.JOIN) {
+                for (final String uuid : event.getParentUuids()) {
+                    addValue(values, uuid);
+                }
+            } else if (eventType == ProvenanceEventType.RECEIVE && event.getSourceSystemFlowFileIdentifier() != null) {
+                final String sourceIdentifier = event.getSourceSystemFlowFileIdentifier();
+                final int lastColon = sourceIdentifier.lastIndexOf(":");
+                if (lastColon > -1 && lastColon < sourceIdentifier.length() - 2) {
+                    addValue(values, sourceIdentifier.substring(lastColon + 1));
+                }
+            }
+
+            return values;
+        }
+    },
+
+    /**
+     * The ID of the component that generated the event
+     */
+    COMPONENT_ID(2, SearchableFields.ComponentID) {
+        @Override
+        public Collection<String> getValues(final ProvenanceEventRecord event) {
+            final String componentId = event.getComponentId();
+            return componentId == null ? Collections.emptySet() : Collections.singleton(normalize(componentId));
+        }
+    };
+
+    private final int id;
+    private final SearchableField searchableField;
+
+    SummaryField(final int id, final SearchableField searchableField) {
+        this.id = id;
+        this.searchableField = searchableField;
+    }
+
+    /**
+     * @param event the event
+     * @return the normalized values that the given event has for this field
+     */
+    public abstract Collection<String> getValues(ProvenanceEventRecord event);
+
+    /**
+     * @return the identifier of the field, as persisted in Summary Index files
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the Searchable Field that is used to search for events by this field
+     */
+    public SearchableField getSearchableField() {
+        return searchableField;
+    }
+
+    private static void addValue(final Set<String> values, final String value) {
+        if (value != null) {
+            values.add(normalize(value));
+        }
+    }
+
+    /**
+     * Normalizes a value of a field, or a search term for a field, in the same way that the Lucene index does
+     *
+     * @param value the value to normalize
+     * @return the normalized value
+     */
+    public static String normalize(final String value) {
+        return value.toLowerCase();
+    }
+
+    public static SummaryField fromId(final int id) {
+        for (final SummaryField field : values()) {
+            if (field.id == id) {
+                return field;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown Summary Field " + id);
+    }
+
+    /**
+     * @param searchableField a Searchable Field
+     * @return the Summary Field that holds the given Searchable Field, or <code>null</code> if the field is not held by the Summary Index
+     */
+    public static SummaryField fromSearchableField(final SearchableField searchableField) {
+        for (final SummaryField field : values()) {
+            if (field.searchableField.getSearchableFieldName().equals(searchableField.getSearchableFieldName())) {
+                return field;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.summary;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Reads the event ID's that match a set of values from a Summary Index file that was written by a {@link SummaryIndexWriter}. Because the
+ * values of each field are sorted, the reader walks the values of the field that is searched and the values being searched for together,
+ * skipping over the event ID's of any value that is not of interest and stopping as soon as all of the values being searched for have been passed.
+ */
+public class SummaryIndexReader {
+    static final int CURRENT_ENCODING_VERSION = 1;
+
+    private final File file;
+
+    public SummaryIndexReader(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the ID's of the events that have any of the given values for the given field
+     *
+     * @param field the field to search
+     * @param values the normalized values to search for
+     * @return the ID's of the matching events, in ascending order
+     * @throws IOException if unable to read the Summary Index
+     */
+    public List<Long> getEventIds(final SummaryField field, final Collection<String> values) throws IOException {
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<Long> eventIds = new ArrayList<>();
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            final int version = in.readInt();
+            if (version > CURRENT_ENCODING_VERSION) {
+                throw new IOException("Summary Index " + file + " has an encoding version of " + version + " but this version of NiFi only supports version "
+                    + CURRENT_ENCODING_VERSION + " or lower");
+            }
+
+            final int fieldCount = in.readInt();
+            for (int i = 0; i < fieldCount; i++) {
+                final int fieldId = in.readInt();
+                final int sectionLength = in.readInt();
+                if (fieldId != field.getId()) {
+                    skipFully(in, sectionLength);
+                    continue;
+                }
+
+                readSection(in, new TreeSet<>(values), eventIds);
+                break;
+            }
+        }
+
+        if (values.size() > 1) {
+            Collections.sort(eventIds);
+        }
+        return eventIds;
+    }
+
+    private void readSection(final DataInputStream in, final TreeSet<String> sortedValues, final List<Long> eventIds) throws IOException {
+        final Iterator<String> valueItr = sortedValues.iterator();
+        String desiredValue = valueItr.next();
+
+        final int valueCount = in.readInt();
+        for (int i = 0; i < valueCount; i++) {
+            final String value = in.readUTF();
+            final int idCount = in.readInt();
+            final int idLength = in.readInt();
+
+            int comparison = value.compareTo(desiredValue);
+            while (comparison > 0) {
+                if (!valueItr.hasNext()) {
+                    return;
+                }
+
+                desiredValue = valueItr.next();
+                comparison = value.compareTo(desiredValue);
+            }
+
+            if (comparison < 0) {
+                skipFully(in, idLength);
+                continue;
+            }
+
+            long eventId = in.readLong();
+            eventIds.add(eventId);
+            for (int j = 1; j < idCount; j++) {
+                eventId += readVarLong(in);
+                eventIds.add(eventId);
+            }
+        }
+    }
+
+    private static void skipFully(final DataInputStream in, final int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            final int skipped = in.skipBytes(remaining);
+            if (skipped < 1) {
+                throw new EOFException("Summary Index ended unexpectedly");
+            }
+            remaining -= skipped;
+        }
+    }
+
+    static long readVarLong(final DataInputStream in) throws IOException {
+        long value = 0L;
+        int shift = 0;
+        while (true) {
+            final int nextByte = in.readUnsignedByte();
+            value |= (long) (nextByte & 0x7F) << shift;
+            if ((nextByte & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SummaryIndexReader[" + file + "]";
+    }
+}
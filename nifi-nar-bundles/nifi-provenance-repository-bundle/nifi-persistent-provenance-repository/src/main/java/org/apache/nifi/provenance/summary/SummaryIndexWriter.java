@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.summary;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * Collects the Summary Index of an Event File while events are being written to it and persists the Summary Index once the Event File
+ * has been rolled over. Until then, the events that have been collected can be looked up from memory. This class is thread-safe.
+ * </p>
+ *
+ * <p>
+ * The Summary Index file is made up of a header, which is the version of the format followed by the number of fields, and then one
+ * section per {@link SummaryField field}. A section consists of the field's identifier, the length of the rest of the section in bytes
+ * and the number of values, followed by the values in sorted order. Each value is followed by the number of events that have the value,
+ * the length of the event ID's in bytes and then the event ID's themselves in ascending order. The first ID is written in full and each
+ * following ID as the variable-length difference from the ID before it. The lengths allow a reader to skip the sections and values that
+ * it is not interested in.
+ * </p>
+ */
+public class SummaryIndexWriter {
+    // values are written as modified UTF-8, which may take up to 3 bytes per character and is limited to 65535 bytes
+    private static final int MAX_VALUE_LENGTH = 65535 / 3;
+
+    private final Map<SummaryField, Map<String, EventIdList>> fieldValues = new EnumMap<>(SummaryField.class);
+    private int eventCount = 0;
+
+    public SummaryIndexWriter() {
+        for (final SummaryField field : SummaryField.values()) {
+            fieldValues.put(field, new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds the given event to the Summary Index. Events that are written to the same Event File concurrently may be added slightly out of order.
+     *
+     * @param event the event to add
+     * @param eventId the ID of the event
+     */
+    public synchronized void addEvent(final ProvenanceEventRecord event, final long eventId) {
+        for (final Map.Entry<SummaryField, Map<String, EventIdList>> entry : fieldValues.entrySet()) {
+            for (final String value : entry.getKey().getValues(event)) {
+                if (value.length() > MAX_VALUE_LENGTH) {
+                    continue;
+                }
+
+                entry.getValue().computeIfAbsent(value, key -> new EventIdList()).add(eventId);
+            }
+        }
+
+        eventCount++;
+    }
+
+    /**
+     * @return the number of events that have been added to the Summary Index
+     */
+    public synchronized int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Returns the ID's of the events that have been added to the Summary Index and that have any of the given values for the given field
+     *
+     * @param field the field to search
+     * @param values the normalized values to search for
+     * @return the ID's of the matching events, in ascending order
+     */
+    public synchronized List<Long> getEventIds(final SummaryField field, final Collection<String> values) {
+        final Map<String, EventIdList> eventIdsByValue = fieldValues.get(field);
+
+        final List<Long> eventIds = new ArrayList<>();
+        for (final String value : values) {
+            final EventIdList ids = eventIdsByValue.get(value);
+            if (ids != null) {
+                ids.addTo(eventIds);
+            }
+        }
+
+        Collections.sort(eventIds);
+        return eventIds;
+    }
+
+    /**
+     * Writes the Summary Index to the given file. The Summary Index is first written to a temporary file that is then renamed, so that the
+     * given file never holds a partially written Summary Index.
+     *
+     * @param summaryFile the file to write to
+     * @throws IOException if unable to write the file
+     */
+    public synchronized void writeTo(final File summaryFile) throws IOException {
+        final File summaryDir = summaryFile.getParentFile();
+        if (!summaryDir.exists()) {
+            Files.createDirectories(summaryDir.toPath());
+        }
+
+        final File tempFile = new File(summaryDir, summaryFile.getName() + ".tmp");
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(SummaryIndexReader.CURRENT_ENCODING_VERSION);
+            out.writeInt(fieldValues.size());
+
+            for (final Map.Entry<SummaryField, Map<String, EventIdList>> entry : fieldValues.entrySet()) {
+                writeSection(entry.getKey(), new TreeMap<>(entry.getValue()), out);
+            }
+        }
+
+        Files.move(tempFile.toPath(), summaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeSection(final SummaryField field, final Map<String, EventIdList> sortedValues, final DataOutputStream out) throws IOException {
+        final ByteArrayOutputStream sectionBytes = new ByteArrayOutputStream();
+        final DataOutputStream sectionOut = new DataOutputStream(sectionBytes);
+        final ByteArrayOutputStream idBytes = new ByteArrayOutputStream();
+        final DataOutputStream idOut = new DataOutputStream(idBytes);
+
+        sectionOut.writeInt(sortedValues.size());
+        for (final Map.Entry<String, EventIdList> entry : sortedValues.entrySet()) {
+            final EventIdList ids = entry.getValue();
+
+            idBytes.reset();
+            ids.writeTo(idOut);
+
+            sectionOut.writeUTF(entry.getKey());
+            sectionOut.writeInt(ids.size);
+            sectionOut.writeInt(idBytes.size());
+            idBytes.writeTo(sectionOut);
+        }
+
+        out.writeInt(field.getId());
+        out.writeInt(sectionBytes.size());
+        sectionBytes.writeTo(out);
+    }
+
+    static void writeVarLong(final long value, final DataOutputStream out) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            out.writeByte((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.writeByte((int) remaining);
+    }
+
+    /**
+     * A growable list of event ID's that avoids boxing each ID, since an Event File may hold hundreds of thousands of events
+     */
+    private static class EventIdList {
+        private long[] ids = new long[4];
+        private int size = 0;
+
+        void add(final long eventId) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = eventId;
+        }
+
+        void addTo(final List<Long> eventIds) {
+            for (int i = 0; i < size; i++) {
+                eventIds.add(ids[i]);
+            }
+        }
+
+        void writeTo(final DataOutputStream out) throws IOException {
+            Arrays.sort(ids, 0, size);
+
+            out.writeLong(ids[0]);
+            for (int i = 1; i < size; i++) {
+                writeVarLong(ids[i] - ids[i - 1], out);
+            }
+        }
+    }
+}
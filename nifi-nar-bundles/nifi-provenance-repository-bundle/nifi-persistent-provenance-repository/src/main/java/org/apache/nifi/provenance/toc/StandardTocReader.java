@@ -16,6 +16,7 @@
  */
 package org.apache.nifi.provenance.toc;
 
+import org.apache.nifi.provenance.serialization.CompressionCodec;
 import org.apache.nifi.stream.io.StreamUtils;
 
 import java.io.EOFException;
@@ -30,14 +31,14 @@ import java.io.IOException;
  * Expects .toc file to be in the following format;
  *
  * byte 0: version
- * byte 1: boolean: compressionFlag -> 0 = journal is NOT compressed, 1 = journal is compressed
+ * byte 1: compressionFlag -> 0 = journal is NOT compressed, otherwise the id of the {@link CompressionCodec} that the journal is compressed with
  * byte 2-9: long: offset of block 0
  * byte 10-17: long: offset of block 1
  * ...
  * byte (N*8+2)-(N*8+9): long: offset of block N
  */
 public class StandardTocReader implements TocReader {
-    private final boolean compressed;
+    private final CompressionCodec compressionCodec;
     private final long[] offsets;
     private final long[] firstEventIds;
     private final File file;
@@ -60,13 +61,11 @@ public class StandardTocReader implements TocReader {
             final int version = buffer[0];
             final int compressionFlag = buffer[1];
 
-            if ( compressionFlag == 0 ) {
-                compressed = false;
-            } else if ( compressionFlag == 1 ) {
-                compressed = true;
-            } else {
+            try {
+                compressionCodec = CompressionCodec.fromId(compressionFlag);
+            } catch (final IllegalArgumentException iae) {
                 throw new IOException("Table of Contents file " + file + " appears to be corrupt: could not read 'compression flag' from header; "
-                    + "expected value of 0 or 1 but got " + compressionFlag);
+                    + "expected the id of a compression codec but got " + compressionFlag);
             }
 
             final int blockInfoBytes;
@@ -115,7 +114,12 @@ public class StandardTocReader implements TocReader {
 
     @Override
     public boolean isCompressed() {
-        return compressed;
+        return compressionCodec.isCompressed();
+    }
+
+    @Override
+    public CompressionCodec getCompressionCodec() {
+        return compressionCodec;
     }
 
     @Override
@@ -191,6 +195,6 @@ public class StandardTocReader implements TocReader {
 
     @Override
     public String toString() {
-        return "StandardTocReader[file=" + file + ", compressed=" + compressed + "]";
+        return "StandardTocReader[file=" + file + ", compressionCodec=" + compressionCodec + "]";
     }
 }
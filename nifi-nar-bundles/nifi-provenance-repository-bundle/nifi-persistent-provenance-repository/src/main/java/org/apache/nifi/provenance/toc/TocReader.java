@@ -19,6 +19,8 @@ package org.apache.nifi.provenance.toc;
 import java.io.Closeable;
 import java.io.File;
 
+import org.apache.nifi.provenance.serialization.CompressionCodec;
+
 /**
  * <p>
  * Reads a Table of Contents (.toc file) for a corresponding Journal File. We use a Table of Contents
@@ -37,6 +39,11 @@ public interface TocReader extends Closeable {
      */
     boolean isCompressed();
 
+    /**
+     * @return the codec that the corresponding Journal file is compressed with, or {@link CompressionCodec#NONE} if it is not compressed
+     */
+    CompressionCodec getCompressionCodec();
+
     /**
      * @return the file that holds the TOC information
      */
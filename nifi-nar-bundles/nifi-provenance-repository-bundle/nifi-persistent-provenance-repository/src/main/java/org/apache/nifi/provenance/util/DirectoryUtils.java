@@ -23,16 +23,28 @@ import java.util.Comparator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.nifi.provenance.serialization.CompressionCodec;
+
 public class DirectoryUtils {
     public static final Pattern INDEX_DIRECTORY_NAME_PATTERN = Pattern.compile("(?:lucene-\\d+-)?index-(.*)");
     public static final FileFilter INDEX_FILE_FILTER = f -> INDEX_DIRECTORY_NAME_PATTERN.matcher(f.getName()).matches();
-    public static final FileFilter EVENT_FILE_FILTER = f -> f.getName().endsWith(".prov") || f.getName().endsWith(".prov.gz");
+    public static final FileFilter EVENT_FILE_FILTER = f -> isEventFile(f.getName());
     public static final Comparator<File> SMALLEST_ID_FIRST = (a, b) -> Long.compare(getMinId(a), getMinId(b));
     public static final Comparator<File> LARGEST_ID_FIRST = SMALLEST_ID_FIRST.reversed();
     public static final Comparator<File> OLDEST_INDEX_FIRST = (a, b) -> Long.compare(getIndexTimestamp(a), getIndexTimestamp(b));
     public static final Comparator<File> NEWEST_INDEX_FIRST = OLDEST_INDEX_FIRST.reversed();
 
 
+    private static boolean isEventFile(final String filename) {
+        for (final CompressionCodec codec : CompressionCodec.values()) {
+            if (filename.endsWith(".prov" + codec.getFileExtension())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     public static long getMinId(final File file) {
         final String filename = file.getName();
         final int firstDotIndex = filename.indexOf(".");
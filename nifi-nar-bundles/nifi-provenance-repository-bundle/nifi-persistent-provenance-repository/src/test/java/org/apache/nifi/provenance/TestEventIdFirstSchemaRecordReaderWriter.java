@@ -20,6 +20,7 @@ package org.apache.nifi.provenance;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -29,12 +30,15 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.nifi.provenance.serialization.CompressionCodec;
 import org.apache.nifi.provenance.serialization.RecordReader;
+import org.apache.nifi.provenance.serialization.RecordReaders;
 import org.apache.nifi.provenance.serialization.RecordWriter;
 import org.apache.nifi.provenance.toc.StandardTocReader;
 import org.apache.nifi.provenance.toc.StandardTocWriter;
@@ -414,6 +418,51 @@ public class TestEventIdFirstSchemaRecordReaderWriter extends AbstractTestRecord
         FileUtils.deleteFile(journalFile.getParentFile(), true);
     }
 
+    @Test
+    public void testCompressionCodecs() throws IOException {
+        for (final CompressionCodec codec : CompressionCodec.values()) {
+            idGenerator.set(0L);
+
+            final File uncompressedFile = new File("target/storage/" + UUID.randomUUID().toString() + "/0.prov");
+            final File journalFile = codec.getCompressedFile(uncompressedFile);
+            final File tocFile = TocUtil.getTocFile(journalFile);
+
+            try (final RecordWriter writer = new EventIdFirstSchemaRecordWriter(journalFile, idGenerator, new StandardTocWriter(tocFile, codec, false), codec, 1024,
+                IdentifierLookup.EMPTY)) {
+                writer.writeHeader(0L);
+
+                for (int i = 0; i < 100; i++) {
+                    writer.writeRecord(createEvent());
+                }
+            }
+
+            final TocReader tocReader = new StandardTocReader(tocFile);
+            assertEquals(codec, tocReader.getCompressionCodec());
+            assertEquals(codec.isCompressed(), tocReader.isCompressed());
+            assertTrue(tocReader.getBlockOffset(2) > 0);
+
+            // Locate the journal by the name of the uncompressed file, as the repository does once the journal has been compressed
+            try (final RecordReader reader = RecordReaders.newRecordReader(uncompressedFile, null, 2048)) {
+                for (long i = 0; i < 100; i++) {
+                    final StandardProvenanceEventRecord event = reader.nextRecord();
+                    assertNotNull(event);
+                    assertEquals(i, event.getEventId());
+                }
+
+                assertNull(reader.nextRecord());
+            }
+
+            try (final FileInputStream fis = new FileInputStream(journalFile);
+                final RecordReader reader = createReader(fis, journalFile.getName(), new StandardTocReader(tocFile), 2048)) {
+                final Optional<ProvenanceEventRecord> event = reader.skipToEvent(77L);
+                assertTrue(event.isPresent());
+                assertEquals(77L, event.get().getEventId());
+            }
+
+            FileUtils.deleteFile(journalFile.getParentFile(), true);
+        }
+    }
+
     @Override
     protected RecordWriter createWriter(final File file, final TocWriter tocWriter, final boolean compressed, final int uncompressedBlockSize) throws IOException {
         return new EventIdFirstSchemaRecordWriter(file, idGenerator, tocWriter, compressed, uncompressedBlockSize, IdentifierLookup.EMPTY);
@@ -64,6 +64,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -139,6 +140,62 @@ public class TestLuceneEventIndex {
         assertTrue(id >= 30000L);
     }
 
+    @Test
+    public void testIndexingDegradesAboveThresholdAndRecoversBelowHalfThreshold() throws IOException {
+        final RepositoryConfiguration repoConfig = createConfig(1);
+        repoConfig.setIndexDegradeThresholdMillis(100L);
+        final IndexManager indexManager = new StandardIndexManager(repoConfig);
+
+        final ArrayListEventStore eventStore = new ArrayListEventStore();
+        final LuceneEventIndex index = new LuceneEventIndex(repoConfig, indexManager, 3, EventReporter.NO_OP);
+        index.initialize(eventStore);
+        try {
+            index.recordQueuePause(TimeUnit.MILLISECONDS.toNanos(50L));
+            index.checkIndexingBackPressure();
+            assertFalse(index.isIndexingDegraded());
+
+            index.recordQueuePause(TimeUnit.MILLISECONDS.toNanos(150L));
+            index.checkIndexingBackPressure();
+            assertTrue(index.isIndexingDegraded());
+            assertEquals(200L, index.getRecentIndexQueuePauseMillis());
+            assertEquals(200L, index.getTotalIndexQueuePauseMillis());
+
+            final StorageResult storageResult = eventStore.addEvent(createEvent("1234"));
+            index.addEvents(storageResult.getStorageLocations());
+            assertEquals(1L, index.getDegradedEventCount());
+
+            // The pause is below the threshold but not below half of it, so indexing must remain degraded
+            repoConfig.setIndexDegradeThresholdMillis(300L);
+            index.checkIndexingBackPressure();
+            assertTrue(index.isIndexingDegraded());
+
+            repoConfig.setIndexDegradeThresholdMillis(401L);
+            index.checkIndexingBackPressure();
+            assertFalse(index.isIndexingDegraded());
+
+            final StorageResult nextStorageResult = eventStore.addEvent(createEvent("1234"));
+            index.addEvents(nextStorageResult.getStorageLocations());
+            assertEquals(1L, index.getDegradedEventCount());
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void testIndexingNeverDegradesWithoutThreshold() throws IOException {
+        final RepositoryConfiguration repoConfig = createConfig(1);
+        final IndexManager indexManager = new StandardIndexManager(repoConfig);
+
+        final LuceneEventIndex index = new LuceneEventIndex(repoConfig, indexManager, 3, EventReporter.NO_OP);
+        try {
+            index.recordQueuePause(TimeUnit.MINUTES.toNanos(1L));
+            index.checkIndexingBackPressure();
+            assertFalse(index.isIndexingDegraded());
+        } finally {
+            index.close();
+        }
+    }
+
     @Test(timeout = 60000)
     public void testUnauthorizedEventsGetPlaceholdersForLineage() throws InterruptedException {
         assumeFalse(isWindowsEnvironment());
@@ -331,6 +388,60 @@ public class TestLuceneEventIndex {
         assertEquals("4444", eventMap.get(ProvenanceEventType.UNKNOWN).get(0).getFlowFileUuid());
     }
 
+    @Test(timeout = 60000)
+    public void testSummarizedLineageFiltersByTimeBeforeLimitingEvents() throws InterruptedException {
+        final RepositoryConfiguration repoConfig = createConfig(1);
+        repoConfig.setSummaryIndexEnabled(true);
+        final IndexManager indexManager = new StandardIndexManager(repoConfig);
+
+        final ArrayListEventStore eventStore = new ArrayListEventStore();
+        final LuceneEventIndex index = new LuceneEventIndex(repoConfig, indexManager, 3, EventReporter.NO_OP);
+        index.initialize(eventStore);
+
+        final long joinTime = System.currentTimeMillis() - 10_000L;
+        final String parentUuid = UUID.randomUUID().toString();
+        final String childUuid = UUID.randomUUID().toString();
+
+        for (int i = 0; i < 3; i++) {
+            eventStore.addEvent(createEvent(joinTime - 1000L, parentUuid));
+        }
+
+        final Map<String, String> previousAttributes = new HashMap<>();
+        previousAttributes.put("uuid", childUuid);
+        final ProvenanceEventRecord join = new StandardProvenanceEventRecord.Builder()
+                .setEventType(ProvenanceEventType.JOIN)
+                .setAttributes(previousAttributes, Collections.emptyMap())
+                .addParentUuid(parentUuid)
+                .addChildFlowFile(childUuid)
+                .setComponentId("component-1")
+                .setComponentType("unit test")
+                .setEventId(idGenerator.getAndIncrement())
+                .setEventTime(joinTime)
+                .setFlowFileEntryDate(joinTime)
+                .setFlowFileUUID(childUuid)
+                .setLineageStartDate(joinTime - 1000L)
+                .setCurrentContentClaim("container", "section", "unit-test-id", 0L, 1024L)
+                .build();
+        final long joinEventId = eventStore.addEvent(join).getStorageLocations().values().iterator().next().getEventId();
+
+        // More events than can be included in a lineage, all of which happened after the JOIN and so are not among its parents' events
+        for (int i = 0; i < LuceneEventIndex.MAX_LINEAGE_NODES + 10; i++) {
+            eventStore.addEvent(createEvent(parentUuid));
+        }
+
+        final ComputeLineageSubmission submission = index.submitExpandParents(joinEventId, createUser(), EventAuthorizer.GRANT_ALL);
+        assertTrue(submission.getResult().awaitCompletion(15, TimeUnit.SECONDS));
+
+        final List<LineageNode> eventNodes = submission.getResult().getNodes().stream()
+                .filter(node -> node.getNodeType() == LineageNodeType.PROVENANCE_EVENT_NODE)
+                .collect(Collectors.toList());
+
+        assertEquals(4, eventNodes.size());
+        for (final LineageNode node : eventNodes) {
+            assertTrue(node.getTimestamp() <= joinTime);
+        }
+    }
+
     @Test(timeout = 60000)
     public void testUnauthorizedEventsGetFilteredForQuery() throws InterruptedException {
         assumeFalse(isWindowsEnvironment());
@@ -35,6 +35,8 @@ import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class TestSimpleIndexManager {
@@ -71,6 +73,43 @@ public class TestSimpleIndexManager {
         }
     }
 
+    @Test
+    public void testSearchersShareReaderUntilDocumentsIndexed() throws IOException {
+        final StandardIndexManager mgr = new StandardIndexManager(new RepositoryConfiguration());
+        final File dir = new File("target/" + UUID.randomUUID().toString());
+        try {
+            final EventIndexWriter writer = mgr.borrowIndexWriter(dir);
+
+            final Document doc1 = new Document();
+            doc1.add(new StringField("id", "1", Store.YES));
+            writer.index(doc1, 1000);
+
+            final EventIndexSearcher searcher1 = mgr.borrowIndexSearcher(dir);
+            final EventIndexSearcher searcher2 = mgr.borrowIndexSearcher(dir);
+            assertSame(searcher1.getIndexSearcher().getIndexReader(), searcher2.getIndexSearcher().getIndexReader());
+            assertEquals(1, searcher2.getIndexSearcher().search(new MatchAllDocsQuery(), 10).totalHits.value);
+
+            // returning one searcher must not close the reader that the other searcher is still using
+            mgr.returnIndexSearcher(searcher1);
+            assertEquals(1, searcher2.getIndexSearcher().search(new MatchAllDocsQuery(), 10).totalHits.value);
+            mgr.returnIndexSearcher(searcher2);
+
+            // uncommitted documents are visible as soon as they are indexed
+            final Document doc2 = new Document();
+            doc2.add(new StringField("id", "2", Store.YES));
+            writer.index(doc2, 1000);
+
+            final EventIndexSearcher searcher3 = mgr.borrowIndexSearcher(dir);
+            assertNotSame(searcher1.getIndexSearcher().getIndexReader(), searcher3.getIndexSearcher().getIndexReader());
+            assertEquals(2, searcher3.getIndexSearcher().search(new MatchAllDocsQuery(), 10).totalHits.value);
+            mgr.returnIndexSearcher(searcher3);
+
+            mgr.returnIndexWriter(writer);
+        } finally {
+            FileUtils.deleteFile(dir, true);
+        }
+    }
+
     @Test
     public void testWriterCloseIfPreviouslyMarkedCloseable() throws IOException {
         final AtomicInteger closeCount = new AtomicInteger(0);
@@ -23,11 +23,13 @@ import org.apache.nifi.provenance.authorization.EventTransformer;
 import org.apache.nifi.provenance.index.EventIndex;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
+import org.apache.nifi.provenance.summary.SummaryField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -150,10 +152,54 @@ public class ArrayListEventStore implements EventStore {
         return events;
     }
 
+    @Override
+    public EventIterator getEventIterator(final long firstRecordId, final EventAuthorizer authorizer, final EventTransformer transformer) {
+        return new EventIterator() {
+            private long nextId = firstRecordId;
+
+            @Override
+            public Optional<ProvenanceEventRecord> nextEvent() throws IOException {
+                while (true) {
+                    final Optional<ProvenanceEventRecord> eventOption = getEvent(nextId++);
+                    if (!eventOption.isPresent() || authorizer.isAuthorized(eventOption.get())) {
+                        return eventOption;
+                    }
+
+                    final Optional<ProvenanceEventRecord> transformedOption = transformer.transform(eventOption.get());
+                    if (transformedOption.isPresent()) {
+                        return transformedOption;
+                    }
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public synchronized Optional<List<Long>> getSummarizedEventIds(final SummaryField field, final Collection<String> values) {
+        final List<Long> eventIds = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            if (field.getValues(events.get(i)).stream().anyMatch(values::contains)) {
+                eventIds.add((long) i);
+            }
+        }
+
+        return Optional.of(eventIds);
+    }
+
     @Override
     public void reindexLatestEvents(EventIndex eventIndex) {
     }
 
+    @Override
+    public Runnable createReindexTask(EventIndex eventIndex) {
+        return () -> {
+        };
+    }
+
     @Override
     public EventIterator getEventsByTimestamp(final long minTimestamp, final long maxTimestamp) {
         return null;
@@ -27,10 +27,12 @@ import org.apache.nifi.provenance.RepositoryConfiguration;
 import org.apache.nifi.provenance.StandardProvenanceEventRecord;
 import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.authorization.EventTransformer;
+import org.apache.nifi.provenance.index.EventIndex;
 import org.apache.nifi.provenance.serialization.RecordReaders;
 import org.apache.nifi.provenance.serialization.RecordWriters;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
+import org.apache.nifi.provenance.summary.SummaryField;
 import org.apache.nifi.provenance.toc.StandardTocWriter;
 import org.apache.nifi.provenance.toc.TocUtil;
 import org.apache.nifi.provenance.toc.TocWriter;
@@ -39,6 +41,7 @@ import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestName;
+import org.mockito.Mockito;
 
 import java.io.File;
 import java.io.IOException;
@@ -318,6 +321,46 @@ public class TestPartitionedWriteAheadEventStore {
     }
 
 
+    @Test
+    public void testGetEventIterator() throws IOException {
+        final RepositoryConfiguration config = createConfig(3);
+        final PartitionedWriteAheadEventStore store = new PartitionedWriteAheadEventStore(config, writerFactory, readerFactory, EventReporter.NO_OP, new EventFileManager());
+        store.initialize();
+
+        final int numEvents = 20;
+        final List<ProvenanceEventRecord> events = new ArrayList<>(numEvents);
+        for (int i = 0; i < numEvents; i++) {
+            final ProvenanceEventRecord event = createEvent();
+            store.addEvents(Collections.singleton(event));
+            events.add(event);
+        }
+
+        final EventAuthorizer allowEvenNumberedEventIds = new EventAuthorizer() {
+            @Override
+            public boolean isAuthorized(final ProvenanceEventRecord event) {
+                return event.getEventId() % 2 == 0L;
+            }
+
+            @Override
+            public void authorize(ProvenanceEventRecord event) throws AccessDeniedException {
+                if (!isAuthorized(event)) {
+                    throw new AccessDeniedException();
+                }
+            }
+        };
+
+        // events are spread across the partitions but must be returned in order of ID
+        try (final EventIterator iterator = store.getEventIterator(5, allowEvenNumberedEventIds, EventTransformer.EMPTY_TRANSFORMER)) {
+            for (int i = 6; i < numEvents; i += 2) {
+                final Optional<ProvenanceEventRecord> eventOption = iterator.nextEvent();
+                assertTrue(eventOption.isPresent());
+                assertEquals(events.get(i), eventOption.get());
+            }
+
+            assertFalse(iterator.nextEvent().isPresent());
+        }
+    }
+
     @Test
     public void testGetEventsWithStartOffsetAndCountWithNothingAuthorized() throws IOException {
         final RepositoryConfiguration config = createConfig();
@@ -459,6 +502,104 @@ public class TestPartitionedWriteAheadEventStore {
     }
 
 
+    @Test
+    public void testGetSummarizedEventIds() throws IOException, InterruptedException {
+        final RepositoryConfiguration config = createConfig();
+        config.setMaxEventFileCount(10);
+        config.setSummaryIndexEnabled(true);
+
+        final PartitionedWriteAheadEventStore store = new PartitionedWriteAheadEventStore(config, writerFactory, readerFactory, EventReporter.NO_OP, new EventFileManager());
+        store.initialize();
+
+        final List<String> uuids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final ProvenanceEventRecord event = createEvent();
+            uuids.add(event.getFlowFileUuid());
+            store.addEvents(Collections.singleton(event));
+        }
+
+        final List<Long> componentEventIds = store.getSummarizedEventIds(SummaryField.COMPONENT_ID, Collections.singleton("component-1")).get();
+        assertEquals(100, componentEventIds.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Long.valueOf(i), componentEventIds.get(i));
+        }
+
+        assertEquals(Collections.singletonList(42L), store.getSummarizedEventIds(SummaryField.FLOWFILE_UUID, Collections.singleton(uuids.get(42))).get());
+        assertTrue(store.getSummarizedEventIds(SummaryField.COMPONENT_ID, Collections.singleton("component-2")).get().isEmpty());
+
+        store.close();
+
+        // The Summary Index of the Event Files that were being written to is rebuilt in the background on recovery
+        final PartitionedWriteAheadEventStore recoveredStore = new PartitionedWriteAheadEventStore(config, writerFactory, readerFactory, EventReporter.NO_OP, new EventFileManager());
+        recoveredStore.initialize();
+
+        Optional<List<Long>> recoveredEventIds = recoveredStore.getSummarizedEventIds(SummaryField.COMPONENT_ID, Collections.singleton("component-1"));
+        for (int i = 0; i < 100 && !recoveredEventIds.isPresent(); i++) {
+            Thread.sleep(50L);
+            recoveredEventIds = recoveredStore.getSummarizedEventIds(SummaryField.COMPONENT_ID, Collections.singleton("component-1"));
+        }
+
+        assertEquals(componentEventIds, recoveredEventIds.get());
+        assertEquals(Collections.singletonList(42L), recoveredStore.getSummarizedEventIds(SummaryField.FLOWFILE_UUID, Collections.singleton(uuids.get(42))).get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReindexTaskOnlyReindexesEventsAddedBeforeItWasCreated() throws IOException {
+        final PartitionedWriteAheadEventStore store = new PartitionedWriteAheadEventStore(createConfig(), writerFactory, readerFactory, EventReporter.NO_OP, new EventFileManager());
+        store.initialize();
+
+        for (int i = 0; i < 20; i++) {
+            store.addEvents(Collections.singleton(createEvent()));
+        }
+
+        final List<Long> reindexedEventIds = Collections.synchronizedList(new ArrayList<>());
+        final EventIndex eventIndex = Mockito.mock(EventIndex.class);
+        Mockito.doAnswer(invocation -> {
+            final Map<ProvenanceEventRecord, StorageSummary> events = invocation.getArgument(0);
+            events.values().forEach(summary -> reindexedEventIds.add(summary.getEventId()));
+            return null;
+        }).when(eventIndex).reindexEvents(Mockito.anyMap());
+        Mockito.doReturn(0L).when(eventIndex).getMinimumEventIdToReindex(Mockito.anyString());
+
+        final Runnable reindexTask = store.createReindexTask(eventIndex);
+
+        // Events that are added while the task waits to run in the background are indexed as they are added and must not be re-indexed
+        for (int i = 0; i < 20; i++) {
+            store.addEvents(Collections.singleton(createEvent()));
+        }
+
+        reindexTask.run();
+
+        final List<Long> sortedEventIds = new ArrayList<>(reindexedEventIds);
+        Collections.sort(sortedEventIds);
+        assertEquals(20, sortedEventIds.size());
+        for (int i = 0; i < sortedEventIds.size(); i++) {
+            assertEquals(i, sortedEventIds.get(i).intValue());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReindexTaskDoesNothingAfterClose() throws IOException {
+        final PartitionedWriteAheadEventStore store = new PartitionedWriteAheadEventStore(createConfig(), writerFactory, readerFactory, EventReporter.NO_OP, new EventFileManager());
+        store.initialize();
+
+        for (int i = 0; i < 20; i++) {
+            store.addEvents(Collections.singleton(createEvent()));
+        }
+
+        final EventIndex eventIndex = Mockito.mock(EventIndex.class);
+        Mockito.doReturn(0L).when(eventIndex).getMinimumEventIdToReindex(Mockito.anyString());
+
+        final Runnable reindexTask = store.createReindexTask(eventIndex);
+        store.close();
+        reindexTask.run();
+
+        Mockito.verify(eventIndex, Mockito.never()).reindexEvents(Mockito.anyMap());
+    }
+
+
     private RepositoryConfiguration createConfig() {
         return createConfig(2);
     }
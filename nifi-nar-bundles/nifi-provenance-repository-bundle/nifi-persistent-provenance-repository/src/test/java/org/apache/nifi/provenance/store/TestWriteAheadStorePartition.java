@@ -43,6 +43,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
@@ -87,7 +89,78 @@ public class TestWriteAheadStorePartition {
         }).when(eventIndex).reindexEvents(Mockito.anyMap());
 
         Mockito.doReturn(18L).when(eventIndex).getMinimumEventIdToReindex("1");
-        partition.reindexLatestEvents(eventIndex);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final ReindexProgress progress = new ReindexProgress();
+        try {
+            partition.reindexLatestEvents(eventIndex, executor, progress);
+        } finally {
+            executor.shutdown();
+        }
+
+        final List<Long> eventIdsReindexed = reindexedEvents.values().stream()
+            .map(StorageSummary::getEventId)
+            .sorted()
+            .collect(Collectors.toList());
+
+        assertEquals(82, eventIdsReindexed.size());
+        for (int i = 0; i < eventIdsReindexed.size(); i++) {
+            assertEquals(18 + i, eventIdsReindexed.get(i).intValue());
+        }
+
+        assertEquals(82L, progress.getReindexedEventCount());
+        assertTrue(progress.getTotalFileCount() > 0);
+        assertEquals(progress.getTotalFileCount(), progress.getCompletedFileCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReindexRangeExcludesEventsAddedAfterward() throws IOException {
+        final RepositoryConfiguration repoConfig = createConfig(1, "testReindexRangeExcludesEventsAddedAfterward");
+        repoConfig.setMaxEventFileCount(5);
+
+        final String partitionName = repoConfig.getStorageDirectories().keySet().iterator().next();
+        final File storageDirectory = repoConfig.getStorageDirectories().values().iterator().next();
+
+        final RecordWriterFactory recordWriterFactory = (file, idGenerator, compressed, createToc) -> {
+            final TocWriter tocWriter = createToc ? new StandardTocWriter(TocUtil.getTocFile(file), false, false) : null;
+            return new EventIdFirstSchemaRecordWriter(file, idGenerator, tocWriter, compressed, 32 * 1024, IdentifierLookup.EMPTY);
+        };
+
+        final RecordReaderFactory recordReaderFactory = RecordReaders::newRecordReader;
+
+        final WriteAheadStorePartition partition = new WriteAheadStorePartition(storageDirectory, partitionName, repoConfig, recordWriterFactory,
+            recordReaderFactory, new LinkedBlockingQueue<>(), new AtomicLong(0L), EventReporter.NO_OP, Mockito.mock(EventFileManager.class));
+
+        for (int i = 0; i < 100; i++) {
+            partition.addEvents(Collections.singleton(TestUtil.createEvent()));
+        }
+
+        final Map<ProvenanceEventRecord, StorageSummary> reindexedEvents = new ConcurrentHashMap<>();
+        final EventIndex eventIndex = Mockito.mock(EventIndex.class);
+        Mockito.doAnswer(invocation -> {
+            final Map<ProvenanceEventRecord, StorageSummary> events = invocation.getArgument(0);
+            reindexedEvents.putAll(events);
+            return null;
+        }).when(eventIndex).reindexEvents(Mockito.anyMap());
+
+        Mockito.doReturn(18L).when(eventIndex).getMinimumEventIdToReindex("1");
+        final ReindexRange range = partition.getReindexRange(eventIndex);
+        assertEquals(18L, range.getMinEventId());
+        assertEquals(99L, range.getMaxEventId());
+
+        // Once new events are added, the Event Index would report a later minimum, but the range must not change
+        Mockito.doReturn(68L).when(eventIndex).getMinimumEventIdToReindex("1");
+        for (int i = 0; i < 50; i++) {
+            partition.addEvents(Collections.singleton(TestUtil.createEvent()));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final ReindexProgress progress = new ReindexProgress();
+        try {
+            partition.reindexEvents(eventIndex, range, executor, progress);
+        } finally {
+            executor.shutdown();
+        }
 
         final List<Long> eventIdsReindexed = reindexedEvents.values().stream()
             .map(StorageSummary::getEventId)
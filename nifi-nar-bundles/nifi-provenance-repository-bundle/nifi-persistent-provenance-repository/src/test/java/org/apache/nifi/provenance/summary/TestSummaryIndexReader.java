@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.summary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.junit.Test;
+
+public class TestSummaryIndexReader {
+
+    @Test
+    public void testReadEventIdsForSingleValue() throws IOException {
+        final SummaryIndexWriter writer = new SummaryIndexWriter();
+        for (int i = 0; i < 1000; i++) {
+            writer.addEvent(createEvent("uuid-" + (i % 10), "Component-" + (i % 3), ProvenanceEventType.CONTENT_MODIFIED), i * 3L);
+        }
+
+        final File file = new File("target/" + UUID.randomUUID().toString() + ".summary");
+        try {
+            writer.writeTo(file);
+
+            final SummaryIndexReader reader = new SummaryIndexReader(file);
+            final List<Long> eventIds = reader.getEventIds(SummaryField.FLOWFILE_UUID, Collections.singleton("uuid-4"));
+            assertEquals(100, eventIds.size());
+            for (int i = 0; i < eventIds.size(); i++) {
+                assertEquals(Long.valueOf((i * 10 + 4) * 3L), eventIds.get(i));
+            }
+
+            // values are normalized to lower case
+            assertEquals(334, reader.getEventIds(SummaryField.COMPONENT_ID, Collections.singleton("component-0")).size());
+            assertTrue(reader.getEventIds(SummaryField.COMPONENT_ID, Collections.singleton("Component-0")).isEmpty());
+            assertTrue(reader.getEventIds(SummaryField.FLOWFILE_UUID, Collections.singleton("uuid-10")).isEmpty());
+
+            assertEquals(writer.getEventIds(SummaryField.FLOWFILE_UUID, Collections.singleton("uuid-4")), eventIds);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadEventIdsForMultipleValues() throws IOException {
+        final SummaryIndexWriter writer = new SummaryIndexWriter();
+        // add the events out of order, as may happen when events are written to an Event File concurrently
+        final List<Long> ids = Arrays.asList(5L, 2L, 9L, 7L, 1L, 100_000_000L, 3L);
+        for (final Long id : ids) {
+            writer.addEvent(createEvent("uuid-" + (id % 2), "component", ProvenanceEventType.CONTENT_MODIFIED), id);
+        }
+
+        final File file = new File("target/" + UUID.randomUUID().toString() + ".summary");
+        try {
+            writer.writeTo(file);
+
+            final SummaryIndexReader reader = new SummaryIndexReader(file);
+            assertEquals(Arrays.asList(1L, 3L, 5L, 7L, 9L), reader.getEventIds(SummaryField.FLOWFILE_UUID, Collections.singleton("uuid-1")));
+            assertEquals(Arrays.asList(1L, 2L, 3L, 5L, 7L, 9L, 100_000_000L), reader.getEventIds(SummaryField.FLOWFILE_UUID, Arrays.asList("uuid-1", "uuid-0", "uuid-5")));
+            assertEquals(Arrays.asList(1L, 2L, 3L, 5L, 7L, 9L, 100_000_000L), reader.getEventIds(SummaryField.COMPONENT_ID, Collections.singleton("component")));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testChildUuidsOfForkAreSummarized() throws IOException {
+        final SummaryIndexWriter writer = new SummaryIndexWriter();
+        writer.addEvent(createEvent("parent", "component", ProvenanceEventType.RECEIVE), 0L);
+
+        final ProvenanceEventRecord fork = createEventBuilder("parent", "component", ProvenanceEventType.FORK)
+            .addChildUuid("child-1")
+            .addChildUuid("child-2")
+            .build();
+        writer.addEvent(fork, 1L);
+        writer.addEvent(createEvent("child-2", "component", ProvenanceEventType.DROP), 2L);
+
+        final File file = new File("target/" + UUID.randomUUID().toString() + ".summary");
+        try {
+            writer.writeTo(file);
+
+            final SummaryIndexReader reader = new SummaryIndexReader(file);
+            assertEquals(Arrays.asList(0L, 1L), reader.getEventIds(SummaryField.FLOWFILE_UUID, Collections.singleton("parent")));
+            assertEquals(Collections.singletonList(1L), reader.getEventIds(SummaryField.FLOWFILE_UUID, Collections.singleton("child-1")));
+            assertEquals(Arrays.asList(1L, 2L), reader.getEventIds(SummaryField.FLOWFILE_UUID, Collections.singleton("child-2")));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private ProvenanceEventRecord createEvent(final String uuid, final String componentId, final ProvenanceEventType eventType) {
+        return createEventBuilder(uuid, componentId, eventType).build();
+    }
+
+    private StandardProvenanceEventRecord.Builder createEventBuilder(final String uuid, final String componentId, final ProvenanceEventType eventType) {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("uuid", uuid);
+
+        final StandardProvenanceEventRecord.Builder builder = new StandardProvenanceEventRecord.Builder()
+            .setEventType(eventType)
+            .setAttributes(attributes, Collections.emptyMap())
+            .setComponentId(componentId)
+            .setComponentType("unit test")
+            .setEventTime(System.currentTimeMillis())
+            .setFlowFileEntryDate(System.currentTimeMillis())
+            .setFlowFileUUID(uuid)
+            .setLineageStartDate(System.currentTimeMillis())
+            .setCurrentContentClaim("container", "section", "unit-test-id", 0L, 1024L);
+
+        if (eventType == ProvenanceEventType.RECEIVE) {
+            builder.setTransitUri("http://localhost/unit-test");
+        }
+
+        return builder;
+    }
+}
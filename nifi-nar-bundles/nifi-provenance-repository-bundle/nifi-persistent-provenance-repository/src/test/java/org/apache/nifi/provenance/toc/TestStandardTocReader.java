@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.UUID;
 
+import org.apache.nifi.provenance.serialization.CompressionCodec;
 import org.junit.Test;
 
 public class TestStandardTocReader {
@@ -63,6 +64,27 @@ public class TestStandardTocReader {
     }
 
 
+    @Test
+    public void testDetectsCompressionCodec() throws IOException {
+        final File file = new File("target/" + UUID.randomUUID().toString());
+
+        for (final CompressionCodec codec : CompressionCodec.values()) {
+            try (final StandardTocWriter writer = new StandardTocWriter(file, codec, false)) {
+                writer.addBlockOffset(0L, 0L);
+            }
+
+            try {
+                try (final StandardTocReader reader = new StandardTocReader(file)) {
+                    assertEquals(codec, reader.getCompressionCodec());
+                    assertEquals(codec.isCompressed(), reader.isCompressed());
+                    assertEquals(0L, reader.getBlockOffset(0));
+                }
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
     @Test
     public void testGetBlockIndexV1() throws IOException {
         final File file = new File("target/" + UUID.randomUUID().toString());
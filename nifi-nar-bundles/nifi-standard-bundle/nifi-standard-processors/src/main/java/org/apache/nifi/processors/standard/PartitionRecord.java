@@ -41,6 +41,7 @@ import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.record.path.FieldValue;
 import org.apache.nifi.record.path.RecordPath;
+import org.apache.nifi.record.path.paths.SchemaBoundRecordPath;
 import org.apache.nifi.record.path.util.RecordPathCache;
 import org.apache.nifi.record.path.validation.RecordPathValidator;
 import org.apache.nifi.serialization.RecordReader;
@@ -202,14 +203,21 @@ public class PartitionRecord extends AbstractProcessor {
             final Map<String, String> originalAttributes = flowFile.getAttributes();
             final RecordReader reader = readerFactory.createRecordReader(originalAttributes, in, flowFile.getSize(), getLogger());
 
-            final RecordSchema writeSchema = writerFactory.getSchema(originalAttributes, reader.getSchema());
+            final RecordSchema readSchema = reader.getSchema();
+            final RecordSchema writeSchema = writerFactory.getSchema(originalAttributes, readSchema);
+
+            // Compile the RecordPaths against the schema of the Records so that simple paths can be evaluated without creating Streams
+            final Map<String, RecordPath> schemaBoundRecordPaths = new HashMap<>();
+            for (final Map.Entry<String, RecordPath> entry : recordPaths.entrySet()) {
+                schemaBoundRecordPaths.put(entry.getKey(), SchemaBoundRecordPath.compile(entry.getValue(), readSchema));
+            }
 
             Record record;
             while ((record = reader.nextRecord()) != null) {
                 final Map<String, List<ValueWrapper>> recordMap = new HashMap<>();
 
                 // Evaluate all of the RecordPath's for this Record
-                for (final Map.Entry<String, RecordPath> entry : recordPaths.entrySet()) {
+                for (final Map.Entry<String, RecordPath> entry : schemaBoundRecordPaths.entrySet()) {
                     final String propName = entry.getKey();
                     final RecordPath recordPath = entry.getValue();
 
@@ -37,6 +37,7 @@ import org.apache.nifi.annotation.behavior.WritesAttribute;
 import org.apache.nifi.annotation.behavior.WritesAttributes;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
 import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.ValidationContext;
@@ -53,6 +54,7 @@ import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.queryrecord.FlowFileTable;
+import org.apache.nifi.queryrecord.SharedRecordScan;
 import org.apache.nifi.record.path.FieldValue;
 import org.apache.nifi.record.path.RecordPath;
 import org.apache.nifi.record.path.RecordPathResult;
@@ -71,6 +73,7 @@ import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.serialization.record.ResultSetRecordSet;
+import org.apache.nifi.stream.io.NonCloseableOutputStream;
 import org.apache.nifi.util.StopWatch;
 import org.apache.nifi.util.Tuple;
 
@@ -94,7 +97,12 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -166,6 +174,19 @@ public class QueryRecord extends AbstractProcessor {
         .defaultValue("true")
         .required(true)
         .build();
+    static final PropertyDescriptor SHARED_SCAN = new PropertyDescriptor.Builder()
+        .name("shared-scan")
+        .displayName("Evaluate Queries in Single Pass")
+        .description("If true, the Records of each incoming FlowFile are parsed only once and handed to all of the SQL queries, which are evaluated concurrently, "
+            + "each writing its results as the Records are read. If false, the queries are evaluated one after another, each parsing the FlowFile again. "
+            + "Evaluating the queries in a single pass can greatly reduce the cost of running several queries against large FlowFiles. However, a query that "
+            + "reads the FLOWFILE table more than once, such as one that joins the FLOWFILE table with itself or uses it in a sub-query, cannot be evaluated "
+            + "in a single pass, and any FlowFile that it is run against will be routed to 'failure'.")
+        .expressionLanguageSupported(ExpressionLanguageScope.NONE)
+        .allowableValues("true", "false")
+        .defaultValue("false")
+        .required(true)
+        .build();
 
     public static final Relationship REL_ORIGINAL = new Relationship.Builder()
         .name("original")
@@ -186,6 +207,8 @@ public class QueryRecord extends AbstractProcessor {
         .removalListener(this::onCacheEviction)
         .build();
 
+    private volatile ExecutorService sharedScanExecutor;
+
     @Override
     protected void init(final ProcessorInitializationContext context) {
         try {
@@ -199,6 +222,7 @@ public class QueryRecord extends AbstractProcessor {
         properties.add(RECORD_WRITER_FACTORY);
         properties.add(INCLUDE_ZERO_RECORD_FLOWFILES);
         properties.add(CACHE_SCHEMA);
+        properties.add(SHARED_SCAN);
         this.properties = Collections.unmodifiableList(properties);
 
         relationships.add(REL_FAILURE);
@@ -246,8 +270,39 @@ public class QueryRecord extends AbstractProcessor {
             .build();
     }
 
+    @OnScheduled
+    public void setupSharedScanExecutor(final ProcessContext context) {
+        if (!context.getProperty(SHARED_SCAN).asBoolean()) {
+            return;
+        }
+
+        // Every query of every concurrent task needs its own thread for as long as the FlowFile is being read, or the read would stall
+        // waiting for a query that cannot start. The queries cannot change while the Processor is scheduled, so this bounds the threads needed.
+        final long queryCount = context.getProperties().keySet().stream()
+            .filter(PropertyDescriptor::isDynamic)
+            .count();
+        final int threadCount = (int) Math.max(1L, queryCount * context.getMaxConcurrentTasks());
+
+        sharedScanExecutor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread t = defaultFactory.newThread(r);
+                t.setName("QueryRecord " + getIdentifier() + " Query Task");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
     @OnStopped
     public synchronized void cleanup() {
+        if (sharedScanExecutor != null) {
+            sharedScanExecutor.shutdown();
+            sharedScanExecutor = null;
+        }
+
         for (final BlockingQueue<CachedStatement> statementQueue : statementQueues.asMap().values()) {
             clearQueue(statementQueue);
         }
@@ -301,77 +356,69 @@ public class QueryRecord extends AbstractProcessor {
         int recordsRead = 0;
 
         try {
-            for (final PropertyDescriptor descriptor : context.getProperties().keySet()) {
-                if (!descriptor.isDynamic()) {
-                    continue;
-                }
-
-                final Relationship relationship = new Relationship.Builder().name(descriptor.getName()).build();
+            if (context.getProperty(SHARED_SCAN).asBoolean()) {
+                recordsRead = querySharedScan(context, session, original, readerSchema, writerSchema, recordReaderFactory, recordSetWriterFactory,
+                    transformedFlowFiles, createdFlowFiles);
+            } else {
+                for (final PropertyDescriptor descriptor : context.getProperties().keySet()) {
+                    if (!descriptor.isDynamic()) {
+                        continue;
+                    }
 
-                // We have to fork a child because we may need to read the input FlowFile more than once,
-                // and we cannot call session.read() on the original FlowFile while we are within a write
-                // callback for the original FlowFile.
-                FlowFile transformed = session.create(original);
-                boolean flowFileRemoved = false;
+                    final Relationship relationship = new Relationship.Builder().name(descriptor.getName()).build();
 
-                try {
-                    final String sql = context.getProperty(descriptor).evaluateAttributeExpressions(original).getValue();
-                    final AtomicReference<WriteResult> writeResultRef = new AtomicReference<>();
-                    final QueryResult queryResult = query(session, original, readerSchema, sql, recordReaderFactory);
+                    // We have to fork a child because we may need to read the input FlowFile more than once,
+                    // and we cannot call session.read() on the original FlowFile while we are within a write
+                    // callback for the original FlowFile.
+                    FlowFile transformed = session.create(original);
+                    boolean flowFileRemoved = false;
 
-                    final AtomicReference<String> mimeTypeRef = new AtomicReference<>();
                     try {
-                        final ResultSet rs = queryResult.getResultSet();
-                        transformed = session.write(transformed, new OutputStreamCallback() {
-                            @Override
-                            public void process(final OutputStream out) throws IOException {
-                                final ResultSetRecordSet recordSet;
-                                final RecordSchema writeSchema;
-
-                                try {
-                                    recordSet = new ResultSetRecordSet(rs, writerSchema);
-                                    final RecordSchema resultSetSchema = recordSet.getSchema();
-                                    writeSchema = recordSetWriterFactory.getSchema(originalAttributes, resultSetSchema);
-                                } catch (final SQLException | SchemaNotFoundException e) {
-                                    throw new ProcessException(e);
+                        final String sql = context.getProperty(descriptor).evaluateAttributeExpressions(original).getValue();
+                        final AtomicReference<WriteResult> writeResultRef = new AtomicReference<>();
+                        final QueryResult queryResult = query(session, original, readerSchema, sql, recordReaderFactory);
+
+                        final AtomicReference<String> mimeTypeRef = new AtomicReference<>();
+                        try {
+                            final ResultSet rs = queryResult.getResultSet();
+                            transformed = session.write(transformed, new OutputStreamCallback() {
+                                @Override
+                                public void process(final OutputStream out) throws IOException {
+                                    final ResultSetRecordSet recordSet;
+                                    final RecordSchema writeSchema;
+
+                                    try {
+                                        recordSet = new ResultSetRecordSet(rs, writerSchema);
+                                        final RecordSchema resultSetSchema = recordSet.getSchema();
+                                        writeSchema = recordSetWriterFactory.getSchema(originalAttributes, resultSetSchema);
+                                    } catch (final SQLException | SchemaNotFoundException e) {
+                                        throw new ProcessException(e);
+                                    }
+
+                                    try (final RecordSetWriter resultSetWriter = recordSetWriterFactory.createWriter(getLogger(), writeSchema, out, original)) {
+                                        writeResultRef.set(resultSetWriter.write(recordSet));
+                                        mimeTypeRef.set(resultSetWriter.getMimeType());
+                                    } catch (final Exception e) {
+                                        throw new IOException(e);
+                                    }
                                 }
+                            });
+                        } finally {
+                            closeQuietly(queryResult);
+                        }
 
-                                try (final RecordSetWriter resultSetWriter = recordSetWriterFactory.createWriter(getLogger(), writeSchema, out, original)) {
-                                    writeResultRef.set(resultSetWriter.write(recordSet));
-                                    mimeTypeRef.set(resultSetWriter.getMimeType());
-                                } catch (final Exception e) {
-                                    throw new IOException(e);
-                                }
-                            }
-                        });
+                        recordsRead = Math.max(recordsRead, queryResult.getRecordsRead());
+                        final FlowFile updated = handleResult(context, session, original, transformed, relationship, writeResultRef.get(), mimeTypeRef.get(), transformedFlowFiles);
+                        if (updated == null) {
+                            flowFileRemoved = true;
+                        } else {
+                            transformed = updated;
+                        }
                     } finally {
-                        closeQuietly(queryResult);
-                    }
-
-                    recordsRead = Math.max(recordsRead, queryResult.getRecordsRead());
-                    final WriteResult result = writeResultRef.get();
-                    if (result.getRecordCount() == 0 && !context.getProperty(INCLUDE_ZERO_RECORD_FLOWFILES).asBoolean()) {
-                        session.remove(transformed);
-                        flowFileRemoved = true;
-                        transformedFlowFiles.remove(transformed);
-                        getLogger().info("Transformed {} but the result contained no data so will not pass on a FlowFile", new Object[] {original});
-                    } else {
-                        final Map<String, String> attributesToAdd = new HashMap<>();
-                        if (result.getAttributes() != null) {
-                            attributesToAdd.putAll(result.getAttributes());
+                        // Ensure that we have the FlowFile in the set in case we throw any Exception
+                        if (!flowFileRemoved) {
+                            createdFlowFiles.add(transformed);
                         }
-
-                        attributesToAdd.put(CoreAttributes.MIME_TYPE.key(), mimeTypeRef.get());
-                        attributesToAdd.put("record.count", String.valueOf(result.getRecordCount()));
-                        transformed = session.putAllAttributes(transformed, attributesToAdd);
-                        transformedFlowFiles.put(transformed, relationship);
-
-                        session.adjustCounter("Records Written", result.getRecordCount(), false);
-                    }
-                } finally {
-                    // Ensure that we have the FlowFile in the set in case we throw any Exception
-                    if (!flowFileRemoved) {
-                        createdFlowFiles.add(transformed);
                     }
                 }
             }
@@ -404,6 +451,153 @@ public class QueryRecord extends AbstractProcessor {
         session.adjustCounter("Records Read", recordsRead, false);
     }
 
+    /**
+     * Evaluates all queries in a single pass over the Records of the given FlowFile. The Records are read by the calling thread and handed to
+     * each of the queries, which are evaluated concurrently by the shared scan executor. Only the calling thread creates, opens and closes
+     * the FlowFiles that the results are written to, as the session is not thread-safe, but each query thread writes to its own OutputStream.
+     *
+     * @return the number of Records that were read from the FlowFile
+     */
+    private int querySharedScan(final ProcessContext context, final ProcessSession session, final FlowFile original, final RecordSchema readerSchema,
+                                final RecordSchema writerSchema, final RecordReaderFactory recordReaderFactory, final RecordSetWriterFactory recordSetWriterFactory,
+                                final Map<FlowFile, Relationship> transformedFlowFiles, final Set<FlowFile> createdFlowFiles) throws Exception {
+        final ExecutorService executor = sharedScanExecutor;
+        if (executor == null) {
+            throw new ProcessException("Cannot evaluate queries in a single pass because the Processor is not scheduled to run");
+        }
+
+        final Map<String, String> originalAttributes = original.getAttributes();
+        final SharedRecordScan scan = new SharedRecordScan();
+        final List<SharedScanQuery> queries = new ArrayList<>();
+
+        Exception failure = null;
+        try {
+            for (final PropertyDescriptor descriptor : context.getProperties().keySet()) {
+                if (!descriptor.isDynamic()) {
+                    continue;
+                }
+
+                final Relationship relationship = new Relationship.Builder().name(descriptor.getName()).build();
+                final String sql = context.getProperty(descriptor).evaluateAttributeExpressions(original).getValue();
+
+                final FlowFile transformed = session.create(original);
+                createdFlowFiles.add(transformed);
+                queries.add(new SharedScanQuery(relationship, sql, transformed, session.write(transformed), scan.subscribe()));
+            }
+
+            for (final SharedScanQuery query : queries) {
+                query.future = executor.submit(() -> {
+                    runSharedScanQuery(session, original, readerSchema, writerSchema, recordReaderFactory, recordSetWriterFactory, query);
+                    return null;
+                });
+            }
+
+            try (final InputStream in = session.read(original);
+                 final RecordReader reader = recordReaderFactory.createRecordReader(originalAttributes, in, original.getSize(), getLogger())) {
+                scan.scan(reader);
+            }
+        } catch (final Exception e) {
+            failure = e;
+        }
+
+        // If the FlowFile could not be read at all, ensure that no query is left waiting for Records
+        scan.abort(failure == null ? new ProcessException("Records of " + original + " were not read") : failure);
+
+        for (final SharedScanQuery query : queries) {
+            if (query.future == null) {
+                continue;
+            }
+
+            try {
+                query.future.get();
+            } catch (final ExecutionException ee) {
+                if (failure == null) {
+                    final Throwable cause = ee.getCause();
+                    failure = cause instanceof Exception ? (Exception) cause : new ProcessException(cause);
+                }
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = ie;
+                }
+            }
+        }
+
+        for (final SharedScanQuery query : queries) {
+            try {
+                query.out.close();
+            } catch (final Exception e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        for (final SharedScanQuery query : queries) {
+            final FlowFile updated = handleResult(context, session, original, query.flowFile, query.relationship, query.writeResult, query.mimeType, transformedFlowFiles);
+            if (updated == null) {
+                createdFlowFiles.remove(query.flowFile);
+            }
+        }
+
+        return scan.getRecordsRead();
+    }
+
+    private void runSharedScanQuery(final ProcessSession session, final FlowFile original, final RecordSchema readerSchema, final RecordSchema writerSchema,
+                                    final RecordReaderFactory recordReaderFactory, final RecordSetWriterFactory recordSetWriterFactory, final SharedScanQuery query) throws Exception {
+        try {
+            final QueryResult queryResult = query(session, original, readerSchema, query.sql, recordReaderFactory, query.subscription);
+            try {
+                final ResultSetRecordSet recordSet = new ResultSetRecordSet(queryResult.getResultSet(), writerSchema);
+                final RecordSchema writeSchema = recordSetWriterFactory.getSchema(original.getAttributes(), recordSet.getSchema());
+
+                // The OutputStream is closed by the thread that opened it
+                try (final RecordSetWriter resultSetWriter = recordSetWriterFactory.createWriter(getLogger(), writeSchema, new NonCloseableOutputStream(query.out), original)) {
+                    query.writeResult = resultSetWriter.write(recordSet);
+                    query.mimeType = resultSetWriter.getMimeType();
+                }
+            } finally {
+                closeQuietly(queryResult);
+            }
+        } finally {
+            // Stop handing Records to this query, whether or not it read them all
+            query.subscription.cancel();
+        }
+    }
+
+    /**
+     * Removes the given FlowFile if the query selected no Records and such FlowFiles are not to be passed on. Otherwise, adds the attributes
+     * that describe the result to the FlowFile and records that the FlowFile is to be routed to the given Relationship.
+     *
+     * @return the updated FlowFile, or <code>null</code> if the FlowFile was removed
+     */
+    private FlowFile handleResult(final ProcessContext context, final ProcessSession session, final FlowFile original, final FlowFile transformed,
+                                  final Relationship relationship, final WriteResult result, final String mimeType, final Map<FlowFile, Relationship> transformedFlowFiles) {
+        if (result.getRecordCount() == 0 && !context.getProperty(INCLUDE_ZERO_RECORD_FLOWFILES).asBoolean()) {
+            session.remove(transformed);
+            transformedFlowFiles.remove(transformed);
+            getLogger().info("Transformed {} but the result contained no data so will not pass on a FlowFile", new Object[] {original});
+            return null;
+        }
+
+        final Map<String, String> attributesToAdd = new HashMap<>();
+        if (result.getAttributes() != null) {
+            attributesToAdd.putAll(result.getAttributes());
+        }
+
+        attributesToAdd.put(CoreAttributes.MIME_TYPE.key(), mimeType);
+        attributesToAdd.put("record.count", String.valueOf(result.getRecordCount()));
+        final FlowFile updated = session.putAllAttributes(transformed, attributesToAdd);
+        transformedFlowFiles.put(updated, relationship);
+
+        session.adjustCounter("Records Written", result.getRecordCount(), false);
+        return updated;
+    }
+
 
     private synchronized CachedStatement getStatement(final String sql, final RecordSchema schema, final Supplier<CachedStatement> statementBuilder) {
         final Tuple<String, RecordSchema> tuple = new Tuple<>(sql, schema);
@@ -452,13 +646,18 @@ public class QueryRecord extends AbstractProcessor {
 
     protected QueryResult query(final ProcessSession session, final FlowFile flowFile, final RecordSchema schema, final String sql, final RecordReaderFactory recordReaderFactory)
                 throws SQLException {
+        return query(session, flowFile, schema, sql, recordReaderFactory, null);
+    }
+
+    private QueryResult query(final ProcessSession session, final FlowFile flowFile, final RecordSchema schema, final String sql, final RecordReaderFactory recordReaderFactory,
+                              final SharedRecordScan.Subscription subscription) throws SQLException {
 
         final Supplier<CachedStatement> statementBuilder = () -> buildCachedStatement(sql, session, flowFile, schema, recordReaderFactory);
 
         final CachedStatement cachedStatement = getStatement(sql, schema, statementBuilder);
         final PreparedStatement stmt = cachedStatement.getStatement();
         final FlowFileTable table = cachedStatement.getTable();
-        table.setFlowFile(session, flowFile);
+        table.setFlowFile(session, flowFile, subscription);
 
         final ResultSet rs;
         try {
@@ -570,6 +769,26 @@ public class QueryRecord extends AbstractProcessor {
         int getRecordsRead();
     }
 
+    private static class SharedScanQuery {
+        private final Relationship relationship;
+        private final String sql;
+        private final FlowFile flowFile;
+        private final OutputStream out;
+        private final SharedRecordScan.Subscription subscription;
+
+        private Future<?> future;
+        private volatile WriteResult writeResult;
+        private volatile String mimeType;
+
+        SharedScanQuery(final Relationship relationship, final String sql, final FlowFile flowFile, final OutputStream out, final SharedRecordScan.Subscription subscription) {
+            this.relationship = relationship;
+            this.sql = sql;
+            this.flowFile = flowFile;
+            this.out = out;
+            this.subscription = subscription;
+        }
+    }
+
     private static class CachedStatement {
         private final FlowFileTable table;
         private final PreparedStatement statement;
@@ -154,12 +154,12 @@ public class UpdateRecord extends AbstractRecordProcessor {
         final boolean evaluateValueAsRecordPath = context.getProperty(REPLACEMENT_VALUE_STRATEGY).getValue().equals(RECORD_PATH_VALUES.getValue());
 
         for (final String recordPathText : recordPaths) {
-            final RecordPath recordPath = recordPathCache.getCompiled(recordPathText);
+            final RecordPath recordPath = recordPathCache.getCompiled(recordPathText, record.getSchema());
             final RecordPathResult result = recordPath.evaluate(record);
 
             if (evaluateValueAsRecordPath) {
                 final String replacementValue = context.getProperty(recordPathText).evaluateAttributeExpressions(flowFile).getValue();
-                final RecordPath replacementRecordPath = recordPathCache.getCompiled(replacementValue);
+                final RecordPath replacementRecordPath = recordPathCache.getCompiled(replacementValue, record.getSchema());
 
                 // If we have an Absolute RecordPath, we need to evaluate the RecordPath only once against the Record.
                 // If the RecordPath is a Relative Path, then we have to evaluate it against each FieldValue.
@@ -36,6 +36,7 @@ public class FlowFileEnumerator implements Enumerator<Object> {
     private final FlowFile flowFile;
     private final ComponentLog logger;
     private final RecordReaderFactory recordParserFactory;
+    private final SharedRecordScan.Subscription subscription;
     private final int[] fields;
 
     private InputStream rawIn;
@@ -44,9 +45,18 @@ public class FlowFileEnumerator implements Enumerator<Object> {
     private int recordsRead = 0;
 
     public FlowFileEnumerator(final ProcessSession session, final FlowFile flowFile, final ComponentLog logger, final RecordReaderFactory parserFactory, final int[] fields) {
+        this(session, flowFile, logger, parserFactory, null, fields);
+    }
+
+    /**
+     * Creates an enumerator that obtains its Records from the given subscription, if it is not <code>null</code>, rather than by reading the FlowFile itself.
+     */
+    public FlowFileEnumerator(final ProcessSession session, final FlowFile flowFile, final ComponentLog logger, final RecordReaderFactory parserFactory,
+                              final SharedRecordScan.Subscription subscription, final int[] fields) {
         this.session = session;
         this.flowFile = flowFile;
         this.recordParserFactory = parserFactory;
+        this.subscription = subscription;
         this.logger = logger;
         this.fields = fields;
         reset();
@@ -61,7 +71,7 @@ public class FlowFileEnumerator implements Enumerator<Object> {
     public boolean moveNext() {
         currentRow = null;
         try {
-            final Record record = recordParser.nextRecord();
+            final Record record = subscription == null ? recordParser.nextRecord() : subscription.nextRecord();
             if (record == null) {
                 // If we are out of data, close the InputStream. We do this because
                 // Calcite does not necessarily call our close() method.
@@ -136,6 +146,15 @@ public class FlowFileEnumerator implements Enumerator<Object> {
 
     @Override
     public void reset() {
+        if (subscription != null) {
+            // Records that have been obtained from a shared scan cannot be obtained again.
+            if (recordsRead > 0) {
+                throw new ProcessException("Cannot read the Records of " + flowFile + " more than once when they are shared between queries");
+            }
+
+            return;
+        }
+
         if (rawIn != null) {
             try {
                 rawIn.close();
@@ -155,6 +174,11 @@ public class FlowFileEnumerator implements Enumerator<Object> {
 
     @Override
     public void close() {
+        if (subscription != null) {
+            subscription.cancel();
+            return;
+        }
+
         if (recordParser != null) {
             try {
                 recordParser.close();
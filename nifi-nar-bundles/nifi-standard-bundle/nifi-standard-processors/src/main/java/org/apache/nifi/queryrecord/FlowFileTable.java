@@ -37,6 +37,7 @@ import org.apache.calcite.util.Pair;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.serialization.RecordReaderFactory;
 import org.apache.nifi.serialization.record.DataType;
 import org.apache.nifi.serialization.record.Record;
@@ -65,6 +66,7 @@ public class FlowFileTable extends AbstractTable implements QueryableTable, Tran
     private volatile ProcessSession session;
     private volatile FlowFile flowFile;
     private volatile int maxRecordsRead;
+    private volatile SharedRecordScan.Subscription subscription;
 
     private final Set<FlowFileEnumerator> enumerators = new HashSet<>();
 
@@ -80,8 +82,17 @@ public class FlowFileTable extends AbstractTable implements QueryableTable, Tran
     }
 
     public void setFlowFile(final ProcessSession session, final FlowFile flowFile) {
+        setFlowFile(session, flowFile, null);
+    }
+
+    /**
+     * Sets the FlowFile that the table represents. If a subscription is given, the Records are obtained from it rather than by reading the FlowFile,
+     * in which case the table can be read only once.
+     */
+    public void setFlowFile(final ProcessSession session, final FlowFile flowFile, final SharedRecordScan.Subscription subscription) {
         this.session = session;
         this.flowFile = flowFile;
+        this.subscription = subscription;
         this.maxRecordsRead = 0;
     }
 
@@ -110,7 +121,12 @@ public class FlowFileTable extends AbstractTable implements QueryableTable, Tran
             @Override
             @SuppressWarnings({"unchecked", "rawtypes"})
             public Enumerator<Object> enumerator() {
-                final FlowFileEnumerator flowFileEnumerator = new FlowFileEnumerator(session, flowFile, logger, recordReaderFactory, fields) {
+                final SharedRecordScan.Subscription sharedSubscription = subscription;
+                if (sharedSubscription != null && !sharedSubscription.claim()) {
+                    throw new ProcessException("Cannot read the FLOWFILE table more than once when the Records of " + flowFile + " are shared between queries");
+                }
+
+                final FlowFileEnumerator flowFileEnumerator = new FlowFileEnumerator(session, flowFile, logger, recordReaderFactory, sharedSubscription, fields) {
                     @Override
                     protected void onFinish() {
                         final int recordCount = getRecordsRead();
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.queryrecord;
+
+import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.record.Record;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * Reads the Records of a FlowFile once and hands each of them to any number of subscribers, each of which is the FLOWFILE table of a
+ * different query. The subscribers consume the Records concurrently, each on its own thread. Records are handed off in batches, and only a
+ * few batches may be waiting for any one subscriber, so a subscriber that is slower than the others slows down the reading of the FlowFile
+ * rather than causing the FlowFile to be buffered in memory.
+ * </p>
+ *
+ * <p>
+ * A subscriber that stops reading before all Records have been read, such as a query with a LIMIT clause, must cancel its subscription so
+ * that the Records are no longer handed to it. Once every subscription has been cancelled, the rest of the FlowFile is not read at all.
+ * </p>
+ */
+public class SharedRecordScan {
+    static final int BATCH_SIZE = 256;
+    private static final int MAX_QUEUED_BATCHES = 4;
+    private static final long OFFER_MILLIS = 100L;
+
+    // compared by identity; a batch that is handed to subscribers is never empty
+    private static final List<Record> END_OF_RECORDS = new ArrayList<>(0);
+
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final AtomicBoolean scanned = new AtomicBoolean(false);
+    private volatile int recordsRead = 0;
+
+    /**
+     * Registers a new subscriber. All subscribers must be registered before the scan is started.
+     *
+     * @return the subscription from which the subscriber is to obtain the Records
+     */
+    public synchronized Subscription subscribe() {
+        if (scanned.get()) {
+            throw new IllegalStateException("Cannot subscribe to a scan that has already been started");
+        }
+
+        final Subscription subscription = new Subscription();
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Reads all Records from the given reader, handing each of them to all subscribers whose subscription has not been cancelled. Once this
+     * method returns or throws an Exception, every subscriber is notified that there are no more Records.
+     *
+     * @param reader the reader to obtain the Records from
+     * @return the number of Records that were read
+     * @throws IOException if unable to read from the underlying stream
+     * @throws MalformedRecordException if the underlying stream does not contain valid Records
+     */
+    public int scan(final RecordReader reader) throws IOException, MalformedRecordException {
+        if (!scanned.compareAndSet(false, true)) {
+            throw new IllegalStateException("Records have already been scanned");
+        }
+
+        Throwable failure = null;
+        try {
+            List<Record> batch = new ArrayList<>(BATCH_SIZE);
+            Record record;
+            while ((record = reader.nextRecord()) != null) {
+                batch.add(record);
+                recordsRead++;
+
+                if (batch.size() >= BATCH_SIZE) {
+                    if (!publish(batch)) {
+                        // No subscriber wants any more Records.
+                        return recordsRead;
+                    }
+
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                publish(batch);
+            }
+
+            return recordsRead;
+        } catch (final IOException | MalformedRecordException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            complete(failure);
+        }
+    }
+
+    /**
+     * Notifies every subscriber that is still waiting for Records that no more Records will be made available, because the FlowFile could
+     * not be read. This has no effect if the scan has already completed.
+     *
+     * @param cause the reason that the Records could not be read
+     */
+    public void abort(final Throwable cause) {
+        if (scanned.compareAndSet(false, true)) {
+            complete(cause);
+        }
+    }
+
+    /**
+     * @return the number of Records that have been read so far
+     */
+    public int getRecordsRead() {
+        return recordsRead;
+    }
+
+    private boolean publish(final List<Record> batch) {
+        boolean published = false;
+        for (final Subscription subscription : subscriptions) {
+            published |= subscription.offer(batch);
+        }
+
+        return published;
+    }
+
+    private void complete(final Throwable failure) {
+        for (final Subscription subscription : subscriptions) {
+            subscription.complete(failure);
+        }
+    }
+
+
+    /**
+     * The Records of a {@link SharedRecordScan} that are destined for a single subscriber. A subscription may be read only once, by a single thread.
+     */
+    public static class Subscription {
+        private final BlockingQueue<List<Record>> queue = new ArrayBlockingQueue<>(MAX_QUEUED_BATCHES);
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        private volatile boolean cancelled = false;
+        private volatile Throwable failure;
+
+        private Iterator<Record> currentBatch = Collections.emptyIterator();
+        private boolean finished = false;
+
+        /**
+         * Claims the subscription for a reader. A subscription can be claimed only once, because the Records that it has handed out cannot be
+         * handed out again.
+         *
+         * @return <code>true</code> if the subscription was claimed, <code>false</code> if it had already been claimed
+         */
+        public boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * Returns the next Record, waiting for it to be read if necessary
+         *
+         * @return the next Record, or <code>null</code> if all Records have been read
+         * @throws IOException if the Records could not be read, or if interrupted while waiting for the next Record
+         */
+        public Record nextRecord() throws IOException {
+            while (!currentBatch.hasNext()) {
+                if (finished) {
+                    return null;
+                }
+
+                final List<Record> batch;
+                try {
+                    batch = queue.take();
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for Records to be read", ie);
+                }
+
+                if (batch == END_OF_RECORDS) {
+                    finished = true;
+                    if (failure != null) {
+                        throw new IOException("Failed to read Records", failure);
+                    }
+
+                    return null;
+                }
+
+                currentBatch = batch.iterator();
+            }
+
+            return currentBatch.next();
+        }
+
+        /**
+         * Indicates that no more Records are wanted from this subscription
+         */
+        public void cancel() {
+            cancelled = true;
+            queue.clear();
+        }
+
+        private boolean offer(final List<Record> batch) {
+            try {
+                while (!cancelled) {
+                    if (queue.offer(batch, OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new ProcessException("Interrupted while handing Records to query", ie);
+            }
+
+            return false;
+        }
+
+        private void complete(final Throwable cause) {
+            this.failure = cause;
+
+            // The subscriber is either reading from the queue, in which case it will make room for the marker, or it has cancelled the subscription.
+            boolean interrupted = false;
+            while (!cancelled) {
+                try {
+                    if (queue.offer(END_OF_RECORDS, OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                } catch (final InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -1061,6 +1061,157 @@ public class TestQueryRecord {
         countFlowFile.assertContentEquals("2\n");
     }
 
+    @Test
+    public void testSharedScanMultipleQueries() throws InitializationException {
+        final MockRecordParser parser = new MockRecordParser();
+        parser.addSchemaField("name", RecordFieldType.STRING);
+        parser.addSchemaField("points", RecordFieldType.INT);
+        for (int i = 0; i < 1000; i++) {
+            parser.addRecord(i % 2 == 0 ? "Tom" : "Jerry", i);
+        }
+
+        final MockRecordWriter writer = new MockRecordWriter(null, false);
+
+        TestRunner runner = getRunner();
+        runner.addControllerService("parser", parser);
+        runner.enableControllerService(parser);
+        runner.addControllerService("writer", writer);
+        runner.enableControllerService(writer);
+
+        runner.setProperty(QueryRecord.SHARED_SCAN, "true");
+        runner.setProperty("tom", "select count(*) as c from FLOWFILE where name = 'Tom'");
+        runner.setProperty("total", "select sum(points) as total from FLOWFILE");
+        runner.setProperty("first", "select points from FLOWFILE LIMIT 2");
+        runner.setProperty("none", "select name from FLOWFILE where points < 0");
+        runner.setProperty(QueryRecord.RECORD_READER_FACTORY, "parser");
+        runner.setProperty(QueryRecord.RECORD_WRITER_FACTORY, "writer");
+
+        runner.enqueue("");
+        runner.enqueue("");
+        runner.run(2);
+
+        runner.assertTransferCount(QueryRecord.REL_ORIGINAL, 2);
+        runner.assertTransferCount(QueryRecord.REL_FAILURE, 0);
+        for (final MockFlowFile flowFile : runner.getFlowFilesForRelationship("tom")) {
+            flowFile.assertContentEquals("500\n");
+        }
+        for (final MockFlowFile flowFile : runner.getFlowFilesForRelationship("total")) {
+            flowFile.assertContentEquals("499500\n");
+        }
+        for (final MockFlowFile flowFile : runner.getFlowFilesForRelationship("first")) {
+            flowFile.assertContentEquals("0\n1\n");
+            flowFile.assertAttributeEquals("record.count", "2");
+        }
+        for (final MockFlowFile flowFile : runner.getFlowFilesForRelationship("none")) {
+            flowFile.assertAttributeEquals("record.count", "0");
+        }
+
+        runner.assertTransferCount("tom", 2);
+        runner.assertTransferCount("total", 2);
+        runner.assertTransferCount("first", 2);
+        runner.assertTransferCount("none", 2);
+    }
+
+    @Test
+    public void testSharedScanWithConcurrentTasks() throws InitializationException {
+        final MockRecordParser parser = new MockRecordParser();
+        parser.addSchemaField("name", RecordFieldType.STRING);
+        parser.addSchemaField("points", RecordFieldType.INT);
+        for (int i = 0; i < 1000; i++) {
+            parser.addRecord(i % 2 == 0 ? "Tom" : "Jerry", i);
+        }
+
+        final MockRecordWriter writer = new MockRecordWriter(null, false);
+
+        TestRunner runner = getRunner();
+        runner.addControllerService("parser", parser);
+        runner.enableControllerService(parser);
+        runner.addControllerService("writer", writer);
+        runner.enableControllerService(writer);
+
+        runner.setProperty(QueryRecord.SHARED_SCAN, "true");
+        runner.setProperty("tom", "select count(*) as c from FLOWFILE where name = 'Tom'");
+        runner.setProperty("total", "select sum(points) as total from FLOWFILE");
+        runner.setProperty(QueryRecord.RECORD_READER_FACTORY, "parser");
+        runner.setProperty(QueryRecord.RECORD_WRITER_FACTORY, "writer");
+
+        // The shared scan executor has exactly one thread for each query of each concurrent task
+        runner.setThreadCount(3);
+        for (int i = 0; i < 12; i++) {
+            runner.enqueue("");
+        }
+        runner.run(12);
+
+        runner.assertTransferCount(QueryRecord.REL_ORIGINAL, 12);
+        runner.assertTransferCount(QueryRecord.REL_FAILURE, 0);
+        runner.assertTransferCount("tom", 12);
+        runner.assertTransferCount("total", 12);
+        for (final MockFlowFile flowFile : runner.getFlowFilesForRelationship("tom")) {
+            flowFile.assertContentEquals("500\n");
+        }
+        for (final MockFlowFile flowFile : runner.getFlowFilesForRelationship("total")) {
+            flowFile.assertContentEquals("499500\n");
+        }
+    }
+
+    @Test
+    public void testSharedScanQueryReadingTableTwice() throws InitializationException {
+        final MockRecordParser parser = new MockRecordParser();
+        parser.addSchemaField("name", RecordFieldType.STRING);
+        parser.addSchemaField("points", RecordFieldType.INT);
+        parser.addRecord("Tom", 1);
+        parser.addRecord("Jerry", 2);
+
+        final MockRecordWriter writer = new MockRecordWriter(null, false);
+
+        TestRunner runner = getRunner();
+        runner.addControllerService("parser", parser);
+        runner.enableControllerService(parser);
+        runner.addControllerService("writer", writer);
+        runner.enableControllerService(writer);
+
+        runner.setProperty(QueryRecord.SHARED_SCAN, "true");
+        runner.setProperty(REL_NAME, "select name from FLOWFILE");
+        runner.setProperty("above", "select name from FLOWFILE where points > (select avg(points) from FLOWFILE)");
+        runner.setProperty(QueryRecord.RECORD_READER_FACTORY, "parser");
+        runner.setProperty(QueryRecord.RECORD_WRITER_FACTORY, "writer");
+
+        runner.enqueue("");
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(QueryRecord.REL_FAILURE, 1);
+    }
+
+    @Test
+    public void testSharedScanParseFailure() throws InitializationException {
+        final MockRecordParser parser = new MockRecordParser();
+        parser.failAfter(600);
+        parser.addSchemaField("name", RecordFieldType.STRING);
+        parser.addSchemaField("points", RecordFieldType.INT);
+        for (int i = 0; i < 1000; i++) {
+            parser.addRecord("Tom", i);
+        }
+
+        final MockRecordWriter writer = new MockRecordWriter(null, false);
+
+        TestRunner runner = getRunner();
+        runner.addControllerService("parser", parser);
+        runner.enableControllerService(parser);
+        runner.addControllerService("writer", writer);
+        runner.enableControllerService(writer);
+
+        runner.setProperty(QueryRecord.SHARED_SCAN, "true");
+        runner.setProperty(REL_NAME, "select name from FLOWFILE");
+        runner.setProperty("count", "select count(*) as c from FLOWFILE");
+        runner.setProperty(QueryRecord.RECORD_READER_FACTORY, "parser");
+        runner.setProperty(QueryRecord.RECORD_WRITER_FACTORY, "writer");
+
+        runner.enqueue("");
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(QueryRecord.REL_FAILURE, 1);
+    }
+
     @Test
     public void testColumnNames() throws InitializationException {
         final MockRecordParser parser = new MockRecordParser();